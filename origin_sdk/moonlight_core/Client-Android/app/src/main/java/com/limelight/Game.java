@@ -3,10 +3,13 @@ package com.limelight;
 import com.limelight.binding.PlatformBinding;
 import com.limelight.binding.audio.AndroidAudioRenderer;
 import com.limelight.binding.audio.AudioDiagnostics;
+import com.limelight.binding.audio.AudioLatencyStats;
 import com.limelight.binding.audio.MicrophoneManager;
 import com.limelight.binding.input.ControllerHandler;
 import com.limelight.binding.input.GameInputDevice;
 import com.limelight.binding.input.KeyboardTranslator;
+import com.limelight.binding.input.MotionSampleWalker;
+import com.limelight.binding.input.MotionSamples;
 import com.limelight.binding.input.advance_setting.ControllerManager;
 import com.limelight.binding.input.advance_setting.TouchController;
 import com.limelight.binding.input.capture.InputCaptureManager;
@@ -14,6 +17,7 @@ import com.limelight.binding.input.capture.InputCaptureProvider;
 import com.limelight.binding.input.touch.AbsoluteTouchContext;
 import com.limelight.binding.input.touch.LocalCursorRenderer;
 import com.limelight.binding.input.touch.NativeTouchContext;
+import com.limelight.binding.input.touch.NativeTouchPointerTable;
 import com.limelight.binding.input.touch.RelativeTouchContext;
 import com.limelight.binding.input.driver.UsbDriverService;
 import com.limelight.binding.input.evdev.EvdevListener;
@@ -30,6 +34,7 @@ import com.limelight.nvstream.StreamConfiguration;
 import com.limelight.nvstream.http.ComputerDetails;
 import com.limelight.nvstream.http.NvApp;
 import com.limelight.nvstream.http.NvHTTP;
+import com.limelight.nvstream.input.InputLatencyStats;
 import com.limelight.nvstream.input.KeyboardPacket;
 import com.limelight.nvstream.input.MouseButtonPacket;
 import com.limelight.nvstream.jni.MoonBridge;
@@ -216,7 +221,8 @@ public class Game extends Activity implements SurfaceHolder.Callback,
 
     private WifiManager.WifiLock highPerfWifiLock;
     private WifiManager.WifiLock lowLatencyWifiLock;
-    private Map<Integer, NativeTouchContext.Pointer> nativeTouchPointerMap = new HashMap<>();
+    private final NativeTouchPointerTable nativeTouchPointers = new NativeTouchPointerTable();
+    private final MotionSamples.EventSamples motionSamples = new MotionSamples.EventSamples();
     private String currentHostAddress; // 保存当前连接的IP
     private boolean shouldResumeSession = false;
 
@@ -592,6 +598,9 @@ public class Game extends Activity implements SurfaceHolder.Callback,
                 new ComputerDetails.AddressTuple(host, port),
                 httpsPort, uniqueId, pairName, config,
                 PlatformBinding.getCryptoProvider(this), serverCert, displayName);
+        conn.getInputBatch().setMouseFlushMode(prefConfig.mouseFlushMode);
+        InputLatencyStats.reset();
+        AudioLatencyStats.reset();
         controllerHandler = new ControllerHandler(this, conn, this, prefConfig);
         keyboardTranslator = new KeyboardTranslator();
 
@@ -959,6 +968,9 @@ public class Game extends Activity implements SurfaceHolder.Callback,
                 new ComputerDetails.AddressTuple(host, port),
                 httpsPort, uniqueId, pairName, config,
                 PlatformBinding.getCryptoProvider(this), serverCert);
+        conn.getInputBatch().setMouseFlushMode(prefConfig.mouseFlushMode);
+        InputLatencyStats.reset();
+        AudioLatencyStats.reset();
         controllerHandler = new ControllerHandler(this, conn, this, prefConfig);
 
         // 重新创建 ControllerHandler
@@ -1710,6 +1722,11 @@ public class Game extends Activity implements SurfaceHolder.Callback,
             service.setKeyEventCallback(null);
         }
 
+        // 编辑王冠布局时的修改是延迟写入的，进入后台或退出前全部提交
+        if (controllerManager != null) {
+            controllerManager.flushPendingEdits();
+        }
+
         if (isFinishing()) {
             // Stop any further input device notifications before we lose focus (and pointer capture)
             if (controllerHandler != null) {
@@ -1769,6 +1786,18 @@ public class Game extends Activity implements SurfaceHolder.Callback,
             displayedFailureDialog = true;
             stopConnection();
 
+            // 写入本次会话的音频延迟报告
+            AudioLatencyStats.reportStatistics();
+            InputLatencyStats.reportStatistics();
+            LocalCursorRenderer.reportStatistics(decoderRenderer.getAverageEndToEndLatency());
+            LimeLog.info(conn.getInputBatch().getSummary());
+            if (controllerManager != null) {
+                String gamepadEmitSummary = controllerManager.getGamepadEmitSummary();
+                if (gamepadEmitSummary != null) {
+                    LimeLog.info(gamepadEmitSummary);
+                }
+            }
+
             if (prefConfig.enableLatencyToast) {
                 int averageEndToEndLat = decoderRenderer.getAverageEndToEndLatency();
                 int averageDecoderLat = decoderRenderer.getAverageDecoderLatency();
@@ -1799,6 +1828,20 @@ public class Game extends Activity implements SurfaceHolder.Callback,
                     }
                 }
 
+                // Add audio pipeline latency percentiles
+                String audioLatencyStats = AudioLatencyStats.getSummary();
+                if (message != null) {
+                    message += "\n" + audioLatencyStats;
+                } else {
+                    message = audioLatencyStats;
+                }
+
+                // Add input path latency percentiles
+                String inputLatencyStats = InputLatencyStats.getSummary();
+                if (!inputLatencyStats.isEmpty()) {
+                    message += "\n" + inputLatencyStats;
+                }
+
                 // Add precise-sync mode frame skip statistics
                 String surfaceFlingerStats = decoderRenderer.getSurfaceFlingerStats();
                 if (surfaceFlingerStats != null) {
@@ -2383,15 +2426,13 @@ public class Game extends Activity implements SurfaceHolder.Callback,
      * getStreamViewRelativeNormalizedXY
      * 正确地处理了视图的平移(Pan)和缩放(Zoom)。
      */
-    private float[] getStreamViewRelativeNormalizedXY(View view, MotionEvent event, int pointerIndex) {
+    private float[] getStreamViewRelativeNormalizedXY(View view, float rawX, float rawY) {
         StreamView activeStreamView = getActiveStreamView();
         if (activeStreamView == null) {
             return new float[]{0.0f, 0.0f};
         }
 
-        // --- 第一步：获取原始屏幕坐标 ---
-        float rawX = event.getX(pointerIndex);
-        float rawY = event.getY(pointerIndex);
+        // --- 第一步：rawX/rawY为原始屏幕坐标，可能来自历史采样 ---
 
         // --- 第二步：进行正确的坐标逆变换（同时处理平移和缩放）---
         float scaleX = activeStreamView.getScaleX();
@@ -2428,7 +2469,7 @@ public class Game extends Activity implements SurfaceHolder.Callback,
         return (value - range.getMin()) / range.getRange();
     }
 
-    private static float getPressureOrDistance(MotionEvent event, int pointerIndex) {
+    private static float getPressureOrDistance(MotionEvent event, int pointerIndex, int samplePos) {
         InputDevice dev = event.getDevice();
         switch (event.getActionMasked()) {
             case MotionEvent.ACTION_HOVER_ENTER:
@@ -2438,22 +2479,22 @@ public class Game extends Activity implements SurfaceHolder.Callback,
                 if (dev != null) {
                     InputDevice.MotionRange distanceRange = dev.getMotionRange(MotionEvent.AXIS_DISTANCE, event.getSource());
                     if (distanceRange != null) {
-                        return normalizeValueInRange(event.getAxisValue(MotionEvent.AXIS_DISTANCE, pointerIndex), distanceRange);
+                        return normalizeValueInRange(MotionSamples.getAxisValue(event, MotionEvent.AXIS_DISTANCE, pointerIndex, samplePos), distanceRange);
                     }
                 }
                 return 0.0f;
 
             default:
                 // Other events report pressure
-                return event.getPressure(pointerIndex);
+                return MotionSamples.getPressure(event, pointerIndex, samplePos);
         }
     }
 
-    private static short getRotationDegrees(MotionEvent event, int pointerIndex) {
+    private static short getRotationDegrees(MotionEvent event, int pointerIndex, int samplePos) {
         InputDevice dev = event.getDevice();
         if (dev != null) {
             if (dev.getMotionRange(MotionEvent.AXIS_ORIENTATION, event.getSource()) != null) {
-                short rotationDegrees = (short) Math.toDegrees(event.getOrientation(pointerIndex));
+                short rotationDegrees = (short) Math.toDegrees(MotionSamples.getOrientation(event, pointerIndex, samplePos));
                 if (rotationDegrees < 0) {
                     rotationDegrees += 360;
                 }
@@ -2471,7 +2512,7 @@ public class Game extends Activity implements SurfaceHolder.Callback,
         return (float) Math.sqrt(Math.pow(point[0], 2) + Math.pow(point[1], 2));
     }
 
-    private float[] getStreamViewNormalizedContactArea(MotionEvent event, int pointerIndex) {
+    private float[] getStreamViewNormalizedContactArea(MotionEvent event, int pointerIndex, int samplePos) {
         float orientation;
 
         // If the orientation is unknown, we'll just assume it's at a 45 degree angle and scale it by
@@ -2479,7 +2520,7 @@ public class Game extends Activity implements SurfaceHolder.Callback,
         if (event.getDevice() == null || event.getDevice().getMotionRange(MotionEvent.AXIS_ORIENTATION, event.getSource()) == null) {
             orientation = (float) (Math.PI / 4);
         } else {
-            orientation = event.getOrientation(pointerIndex);
+            orientation = MotionSamples.getOrientation(event, pointerIndex, samplePos);
         }
 
         float contactAreaMajor, contactAreaMinor;
@@ -2488,14 +2529,14 @@ public class Game extends Activity implements SurfaceHolder.Callback,
             case MotionEvent.ACTION_HOVER_ENTER:
             case MotionEvent.ACTION_HOVER_MOVE:
             case MotionEvent.ACTION_HOVER_EXIT:
-                contactAreaMajor = event.getToolMajor(pointerIndex);
-                contactAreaMinor = event.getToolMinor(pointerIndex);
+                contactAreaMajor = MotionSamples.getToolMajor(event, pointerIndex, samplePos);
+                contactAreaMinor = MotionSamples.getToolMinor(event, pointerIndex, samplePos);
                 break;
 
             // Other events report contact area
             default:
-                contactAreaMajor = event.getTouchMajor(pointerIndex);
-                contactAreaMinor = event.getTouchMinor(pointerIndex);
+                contactAreaMajor = MotionSamples.getTouchMajor(event, pointerIndex, samplePos);
+                contactAreaMinor = MotionSamples.getTouchMinor(event, pointerIndex, samplePos);
                 break;
         }
 
@@ -2518,6 +2559,13 @@ public class Game extends Activity implements SurfaceHolder.Callback,
     }
 
     private boolean sendPenEventForPointer(View view, MotionEvent event, byte eventType, byte toolType, int pointerIndex) {
+        return sendPenEventForSample(view, event, eventType, toolType, pointerIndex, MotionSamples.CURRENT,
+                event.getX(pointerIndex), event.getY(pointerIndex),
+                getPressureOrDistance(event, pointerIndex, MotionSamples.CURRENT));
+    }
+
+    private boolean sendPenEventForSample(View view, MotionEvent event, byte eventType, byte toolType, int pointerIndex, int samplePos,
+                                          float rawX, float rawY, float pressureOrDistance) {
         byte penButtons = 0;
         if ((event.getButtonState() & MotionEvent.BUTTON_STYLUS_PRIMARY) != 0) {
             penButtons |= MoonBridge.LI_PEN_BUTTON_PRIMARY;
@@ -2530,17 +2578,17 @@ public class Game extends Activity implements SurfaceHolder.Callback,
         InputDevice dev = event.getDevice();
         if (dev != null) {
             if (dev.getMotionRange(MotionEvent.AXIS_TILT, event.getSource()) != null) {
-                tiltDegrees = (byte) Math.toDegrees(event.getAxisValue(MotionEvent.AXIS_TILT, pointerIndex));
+                tiltDegrees = (byte) Math.toDegrees(MotionSamples.getAxisValue(event, MotionEvent.AXIS_TILT, pointerIndex, samplePos));
             }
         }
 
-        float[] normalizedCoords = getStreamViewRelativeNormalizedXY(view, event, pointerIndex);
-        float[] normalizedContactArea = getStreamViewNormalizedContactArea(event, pointerIndex);
+        float[] normalizedCoords = getStreamViewRelativeNormalizedXY(view, rawX, rawY);
+        float[] normalizedContactArea = getStreamViewNormalizedContactArea(event, pointerIndex, samplePos);
         return conn.sendPenEvent(eventType, toolType, penButtons,
                 normalizedCoords[0], normalizedCoords[1],
-                getPressureOrDistance(event, pointerIndex),
+                pressureOrDistance,
                 normalizedContactArea[0], normalizedContactArea[1],
-                getRotationDegrees(event, pointerIndex), tiltDegrees) != MoonBridge.LI_ERR_UNSUPPORTED;
+                getRotationDegrees(event, pointerIndex, samplePos), tiltDegrees) != MoonBridge.LI_ERR_UNSUPPORTED;
     }
 
     private static byte convertToolTypeToStylusToolType(MotionEvent event, int pointerIndex) {
@@ -2575,13 +2623,13 @@ public class Game extends Activity implements SurfaceHolder.Callback,
 
                 // 为触控笔事件添加增强触控支持
                 if (prefConfig.enableEnhancedTouch) {
-                    NativeTouchContext.Pointer pointer = nativeTouchPointerMap.get(event.getPointerId(i));
-                    if (pointer != null) {
-                        pointer.updatePointerCoords(event, i); // 更新指针坐标
-                    }
+                    nativeTouchPointers.update(event, i); // 更新指针坐标
                 }
 
-                if (!sendPenEventForPointer(view, event, eventType, toolType, i)) {
+                // 按时间顺序转发所有历史采样，保留笔画的中间轨迹
+                if (!MotionSampleWalker.forEachSample(motionSamples.set(event), i,
+                        (pointerIndex, samplePos, eventTime, x, y, pressure) ->
+                                sendPenEventForSample(view, event, eventType, toolType, pointerIndex, samplePos, x, y, pressure))) {
                     // Pen events aren't supported by the host
                     return false;
                 }
@@ -2607,22 +2655,18 @@ public class Game extends Activity implements SurfaceHolder.Callback,
                     case MotionEvent.ACTION_POINTER_DOWN:
                     case MotionEvent.ACTION_DOWN:
                     case MotionEvent.ACTION_HOVER_ENTER:
-                        // 创建新的Pointer实例
-                        NativeTouchContext.Pointer pointer = new NativeTouchContext.Pointer(event);
-                        nativeTouchPointerMap.put(pointer.getPointerId(), pointer);
+                        // 占用该指针ID对应的槽位
+                        nativeTouchPointers.add(event);
                         break;
                     case MotionEvent.ACTION_POINTER_UP:
                     case MotionEvent.ACTION_UP:
                     case MotionEvent.ACTION_HOVER_EXIT:
-                        // 移除Pointer实例
-                        nativeTouchPointerMap.remove(event.getPointerId(actionIndex));
+                        // 释放槽位
+                        nativeTouchPointers.remove(event.getPointerId(actionIndex));
                         break;
                     case MotionEvent.ACTION_HOVER_MOVE:
                         // 更新悬空指针的坐标
-                        NativeTouchContext.Pointer hoverPointer = nativeTouchPointerMap.get(event.getPointerId(actionIndex));
-                        if (hoverPointer != null) {
-                            hoverPointer.updatePointerCoords(event, actionIndex);
-                        }
+                        nativeTouchPointers.update(event, actionIndex);
                         break;
                 }
             }
@@ -2632,13 +2676,20 @@ public class Game extends Activity implements SurfaceHolder.Callback,
     }
 
     private boolean sendTouchEventForPointer(View view, MotionEvent event, byte eventType, int pointerIndex) {
-        float[] normalizedCoords = getStreamViewRelativeNormalizedXY(view, event, pointerIndex); // normalized Coords就是坐标占长或宽的比例，最小0，最大1
-        float[] normalizedContactArea = getStreamViewNormalizedContactArea(event, pointerIndex);
+        return sendTouchEventForSample(view, event, eventType, pointerIndex, MotionSamples.CURRENT,
+                event.getX(pointerIndex), event.getY(pointerIndex),
+                getPressureOrDistance(event, pointerIndex, MotionSamples.CURRENT));
+    }
+
+    private boolean sendTouchEventForSample(View view, MotionEvent event, byte eventType, int pointerIndex, int samplePos,
+                                            float rawX, float rawY, float pressureOrDistance) {
+        float[] normalizedCoords = getStreamViewRelativeNormalizedXY(view, rawX, rawY); // normalized Coords就是坐标占长或宽的比例，最小0，最大1
+        float[] normalizedContactArea = getStreamViewNormalizedContactArea(event, pointerIndex, samplePos);
         return conn.sendTouchEvent(eventType, event.getPointerId(pointerIndex),
                 normalizedCoords[0], normalizedCoords[1],
-                getPressureOrDistance(event, pointerIndex),
+                pressureOrDistance,
                 normalizedContactArea[0], normalizedContactArea[1],
-                getRotationDegrees(event, pointerIndex)) != MoonBridge.LI_ERR_UNSUPPORTED;
+                getRotationDegrees(event, pointerIndex, samplePos)) != MoonBridge.LI_ERR_UNSUPPORTED;
     }
 
     private boolean trySendTouchEvent(View view, MotionEvent event) {
@@ -2652,23 +2703,16 @@ public class Game extends Activity implements SurfaceHolder.Callback,
             int pointerCount = event.getPointerCount();
             if (prefConfig.enableEnhancedTouch) {
                 for (int i = 0; i < pointerCount; i++) {
-                    NativeTouchContext.Pointer pointer = nativeTouchPointerMap.get(event.getPointerId(i));
-                    if (pointer != null) {
-                        pointer.updatePointerCoords(event, i); // 更新指针坐标
-                    }
-                    if (!sendTouchEventForPointer(view, event, eventType, i)) {
-                        return false;
-                    }
-                }
-            } else {
-                for (int i = 0; i < pointerCount; i++) {
-                    if (!sendTouchEventForPointer(view, event, eventType, i)) {
-                        return false;
-                    }
+                    nativeTouchPointers.update(event, i); // 更新指针坐标
                 }
             }
-            return true;
+
+            // 按时间顺序转发所有历史采样，快速滑动时不丢失中间轨迹
+            return MotionSampleWalker.forEachSample(motionSamples.set(event),
+                    (pointerIndex, samplePos, eventTime, x, y, pressure) ->
+                            sendTouchEventForSample(view, event, eventType, pointerIndex, samplePos, x, y, pressure));
         } else if (event.getActionMasked() == MotionEvent.ACTION_CANCEL) {
+            nativeTouchPointers.clear();
             // Cancel impacts all active pointers
             return conn.sendTouchEvent(MoonBridge.LI_TOUCH_EVENT_CANCEL_ALL, 0,
                     0, 0, 0, 0, 0,
@@ -2680,8 +2724,7 @@ public class Game extends Activity implements SurfaceHolder.Callback,
                     multiFingerTapChecker(event);
                 case MotionEvent.ACTION_DOWN: // first & following finger down.
                     if (prefConfig.enableEnhancedTouch) {
-                        NativeTouchContext.Pointer pointer = new NativeTouchContext.Pointer(event); //create a Pointer Instance for new touch pointer, put it into the map.
-                        nativeTouchPointerMap.put(pointer.getPointerId(), pointer);
+                        nativeTouchPointers.add(event); // take the table slot of the new touch pointer, reusing its Pointer object.
                     }
                     break;
                 case MotionEvent.ACTION_UP: // all fingers up
@@ -2689,10 +2732,11 @@ public class Game extends Activity implements SurfaceHolder.Callback,
                     if (event.getEventTime() - multiFingerDownTime < MULTI_FINGER_TAP_THRESHOLD) {
                         toggleKeyboard();
                     }
+                    nativeTouchPointers.clear();
                     break;
                 case MotionEvent.ACTION_POINTER_UP:
                     if (prefConfig.enableEnhancedTouch) {
-                        nativeTouchPointerMap.remove(event.getPointerId(actionIndex));
+                        nativeTouchPointers.remove(event.getPointerId(actionIndex));
                     }
                     break;
             }
@@ -2741,6 +2785,14 @@ public class Game extends Activity implements SurfaceHolder.Callback,
     // Returns true if the event was consumed
     // NB: View is only present if called from a view callback
     private boolean handleMotionEvent(View view, MotionEvent event) {
+        try {
+            return handleMotionEventInternal(view, event);
+        } finally {
+            InputLatencyStats.endDispatch();
+        }
+    }
+
+    private boolean handleMotionEventInternal(View view, MotionEvent event) {
         // Pass through mouse/touch/joystick input if we're not grabbing
         if (!grabbedInput) {
             return false;
@@ -2749,6 +2801,15 @@ public class Game extends Activity implements SurfaceHolder.Callback,
         int eventSource = event.getSource();
         int deviceSources = event.getDevice() != null ? event.getDevice().getSources() : 0;
 
+        // 记录输入事件到达分发的延迟，手柄事件由ControllerHandler记录
+        if ((eventSource & InputDevice.SOURCE_CLASS_JOYSTICK) == 0) {
+            boolean isMouse = eventSource == InputDevice.SOURCE_MOUSE_RELATIVE ||
+                    (event.getPointerCount() > 0 && event.getToolType(0) == MotionEvent.TOOL_TYPE_MOUSE);
+            InputLatencyStats.recordDispatch(
+                    isMouse ? InputLatencyStats.SOURCE_MOUSE : InputLatencyStats.SOURCE_TOUCH,
+                    InputLatencyStats.getEventTimeNanos(event));
+        }
+
         // 本地鼠标指针模式的特殊处理
         if (prefConfig.enableNativeMousePointer && (eventSource & InputDevice.SOURCE_CLASS_POINTER) != 0) {
             // 检查是否为真正的鼠标设备（而不是触摸屏）
@@ -4140,6 +4201,28 @@ public class Game extends Activity implements SurfaceHolder.Callback,
         conn.sendMouseMove((short) deltaX, (short) deltaY);
     }
 
+    @Override
+    public void mouseReport(int deltaX, int deltaY, int changedButtons, int pressedButtons,
+                            byte vScroll, byte hScroll) {
+        if (changedButtons != 0) {
+            for (int buttonId = EvdevListener.BUTTON_LEFT; buttonId <= EvdevListener.BUTTON_X2; buttonId++) {
+                int bit = 1 << buttonId;
+                if ((changedButtons & bit) != 0) {
+                    mouseButtonEvent(buttonId, (pressedButtons & bit) != 0);
+                }
+            }
+        }
+        if (deltaX != 0 || deltaY != 0) {
+            conn.sendMouseMove((short) deltaX, (short) deltaY);
+        }
+        if (vScroll != 0) {
+            conn.sendMouseScroll(vScroll);
+        }
+        if (hScroll != 0) {
+            conn.sendMouseHScroll(hScroll);
+        }
+    }
+
     @Override
     public void mouseButtonEvent(int buttonId, boolean down) {
         byte buttonIndex;
@@ -4219,6 +4302,12 @@ public class Game extends Activity implements SurfaceHolder.Callback,
         if (performanceOverlayManager != null) {
             performanceOverlayManager.updatePerformanceInfo(performanceInfo);
         }
+
+        // 根据视频流丢包率和RTT调整麦克风编码参数
+        MicrophoneManager micManager = microphoneManager;
+        if (micManager != null) {
+            micManager.onNetworkStats(performanceInfo.lostFrameRate, performanceInfo.rttInfo);
+        }
     }
 
     @Override
@@ -4494,6 +4583,10 @@ public class Game extends Activity implements SurfaceHolder.Callback,
         return controllerHandler;
     }
 
+    public PreferenceConfiguration getPrefConfig() {
+        return prefConfig;
+    }
+
     public void addPerformanceInfoDisplay(PerformanceInfoDisplay performanceInfoDisplay) {
         performanceInfoDisplays.add(performanceInfoDisplay);
     }
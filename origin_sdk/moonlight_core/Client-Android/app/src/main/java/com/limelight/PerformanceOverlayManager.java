@@ -30,7 +30,9 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.TimeZone;
 
+import com.limelight.binding.audio.AudioLatencyStats;
 import com.limelight.binding.video.PerformanceInfo;
+import com.limelight.nvstream.input.InputLatencyStats;
 import com.limelight.preferences.PerfOverlayDisplayItemsPreference;
 import com.limelight.preferences.PreferenceConfiguration;
 import com.limelight.ui.StreamView;
@@ -1260,7 +1262,13 @@ public class PerformanceOverlayManager {
     }
 
     private void showNetworkLatencyInfo() {
-        showPerformanceInfo(R.string.perf_network_latency_title, R.string.perf_network_latency_info);
+        // 附带音频管线与输入路径延迟，便于区分网络延迟与本地缓冲、主线程卡顿
+        String inputLatency = InputLatencyStats.getSummary();
+        showInfoDialog(
+                activity.getString(R.string.perf_network_latency_title),
+                activity.getString(R.string.perf_network_latency_info) + "\n\n" + AudioLatencyStats.getSummary() +
+                        (inputLatency.isEmpty() ? "" : "\n\n" + inputLatency)
+        );
     }
 
     private void showDecodeLatencyInfo() {
@@ -5,6 +5,7 @@ import android.content.Intent;
 import android.media.AudioAttributes;
 import android.media.AudioFormat;
 import android.media.AudioManager;
+import android.media.AudioTimestamp;
 import android.media.AudioTrack;
 import android.media.Spatializer;
 import android.media.audiofx.AudioEffect;
@@ -23,6 +24,17 @@ public class AndroidAudioRenderer implements AudioRenderer {
     private AudioTrack track;
     private Spatializer spatializer;
 
+    // Only queue up to 40 ms of pending audio data in addition to what AudioTrack is buffering for us
+    private static final int MAX_PENDING_AUDIO_MS = 40;
+
+    // Output latency tracking (only touched on the audio decoder thread)
+    private static final int OUTPUT_LATENCY_SAMPLE_INTERVAL = 25;
+    private final AudioTimestamp playbackTimestamp = new AudioTimestamp();
+    private int sampleRate;
+    private int channelCount;
+    private long framesWritten;
+    private int writesSinceLatencySample;
+
     public AndroidAudioRenderer(Context context, boolean enableAudioFx, boolean enableSpatializer) {
         this.context = context;
         this.enableAudioFx = enableAudioFx;
@@ -105,6 +117,15 @@ public class AndroidAudioRenderer implements AudioRenderer {
 
         bytesPerFrame = audioConfiguration.channelCount * samplesPerFrame * 2;
 
+        this.sampleRate = sampleRate;
+        this.channelCount = audioConfiguration.channelCount;
+        this.framesWritten = 0;
+        this.writesSinceLatencySample = 0;
+        AudioLatencyStats.resetPlayback();
+
+        // Packets beyond this budget are dropped natively before they are decoded
+        MoonBridge.setAudioLatencyBudget(MAX_PENDING_AUDIO_MS);
+
         // We're not supposed to request less than the minimum
         // buffer size for our buffer, but it appears that we can
         // do this on many devices and it lowers audio latency.
@@ -227,16 +248,40 @@ public class AndroidAudioRenderer implements AudioRenderer {
 
     @Override
     public void playDecodedAudio(short[] audioData) {
-        // Only queue up to 40 ms of pending audio data in addition to what AudioTrack is buffering for us.
-        if (MoonBridge.getPendingAudioDuration() < 40) {
-            // This will block until the write is completed. That can cause a backlog
-            // of pending audio data, so we do the above check to be able to bound
-            // latency at 40 ms in that situation.
-            track.write(audioData, 0, audioData.length);
+        long arrivalTime = System.nanoTime();
+
+        // This will block until the write is completed. That can cause a backlog
+        // of pending audio data, which the native bridge bounds at MAX_PENDING_AUDIO_MS
+        // by skipping packets before they are decoded.
+        track.write(audioData, 0, audioData.length);
+
+        long writeTime = System.nanoTime();
+        AudioLatencyStats.recordPlaybackArrivalToWrite(writeTime - arrivalTime);
+
+        framesWritten += audioData.length / channelCount;
+        if (++writesSinceLatencySample >= OUTPUT_LATENCY_SAMPLE_INTERVAL) {
+            writesSinceLatencySample = 0;
+            sampleOutputLatency(writeTime);
         }
-        else {
-            LimeLog.info("Too much pending audio data: " + MoonBridge.getPendingAudioDuration() +" ms");
+    }
+
+    private void sampleOutputLatency(long now) {
+        // Estimate how long the most recently written frame will wait before it's played
+        if (track.getTimestamp(playbackTimestamp)) {
+            long playedFrames = playbackTimestamp.framePosition +
+                    (now - playbackTimestamp.nanoTime) * sampleRate / 1000000000L;
+            long pendingFrames = framesWritten - playedFrames;
+            if (pendingFrames >= 0) {
+                AudioLatencyStats.recordPlaybackWriteToPlay(pendingFrames * 1000000000L / sampleRate);
+            }
         }
+
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
+            AudioLatencyStats.updatePlaybackUnderruns(track.getUnderrunCount());
+        }
+
+        AudioLatencyStats.recordPlaybackQueueDepth(MoonBridge.getPendingAudioDuration());
+        AudioLatencyStats.updatePlaybackOverruns((int) MoonBridge.getAudioQueueStats());
     }
 
     @Override
@@ -18,6 +18,7 @@ public class AudioDiagnostics {
     private static final AtomicLong droppedFrames = new AtomicLong(0);
     private static final AtomicLong encodingErrors = new AtomicLong(0);
     private static final AtomicLong sendingErrors = new AtomicLong(0);
+    private static final AtomicLong dtxFrames = new AtomicLong(0);
     
     private static long lastReportTime = 0;
     private static final long REPORT_INTERVAL_MS = 5000; // 每5秒报告一次
@@ -54,6 +55,14 @@ public class AudioDiagnostics {
         checkAndReport();
     }
     
+    /**
+     * 记录因DTX静音而无需发送的帧
+     */
+    public static void recordFrameSuppressed() {
+        dtxFrames.incrementAndGet();
+        checkAndReport();
+    }
+    
     /**
      * 记录编码错误
      */
@@ -91,17 +100,19 @@ public class AudioDiagnostics {
         long dropped = droppedFrames.get();
         long encErrors = encodingErrors.get();
         long sendErrors = sendingErrors.get();
+        long suppressed = dtxFrames.get();
         
-        // 计算连续性指标
+        // 计算连续性指标（DTX静音帧视为已送达）
         double captureToEncodeRatio = captured > 0 ? (double) encoded / captured : 0;
-        double encodeToSendRatio = encoded > 0 ? (double) sent / encoded : 0;
-        double overallContinuity = captured > 0 ? (double) sent / captured : 0;
+        double encodeToSendRatio = encoded > 0 ? (double) (sent + suppressed) / encoded : 0;
+        double overallContinuity = captured > 0 ? (double) (sent + suppressed) / captured : 0;
         
         LimeLog.info("=== 音频诊断报告 ===");
         LimeLog.info("捕获帧数: " + captured);
         LimeLog.info("编码帧数: " + encoded);
         LimeLog.info("发送帧数: " + sent);
         LimeLog.info("丢弃帧数: " + dropped);
+        LimeLog.info("DTX静音帧数: " + suppressed);
         LimeLog.info("编码错误: " + encErrors);
         LimeLog.info("发送错误: " + sendErrors);
         LimeLog.info("捕获到编码比例: " + String.format("%.2f%%", captureToEncodeRatio * 100));
@@ -133,6 +144,7 @@ public class AudioDiagnostics {
         droppedFrames.set(0);
         encodingErrors.set(0);
         sendingErrors.set(0);
+        dtxFrames.set(0);
         lastReportTime = 0;
         LimeLog.info("音频诊断统计已重置");
     }
@@ -146,7 +158,7 @@ public class AudioDiagnostics {
         long sent = totalFramesSent.get();
         long dropped = droppedFrames.get();
         
-        double continuity = captured > 0 ? (double) sent / captured : 0;
+        double continuity = captured > 0 ? (double) (sent + dtxFrames.get()) / captured : 0;
         
         return String.format("音频连续性: %.1f%% (捕获:%d 编码:%d 发送:%d 丢弃:%d)", 
                            continuity * 100, captured, encoded, sent, dropped);
@@ -165,7 +177,7 @@ public class AudioDiagnostics {
         long sent = totalFramesSent.get();
         long dropped = droppedFrames.get();
         
-        double continuity = captured > 0 ? (double) sent / captured : 0;
+        double continuity = captured > 0 ? (double) (sent + dtxFrames.get()) / captured : 0;
         
         return context.getString(R.string.mic_stats_continuity, 
                                continuity * 100, captured, encoded, sent, dropped);
@@ -0,0 +1,190 @@
+package com.limelight.binding.audio;
+
+import com.limelight.LimeLog;
+import com.limelight.utils.FixedHistogram;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 音频管线延迟统计
+ * 记录麦克风与播放两条管线的延迟直方图、欠载/溢出次数和队列深度。
+ * 所有record方法都可以在音频线程上调用，不加锁也不分配内存；
+ * 格式化输出只应在性能覆盖层或会话结束时调用。
+ */
+public class AudioLatencyStats {
+
+    // 延迟直方图以微秒记录，精度0.25ms
+    private static final long LATENCY_BUCKET_US = 250;
+
+    // 麦克风：帧采集到发送完成
+    private static final FixedHistogram micCaptureToSend = new FixedHistogram(LATENCY_BUCKET_US, 800);
+    // 麦克风：发送时的待发送数据包数量
+    private static final FixedHistogram micQueueDepth = new FixedHistogram(1, MicrophoneConfig.PACKET_POOL_SIZE + 1);
+    private static final AtomicLong micOverruns = new AtomicLong();
+
+    // 播放：解码数据到达渲染器到写入AudioTrack完成
+    private static final FixedHistogram playbackArrivalToWrite = new FixedHistogram(LATENCY_BUCKET_US, 800);
+    // 播放：写入AudioTrack到实际播放
+    private static final FixedHistogram playbackWriteToPlay = new FixedHistogram(LATENCY_BUCKET_US, 1600);
+    // 播放：native层待播放的音频时长（毫秒，周期性采样）
+    private static final FixedHistogram playbackQueueDepthMs = new FixedHistogram(1, 201);
+    private static final AtomicLong playbackOverruns = new AtomicLong();
+    private static final AtomicLong playbackUnderruns = new AtomicLong();
+
+    /**
+     * 可复用的统计快照，避免每次查询都分配对象
+     */
+    public static class Snapshot {
+        public float micCaptureToSendP50Ms;
+        public float micCaptureToSendP95Ms;
+        public float micCaptureToSendP99Ms;
+        public long micPacketsSent;
+        public long micQueueDepthP50;
+        public long micQueueDepthP95;
+        public long micOverruns;
+
+        public float playbackArrivalToWriteP50Ms;
+        public float playbackArrivalToWriteP95Ms;
+        public float playbackArrivalToWriteP99Ms;
+        public float playbackWriteToPlayP50Ms;
+        public float playbackWriteToPlayP95Ms;
+        public long playbackPacketsWritten;
+        public long playbackQueueDepthP50Ms;
+        public long playbackQueueDepthP95Ms;
+        public long playbackOverruns;
+        public long playbackUnderruns;
+    }
+
+    public static void recordMicCaptureToSend(long latencyNs) {
+        micCaptureToSend.record(latencyNs / 1000);
+    }
+
+    public static void recordMicQueueDepth(int packets) {
+        micQueueDepth.record(packets);
+    }
+
+    public static void recordMicOverrun() {
+        micOverruns.incrementAndGet();
+    }
+
+    public static void recordPlaybackArrivalToWrite(long latencyNs) {
+        playbackArrivalToWrite.record(latencyNs / 1000);
+    }
+
+    public static void recordPlaybackWriteToPlay(long latencyNs) {
+        playbackWriteToPlay.record(latencyNs / 1000);
+    }
+
+    public static void recordPlaybackQueueDepth(int pendingMs) {
+        playbackQueueDepthMs.record(pendingMs);
+    }
+
+    /**
+     * 更新native层因超出延迟预算而跳过的累计数据包数
+     */
+    public static void updatePlaybackOverruns(int skippedPackets) {
+        playbackOverruns.set(skippedPackets & 0xFFFFFFFFL);
+    }
+
+    /**
+     * 更新AudioTrack报告的累计欠载次数
+     */
+    public static void updatePlaybackUnderruns(int underrunCount) {
+        playbackUnderruns.set(underrunCount);
+    }
+
+    public static void snapshot(Snapshot out) {
+        out.micCaptureToSendP50Ms = micCaptureToSend.getPercentile(50) / 1000f;
+        out.micCaptureToSendP95Ms = micCaptureToSend.getPercentile(95) / 1000f;
+        out.micCaptureToSendP99Ms = micCaptureToSend.getPercentile(99) / 1000f;
+        out.micPacketsSent = micCaptureToSend.getCount();
+        out.micQueueDepthP50 = micQueueDepth.getPercentile(50);
+        out.micQueueDepthP95 = micQueueDepth.getPercentile(95);
+        out.micOverruns = micOverruns.get();
+
+        out.playbackArrivalToWriteP50Ms = playbackArrivalToWrite.getPercentile(50) / 1000f;
+        out.playbackArrivalToWriteP95Ms = playbackArrivalToWrite.getPercentile(95) / 1000f;
+        out.playbackArrivalToWriteP99Ms = playbackArrivalToWrite.getPercentile(99) / 1000f;
+        out.playbackWriteToPlayP50Ms = playbackWriteToPlay.getPercentile(50) / 1000f;
+        out.playbackWriteToPlayP95Ms = playbackWriteToPlay.getPercentile(95) / 1000f;
+        out.playbackPacketsWritten = playbackArrivalToWrite.getCount();
+        out.playbackQueueDepthP50Ms = playbackQueueDepthMs.getPercentile(50);
+        out.playbackQueueDepthP95Ms = playbackQueueDepthMs.getPercentile(95);
+        out.playbackOverruns = playbackOverruns.get();
+        out.playbackUnderruns = playbackUnderruns.get();
+    }
+
+    /**
+     * 单行摘要，用于性能覆盖层
+     */
+    public static String getSummary() {
+        Snapshot s = new Snapshot();
+        snapshot(s);
+
+        StringBuilder summary = new StringBuilder();
+        summary.append(String.format("播放: 写入 %.1f/%.1fms, 输出 %.1f/%.1fms, 欠载 %d, 溢出 %d",
+                s.playbackArrivalToWriteP50Ms, s.playbackArrivalToWriteP95Ms,
+                s.playbackWriteToPlayP50Ms, s.playbackWriteToPlayP95Ms,
+                s.playbackUnderruns, s.playbackOverruns));
+        if (s.micPacketsSent > 0) {
+            summary.append(String.format("\n麦克风: 采集到发送 %.1f/%.1fms, 溢出 %d",
+                    s.micCaptureToSendP50Ms, s.micCaptureToSendP95Ms, s.micOverruns));
+        }
+        return summary.toString();
+    }
+
+    /**
+     * 会话结束报告
+     */
+    public static String getSessionReport() {
+        Snapshot s = new Snapshot();
+        snapshot(s);
+
+        StringBuilder report = new StringBuilder();
+        report.append("=== 音频延迟报告 ===\n");
+        report.append(String.format("播放到达->写入: P50 %.2fms, P95 %.2fms, P99 %.2fms (%d 包)\n",
+                s.playbackArrivalToWriteP50Ms, s.playbackArrivalToWriteP95Ms,
+                s.playbackArrivalToWriteP99Ms, s.playbackPacketsWritten));
+        report.append(String.format("播放写入->输出: P50 %.2fms, P95 %.2fms\n",
+                s.playbackWriteToPlayP50Ms, s.playbackWriteToPlayP95Ms));
+        report.append(String.format("播放队列深度: P50 %dms, P95 %dms\n",
+                s.playbackQueueDepthP50Ms, s.playbackQueueDepthP95Ms));
+        report.append(String.format("播放欠载: %d, 播放溢出: %d\n", s.playbackUnderruns, s.playbackOverruns));
+        report.append(String.format("麦克风采集->发送: P50 %.2fms, P95 %.2fms, P99 %.2fms (%d 包)\n",
+                s.micCaptureToSendP50Ms, s.micCaptureToSendP95Ms,
+                s.micCaptureToSendP99Ms, s.micPacketsSent));
+        report.append(String.format("麦克风队列深度: P50 %d, P95 %d, 溢出: %d",
+                s.micQueueDepthP50, s.micQueueDepthP95, s.micOverruns));
+        return report.toString();
+    }
+
+    public static void reportStatistics() {
+        for (String line : getSessionReport().split("\n")) {
+            LimeLog.info(line);
+        }
+    }
+
+    /**
+     * 清空本次会话的全部统计，在会话开始时调用
+     */
+    public static void reset() {
+        micCaptureToSend.reset();
+        micQueueDepth.reset();
+        micOverruns.set(0);
+        resetPlayback();
+    }
+
+    /**
+     * 只清空播放统计，播放器重新初始化时调用，不影响同一会话中已经记录的麦克风统计
+     */
+    public static void resetPlayback() {
+        playbackArrivalToWrite.reset();
+        playbackWriteToPlay.reset();
+        playbackQueueDepthMs.reset();
+        playbackOverruns.set(0);
+        playbackUnderruns.set(0);
+    }
+
+    private AudioLatencyStats() {
+    }
+}
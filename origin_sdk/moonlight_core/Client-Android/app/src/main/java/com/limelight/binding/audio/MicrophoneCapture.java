@@ -2,13 +2,13 @@ package com.limelight.binding.audio;
 
 import android.media.AudioFormat;
 import android.media.AudioRecord;
+import android.media.AudioTimestamp;
 import android.media.MediaRecorder;
 import android.media.audiofx.AcousticEchoCanceler;
 import android.media.audiofx.AutomaticGainControl;
 import android.media.audiofx.NoiseSuppressor;
 import android.os.Build;
 import android.os.Process;
-import android.os.SystemClock;
 
 import com.limelight.LimeLog;
 
@@ -30,24 +30,21 @@ public class MicrophoneCapture {
     private AutomaticGainControl gainControl;
     private NoiseSuppressor noiseSuppressor;
     
-    // 音频帧缓冲
-    private byte[] frameBuffer;
-    private int frameBufferPos = 0;
-    
-    // 时序控制
-    private long lastFrameTime = 0;
-    private long frameCount = 0;
+    // 按采集时间戳将读取结果切分为完整的帧
+    private final MicrophoneFramer framer;
     
     public interface MicrophoneDataCallback {
-        void onMicrophoneData(byte[] data, int offset, int length);
+        /**
+         * @param captureTimeNs 该帧首个采样的采集时间（System.nanoTime时基）
+         */
+        void onMicrophoneData(byte[] data, int offset, int length, long captureTimeNs);
     }
     
     public MicrophoneCapture(MicrophoneDataCallback callback) {
         this.dataCallback = callback;
         // 使用更小的缓冲区进行更频繁的读取
         this.bufferSize = MicrophoneConfig.CAPTURE_BUFFER_SIZE;
-        // 初始化帧缓冲区
-        this.frameBuffer = new byte[MicrophoneConfig.BYTES_PER_FRAME];
+        this.framer = new MicrophoneFramer(this::onFrame);
     }
     
     public boolean start() {
@@ -87,7 +84,7 @@ public class MicrophoneCapture {
             initializeAudioEffects();
             
             running.set(true);
-            lastFrameTime = SystemClock.elapsedRealtimeNanos();
+            framer.reset();
             
             captureThread = new Thread(() -> {
                 Process.setThreadPriority(Process.THREAD_PRIORITY_URGENT_AUDIO);
@@ -95,6 +92,12 @@ public class MicrophoneCapture {
                 ByteBuffer buffer = ByteBuffer.allocateDirect(bufferSize);
                 byte[] data = new byte[bufferSize];
                 
+                // AudioRecord.getTimestamp()从Android 7.0开始可用
+                AudioTimestamp timestamp = null;
+                if (MicrophoneConfig.ENABLE_AUDIO_SYNC && Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
+                    timestamp = new AudioTimestamp();
+                }
+                
                 try {
                     audioRecord.startRecording();
                     LimeLog.info("麦克风捕获已启动，缓冲区大小: " + bufferSize + " 字节");
@@ -102,11 +105,17 @@ public class MicrophoneCapture {
                     while (running.get()) {
                         int bytesRead = audioRecord.read(buffer, bufferSize);
                         if (bytesRead > 0) {
+                            long readEndTime = System.nanoTime();
                             buffer.get(data, 0, bytesRead);
                             buffer.clear();
                             
-                            // 处理音频数据，确保帧的连续性
-                            processAudioData(data, 0, bytesRead);
+                            if (timestamp != null &&
+                                    audioRecord.getTimestamp(timestamp, AudioTimestamp.TIMEBASE_MONOTONIC) == AudioRecord.SUCCESS) {
+                                framer.updateTimestamp(timestamp.framePosition, timestamp.nanoTime);
+                            }
+                            
+                            // 切分为完整的帧，此处绝不阻塞，帧间隔由发送线程负责平滑
+                            framer.process(data, 0, bytesRead, readEndTime);
                         } else if (bytesRead == AudioRecord.ERROR_INVALID_OPERATION) {
                             LimeLog.warning("AudioRecord读取错误: ERROR_INVALID_OPERATION");
                             break;
@@ -144,59 +153,37 @@ public class MicrophoneCapture {
     }
     
     /**
-     * 处理音频数据，确保发送完整的帧
+     * 分帧器输出的完整帧
      */
-    private void processAudioData(byte[] data, int offset, int length) {
-        int remainingBytes = length;
-        int dataOffset = offset;
+    private void onFrame(byte[] frame, int offset, int length, long captureTimeNs) {
+        dataCallback.onMicrophoneData(frame, offset, length, captureTimeNs);
         
-        while (remainingBytes > 0) {
-            // 计算当前帧还需要多少字节
-            int bytesNeeded = MicrophoneConfig.BYTES_PER_FRAME - frameBufferPos;
-            int bytesToCopy = Math.min(remainingBytes, bytesNeeded);
-            
-            // 复制数据到帧缓冲区
-            System.arraycopy(data, dataOffset, frameBuffer, frameBufferPos, bytesToCopy);
-            frameBufferPos += bytesToCopy;
-            dataOffset += bytesToCopy;
-            remainingBytes -= bytesToCopy;
-            
-            // 如果帧缓冲区满了，发送完整的帧
-            if (frameBufferPos >= MicrophoneConfig.BYTES_PER_FRAME) {
-                // 检查时序
-                long currentTime = SystemClock.elapsedRealtimeNanos();
-                long timeDiff = currentTime - lastFrameTime;
-                
-                if (MicrophoneConfig.ENABLE_AUDIO_SYNC && 
-                    timeDiff < MicrophoneConfig.FRAME_INTERVAL_NS * 0.8) {
-                    // 帧间隔太短，等待一下
-                    try {
-                        Thread.sleep(1);
-                    } catch (InterruptedException e) {
-                        Thread.currentThread().interrupt();
-                        break;
-                    }
-                    continue;
-                }
-                
-                // 发送帧
-                dataCallback.onMicrophoneData(frameBuffer, 0, MicrophoneConfig.BYTES_PER_FRAME);
-                frameBufferPos = 0; // 重置缓冲区位置
-                lastFrameTime = currentTime;
-                frameCount++;
-                
-                // 记录诊断信息
-                AudioDiagnostics.recordFrameCaptured();
-                
-                // 每100帧记录一次统计信息
-                if (frameCount % 100 == 0) {
-                    LimeLog.info("麦克风帧统计: " + frameCount + " 帧, 平均间隔: " + 
-                               (timeDiff / 1000000) + "ms");
-                }
-            }
+        // 记录诊断信息
+        AudioDiagnostics.recordFrameCaptured();
+        
+        // 每100帧记录一次采集帧率与时钟漂移
+        long frameCount = framer.getFramesEmitted();
+        if (frameCount % 100 == 0) {
+            LimeLog.info(String.format("麦克风帧统计: %d 帧, 采集帧率: %.2f/%.2f fps, 时钟漂移: %.1fms",
+                    frameCount, framer.getCapturedFrameRate(System.nanoTime()),
+                    MicrophoneFramer.getExpectedFrameRate(), framer.getDriftMs()));
         }
     }
     
+    /**
+     * 获取实际采集帧率（每秒帧数）
+     */
+    public float getCapturedFrameRate() {
+        return framer.getCapturedFrameRate(System.nanoTime());
+    }
+    
+    /**
+     * 获取采集时钟的累计漂移（毫秒）
+     */
+    public float getFrameDriftMs() {
+        return framer.getDriftMs();
+    }
+    
     public void stop() {
         running.set(false);
         
@@ -11,10 +11,23 @@ public class MicrophoneConfig {
     // 音频参数
     public static final int SAMPLE_RATE = 48000; // 采样率
     public static final int CHANNELS = 1; // 声道数（单声道）
-    private static int opusBitrate = 64; // Opus编码比特率 (默认64 kbps)
+    private static int opusBitrate = 64000; // Opus编码比特率 (默认64 kbps)
     
     // 网络参数
     public static final int MAX_QUEUE_SIZE = 5;
+    public static final int PACKET_POOL_SIZE = 8; // Opus数据包缓冲池大小（需大于MAX_QUEUE_SIZE）
+    public static final int MAX_OPUS_PACKET_SIZE = 1275; // 单个Opus帧的最大字节数
+    
+    // 自适应编码参数
+    public static final int MIN_ADAPTIVE_BITRATE = 16000; // 拥塞时允许降到的最低比特率 (bps)
+    public static final int BITRATE_RECOVERY_STEP = 4000; // 网络恢复后每次统计提升的比特率 (bps)
+    public static final float LOSS_SMOOTHING_FACTOR = 0.3f; // 丢包率指数平滑系数
+    public static final float LOSS_CONGESTION_PERCENT = 5.0f; // 视为拥塞的丢包率 (%)
+    public static final long RTT_CONGESTION_MARGIN_MS = 40; // RTT超出基线多少视为拥塞 (毫秒)
+    public static final int MIN_PACKET_LOSS_PERC = 1; // 启用FEC的最低丢包率 (%)
+    public static final int MAX_PACKET_LOSS_PERC = 25; // 告知编码器的最大预期丢包率 (%)
+    public static final boolean ENABLE_DTX = true; // 启用不连续传输（静音时不发送数据包）
+    public static final int DTX_SILENT_PACKET_SIZE = 2; // DTX模式下不超过此大小的数据包无需发送
     
     // 权限请求码
     public static final int PERMISSION_REQUEST_MICROPHONE = 1001;
@@ -37,7 +50,7 @@ public class MicrophoneConfig {
     public static final long FRAME_INTERVAL_NS = FRAME_INTERVAL_MS * 1000000L; // 帧间隔纳秒
     
     // 音频质量参数
-    public static final boolean ENABLE_AUDIO_SYNC = true; // 启用音频同步
+    public static final boolean ENABLE_AUDIO_SYNC = true; // 启用音频同步（使用AudioRecord时间戳标记帧采集时间）
     
     // 回声消除和音频处理参数
     private static boolean enableAEC = true; // 启用回声消除器
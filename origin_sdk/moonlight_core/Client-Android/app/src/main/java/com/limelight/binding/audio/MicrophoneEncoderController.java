@@ -0,0 +1,134 @@
+package com.limelight.binding.audio;
+
+import com.limelight.LimeLog;
+
+/**
+ * 麦克风编码自适应控制器
+ * 根据视频流统计得到的丢包率和RTT调整Opus比特率、带内FEC和预期丢包率，
+ * 在上行拥塞时主动降低语音码率，避免语音流量挤占视频流。
+ *
+ * 网络统计由视频统计线程大约每秒提交一次，编码参数由采集线程在编码前取用，
+ * 因此编码器本身始终只在采集线程上被访问。
+ */
+public class MicrophoneEncoderController {
+
+    private final int maxBitrate;
+    private final int minBitrate;
+
+    // 平滑后的丢包率（百分比）
+    private float smoothedLossPercent = 0;
+    private boolean hasLossSample = false;
+
+    // RTT基线（毫秒），缓慢上浮以适应路由变化
+    private long baselineRttMs = Long.MAX_VALUE;
+
+    // 当前编码参数
+    private int bitrate;
+    private boolean fecEnabled;
+    private int packetLossPerc;
+    private final boolean dtxEnabled;
+
+    // 是否有尚未应用到编码器的参数
+    private volatile boolean updatePending = true;
+
+    public MicrophoneEncoderController(int configuredBitrate) {
+        this.maxBitrate = Math.max(configuredBitrate, MicrophoneConfig.MIN_ADAPTIVE_BITRATE);
+        this.minBitrate = Math.min(MicrophoneConfig.MIN_ADAPTIVE_BITRATE, maxBitrate);
+        this.bitrate = maxBitrate;
+        this.fecEnabled = true;
+        this.packetLossPerc = MicrophoneConfig.MIN_PACKET_LOSS_PERC;
+        this.dtxEnabled = MicrophoneConfig.ENABLE_DTX;
+    }
+
+    /**
+     * 提交一次网络统计
+     * @param lossPercent 视频帧丢失率（百分比）
+     * @param rttInfo MoonBridge.getEstimatedRttInfo()的返回值，高32位为RTT，低32位为RTT方差
+     */
+    public synchronized void onNetworkStats(float lossPercent, long rttInfo) {
+        if (Float.isNaN(lossPercent) || lossPercent < 0) {
+            lossPercent = 0;
+        }
+
+        if (hasLossSample) {
+            smoothedLossPercent = smoothedLossPercent * (1 - MicrophoneConfig.LOSS_SMOOTHING_FACTOR)
+                    + lossPercent * MicrophoneConfig.LOSS_SMOOTHING_FACTOR;
+        } else {
+            smoothedLossPercent = lossPercent;
+            hasLossSample = true;
+        }
+
+        boolean rttCongested = false;
+        if (rttInfo != -1) {
+            long rttMs = rttInfo >>> 32;
+            long rttVarianceMs = rttInfo & 0xFFFFFFFFL;
+
+            baselineRttMs = Math.min(rttMs, baselineRttMs == Long.MAX_VALUE ? rttMs : baselineRttMs + 1);
+            rttCongested = rttMs > baselineRttMs + MicrophoneConfig.RTT_CONGESTION_MARGIN_MS
+                    || rttVarianceMs > MicrophoneConfig.RTT_CONGESTION_MARGIN_MS;
+        }
+
+        int newBitrate = bitrate;
+        if (rttCongested || smoothedLossPercent >= MicrophoneConfig.LOSS_CONGESTION_PERCENT) {
+            // 拥塞：乘性降低码率，给视频流让出上行带宽
+            newBitrate = Math.max(minBitrate, bitrate * 3 / 4);
+        } else if (smoothedLossPercent < MicrophoneConfig.MIN_PACKET_LOSS_PERC) {
+            // 网络良好：加性恢复码率
+            newBitrate = Math.min(maxBitrate, bitrate + MicrophoneConfig.BITRATE_RECOVERY_STEP);
+        }
+
+        // 存在可观测的丢包时才启用带内FEC，预期丢包率直接决定FEC冗余量
+        boolean newFecEnabled = smoothedLossPercent >= MicrophoneConfig.MIN_PACKET_LOSS_PERC;
+        int newPacketLossPerc = newFecEnabled
+                ? Math.min(MicrophoneConfig.MAX_PACKET_LOSS_PERC, (int) Math.ceil(smoothedLossPercent))
+                : 0;
+
+        if (newBitrate != bitrate || newFecEnabled != fecEnabled || newPacketLossPerc != packetLossPerc) {
+            LimeLog.info(String.format("麦克风编码参数调整: 比特率 %d -> %d bps, FEC: %s, 预期丢包率: %d%%, 丢包率: %.1f%%, RTT基线: %dms",
+                    bitrate, newBitrate, newFecEnabled ? "启用" : "禁用", newPacketLossPerc,
+                    smoothedLossPercent, baselineRttMs == Long.MAX_VALUE ? 0 : baselineRttMs));
+
+            bitrate = newBitrate;
+            fecEnabled = newFecEnabled;
+            packetLossPerc = newPacketLossPerc;
+            updatePending = true;
+        }
+    }
+
+    /**
+     * 如果有新的编码参数，将其应用到编码器（采集线程调用）
+     */
+    public void applyIfPending(OpusEncoder encoder) {
+        if (!updatePending) {
+            return;
+        }
+
+        synchronized (this) {
+            updatePending = false;
+            encoder.setNetworkParams(bitrate, fecEnabled, packetLossPerc, dtxEnabled);
+        }
+    }
+
+    /**
+     * 编码器被重新创建后调用，使当前参数在下一帧重新生效
+     */
+    public void invalidate() {
+        updatePending = true;
+    }
+
+    public synchronized int getBitrate() {
+        return bitrate;
+    }
+
+    public synchronized boolean isFecEnabled() {
+        return fecEnabled;
+    }
+
+    public synchronized int getPacketLossPerc() {
+        return packetLossPerc;
+    }
+
+    public boolean isDtxEnabled() {
+        return dtxEnabled;
+    }
+}
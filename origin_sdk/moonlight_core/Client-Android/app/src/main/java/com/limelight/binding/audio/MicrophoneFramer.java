@@ -0,0 +1,146 @@
+package com.limelight.binding.audio;
+
+/**
+ * 麦克风分帧器
+ * 将AudioRecord任意长度的读取结果切分为精确的20ms帧（960采样），
+ * 并根据AudioRecord时间戳推算每一帧首个采样的采集时间。
+ * 分帧过程从不阻塞采集线程，帧间隔的修正交由下游发送线程完成。
+ */
+public class MicrophoneFramer {
+
+    public interface FrameSink {
+        void onFrame(byte[] frame, int offset, int length, long captureTimeNs);
+    }
+
+    private static final int BYTES_PER_SAMPLE = MicrophoneConfig.CHANNELS * 2;
+    private static final long NANOS_PER_SECOND = 1000000000L;
+
+    private final FrameSink sink;
+    private final byte[] frameBuffer = new byte[MicrophoneConfig.BYTES_PER_FRAME];
+    private int frameBufferPos = 0;
+
+    // 已从AudioRecord读取的采样总数（即下一个采样的帧位置）
+    private long samplesRead = 0;
+
+    // 采样位置与单调时钟之间的锚点
+    private boolean hardwareAnchor = false;
+    private long anchorFramePosition;
+    private long anchorNanoTime;
+
+    // 帧率统计
+    private long framesEmitted = 0;
+    private long firstFrameTimeNs = 0;
+    private long lastFrameTimeNs = 0;
+
+    public MicrophoneFramer(FrameSink sink) {
+        this.sink = sink;
+    }
+
+    /**
+     * 使用AudioRecord.getTimestamp()得到的硬件时间戳更新采样位置与单调时钟（System.nanoTime）的对应关系
+     * @param framePosition 采样位置
+     * @param nanoTime 该采样被采集时的单调时钟时间
+     */
+    public void updateTimestamp(long framePosition, long nanoTime) {
+        anchorFramePosition = framePosition;
+        anchorNanoTime = nanoTime;
+        hardwareAnchor = true;
+    }
+
+    /**
+     * 处理一次读取得到的PCM数据，每凑满一帧立即交给下游
+     * @param readEndTimeNs 读取返回时的单调时钟时间，在没有时间戳锚点时用于推算采集时间
+     */
+    public void process(byte[] data, int offset, int length, long readEndTimeNs) {
+        if (!hardwareAnchor) {
+            // 没有可用的硬件时间戳，将读取返回时刻视为最后一个采样的采集时间
+            anchorFramePosition = samplesRead + length / BYTES_PER_SAMPLE;
+            anchorNanoTime = readEndTimeNs;
+        }
+
+        int remainingBytes = length;
+        int dataOffset = offset;
+
+        while (remainingBytes > 0) {
+            // 计算当前帧还需要多少字节
+            int bytesToCopy = Math.min(remainingBytes, MicrophoneConfig.BYTES_PER_FRAME - frameBufferPos);
+
+            System.arraycopy(data, dataOffset, frameBuffer, frameBufferPos, bytesToCopy);
+            frameBufferPos += bytesToCopy;
+            dataOffset += bytesToCopy;
+            remainingBytes -= bytesToCopy;
+            samplesRead += bytesToCopy / BYTES_PER_SAMPLE;
+
+            if (frameBufferPos >= MicrophoneConfig.BYTES_PER_FRAME) {
+                long frameStartPosition = samplesRead - MicrophoneConfig.SAMPLES_PER_FRAME;
+                long captureTimeNs = positionToNanoTime(frameStartPosition);
+
+                if (framesEmitted == 0) {
+                    firstFrameTimeNs = captureTimeNs;
+                }
+                lastFrameTimeNs = captureTimeNs;
+                framesEmitted++;
+
+                sink.onFrame(frameBuffer, 0, MicrophoneConfig.BYTES_PER_FRAME, captureTimeNs);
+                frameBufferPos = 0;
+            }
+        }
+    }
+
+    private long positionToNanoTime(long framePosition) {
+        return anchorNanoTime + (framePosition - anchorFramePosition) * NANOS_PER_SECOND / MicrophoneConfig.SAMPLE_RATE;
+    }
+
+    public void reset() {
+        frameBufferPos = 0;
+        samplesRead = 0;
+        hardwareAnchor = false;
+        framesEmitted = 0;
+        firstFrameTimeNs = 0;
+        lastFrameTimeNs = 0;
+    }
+
+    public long getFramesEmitted() {
+        return framesEmitted;
+    }
+
+    public long getSamplesRead() {
+        return samplesRead;
+    }
+
+    /**
+     * 期望的帧率（每秒帧数）
+     */
+    public static float getExpectedFrameRate() {
+        return 1000f / MicrophoneConfig.FRAME_SIZE_MS;
+    }
+
+    /**
+     * 以单调时钟衡量的实际采集帧率
+     * @param nowNs 当前单调时钟时间
+     */
+    public float getCapturedFrameRate(long nowNs) {
+        long elapsedNs = nowNs - firstFrameTimeNs;
+        if (framesEmitted < 2 || elapsedNs <= 0) {
+            return 0;
+        }
+        return (framesEmitted - 1) * (float) NANOS_PER_SECOND / elapsedNs;
+    }
+
+    /**
+     * 已采集音频时长相对帧采集时间跨度的累计漂移（毫秒）
+     * 正值表示采集时钟偏快，负值表示采集时钟偏慢或存在溢出丢失
+     */
+    public float getDriftMs() {
+        if (framesEmitted < 2) {
+            return 0;
+        }
+        long capturedNs = (framesEmitted - 1) * MicrophoneConfig.FRAME_INTERVAL_NS;
+        long elapsedNs = lastFrameTimeNs - firstFrameTimeNs;
+        return (capturedNs - elapsedNs) / 1000000f;
+    }
+
+    public long getLastFrameTimeNs() {
+        return lastFrameTimeNs;
+    }
+}
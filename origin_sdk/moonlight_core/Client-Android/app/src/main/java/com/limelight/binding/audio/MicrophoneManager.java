@@ -389,6 +389,16 @@ public class MicrophoneManager {
         }
     }
     
+    /**
+     * 将会话网络统计转交给麦克风流，用于自适应编码
+     */
+    public void onNetworkStats(float lossPercent, long rttInfo) {
+        MicrophoneStream stream = microphoneStream;
+        if (stream != null) {
+            stream.onNetworkStats(lossPercent, rttInfo);
+        }
+    }
+    
     /**
      * 获取麦克风流实例
      */
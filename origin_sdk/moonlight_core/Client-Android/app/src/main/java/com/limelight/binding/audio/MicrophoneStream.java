@@ -4,7 +4,7 @@ import com.limelight.LimeLog;
 import com.limelight.nvstream.NvConnection;
 import com.limelight.nvstream.jni.MoonBridge;
 
-import java.util.concurrent.LinkedBlockingQueue;
+import java.nio.ByteBuffer;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 public class MicrophoneStream implements MicrophoneCapture.MicrophoneDataCallback {
@@ -12,16 +12,18 @@ public class MicrophoneStream implements MicrophoneCapture.MicrophoneDataCallbac
     private final NvConnection conn;
     private MicrophoneCapture capture;
     private OpusEncoder encoder;
+    private volatile MicrophoneEncoderController encoderController;
     private final Object encoderLock = new Object();
     private Thread senderThread;
     private final AtomicBoolean running = new AtomicBoolean(false);
     private final AtomicBoolean micActive = new AtomicBoolean(false);
     private final AtomicBoolean hostRequested = new AtomicBoolean(false);
-    private LinkedBlockingQueue<byte[]> packetQueue;
+    // 编码线程与发送线程之间的无锁数据包环形缓冲区
+    private final OpusPacketRing packetQueue;
     
     public MicrophoneStream(NvConnection conn) {
         this.conn = conn;
-        this.packetQueue = new LinkedBlockingQueue<>(MicrophoneConfig.MAX_QUEUE_SIZE);
+        this.packetQueue = new OpusPacketRing(MicrophoneConfig.PACKET_POOL_SIZE, MicrophoneConfig.MAX_OPUS_PACKET_SIZE);
         LimeLog.info("初始化麦克风流");
     }
     
@@ -80,9 +82,12 @@ public class MicrophoneStream implements MicrophoneCapture.MicrophoneDataCallbac
             capture = null;
         }
         
-        if (encoder != null) {
-            encoder.release();
-            encoder = null;
+        // 编码线程持有encoderLock时使用编码器，必须在锁内释放，避免使用已释放的原生编码器
+        synchronized (encoderLock) {
+            if (encoder != null) {
+                encoder.release();
+                encoder = null;
+            }
         }
         
         packetQueue.clear();
@@ -105,7 +110,16 @@ public class MicrophoneStream implements MicrophoneCapture.MicrophoneDataCallbac
             }
             
             // 创建编码器
-            encoder = new OpusEncoder(MicrophoneConfig.SAMPLE_RATE, MicrophoneConfig.CHANNELS, MicrophoneConfig.getOpusBitrate());
+            synchronized (encoderLock) {
+                encoder = new OpusEncoder(MicrophoneConfig.SAMPLE_RATE, MicrophoneConfig.CHANNELS, MicrophoneConfig.getOpusBitrate());
+            }
+            
+            // 自适应参数在整个会话内保留，新编码器在第一帧前重新应用
+            if (encoderController == null) {
+                encoderController = new MicrophoneEncoderController(MicrophoneConfig.getOpusBitrate());
+            } else {
+                encoderController.invalidate();
+            }
             
             // 创建并启动麦克风捕获
             capture = new MicrophoneCapture(this);
@@ -196,6 +210,18 @@ public class MicrophoneStream implements MicrophoneCapture.MicrophoneDataCallbac
         return running.get();
     }
     
+    /**
+     * 提交会话网络统计，用于自适应调整麦克风编码参数
+     * @param lossPercent 视频帧丢失率（百分比）
+     * @param rttInfo MoonBridge.getEstimatedRttInfo()的返回值
+     */
+    public void onNetworkStats(float lossPercent, long rttInfo) {
+        MicrophoneEncoderController controller = encoderController;
+        if (controller != null && micActive.get()) {
+            controller.onNetworkStats(lossPercent, rttInfo);
+        }
+    }
+    
     /**
      * 获取当前音频连续性状态
      */
@@ -222,40 +248,46 @@ public class MicrophoneStream implements MicrophoneCapture.MicrophoneDataCallbac
     }
 
     @Override
-    public void onMicrophoneData(byte[] data, int offset, int length) {
+    public void onMicrophoneData(byte[] data, int offset, int length, long captureTimeNs) {
         if (!running.get() || !micActive.get()) {
             return;
         }
         
         try {
-            byte[] encoded = null;
+            // 从缓冲池中取出下一个空闲的直接缓冲区
+            ByteBuffer packet = packetQueue.acquireWriteBuffer();
+            if (packet == null) {
+                // 缓冲池已耗尽（发送线程停滞），丢弃当前帧
+                AudioDiagnostics.recordFrameDropped();
+                AudioLatencyStats.recordMicOverrun();
+                return;
+            }
+            
+            int encodedLength;
             
             // Synchronized access to encoder
             synchronized (encoderLock) {
-                if (encoder != null) {
-                    encoded = encoder.encode(data, offset, length);
+                if (encoder == null) {
+                    return;
                 }
+                encoderController.applyIfPending(encoder);
+                encodedLength = encoder.encode(data, offset, length, packet);
             }
             
-            if (encoded != null) {
+            if (encodedLength > 0) {
                 // 记录编码成功
                 AudioDiagnostics.recordFrameEncoded();
                 
-                int queueSize = packetQueue.size();
-                
-                if (queueSize >= MicrophoneConfig.MAX_QUEUE_SIZE) {
-                    // 队列已满，丢弃最旧的数据包
-                    packetQueue.poll();
-                    AudioDiagnostics.recordFrameDropped();
-                    LimeLog.warning("音频队列已满，丢弃最旧数据包");
+                if (encodedLength <= MicrophoneConfig.DTX_SILENT_PACKET_SIZE && encoderController.isDtxEnabled()) {
+                    // DTX静音帧无需发送，减少上行数据包
+                    AudioDiagnostics.recordFrameSuppressed();
+                    return;
                 }
                 
-                // 将编码数据加入队列
-                if (!packetQueue.offer(encoded)) {
-                    // 如果仍然无法加入队列，丢弃当前数据包
-                    AudioDiagnostics.recordFrameDropped();
-                    LimeLog.warning("无法将编码数据加入队列，丢弃当前数据包");
-                }
+                // 发布到环形缓冲区，积压过多时由发送线程丢弃最旧的数据包
+                packetQueue.publish(encodedLength, captureTimeNs);
+            } else {
+                AudioDiagnostics.recordEncodingError();
             }
         } catch (Exception e) {
             AudioDiagnostics.recordEncodingError();
@@ -303,7 +335,14 @@ public class MicrophoneStream implements MicrophoneCapture.MicrophoneDataCallbac
                     continue;
                 }
 
-                byte[] encoded = packetQueue.poll();
+                // 队列已满时丢弃最旧的数据包，保证发送延迟有界
+                int dropped = packetQueue.trimTo(MicrophoneConfig.MAX_QUEUE_SIZE);
+                for (int i = 0; i < dropped; i++) {
+                    AudioDiagnostics.recordFrameDropped();
+                    AudioLatencyStats.recordMicOverrun();
+                }
+
+                ByteBuffer encoded = packetQueue.peek();
                 if (encoded == null) {
                     // 没有数据可发送，短暂等待
                     Thread.sleep(1);
@@ -315,14 +354,19 @@ public class MicrophoneStream implements MicrophoneCapture.MicrophoneDataCallbac
                 totalLatency += sendLatency;
                 maxLatency = Math.max(maxLatency, sendLatency);
 
-                // 发送 Opus 数据
-                int result = MoonBridge.sendMicrophoneOpusData(encoded);
+                // 直接从缓冲池发送 Opus 数据，然后归还槽位
+                long captureTimeNs = packetQueue.peekCaptureTime();
+                AudioLatencyStats.recordMicQueueDepth(packetQueue.size());
+                int result = MoonBridge.sendMicrophoneOpusBuffer(encoded, packetQueue.peekLength());
+                packetQueue.release();
                 if (result < 0) {
                     AudioDiagnostics.recordSendingError();
                     LimeLog.warning("麦克风数据发送失败: " + result);
                     continue;
                 }
                 
+                AudioLatencyStats.recordMicCaptureToSend(System.nanoTime() - captureTimeNs);
+                
                 lastSendTime = currentTime;
                 sendCount++;
                 
@@ -2,6 +2,8 @@ package com.limelight.binding.audio;
 
 import com.limelight.LimeLog;
 
+import java.nio.ByteBuffer;
+
 public class OpusEncoder {
     private long nativePtr;
     private final int sampleRate;
@@ -31,6 +33,34 @@ public class OpusEncoder {
         return nativeEncode(nativePtr, pcmData, offset, length);
     }
     
+    /**
+     * 将一帧PCM数据直接编码到调用方提供的直接缓冲区中，不产生Java堆分配
+     * @param out 直接缓冲区（通常来自OpusPacketRing的缓冲池）
+     * @return 编码后的字节数，失败时返回负值
+     */
+    public int encode(byte[] pcmData, int offset, int length, ByteBuffer out) {
+        if (nativePtr == 0 || out == null || !out.isDirect()) {
+            return -1;
+        }
+        
+        return nativeEncodeInto(nativePtr, pcmData, offset, length, out, out.capacity());
+    }
+    
+    /**
+     * 根据网络状况调整编码参数，下一帧起生效
+     * @param bitrate 比特率（bps）
+     * @param enableFec 是否启用带内前向纠错
+     * @param packetLossPerc 预期丢包率（0-100），决定FEC冗余量
+     * @param enableDtx 是否启用不连续传输（静音时几乎不产生数据）
+     */
+    public void setNetworkParams(int bitrate, boolean enableFec, int packetLossPerc, boolean enableDtx) {
+        if (nativePtr == 0) {
+            return;
+        }
+        
+        nativeSetNetworkParams(nativePtr, bitrate, enableFec, packetLossPerc, enableDtx);
+    }
+    
     public synchronized void release() {
         if (nativePtr != 0) {
             nativeDestroy(nativePtr);
@@ -50,5 +80,9 @@ public class OpusEncoder {
     // 这些方法需要在原生代码中实现
     private static native long nativeInit(int sampleRate, int channels, int bitrate);
     private static native byte[] nativeEncode(long handle, byte[] pcmData, int offset, int length);
+    private static native int nativeEncodeInto(long handle, byte[] pcmData, int offset, int length,
+                                               ByteBuffer out, int outCapacity);
+    private static native void nativeSetNetworkParams(long handle, int bitrate, boolean enableFec,
+                                                      int packetLossPerc, boolean enableDtx);
     private static native void nativeDestroy(long handle);
 }
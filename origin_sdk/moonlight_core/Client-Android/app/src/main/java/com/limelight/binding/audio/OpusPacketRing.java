@@ -0,0 +1,144 @@
+package com.limelight.binding.audio;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Opus数据包环形缓冲区
+ * 每个槽位持有一个预分配的直接缓冲区，编码线程（单生产者）直接编码进槽位，
+ * 发送线程（单消费者）原地发送后再归还槽位，整个过程无锁且不产生堆分配
+ * clear()可在控制线程调用，它只记录清空请求，由消费者在下一次peek()/trimTo()时执行，
+ * 因此peek()与release()之间head不会被其他线程修改
+ */
+public class OpusPacketRing {
+    private final ByteBuffer[] buffers;
+    private final int[] lengths;
+    private final long[] captureTimes;
+    private final int mask;
+
+    // 下一个待发送的序号（仅消费者推进）
+    private final AtomicLong head = new AtomicLong(0);
+    // 下一个待写入的序号（仅生产者推进）
+    private final AtomicLong tail = new AtomicLong(0);
+    // clear()请求丢弃到的序号，由消费者应用到head
+    private final AtomicLong clearTo = new AtomicLong(0);
+
+    public OpusPacketRing(int capacity, int maxPacketSize) {
+        // 容量向上取整为2的幂，便于使用掩码取槽位
+        int slots = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        this.buffers = new ByteBuffer[slots];
+        this.lengths = new int[slots];
+        this.captureTimes = new long[slots];
+        this.mask = slots - 1;
+
+        for (int i = 0; i < slots; i++) {
+            buffers[i] = ByteBuffer.allocateDirect(maxPacketSize);
+        }
+    }
+
+    /**
+     * 获取下一个可写入的缓冲区（生产者调用）
+     * @return 空闲缓冲区，池已耗尽时返回null
+     */
+    public ByteBuffer acquireWriteBuffer() {
+        long t = tail.get();
+        if (t - head.get() >= buffers.length) {
+            return null;
+        }
+
+        ByteBuffer buffer = buffers[(int) (t & mask)];
+        buffer.clear();
+        return buffer;
+    }
+
+    /**
+     * 提交最近一次通过acquireWriteBuffer()获取的缓冲区（生产者调用）
+     * @param length 编码后的数据长度
+     * @param captureTimeNs 该帧的采集时间（System.nanoTime时基）
+     */
+    public void publish(int length, long captureTimeNs) {
+        long t = tail.get();
+        lengths[(int) (t & mask)] = length;
+        captureTimes[(int) (t & mask)] = captureTimeNs;
+        // 有序写入保证槽位数据先于序号对消费者可见
+        tail.lazySet(t + 1);
+    }
+
+    /**
+     * 查看最旧的待发送数据包（消费者调用），发送完成后必须调用release()
+     * @return 数据包缓冲区，没有待发送数据时返回null
+     */
+    public ByteBuffer peek() {
+        long h = applyClear();
+        if (h >= tail.get()) {
+            return null;
+        }
+        return buffers[(int) (h & mask)];
+    }
+
+    /**
+     * 获取peek()返回的数据包长度
+     */
+    public int peekLength() {
+        return lengths[(int) (head.get() & mask)];
+    }
+
+    /**
+     * 获取peek()返回的数据包的采集时间
+     */
+    public long peekCaptureTime() {
+        return captureTimes[(int) (head.get() & mask)];
+    }
+
+    /**
+     * 归还peek()返回的槽位，使其可被生产者重新使用
+     */
+    public void release() {
+        long h = head.get();
+        if (h < tail.get()) {
+            head.lazySet(h + 1);
+        }
+    }
+
+    /**
+     * 丢弃最旧的数据包，直到待发送数量不超过maxPending（消费者调用）
+     * @return 被丢弃的数据包数量
+     */
+    public int trimTo(int maxPending) {
+        long h = applyClear();
+        long excess = tail.get() - h - maxPending;
+        if (excess <= 0) {
+            return 0;
+        }
+        head.lazySet(h + excess);
+        return (int) excess;
+    }
+
+    /**
+     * 丢弃调用时所有待发送的数据包，可在任意线程调用，应在生产者停止后调用
+     * 实际丢弃由消费者执行，不会影响正在发送的数据包
+     */
+    public void clear() {
+        clearTo.set(tail.get());
+    }
+
+    // 应用clear()的请求（消费者调用），返回新的head
+    private long applyClear() {
+        long h = head.get();
+        long c = clearTo.get();
+        if (c > h) {
+            head.lazySet(c);
+            return c;
+        }
+        return h;
+    }
+
+    public int size() {
+        long h = Math.max(head.get(), clearTo.get());
+        return (int) Math.max(0, tail.get() - h);
+    }
+
+    public int capacity() {
+        return buffers.length;
+    }
+}
@@ -8,6 +8,7 @@ import android.hardware.Sensor;
 import android.hardware.SensorEvent;
 import android.hardware.SensorEventListener;
 import android.hardware.SensorManager;
+import android.hardware.display.DisplayManager;
 import android.hardware.input.InputManager;
 import android.hardware.lights.Light;
 import android.hardware.lights.LightState;
@@ -21,6 +22,8 @@ import android.os.CombinedVibration;
 import android.os.Handler;
 import android.os.HandlerThread;
 import android.os.Looper;
+import android.os.Process;
+import android.os.SystemClock;
 import android.os.VibrationAttributes;
 import android.os.VibrationEffect;
 import android.os.Vibrator;
@@ -30,7 +33,6 @@ import android.view.InputDevice;
 import android.view.InputEvent;
 import android.view.KeyEvent;
 import android.view.MotionEvent;
-import android.view.Surface;
 import android.widget.Toast;
 
 import com.limelight.GameMenu;
@@ -41,6 +43,7 @@ import com.limelight.binding.input.driver.UsbDriverListener;
 import com.limelight.binding.input.driver.UsbDriverService;
 import com.limelight.nvstream.NvConnection;
 import com.limelight.nvstream.input.ControllerPacket;
+import com.limelight.nvstream.input.InputLatencyStats;
 import com.limelight.nvstream.input.MouseButtonPacket;
 import com.limelight.nvstream.jni.MoonBridge;
 import com.limelight.preferences.PreferenceConfiguration;
@@ -54,7 +57,6 @@ import org.cgutman.shieldcontrollerextensions.SceManager;
 import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -74,42 +76,53 @@ public class ControllerHandler implements InputManager.InputDeviceListener, UsbD
 
     private static final int BATTERY_RECHECK_INTERVAL_MS = 120 * 1000;
 
-    private static final Map<Integer, Integer> ANDROID_TO_LI_BUTTON_MAP = Map.ofEntries(
-            Map.entry(KeyEvent.KEYCODE_BUTTON_A, ControllerPacket.A_FLAG),
-            Map.entry(KeyEvent.KEYCODE_BUTTON_B, ControllerPacket.B_FLAG),
-            Map.entry(KeyEvent.KEYCODE_BUTTON_X, ControllerPacket.X_FLAG),
-            Map.entry(KeyEvent.KEYCODE_BUTTON_Y, ControllerPacket.Y_FLAG),
-            Map.entry(KeyEvent.KEYCODE_DPAD_UP, ControllerPacket.UP_FLAG),
-            Map.entry(KeyEvent.KEYCODE_DPAD_DOWN, ControllerPacket.DOWN_FLAG),
-            Map.entry(KeyEvent.KEYCODE_DPAD_LEFT, ControllerPacket.LEFT_FLAG),
-            Map.entry(KeyEvent.KEYCODE_DPAD_RIGHT, ControllerPacket.RIGHT_FLAG),
-            Map.entry(KeyEvent.KEYCODE_DPAD_UP_LEFT, ControllerPacket.UP_FLAG | ControllerPacket.LEFT_FLAG),
-            Map.entry(KeyEvent.KEYCODE_DPAD_UP_RIGHT, ControllerPacket.UP_FLAG | ControllerPacket.RIGHT_FLAG),
-            Map.entry(KeyEvent.KEYCODE_DPAD_DOWN_LEFT, ControllerPacket.DOWN_FLAG | ControllerPacket.LEFT_FLAG),
-            Map.entry(KeyEvent.KEYCODE_DPAD_DOWN_RIGHT, ControllerPacket.DOWN_FLAG | ControllerPacket.RIGHT_FLAG),
-            Map.entry(KeyEvent.KEYCODE_BUTTON_L1, ControllerPacket.LB_FLAG),
-            Map.entry(KeyEvent.KEYCODE_BUTTON_R1, ControllerPacket.RB_FLAG),
-            Map.entry(KeyEvent.KEYCODE_BUTTON_THUMBL, ControllerPacket.LS_CLK_FLAG),
-            Map.entry(KeyEvent.KEYCODE_BUTTON_THUMBR, ControllerPacket.RS_CLK_FLAG),
-            Map.entry(KeyEvent.KEYCODE_BUTTON_START, ControllerPacket.PLAY_FLAG),
-            Map.entry(KeyEvent.KEYCODE_MENU, ControllerPacket.PLAY_FLAG),
-            Map.entry(KeyEvent.KEYCODE_BUTTON_SELECT, ControllerPacket.BACK_FLAG),
-            Map.entry(KeyEvent.KEYCODE_BACK, ControllerPacket.BACK_FLAG),
-            Map.entry(KeyEvent.KEYCODE_BUTTON_MODE, ControllerPacket.SPECIAL_BUTTON_FLAG),
-
-            // This is the Xbox Series X Share button
-            Map.entry(KeyEvent.KEYCODE_MEDIA_RECORD, ControllerPacket.MISC_FLAG),
-
-            // This is a weird one, but it's what Android does prior to 4.10 kernels
-            // where DualShock/DualSense touchpads weren't mapped as separate devices.
-            // https://android.googlesource.com/platform/frameworks/base/+/master/data/keyboards/Vendor_054c_Product_0ce6_fallback.kl
-            // https://android.googlesource.com/platform/frameworks/base/+/master/data/keyboards/Vendor_054c_Product_09cc.kl
-            Map.entry(KeyEvent.KEYCODE_BUTTON_1, ControllerPacket.TOUCHPAD_FLAG)
-
-            // FIXME: Paddles?
-    );
-
-    private final Vector2d inputVector = new Vector2d();
+    // Android key codes and the button flags they map to, as parallel arrays so device probing
+    // can query all of them with a single InputDevice.hasKeys() call
+    private static final int[] ANDROID_TO_LI_BUTTON_KEYCODES;
+    private static final int[] ANDROID_TO_LI_BUTTON_FLAGS;
+    static {
+        int[][] mappings = {
+                {KeyEvent.KEYCODE_BUTTON_A, ControllerPacket.A_FLAG},
+                {KeyEvent.KEYCODE_BUTTON_B, ControllerPacket.B_FLAG},
+                {KeyEvent.KEYCODE_BUTTON_X, ControllerPacket.X_FLAG},
+                {KeyEvent.KEYCODE_BUTTON_Y, ControllerPacket.Y_FLAG},
+                {KeyEvent.KEYCODE_DPAD_UP, ControllerPacket.UP_FLAG},
+                {KeyEvent.KEYCODE_DPAD_DOWN, ControllerPacket.DOWN_FLAG},
+                {KeyEvent.KEYCODE_DPAD_LEFT, ControllerPacket.LEFT_FLAG},
+                {KeyEvent.KEYCODE_DPAD_RIGHT, ControllerPacket.RIGHT_FLAG},
+                {KeyEvent.KEYCODE_DPAD_UP_LEFT, ControllerPacket.UP_FLAG | ControllerPacket.LEFT_FLAG},
+                {KeyEvent.KEYCODE_DPAD_UP_RIGHT, ControllerPacket.UP_FLAG | ControllerPacket.RIGHT_FLAG},
+                {KeyEvent.KEYCODE_DPAD_DOWN_LEFT, ControllerPacket.DOWN_FLAG | ControllerPacket.LEFT_FLAG},
+                {KeyEvent.KEYCODE_DPAD_DOWN_RIGHT, ControllerPacket.DOWN_FLAG | ControllerPacket.RIGHT_FLAG},
+                {KeyEvent.KEYCODE_BUTTON_L1, ControllerPacket.LB_FLAG},
+                {KeyEvent.KEYCODE_BUTTON_R1, ControllerPacket.RB_FLAG},
+                {KeyEvent.KEYCODE_BUTTON_THUMBL, ControllerPacket.LS_CLK_FLAG},
+                {KeyEvent.KEYCODE_BUTTON_THUMBR, ControllerPacket.RS_CLK_FLAG},
+                {KeyEvent.KEYCODE_BUTTON_START, ControllerPacket.PLAY_FLAG},
+                {KeyEvent.KEYCODE_MENU, ControllerPacket.PLAY_FLAG},
+                {KeyEvent.KEYCODE_BUTTON_SELECT, ControllerPacket.BACK_FLAG},
+                {KeyEvent.KEYCODE_BACK, ControllerPacket.BACK_FLAG},
+                {KeyEvent.KEYCODE_BUTTON_MODE, ControllerPacket.SPECIAL_BUTTON_FLAG},
+
+                // This is the Xbox Series X Share button
+                {KeyEvent.KEYCODE_MEDIA_RECORD, ControllerPacket.MISC_FLAG},
+
+                // This is a weird one, but it's what Android does prior to 4.10 kernels
+                // where DualShock/DualSense touchpads weren't mapped as separate devices.
+                // https://android.googlesource.com/platform/frameworks/base/+/master/data/keyboards/Vendor_054c_Product_0ce6_fallback.kl
+                // https://android.googlesource.com/platform/frameworks/base/+/master/data/keyboards/Vendor_054c_Product_09cc.kl
+                {KeyEvent.KEYCODE_BUTTON_1, ControllerPacket.TOUCHPAD_FLAG}
+
+                // FIXME: Paddles?
+        };
+
+        ANDROID_TO_LI_BUTTON_KEYCODES = new int[mappings.length];
+        ANDROID_TO_LI_BUTTON_FLAGS = new int[mappings.length];
+        for (int i = 0; i < mappings.length; i++) {
+            ANDROID_TO_LI_BUTTON_KEYCODES[i] = mappings[i][0];
+            ANDROID_TO_LI_BUTTON_FLAGS[i] = mappings[i][1];
+        }
+    }
 
     private final SparseArray<InputDeviceContext> inputDeviceContexts = new SparseArray<>();
     private final SparseArray<UsbDeviceContext> usbDeviceContexts = new SparseArray<>();
@@ -127,10 +140,52 @@ public class ControllerHandler implements InputManager.InputDeviceListener, UsbD
     private final Handler mainThreadHandler;
     private final HandlerThread backgroundHandlerThread;
     private final Handler backgroundThreadHandler;
+    private final HandlerThread sensorHandlerThread;
+    private final Handler sensorThreadHandler;
+    private final DisplayManager displayManager;
+
+    // Cached Surface.ROTATION_* of the default display, kept current by displayListener so
+    // sensor callbacks don't query the window manager for every sample
+    private volatile int displayRotation;
+    private final DisplayManager.DisplayListener displayListener = new DisplayManager.DisplayListener() {
+        @Override
+        public void onDisplayAdded(int displayId) {}
+
+        @Override
+        public void onDisplayRemoved(int displayId) {}
+
+        @Override
+        public void onDisplayChanged(int displayId) {
+            updateDisplayRotation();
+        }
+    };
+
+    // Sensor axis order and signs for each Surface.ROTATION_* value, used to remap the
+    // device's own sensors into the controller coordinate space
+    private static final int[][] ROTATION_SENSOR_AXES = {
+            {0, 2, 1}, // ROTATION_0
+            {1, 2, 0}, // ROTATION_90
+            {0, 2, 1}, // ROTATION_180
+            {1, 2, 0}, // ROTATION_270
+    };
+    private static final int[][] ROTATION_SENSOR_SIGNS = {
+            {1, 1, -1},
+            {-1, 1, -1},
+            {-1, 1, 1},
+            {1, 1, 1},
+    };
+    private static final int[] IDENTITY_SENSOR_AXES = {0, 1, 2};
+    private static final int[] IDENTITY_SENSOR_SIGNS = {1, 1, 1};
     private boolean hasGameController;
     private boolean stopped = false;
 
     private final PreferenceConfiguration prefConfig;
+
+    // Key code and evdev scan code tables used by the compiled input profiles. Scan codes
+    // beyond the table (KEY_MAX) fall back to the context's default remap.
+    private static final int KEYCODE_TABLE_SIZE = 512;
+    private static final int SCAN_CODE_TABLE_SIZE = 0x300;
+    private final int[] keyCodeTranslation;
     private short currentControllers, initialControllers;
 
     // Gyro-to-right-stick mapping sensitivity (deg/s for full deflection)
@@ -411,6 +466,7 @@ public class ControllerHandler implements InputManager.InputDeviceListener, UsbD
         this.conn = conn;
         this.gestures = gestures;
         this.prefConfig = prefConfig;
+        this.keyCodeTranslation = buildKeyCodeTranslation(prefConfig.flipFaceButtons);
         this.deviceVibrator = (Vibrator) activityContext.getSystemService(Context.VIBRATOR_SERVICE);
         this.deviceSensorManager = (SensorManager) activityContext.getSystemService(Context.SENSOR_SERVICE);
         this.inputManager = (InputManager) activityContext.getSystemService(Context.INPUT_SERVICE);
@@ -422,6 +478,16 @@ public class ControllerHandler implements InputManager.InputDeviceListener, UsbD
         this.backgroundHandlerThread.start();
         this.backgroundThreadHandler = new Handler(backgroundHandlerThread.getLooper());
 
+        // Motion sensors are delivered on their own high priority thread so gyro samples
+        // aren't held up behind rendering and input work on the main thread
+        this.sensorHandlerThread = new HandlerThread("ControllerSensors", Process.THREAD_PRIORITY_URGENT_DISPLAY);
+        this.sensorHandlerThread.start();
+        this.sensorThreadHandler = new Handler(sensorHandlerThread.getLooper());
+
+        this.displayManager = (DisplayManager) activityContext.getSystemService(Context.DISPLAY_SERVICE);
+        updateDisplayRotation();
+        displayManager.registerDisplayListener(displayListener, mainThreadHandler);
+
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S) {
             this.deviceVibratorManager = (VibratorManager) activityContext.getSystemService(Context.VIBRATOR_MANAGER_SERVICE);
         }
@@ -479,6 +545,7 @@ public class ControllerHandler implements InputManager.InputDeviceListener, UsbD
         // consume these. Instead, let's ignore them since that's probably the
         // most likely case.
         defaultContext.ignoreBack = true;
+        compileInputProfile(defaultContext);
 
         // Get the initially attached set of gamepads. As each gamepad receives
         // its initial InputEvent, we will move these from this set onto the
@@ -564,6 +631,12 @@ public class ControllerHandler implements InputManager.InputDeviceListener, UsbD
         }
 
         deviceVibrator.cancel();
+
+        // Sensors were unregistered with the device contexts above. Release the sensor thread and
+        // rotation listener here rather than in destroy(), since reconnecting replaces a stopped
+        // handler without destroying it.
+        displayManager.unregisterDisplayListener(displayListener);
+        sensorHandlerThread.quit();
     }
 
     public void destroy() {
@@ -855,6 +928,7 @@ public class ControllerHandler implements InputManager.InputDeviceListener, UsbD
         context.leftStickDeadzoneRadius = (float) stickDeadzone;
         context.rightStickDeadzoneRadius = (float) stickDeadzone;
         context.triggerDeadzone = 0.13f;
+        compileDeadzones(context);
 
         return context;
     }
@@ -1282,6 +1356,8 @@ public class ControllerHandler implements InputManager.InputDeviceListener, UsbD
             context.hasMode = false;
         }
 
+        compileInputProfile(context);
+
         LimeLog.info("Analog stick deadzone: "+context.leftStickDeadzoneRadius+" "+context.rightStickDeadzoneRadius);
         LimeLog.info("Trigger deadzone: "+context.triggerDeadzone);
 
@@ -1621,173 +1697,24 @@ public class ControllerHandler implements InputManager.InputDeviceListener, UsbD
             return KeyEvent.KEYCODE_BUTTON_1;
         }
 
-        // Override mode button for 8BitDo controllers
-        if (context.vendorId == 0x2dc8 && event.getScanCode() == 306) {
-            return KeyEvent.KEYCODE_BUTTON_MODE;
+        // Device specific scan code fixups, compiled by compileInputProfile()
+        int scanCode = event.getScanCode();
+        int remapped = (scanCode >= 0 && scanCode < context.scanCodeRemap.length) ?
+                context.scanCodeRemap[scanCode] : context.scanCodeRemapDefault;
+        if (remapped != KeyEvent.KEYCODE_UNKNOWN) {
+            return remapped;
         }
 
-        // This mapping was adding in Android 10, then changed based on
-        // kernel changes (adding hid-nintendo) in Android 11. If we're
-        // on anything newer than Pie, just use the built-in mapping.
-        if ((context.vendorId == 0x057e && context.productId == 0x2009 && Build.VERSION.SDK_INT < Build.VERSION_CODES.Q) || // Switch Pro controller
-                (context.vendorId == 0x0f0d && context.productId == 0x00c1)) { // HORIPAD for Switch
-            switch (event.getScanCode()) {
-                case 0x130:
-                    return KeyEvent.KEYCODE_BUTTON_A;
-                case 0x131:
-                    return KeyEvent.KEYCODE_BUTTON_B;
-                case 0x132:
-                    return KeyEvent.KEYCODE_BUTTON_X;
-                case 0x133:
-                    return KeyEvent.KEYCODE_BUTTON_Y;
-                case 0x134:
-                    return KeyEvent.KEYCODE_BUTTON_L1;
-                case 0x135:
-                    return KeyEvent.KEYCODE_BUTTON_R1;
-                case 0x136:
-                    return KeyEvent.KEYCODE_BUTTON_L2;
-                case 0x137:
-                    return KeyEvent.KEYCODE_BUTTON_R2;
-                case 0x138:
-                    return KeyEvent.KEYCODE_BUTTON_SELECT;
-                case 0x139:
-                    return KeyEvent.KEYCODE_BUTTON_START;
-                case 0x13A:
-                    return KeyEvent.KEYCODE_BUTTON_THUMBL;
-                case 0x13B:
-                    return KeyEvent.KEYCODE_BUTTON_THUMBR;
-                case 0x13D:
-                    return KeyEvent.KEYCODE_BUTTON_MODE;
-            }
-        }
-
-        if (context.usesLinuxGamepadStandardFaceButtons) {
-            // Android's Generic.kl swaps BTN_NORTH and BTN_WEST
-            switch (event.getScanCode()) {
-                case 304:
-                    return KeyEvent.KEYCODE_BUTTON_A;
-                case 305:
-                    return KeyEvent.KEYCODE_BUTTON_B;
-                case 307:
-                    return KeyEvent.KEYCODE_BUTTON_Y;
-                case 308:
-                    return KeyEvent.KEYCODE_BUTTON_X;
-            }
-        }
-
-        if (context.isNonStandardDualShock4) {
-            switch (event.getScanCode()) {
-                case 304:
-                    return KeyEvent.KEYCODE_BUTTON_X;
-                case 305:
-                    return KeyEvent.KEYCODE_BUTTON_A;
-                case 306:
-                    return KeyEvent.KEYCODE_BUTTON_B;
-                case 307:
-                    return KeyEvent.KEYCODE_BUTTON_Y;
-                case 308:
-                    return KeyEvent.KEYCODE_BUTTON_L1;
-                case 309:
-                    return KeyEvent.KEYCODE_BUTTON_R1;
-                /*
-                **** Using analog triggers instead ****
-                case 310:
-                    return KeyEvent.KEYCODE_BUTTON_L2;
-                case 311:
-                    return KeyEvent.KEYCODE_BUTTON_R2;
-                */
-                case 312:
-                    return KeyEvent.KEYCODE_BUTTON_SELECT;
-                case 313:
-                    return KeyEvent.KEYCODE_BUTTON_START;
-                case 314:
-                    return KeyEvent.KEYCODE_BUTTON_THUMBL;
-                case 315:
-                    return KeyEvent.KEYCODE_BUTTON_THUMBR;
-                case 316:
-                    return KeyEvent.KEYCODE_BUTTON_MODE;
-                default:
-                    return REMAP_CONSUME;
-            }
-        }
-        // If this is a Serval controller sending an unknown key code, it's probably
-        // the start and select buttons
-        else if (context.isServal && event.getKeyCode() == KeyEvent.KEYCODE_UNKNOWN) {
-            switch (event.getScanCode())  {
-                case 314:
-                    return KeyEvent.KEYCODE_BUTTON_SELECT;
-                case 315:
-                    return KeyEvent.KEYCODE_BUTTON_START;
-            }
-        }
-        else if (context.isNonStandardXboxBtController) {
-            switch (event.getScanCode()) {
-                case 306:
-                    return KeyEvent.KEYCODE_BUTTON_X;
-                case 307:
-                    return KeyEvent.KEYCODE_BUTTON_Y;
-                case 308:
-                    return KeyEvent.KEYCODE_BUTTON_L1;
-                case 309:
-                    return KeyEvent.KEYCODE_BUTTON_R1;
-                case 310:
-                    return KeyEvent.KEYCODE_BUTTON_SELECT;
-                case 311:
-                    return KeyEvent.KEYCODE_BUTTON_START;
-                case 312:
-                    return KeyEvent.KEYCODE_BUTTON_THUMBL;
-                case 313:
-                    return KeyEvent.KEYCODE_BUTTON_THUMBR;
-                case 139:
-                    return KeyEvent.KEYCODE_BUTTON_MODE;
-                default:
-                    // Other buttons are mapped correctly
-            }
-
-            // The Xbox button is sent as MENU
-            if (event.getKeyCode() == KeyEvent.KEYCODE_MENU) {
-                return KeyEvent.KEYCODE_BUTTON_MODE;
-            }
-        }
-        else if (context.vendorId == 0x0b05 && // ASUS
-                     (context.productId == 0x7900 || // Kunai - USB
-                      context.productId == 0x7902)) // Kunai - Bluetooth
-        {
-            // ROG Kunai has special M1-M4 buttons that are accessible via the
-            // joycon-style detachable controllers that we should map to Start
-            // and Select.
-            switch (event.getScanCode()) {
-                case 264:
-                case 266:
-                    return KeyEvent.KEYCODE_BUTTON_START;
-
-                case 265:
-                case 267:
-                    return KeyEvent.KEYCODE_BUTTON_SELECT;
-            }
+        // The Xbox button is sent as MENU
+        if (context.menuIsMode && event.getKeyCode() == KeyEvent.KEYCODE_MENU) {
+            return KeyEvent.KEYCODE_BUTTON_MODE;
         }
 
-        if (context.hatXAxis == -1 &&
-                 context.hatYAxis == -1 &&
-                 /* FIXME: There's no good way to know for sure if xpad is bound
-                    to this device, so we won't use the name to validate if these
-                    scancodes should be mapped to DPAD
-
-                    context.isXboxController &&
-                  */
-                 event.getKeyCode() == KeyEvent.KEYCODE_UNKNOWN) {
-            // If there's not a proper Xbox controller mapping, we'll translate the raw d-pad
-            // scan codes into proper key codes
-            switch (event.getScanCode())
-            {
-            case 704:
-                return KeyEvent.KEYCODE_DPAD_LEFT;
-            case 705:
-                return KeyEvent.KEYCODE_DPAD_RIGHT;
-            case 706:
-                return KeyEvent.KEYCODE_DPAD_UP;
-            case 707:
-                return KeyEvent.KEYCODE_DPAD_DOWN;
+        if (event.getKeyCode() == KeyEvent.KEYCODE_UNKNOWN &&
+                scanCode >= 0 && scanCode < context.unknownKeyScanCodeRemap.length) {
+            remapped = context.unknownKeyScanCodeRemap[scanCode];
+            if (remapped != KeyEvent.KEYCODE_UNKNOWN) {
+                return remapped;
             }
         }
 
@@ -1829,59 +1756,257 @@ public class ControllerHandler implements InputManager.InputDeviceListener, UsbD
         return keyCode;
     }
 
-    private int handleFlipFaceButtons(int keyCode) {
+    private int translateKeyCode(int keyCode) {
+        return keyCode < keyCodeTranslation.length ? keyCodeTranslation[keyCode] : keyCode;
+    }
+
+    // Returns the button flags a press of this (translated) key sets in handleButtonDown(),
+    // before any combo emulation. Aliased keys like BACK and SELECT map to the same flag.
+    private static int getPressedButtonFlags(InputDeviceContext context, KeyEvent event, int keyCode) {
         switch (keyCode) {
-            case KeyEvent.KEYCODE_BUTTON_A:
-                return KeyEvent.KEYCODE_BUTTON_B;
-            case KeyEvent.KEYCODE_BUTTON_B:
-                return KeyEvent.KEYCODE_BUTTON_A;
-            case KeyEvent.KEYCODE_BUTTON_X:
-                return KeyEvent.KEYCODE_BUTTON_Y;
-            case KeyEvent.KEYCODE_BUTTON_Y:
-                return KeyEvent.KEYCODE_BUTTON_X;
-            default:
-                return keyCode;
+        case KeyEvent.KEYCODE_BUTTON_MODE:
+            return ControllerPacket.SPECIAL_BUTTON_FLAG;
+        case KeyEvent.KEYCODE_BUTTON_START:
+        case KeyEvent.KEYCODE_MENU:
+            return ControllerPacket.PLAY_FLAG;
+        case KeyEvent.KEYCODE_BACK:
+        case KeyEvent.KEYCODE_BUTTON_SELECT:
+            return ControllerPacket.BACK_FLAG;
+        case KeyEvent.KEYCODE_DPAD_LEFT:
+            return context.hatXAxisUsed ? 0 : ControllerPacket.LEFT_FLAG;
+        case KeyEvent.KEYCODE_DPAD_RIGHT:
+            return context.hatXAxisUsed ? 0 : ControllerPacket.RIGHT_FLAG;
+        case KeyEvent.KEYCODE_DPAD_UP:
+            return context.hatYAxisUsed ? 0 : ControllerPacket.UP_FLAG;
+        case KeyEvent.KEYCODE_DPAD_DOWN:
+            return context.hatYAxisUsed ? 0 : ControllerPacket.DOWN_FLAG;
+        case KeyEvent.KEYCODE_DPAD_UP_LEFT:
+            return context.hatXAxisUsed && context.hatYAxisUsed ? 0 : ControllerPacket.UP_FLAG | ControllerPacket.LEFT_FLAG;
+        case KeyEvent.KEYCODE_DPAD_UP_RIGHT:
+            return context.hatXAxisUsed && context.hatYAxisUsed ? 0 : ControllerPacket.UP_FLAG | ControllerPacket.RIGHT_FLAG;
+        case KeyEvent.KEYCODE_DPAD_DOWN_LEFT:
+            return context.hatXAxisUsed && context.hatYAxisUsed ? 0 : ControllerPacket.DOWN_FLAG | ControllerPacket.LEFT_FLAG;
+        case KeyEvent.KEYCODE_DPAD_DOWN_RIGHT:
+            return context.hatXAxisUsed && context.hatYAxisUsed ? 0 : ControllerPacket.DOWN_FLAG | ControllerPacket.RIGHT_FLAG;
+        case KeyEvent.KEYCODE_BUTTON_B:
+            return ControllerPacket.B_FLAG;
+        case KeyEvent.KEYCODE_DPAD_CENTER:
+        case KeyEvent.KEYCODE_BUTTON_A:
+            return ControllerPacket.A_FLAG;
+        case KeyEvent.KEYCODE_BUTTON_X:
+            return ControllerPacket.X_FLAG;
+        case KeyEvent.KEYCODE_BUTTON_Y:
+            return ControllerPacket.Y_FLAG;
+        case KeyEvent.KEYCODE_BUTTON_L1:
+            return ControllerPacket.LB_FLAG;
+        case KeyEvent.KEYCODE_BUTTON_R1:
+            return ControllerPacket.RB_FLAG;
+        case KeyEvent.KEYCODE_BUTTON_THUMBL:
+            return ControllerPacket.LS_CLK_FLAG;
+        case KeyEvent.KEYCODE_BUTTON_THUMBR:
+            return ControllerPacket.RS_CLK_FLAG;
+        case KeyEvent.KEYCODE_MEDIA_RECORD:
+            return ControllerPacket.MISC_FLAG;
+        case KeyEvent.KEYCODE_BUTTON_1:
+            return ControllerPacket.TOUCHPAD_FLAG;
+        case KeyEvent.KEYCODE_UNKNOWN:
+            if (context.hasPaddles) {
+                switch (event.getScanCode()) {
+                    case 0x2c4: // BTN_TRIGGER_HAPPY5
+                        return ControllerPacket.PADDLE1_FLAG;
+                    case 0x2c5: // BTN_TRIGGER_HAPPY6
+                        return ControllerPacket.PADDLE2_FLAG;
+                    case 0x2c6: // BTN_TRIGGER_HAPPY7
+                        return ControllerPacket.PADDLE3_FLAG;
+                    case 0x2c7: // BTN_TRIGGER_HAPPY8
+                        return ControllerPacket.PADDLE4_FLAG;
+                }
+            }
+            return 0;
+        default:
+            return 0;
+        }
+    }
+
+    private static int[] buildKeyCodeTranslation(boolean flipFaceButtons) {
+        int[] translation = new int[KEYCODE_TABLE_SIZE];
+        for (int i = 0; i < translation.length; i++) {
+            translation[i] = i;
+        }
+
+        if (flipFaceButtons) {
+            translation[KeyEvent.KEYCODE_BUTTON_A] = KeyEvent.KEYCODE_BUTTON_B;
+            translation[KeyEvent.KEYCODE_BUTTON_B] = KeyEvent.KEYCODE_BUTTON_A;
+            translation[KeyEvent.KEYCODE_BUTTON_X] = KeyEvent.KEYCODE_BUTTON_Y;
+            translation[KeyEvent.KEYCODE_BUTTON_Y] = KeyEvent.KEYCODE_BUTTON_X;
+        }
+
+        return translation;
+    }
+
+    private static void putScanCodeRemap(int[] table, int scanCode, int keyCode) {
+        // Earlier fixups take priority, matching the order they were originally checked in
+        if (table[scanCode] == KeyEvent.KEYCODE_UNKNOWN) {
+            table[scanCode] = keyCode;
+        }
+    }
+
+    // Bakes the static device quirks used by handleRemapping() into flat scan code tables
+    // and precomputes the values needed by the per-event deadzone and touchpad math.
+    private void compileInputProfile(InputDeviceContext context) {
+        int[] remap = new int[SCAN_CODE_TABLE_SIZE];
+        int[] unknownKeyRemap = new int[SCAN_CODE_TABLE_SIZE];
+
+        // Override mode button for 8BitDo controllers
+        if (context.vendorId == 0x2dc8) {
+            putScanCodeRemap(remap, 306, KeyEvent.KEYCODE_BUTTON_MODE);
+        }
+
+        // This mapping was adding in Android 10, then changed based on
+        // kernel changes (adding hid-nintendo) in Android 11. If we're
+        // on anything newer than Pie, just use the built-in mapping.
+        if ((context.vendorId == 0x057e && context.productId == 0x2009 && Build.VERSION.SDK_INT < Build.VERSION_CODES.Q) || // Switch Pro controller
+                (context.vendorId == 0x0f0d && context.productId == 0x00c1)) { // HORIPAD for Switch
+            putScanCodeRemap(remap, 0x130, KeyEvent.KEYCODE_BUTTON_A);
+            putScanCodeRemap(remap, 0x131, KeyEvent.KEYCODE_BUTTON_B);
+            putScanCodeRemap(remap, 0x132, KeyEvent.KEYCODE_BUTTON_X);
+            putScanCodeRemap(remap, 0x133, KeyEvent.KEYCODE_BUTTON_Y);
+            putScanCodeRemap(remap, 0x134, KeyEvent.KEYCODE_BUTTON_L1);
+            putScanCodeRemap(remap, 0x135, KeyEvent.KEYCODE_BUTTON_R1);
+            putScanCodeRemap(remap, 0x136, KeyEvent.KEYCODE_BUTTON_L2);
+            putScanCodeRemap(remap, 0x137, KeyEvent.KEYCODE_BUTTON_R2);
+            putScanCodeRemap(remap, 0x138, KeyEvent.KEYCODE_BUTTON_SELECT);
+            putScanCodeRemap(remap, 0x139, KeyEvent.KEYCODE_BUTTON_START);
+            putScanCodeRemap(remap, 0x13A, KeyEvent.KEYCODE_BUTTON_THUMBL);
+            putScanCodeRemap(remap, 0x13B, KeyEvent.KEYCODE_BUTTON_THUMBR);
+            putScanCodeRemap(remap, 0x13D, KeyEvent.KEYCODE_BUTTON_MODE);
+        }
+
+        if (context.usesLinuxGamepadStandardFaceButtons) {
+            // Android's Generic.kl swaps BTN_NORTH and BTN_WEST
+            putScanCodeRemap(remap, 304, KeyEvent.KEYCODE_BUTTON_A);
+            putScanCodeRemap(remap, 305, KeyEvent.KEYCODE_BUTTON_B);
+            putScanCodeRemap(remap, 307, KeyEvent.KEYCODE_BUTTON_Y);
+            putScanCodeRemap(remap, 308, KeyEvent.KEYCODE_BUTTON_X);
+        }
+
+        context.scanCodeRemapDefault = KeyEvent.KEYCODE_UNKNOWN;
+        context.menuIsMode = false;
+        if (context.isNonStandardDualShock4) {
+            putScanCodeRemap(remap, 304, KeyEvent.KEYCODE_BUTTON_X);
+            putScanCodeRemap(remap, 305, KeyEvent.KEYCODE_BUTTON_A);
+            putScanCodeRemap(remap, 306, KeyEvent.KEYCODE_BUTTON_B);
+            putScanCodeRemap(remap, 307, KeyEvent.KEYCODE_BUTTON_Y);
+            putScanCodeRemap(remap, 308, KeyEvent.KEYCODE_BUTTON_L1);
+            putScanCodeRemap(remap, 309, KeyEvent.KEYCODE_BUTTON_R1);
+            // 310 and 311 are L2/R2, but we use the analog triggers instead
+            putScanCodeRemap(remap, 312, KeyEvent.KEYCODE_BUTTON_SELECT);
+            putScanCodeRemap(remap, 313, KeyEvent.KEYCODE_BUTTON_START);
+            putScanCodeRemap(remap, 314, KeyEvent.KEYCODE_BUTTON_THUMBL);
+            putScanCodeRemap(remap, 315, KeyEvent.KEYCODE_BUTTON_THUMBR);
+            putScanCodeRemap(remap, 316, KeyEvent.KEYCODE_BUTTON_MODE);
+
+            // Everything else from this device is consumed
+            for (int i = 0; i < remap.length; i++) {
+                putScanCodeRemap(remap, i, REMAP_CONSUME);
+            }
+            context.scanCodeRemapDefault = REMAP_CONSUME;
+        }
+        // If this is a Serval controller sending an unknown key code, it's probably
+        // the start and select buttons
+        else if (context.isServal) {
+            putScanCodeRemap(unknownKeyRemap, 314, KeyEvent.KEYCODE_BUTTON_SELECT);
+            putScanCodeRemap(unknownKeyRemap, 315, KeyEvent.KEYCODE_BUTTON_START);
+        }
+        else if (context.isNonStandardXboxBtController) {
+            putScanCodeRemap(remap, 306, KeyEvent.KEYCODE_BUTTON_X);
+            putScanCodeRemap(remap, 307, KeyEvent.KEYCODE_BUTTON_Y);
+            putScanCodeRemap(remap, 308, KeyEvent.KEYCODE_BUTTON_L1);
+            putScanCodeRemap(remap, 309, KeyEvent.KEYCODE_BUTTON_R1);
+            putScanCodeRemap(remap, 310, KeyEvent.KEYCODE_BUTTON_SELECT);
+            putScanCodeRemap(remap, 311, KeyEvent.KEYCODE_BUTTON_START);
+            putScanCodeRemap(remap, 312, KeyEvent.KEYCODE_BUTTON_THUMBL);
+            putScanCodeRemap(remap, 313, KeyEvent.KEYCODE_BUTTON_THUMBR);
+            putScanCodeRemap(remap, 139, KeyEvent.KEYCODE_BUTTON_MODE);
+            context.menuIsMode = true;
+        }
+        else if (context.vendorId == 0x0b05 && // ASUS
+                     (context.productId == 0x7900 || // Kunai - USB
+                      context.productId == 0x7902)) // Kunai - Bluetooth
+        {
+            // ROG Kunai has special M1-M4 buttons that are accessible via the
+            // joycon-style detachable controllers that we should map to Start
+            // and Select.
+            putScanCodeRemap(remap, 264, KeyEvent.KEYCODE_BUTTON_START);
+            putScanCodeRemap(remap, 266, KeyEvent.KEYCODE_BUTTON_START);
+            putScanCodeRemap(remap, 265, KeyEvent.KEYCODE_BUTTON_SELECT);
+            putScanCodeRemap(remap, 267, KeyEvent.KEYCODE_BUTTON_SELECT);
+        }
+
+        /* FIXME: There's no good way to know for sure if xpad is bound
+           to this device, so we won't use the name to validate if these
+           scancodes should be mapped to DPAD */
+        if (context.hatXAxis == -1 && context.hatYAxis == -1) {
+            // If there's not a proper Xbox controller mapping, we'll translate the raw d-pad
+            // scan codes into proper key codes
+            putScanCodeRemap(unknownKeyRemap, 704, KeyEvent.KEYCODE_DPAD_LEFT);
+            putScanCodeRemap(unknownKeyRemap, 705, KeyEvent.KEYCODE_DPAD_RIGHT);
+            putScanCodeRemap(unknownKeyRemap, 706, KeyEvent.KEYCODE_DPAD_UP);
+            putScanCodeRemap(unknownKeyRemap, 707, KeyEvent.KEYCODE_DPAD_DOWN);
         }
+
+        context.scanCodeRemap = remap;
+        context.unknownKeyScanCodeRemap = unknownKeyRemap;
+
+        context.touchpadX = compileTouchpadRange(context.touchpadXRange);
+        context.touchpadY = compileTouchpadRange(context.touchpadYRange);
+        context.touchpadPressure = compileTouchpadRange(context.touchpadPressureRange);
+
+        compileDeadzones(context);
     }
 
-    private Vector2d populateCachedVector(float x, float y) {
-        // Reinitialize our cached Vector2d object
-        inputVector.initialize(x, y);
-        return inputVector;
+    private static void compileDeadzones(GenericControllerContext context) {
+        context.leftStickDeadzoneRadiusSq = context.leftStickDeadzoneRadius * context.leftStickDeadzoneRadius;
+        context.rightStickDeadzoneRadiusSq = context.rightStickDeadzoneRadius * context.rightStickDeadzoneRadius;
     }
 
-    private void handleDeadZone(Vector2d stickVector, float deadzoneRadius) {
-        if (stickVector.getMagnitude() <= deadzoneRadius) {
-            // Deadzone
-            stickVector.initialize(0, 0);
+    private static float[] compileTouchpadRange(InputDevice.MotionRange range) {
+        if (range == null) {
+            return null;
         }
 
-        // We're not normalizing here because we let the computer handle the deadzones.
-        // Normalizing can make the deadzones larger than they should be after the computer also
-        // evaluates the deadzone.
+        // min, max, 1/range
+        return new float[] { range.getMin(), range.getMax(), 1.0f / range.getRange() };
+    }
+
+    // Returns true if the stick is inside its deadzone. We're not normalizing here because we
+    // let the computer handle the deadzones. Normalizing can make the deadzones larger than
+    // they should be after the computer also evaluates the deadzone.
+    private static boolean isInDeadZone(float x, float y, float deadzoneRadiusSq) {
+        return x * x + y * y <= deadzoneRadiusSq;
     }
 
     private void handleAxisSet(InputDeviceContext context, float lsX, float lsY, float rsX,
                                float rsY, float lt, float rt, float hatX, float hatY) {
 
         if (context.leftStickXAxis != -1 && context.leftStickYAxis != -1) {
-            Vector2d leftStickVector = populateCachedVector(lsX, lsY);
-
-            handleDeadZone(leftStickVector, context.leftStickDeadzoneRadius);
+            if (isInDeadZone(lsX, lsY, context.leftStickDeadzoneRadiusSq)) {
+                lsX = lsY = 0;
+            }
 
-            context.leftStickX = (short) (leftStickVector.getX() * 0x7FFE);
-            context.leftStickY = (short) (-leftStickVector.getY() * 0x7FFE);
+            context.leftStickX = (short) (lsX * 0x7FFE);
+            context.leftStickY = (short) (-lsY * 0x7FFE);
         }
 
         // Handle physical right stick separately and then apply gyro fusion if needed
         short physX = 0, physY = 0;
         if (context.rightStickXAxis != -1 && context.rightStickYAxis != -1) {
-            Vector2d rightStickVector = populateCachedVector(rsX, rsY);
-
-            handleDeadZone(rightStickVector, context.rightStickDeadzoneRadius);
+            if (isInDeadZone(rsX, rsY, context.rightStickDeadzoneRadiusSq)) {
+                rsX = rsY = 0;
+            }
 
-            physX = (short) (rightStickVector.getX() * 0x7FFE);
-            physY = (short) (-rightStickVector.getY() * 0x7FFE);
+            physX = (short) (rsX * 0x7FFE);
+            physY = (short) (-rsY * 0x7FFE);
             // cache physical right stick and apply EPS denoising
             context.physRightStickX = denoisePhys(physX);
             context.physRightStickY = denoisePhys(physY);
@@ -1962,21 +2087,20 @@ public class ControllerHandler implements InputManager.InputDeviceListener, UsbD
         sendControllerInputPacket(context);
     }
 
-    // Normalize the given raw float value into a 0.0-1.0f range
-    private float normalizeRawValueWithRange(float value, InputDevice.MotionRange range) {
-        value = Math.max(value, range.getMin());
-        value = Math.min(value, range.getMax());
+    // Normalize the given raw float value into a 0.0-1.0f range using a range
+    // compiled by compileTouchpadRange()
+    private static float normalizeRawValueWithRange(float value, float[] range) {
+        value = Math.max(value, range[0]);
+        value = Math.min(value, range[1]);
 
-        value -= range.getMin();
-
-        return value / range.getRange();
+        return (value - range[0]) * range[2];
     }
 
     private boolean sendTouchpadEventForPointer(InputDeviceContext context, MotionEvent event, byte touchType, int pointerIndex) {
-        float normalizedX = normalizeRawValueWithRange(event.getX(pointerIndex), context.touchpadXRange);
-        float normalizedY = normalizeRawValueWithRange(event.getY(pointerIndex), context.touchpadYRange);
-        float normalizedPressure = context.touchpadPressureRange != null ?
-                normalizeRawValueWithRange(event.getPressure(pointerIndex), context.touchpadPressureRange)
+        float normalizedX = normalizeRawValueWithRange(event.getX(pointerIndex), context.touchpadX);
+        float normalizedY = normalizeRawValueWithRange(event.getY(pointerIndex), context.touchpadY);
+        float normalizedPressure = context.touchpadPressure != null ?
+                normalizeRawValueWithRange(event.getPressure(pointerIndex), context.touchpadPressure)
                 : 0;
 
         return conn.sendControllerTouchEvent((byte)context.controllerNumber, touchType,
@@ -2106,11 +2230,22 @@ public class ControllerHandler implements InputManager.InputDeviceListener, UsbD
     }
 
     public boolean handleMotionEvent(MotionEvent event) {
+        try {
+            return handleMotionEventInternal(event);
+        } finally {
+            InputLatencyStats.endDispatch();
+        }
+    }
+
+    private boolean handleMotionEventInternal(MotionEvent event) {
         InputDeviceContext context = getContextForEvent(event);
         if (context == null) {
             return true;
         }
 
+        InputLatencyStats.recordDispatch(InputLatencyStats.SOURCE_GAMEPAD,
+                InputLatencyStats.getEventTimeNanos(event));
+
         float lsX = 0, lsY = 0, rsX = 0, rsY = 0, rt = 0, lt = 0, hatX = 0, hatY = 0;
 
         // We purposefully ignore the historical values in the motion event as it makes
@@ -2447,95 +2582,127 @@ public class ControllerHandler implements InputManager.InputDeviceListener, UsbD
         }
     }
 
-    private SensorEventListener createSensorListener(final short controllerNumber, final byte motionType, final boolean needsDeviceOrientationCorrection) {
-        return new SensorEventListener() {
-            private float[] lastValues = new float[3];
+    private void updateDisplayRotation() {
+        displayRotation = activityContext.getWindowManager().getDefaultDisplay().getRotation();
+    }
+
+    private SensorEventListener createSensorListener(final short controllerNumber, final byte motionType,
+                                                     final boolean needsDeviceOrientationCorrection, short reportRateHz) {
+        return new MotionSensorListener(controllerNumber, motionType, needsDeviceOrientationCorrection, reportRateHz);
+    }
+
+    // Resamples sensor readings to the rate requested by the host. The sensor may deliver
+    // faster (or with jitter around) the requested rate, so samples are averaged until the
+    // next report is due. Runs on sensorHandlerThread and doesn't allocate per sample.
+    private class MotionSensorListener implements SensorEventListener {
+        private final short controllerNumber;
+        private final byte motionType;
+        private final boolean needsDeviceOrientationCorrection;
+        private final long reportPeriodNs;
 
+        private final float[] sum = new float[3];
+        private int sampleCount;
+        private long nextReportTimeNs;
+        private final float[] lastValues = new float[3];
+
+        // Gyro-to-stick fusion touches controller state owned by the main thread, so the
+        // latest sample is handed over and applied there
+        private volatile float pendingGyroX, pendingGyroY;
+        private volatile boolean gyroApplyPosted;
+        private final Runnable applyGyroRunnable = new Runnable() {
             @Override
-            public void onSensorChanged(SensorEvent sensorEvent) {
-                // Android will invoke our callback any time we get a new reading,
-                // even if the values are the same as last time. Don't report a
-                // duplicate set of values to save bandwidth.
-                if (sensorEvent.values[0] == lastValues[0] &&
-                        sensorEvent.values[1] == lastValues[1] &&
-                        sensorEvent.values[2] == lastValues[2]) {
-                    return;
-                }
-                else {
-                    lastValues[0] = sensorEvent.values[0];
-                    lastValues[1] = sensorEvent.values[1];
-                    lastValues[2] = sensorEvent.values[2];
-                }
-
-                int x = 0;
-                int y = 1;
-                int z = 2;
-                int xFactor = 1;
-                int yFactor = 1;
-                int zFactor = 1;
-
-                if (needsDeviceOrientationCorrection) {
-                    int deviceRotation = activityContext.getWindowManager().getDefaultDisplay().getRotation();
-                    switch (deviceRotation) {
-                        case Surface.ROTATION_0:
-                        case Surface.ROTATION_180:
-                            x = 0;
-                            y = 2;
-                            z = 1;
-                            break;
-
-                        case Surface.ROTATION_90:
-                        case Surface.ROTATION_270:
-                            x = 1;
-                            y = 2;
-                            z = 0;
-                            break;
-                    }
+            public void run() {
+                gyroApplyPosted = false;
+                applyGyroToRightStick(controllerNumber, pendingGyroX, pendingGyroY);
+            }
+        };
 
-                    switch (deviceRotation) {
-                        case Surface.ROTATION_0:
-                            zFactor = -1;
-                            break;
-                        case Surface.ROTATION_90:
-                            xFactor = -1;
-                            zFactor = -1;
-                            break;
-                        case Surface.ROTATION_180:
-                            xFactor = -1;
-                            break;
-                        case Surface.ROTATION_270:
-                            break;
-                    }
-                }
+        MotionSensorListener(short controllerNumber, byte motionType,
+                             boolean needsDeviceOrientationCorrection, short reportRateHz) {
+            this.controllerNumber = controllerNumber;
+            this.motionType = motionType;
+            this.needsDeviceOrientationCorrection = needsDeviceOrientationCorrection;
+            this.reportPeriodNs = 1000000000L / reportRateHz;
+        }
 
-                if (motionType == MoonBridge.LI_MOTION_TYPE_GYRO) {
-                    // Convert from rad/s to deg/s
-                    float gx = sensorEvent.values[x] * xFactor * 57.2957795f;
-                    float gy = sensorEvent.values[y] * yFactor * 57.2957795f;
-                    float gz = sensorEvent.values[z] * zFactor * 57.2957795f;
+        @Override
+        public void onSensorChanged(SensorEvent sensorEvent) {
+            float[] values = sensorEvent.values;
+            sum[0] += values[0];
+            sum[1] += values[1];
+            sum[2] += values[2];
+            sampleCount++;
+
+            // Allow a report to go out slightly early so sensor jitter around the
+            // requested rate doesn't make us skip every other report
+            long timestamp = sensorEvent.timestamp;
+            if (timestamp < nextReportTimeNs - reportPeriodNs / 4) {
+                return;
+            }
 
-                    if (prefConfig.gyroToRightStick) {
-                        // Map device/controller gyro to right stick
-                        applyGyroToRightStick(controllerNumber, gz, gx);
-                        return;
-                    }
+            nextReportTimeNs += reportPeriodNs;
+            if (nextReportTimeNs < timestamp) {
+                // We fell behind (first sample or a gap in delivery), so restart the cadence
+                nextReportTimeNs = timestamp + reportPeriodNs;
+            }
 
-                    conn.sendControllerMotionEvent((byte) controllerNumber,
-                            motionType, gx, gy, gz);
-                }
-                else {
-                    // Pass m/s^2 directly without conversion
-                    conn.sendControllerMotionEvent((byte) controllerNumber,
-                            motionType,
-                            sensorEvent.values[x] * xFactor,
-                            sensorEvent.values[y] * yFactor,
-                            sensorEvent.values[z] * zFactor);
+            float v0 = sum[0] / sampleCount;
+            float v1 = sum[1] / sampleCount;
+            float v2 = sum[2] / sampleCount;
+            sum[0] = sum[1] = sum[2] = 0;
+            sampleCount = 0;
+
+            // Android will invoke our callback any time we get a new reading,
+            // even if the values are the same as last time. Don't report a
+            // duplicate set of values to save bandwidth.
+            if (v0 == lastValues[0] && v1 == lastValues[1] && v2 == lastValues[2]) {
+                return;
+            }
+            lastValues[0] = v0;
+            lastValues[1] = v1;
+            lastValues[2] = v2;
+
+            int[] axes = IDENTITY_SENSOR_AXES;
+            int[] signs = IDENTITY_SENSOR_SIGNS;
+            if (needsDeviceOrientationCorrection) {
+                int rotation = displayRotation;
+                axes = ROTATION_SENSOR_AXES[rotation];
+                signs = ROTATION_SENSOR_SIGNS[rotation];
+            }
+
+            float x = lastValues[axes[0]] * signs[0];
+            float y = lastValues[axes[1]] * signs[1];
+            float z = lastValues[axes[2]] * signs[2];
+
+            if (motionType == MoonBridge.LI_MOTION_TYPE_GYRO) {
+                // Convert from rad/s to deg/s
+                float gx = x * 57.2957795f;
+                float gy = y * 57.2957795f;
+                float gz = z * 57.2957795f;
+
+                if (prefConfig.gyroToRightStick) {
+                    // Map device/controller gyro to right stick
+                    pendingGyroX = gz;
+                    pendingGyroY = gx;
+                    if (!gyroApplyPosted) {
+                        gyroApplyPosted = true;
+                        mainThreadHandler.post(applyGyroRunnable);
+                    }
+                    return;
                 }
+
+                conn.sendControllerMotionEvent((byte) controllerNumber,
+                        motionType, gx, gy, gz);
+            }
+            else {
+                // Pass m/s^2 directly without conversion
+                conn.sendControllerMotionEvent((byte) controllerNumber,
+                        motionType, x, y, z);
             }
+        }
 
-            @Override
-            public void onAccuracyChanged(Sensor sensor, int accuracy) {}
-        };
+        @Override
+        public void onAccuracyChanged(Sensor sensor, int accuracy) {}
     }
 
     public void handleSetMotionEventState(final short controllerNumber, final byte motionType, short reportRateHz) {
@@ -2580,8 +2747,8 @@ public class ControllerHandler implements InputManager.InputDeviceListener, UsbD
                         // Enable the accelerometer if requested
                         Sensor accelSensor = sm.getDefaultSensor(Sensor.TYPE_ACCELEROMETER);
                         if (reportRateHz != 0 && accelSensor != null) {
-                            deviceContext.accelListener = createSensorListener(controllerNumber, motionType, sm == deviceSensorManager);
-                            sm.registerListener(deviceContext.accelListener, accelSensor, 1000000 / reportRateHz);
+                            deviceContext.accelListener = createSensorListener(controllerNumber, motionType, sm == deviceSensorManager, reportRateHz);
+                            sm.registerListener(deviceContext.accelListener, accelSensor, 1000000 / reportRateHz, sensorThreadHandler);
                         }
                         break;
                     case MoonBridge.LI_MOTION_TYPE_GYRO:
@@ -2593,8 +2760,8 @@ public class ControllerHandler implements InputManager.InputDeviceListener, UsbD
                         // Enable the gyroscope if requested
                         Sensor gyroSensor = sm.getDefaultSensor(Sensor.TYPE_GYROSCOPE);
                         if (reportRateHz != 0 && gyroSensor != null) {
-                            deviceContext.gyroListener = createSensorListener(controllerNumber, motionType, sm == deviceSensorManager);
-                            sm.registerListener(deviceContext.gyroListener, gyroSensor, 1000000 / reportRateHz);
+                            deviceContext.gyroListener = createSensorListener(controllerNumber, motionType, sm == deviceSensorManager, reportRateHz);
+                            sm.registerListener(deviceContext.gyroListener, gyroSensor, 1000000 / reportRateHz, sensorThreadHandler);
                         }
                         break;
                 }
@@ -2639,39 +2806,37 @@ public class ControllerHandler implements InputManager.InputDeviceListener, UsbD
     }
 
     public boolean handleButtonUp(KeyEvent event) {
+        try {
+            return handleButtonUpInternal(event);
+        } finally {
+            InputLatencyStats.endDispatch();
+        }
+    }
+
+    private boolean handleButtonUpInternal(KeyEvent event) {
         InputDeviceContext context = getContextForEvent(event);
         if (context == null) {
             return true;
         }
 
+        InputLatencyStats.recordDispatch(InputLatencyStats.SOURCE_GAMEPAD,
+                InputLatencyStats.getEventTimeNanos(event));
+
         int keyCode = handleRemapping(context, event);
         if (keyCode < 0) {
             return (keyCode == REMAP_CONSUME);
         }
 
-        if (prefConfig.flipFaceButtons) {
-            keyCode = handleFlipFaceButtons(keyCode);
-        }
+        keyCode = translateKeyCode(keyCode);
 
-        // If the button hasn't been down long enough, sleep for a bit before sending the up event
+        // If the button hasn't been down long enough, hold the release back until it has.
         // This allows "instant" button presses (like OUYA's virtual menu button) to work. This
         // path should not be triggered during normal usage.
         int buttonDownTime = (int)(event.getEventTime() - event.getDownTime());
-        if (buttonDownTime < ControllerHandler.MINIMUM_BUTTON_DOWN_TIME_MS)
-        {
-            // Since our sleep time is so short (<= 25 ms), it shouldn't cause a problem doing this
-            // in the UI thread.
-            try {
-                Thread.sleep(ControllerHandler.MINIMUM_BUTTON_DOWN_TIME_MS - buttonDownTime);
-            } catch (InterruptedException e) {
-                e.printStackTrace();
-
-                // InterruptedException clears the thread's interrupt status. Since we can't
-                // handle that here, we will re-interrupt the thread to set the interrupt
-                // status back to true.
-                Thread.currentThread().interrupt();
-            }
-        }
+        boolean deferRelease = buttonDownTime < ControllerHandler.MINIMUM_BUTTON_DOWN_TIME_MS;
+        int prevInputMap = context.inputMap;
+        byte prevLeftTrigger = context.leftTrigger;
+        byte prevRightTrigger = context.rightTrigger;
 
         switch (keyCode) {
         case KeyEvent.KEYCODE_BUTTON_MODE:
@@ -2867,6 +3032,26 @@ public class ControllerHandler implements InputManager.InputDeviceListener, UsbD
             }
         }
 
+        if (deferRelease) {
+            int releasedFlags = prevInputMap & ~context.inputMap;
+            boolean leftTriggerReleased = prevLeftTrigger != 0 && context.leftTrigger == 0;
+            boolean rightTriggerReleased = prevRightTrigger != 0 && context.rightTrigger == 0;
+            if (releasedFlags != 0 || leftTriggerReleased || rightTriggerReleased) {
+                // Keep the released buttons asserted until the minimum press time has elapsed.
+                // The release is emitted from the main thread handler instead of sleeping here.
+                context.inputMap |= releasedFlags;
+                if (leftTriggerReleased) {
+                    context.leftTrigger = prevLeftTrigger;
+                }
+                if (rightTriggerReleased) {
+                    context.rightTrigger = prevRightTrigger;
+                }
+                context.deferRelease(releasedFlags, leftTriggerReleased, rightTriggerReleased,
+                        event.getDownTime() + ControllerHandler.MINIMUM_BUTTON_DOWN_TIME_MS);
+                return true;
+            }
+        }
+
         sendControllerInputPacket(context);
 
         if (context.pendingExit && context.inputMap == 0) {
@@ -2878,19 +3063,36 @@ public class ControllerHandler implements InputManager.InputDeviceListener, UsbD
     }
 
     public boolean handleButtonDown(KeyEvent event) {
+        try {
+            return handleButtonDownInternal(event);
+        } finally {
+            InputLatencyStats.endDispatch();
+        }
+    }
+
+    private boolean handleButtonDownInternal(KeyEvent event) {
         InputDeviceContext context = getContextForEvent(event);
         if (context == null) {
             return true;
         }
 
+        InputLatencyStats.recordDispatch(InputLatencyStats.SOURCE_GAMEPAD,
+                InputLatencyStats.getEventTimeNanos(event));
+
         int keyCode = handleRemapping(context, event);
         if (keyCode < 0) {
             return (keyCode == REMAP_CONSUME);
         }
 
-        if (prefConfig.flipFaceButtons) {
-            keyCode = handleFlipFaceButtons(keyCode);
-        }
+        keyCode = translateKeyCode(keyCode);
+
+        // If this button's own release is still waiting on its minimum press time, it must
+        // reach the host before this press does, otherwise a quick re-press would be lost.
+        // Matching is done on the button flag so a re-press through an aliased key counts.
+        // Releases of other buttons stay on their due times.
+        context.releaseDeferredButtons(getPressedButtonFlags(context, event, keyCode),
+                keyCode == KeyEvent.KEYCODE_BUTTON_L2 && !context.leftTriggerAxisUsed,
+                keyCode == KeyEvent.KEYCODE_BUTTON_R2 && !context.rightTriggerAxisUsed);
 
         switch (keyCode) {
         case KeyEvent.KEYCODE_BUTTON_MODE:
@@ -3145,11 +3347,26 @@ public class ControllerHandler implements InputManager.InputDeviceListener, UsbD
                                       float leftStickX, float leftStickY,
                                       float rightStickX, float rightStickY,
                                       float leftTrigger, float rightTrigger) {
-        GenericControllerContext context = usbDeviceContexts.get(controllerId);
+        try {
+            reportUsbControllerState(controllerId, buttonFlags, leftStickX, leftStickY,
+                    rightStickX, rightStickY, leftTrigger, rightTrigger);
+        } finally {
+            InputLatencyStats.endDispatch();
+        }
+    }
+
+    private void reportUsbControllerState(int controllerId, int buttonFlags,
+                                          float leftStickX, float leftStickY,
+                                          float rightStickX, float rightStickY,
+                                          float leftTrigger, float rightTrigger) {
+        UsbDeviceContext context = usbDeviceContexts.get(controllerId);
         if (context == null) {
             return;
         }
 
+        long inputTimeNs = context.device.getLastInputTimeNanos();
+        InputLatencyStats.recordDispatch(InputLatencyStats.SOURCE_USB, inputTimeNs);
+
         // Gyro hold activation via analog LT/RT thresholds when mapped to L2/R2
         boolean wasHold = context.gyroHoldActive;
         context.gyroHoldActive = prefConfig.gyroToRightStick && computeAnalogActivation(leftTrigger, rightTrigger);
@@ -3158,22 +3375,23 @@ public class ControllerHandler implements InputManager.InputDeviceListener, UsbD
             onGyroHoldDeactivated(context);
         }
 
-        Vector2d leftStickVector = populateCachedVector(leftStickX, leftStickY);
-
-        handleDeadZone(leftStickVector, context.leftStickDeadzoneRadius);
+        if (isInDeadZone(leftStickX, leftStickY, context.leftStickDeadzoneRadiusSq)) {
+            leftStickX = leftStickY = 0;
+        }
 
-        context.leftStickX = (short) (leftStickVector.getX() * 0x7FFE);
-        context.leftStickY = (short) (-leftStickVector.getY() * 0x7FFE);
+        context.leftStickX = (short) (leftStickX * 0x7FFE);
+        context.leftStickY = (short) (-leftStickY * 0x7FFE);
 
         // Fuse physical right stick with gyro input to avoid jitter.
         // Strategy: if gyro-hold is active, take the component with larger magnitude per-axis.
         // Otherwise, use physical stick only.
         short physX, physY;
         {
-            Vector2d rsv = populateCachedVector(rightStickX, rightStickY);
-            handleDeadZone(rsv, context.rightStickDeadzoneRadius);
-            physX = (short) (rsv.getX() * 0x7FFE);
-            physY = (short) (-rsv.getY() * 0x7FFE);
+            if (isInDeadZone(rightStickX, rightStickY, context.rightStickDeadzoneRadiusSq)) {
+                rightStickX = rightStickY = 0;
+            }
+            physX = (short) (rightStickX * 0x7FFE);
+            physY = (short) (-rightStickY * 0x7FFE);
             // cache physical right stick and apply EPS denoising
             context.physRightStickX = denoisePhys(physX);
             context.physRightStickY = denoisePhys(physY);
@@ -3203,6 +3421,9 @@ public class ControllerHandler implements InputManager.InputDeviceListener, UsbD
         context.inputMap = buttonFlags;
 
         sendControllerInputPacket(context);
+
+        // The USB driver thread sends directly rather than through the input batch
+        InputLatencyStats.recordSubmit(InputLatencyStats.SOURCE_USB, inputTimeNs);
     }
 
     @Override
@@ -3254,6 +3475,10 @@ public class ControllerHandler implements InputManager.InputDeviceListener, UsbD
         public float rightStickDeadzoneRadius;
         public float triggerDeadzone;
 
+        // Squared deadzone radii, compiled by compileDeadzones()
+        public float leftStickDeadzoneRadiusSq;
+        public float rightStickDeadzoneRadiusSq;
+
         public boolean assignedControllerNumber;
         public boolean reservedControllerNumber;
         public short controllerNumber;
@@ -3375,6 +3600,15 @@ public class ControllerHandler implements InputManager.InputDeviceListener, UsbD
         InputDevice.MotionRange touchpadYRange;
         InputDevice.MotionRange touchpadPressureRange;
 
+        // Compiled input profile, see compileInputProfile()
+        public int[] scanCodeRemap = new int[0];
+        public int scanCodeRemapDefault = KeyEvent.KEYCODE_UNKNOWN;
+        public int[] unknownKeyScanCodeRemap = new int[0];
+        public boolean menuIsMode;
+        float[] touchpadX;
+        float[] touchpadY;
+        float[] touchpadPressure;
+
         public boolean isNonStandardDualShock4;
         public boolean usesLinuxGamepadStandardFaceButtons;
         public boolean isNonStandardXboxBtController;
@@ -3404,6 +3638,61 @@ public class ControllerHandler implements InputManager.InputDeviceListener, UsbD
 
         public long startDownTime = 0;
 
+        // Button releases held back until the minimum press time has elapsed
+        private final DeferredReleaseQueue deferredReleases = new DeferredReleaseQueue();
+
+        private final Runnable deferredReleaseRunnable = new Runnable() {
+            @Override
+            public void run() {
+                if (deferredReleases.takeDue(SystemClock.uptimeMillis())) {
+                    applyTakenReleases();
+                }
+                scheduleDeferredReleases();
+            }
+        };
+
+        void deferRelease(int releasedFlags, boolean leftTriggerReleased, boolean rightTriggerReleased, long dueTime) {
+            if (deferredReleases.add(releasedFlags, leftTriggerReleased, rightTriggerReleased, dueTime)) {
+                applyTakenReleases();
+            }
+            scheduleDeferredReleases();
+        }
+
+        /**
+         * Applies now any pending release of the given buttons or triggers.
+         */
+        void releaseDeferredButtons(int buttonFlags, boolean leftTrigger, boolean rightTrigger) {
+            if (deferredReleases.takeButtons(buttonFlags, leftTrigger, rightTrigger)) {
+                applyTakenReleases();
+                scheduleDeferredReleases();
+            }
+        }
+
+        private void applyTakenReleases() {
+            inputMap &= ~deferredReleases.getTakenFlags();
+            if (deferredReleases.isLeftTriggerTaken()) {
+                leftTrigger = 0;
+            }
+            if (deferredReleases.isRightTriggerTaken()) {
+                rightTrigger = 0;
+            }
+
+            sendControllerInputPacket(this);
+
+            if (pendingExit && inputMap == 0) {
+                // All buttons from the quit combo are lifted. Finish the activity now.
+                activityContext.finish();
+            }
+        }
+
+        private void scheduleDeferredReleases() {
+            mainThreadHandler.removeCallbacks(deferredReleaseRunnable);
+            long nextDueTime = deferredReleases.getNextDueTime();
+            if (nextDueTime >= 0) {
+                mainThreadHandler.postAtTime(deferredReleaseRunnable, nextDueTime);
+            }
+        }
+
         public final Runnable batteryStateUpdateRunnable = new Runnable() {
             @Override
             public void run() {
@@ -3439,6 +3728,8 @@ public class ControllerHandler implements InputManager.InputDeviceListener, UsbD
             }
 
             backgroundThreadHandler.removeCallbacks(enableSensorRunnable);
+            mainThreadHandler.removeCallbacks(deferredReleaseRunnable);
+            deferredReleases.clear();
 
             if (gyroListener != null) {
                 sensorManager.unregisterListener(gyroListener);
@@ -3476,9 +3767,10 @@ public class ControllerHandler implements InputManager.InputDeviceListener, UsbD
             }
 
             int supportedButtonFlags = 0;
-            for (Map.Entry<Integer, Integer> entry : ANDROID_TO_LI_BUTTON_MAP.entrySet()) {
-                if (inputDevice.hasKeys(entry.getKey())[0]) {
-                    supportedButtonFlags |= entry.getValue();
+            boolean[] hasKeys = inputDevice.hasKeys(ANDROID_TO_LI_BUTTON_KEYCODES);
+            for (int i = 0; i < hasKeys.length; i++) {
+                if (hasKeys[i]) {
+                    supportedButtonFlags |= ANDROID_TO_LI_BUTTON_FLAGS[i];
                 }
             }
 
@@ -0,0 +1,173 @@
+package com.limelight.binding.input;
+
+/**
+ * Button releases held back until the button has been down for the minimum press time.
+ *
+ * Each entry remembers the button flags and triggers it releases and the uptime at which it
+ * becomes due. Entries are independent: a release is applied at its own due time, and
+ * re-pressing a button only forces out the release of that same button. Matching is done on
+ * the button flags rather than the key code, so aliased keys (e.g. BACK and SELECT) match.
+ * Removed releases are accumulated and read back with getTakenFlags() and friends, so the
+ * caller can apply them to the controller state in one packet.
+ *
+ * This class has no Android dependencies and is only used from the main thread.
+ */
+class DeferredReleaseQueue {
+    static final int CAPACITY = 8;
+
+    private final int[] releasedFlags = new int[CAPACITY];
+    private final boolean[] leftTriggerReleased = new boolean[CAPACITY];
+    private final boolean[] rightTriggerReleased = new boolean[CAPACITY];
+    private final long[] dueTimes = new long[CAPACITY];
+    private int count;
+
+    // Releases removed by the last take*() call
+    private int takenFlags;
+    private boolean takenLeftTrigger;
+    private boolean takenRightTrigger;
+
+    /**
+     * Queues a release. If the queue is full, the earliest due release is taken first and
+     * the caller must apply it (this returns true in that case).
+     */
+    boolean add(int flags, boolean leftTrigger, boolean rightTrigger, long dueTime) {
+        boolean tookEarliest = false;
+        if (count == CAPACITY) {
+            // Should never happen with real buttons, but don't drop a release
+            tookEarliest = takeEarliest();
+        }
+        else {
+            resetTaken();
+        }
+
+        int i = count++;
+        releasedFlags[i] = flags;
+        leftTriggerReleased[i] = leftTrigger;
+        rightTriggerReleased[i] = rightTrigger;
+        dueTimes[i] = dueTime;
+        return tookEarliest;
+    }
+
+    /**
+     * Takes every release due at or before the given uptime.
+     */
+    boolean takeDue(long now) {
+        resetTaken();
+        int kept = 0;
+        for (int i = 0; i < count; i++) {
+            if (dueTimes[i] <= now) {
+                take(i);
+            }
+            else {
+                move(i, kept++);
+            }
+        }
+        return setCount(kept);
+    }
+
+    /**
+     * Takes every pending release that includes one of the given buttons or triggers,
+     * regardless of its due time. Called when they are pressed again so the host sees
+     * the release before the new press.
+     */
+    boolean takeButtons(int flags, boolean leftTrigger, boolean rightTrigger) {
+        resetTaken();
+        int kept = 0;
+        for (int i = 0; i < count; i++) {
+            if ((releasedFlags[i] & flags) != 0 ||
+                    (leftTrigger && leftTriggerReleased[i]) ||
+                    (rightTrigger && rightTriggerReleased[i])) {
+                take(i);
+            }
+            else {
+                move(i, kept++);
+            }
+        }
+        return setCount(kept);
+    }
+
+    private boolean takeEarliest() {
+        resetTaken();
+        if (count == 0) {
+            return false;
+        }
+
+        int earliest = 0;
+        for (int i = 1; i < count; i++) {
+            if (dueTimes[i] < dueTimes[earliest]) {
+                earliest = i;
+            }
+        }
+        take(earliest);
+
+        int kept = 0;
+        for (int i = 0; i < count; i++) {
+            if (i != earliest) {
+                move(i, kept++);
+            }
+        }
+        return setCount(kept);
+    }
+
+    private void take(int i) {
+        takenFlags |= releasedFlags[i];
+        takenLeftTrigger |= leftTriggerReleased[i];
+        takenRightTrigger |= rightTriggerReleased[i];
+    }
+
+    private void move(int from, int to) {
+        if (from != to) {
+            releasedFlags[to] = releasedFlags[from];
+            leftTriggerReleased[to] = leftTriggerReleased[from];
+            rightTriggerReleased[to] = rightTriggerReleased[from];
+            dueTimes[to] = dueTimes[from];
+        }
+    }
+
+    private boolean setCount(int kept) {
+        boolean changed = kept != count;
+        count = kept;
+        return changed;
+    }
+
+    private void resetTaken() {
+        takenFlags = 0;
+        takenLeftTrigger = false;
+        takenRightTrigger = false;
+    }
+
+    int getTakenFlags() {
+        return takenFlags;
+    }
+
+    boolean isLeftTriggerTaken() {
+        return takenLeftTrigger;
+    }
+
+    boolean isRightTriggerTaken() {
+        return takenRightTrigger;
+    }
+
+    /**
+     * Returns the uptime of the next due release, or -1 if nothing is pending.
+     */
+    long getNextDueTime() {
+        if (count == 0) {
+            return -1;
+        }
+        long next = dueTimes[0];
+        for (int i = 1; i < count; i++) {
+            next = Math.min(next, dueTimes[i]);
+        }
+        return next;
+    }
+
+    int size() {
+        return count;
+    }
+
+    void clear() {
+        count = 0;
+        resetTaken();
+    }
+}
@@ -0,0 +1,80 @@
+package com.limelight.binding.input;
+
+/**
+ * 按时间顺序遍历一次移动事件中的所有采样
+ * 历史采样序号0到historySize-1（从旧到新），最后是当前采样CURRENT。
+ * 不依赖Android类，MotionEvent通过MotionSamples.EventSamples适配，便于在JVM上测试。
+ */
+public final class MotionSampleWalker {
+    public static final int CURRENT = -1;
+
+    /**
+     * 采样数据来源，pos为历史采样序号或CURRENT
+     */
+    public interface Samples {
+        int getHistorySize();
+
+        int getPointerCount();
+
+        long getEventTime(int pos);
+
+        float getX(int pointerIndex, int pos);
+
+        float getY(int pointerIndex, int pos);
+
+        float getPressure(int pointerIndex, int pos);
+    }
+
+    /**
+     * 逐个接收采样，返回false时停止遍历
+     */
+    public interface Sender {
+        boolean send(int pointerIndex, int samplePos, long eventTime, float x, float y, float pressure);
+    }
+
+    /**
+     * 按采样时间逐个转发，每个采样内依次转发所有指针
+     *
+     * @return 所有采样都发送成功时返回true
+     */
+    public static boolean forEachSample(Samples samples, Sender sender) {
+        int historySize = samples.getHistorySize();
+        int pointerCount = samples.getPointerCount();
+        for (int s = 0; s <= historySize; s++) {
+            int pos = s < historySize ? s : CURRENT;
+            long eventTime = samples.getEventTime(pos);
+            for (int i = 0; i < pointerCount; i++) {
+                if (!sendSample(samples, sender, i, pos, eventTime)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 按采样时间逐个转发单个指针的采样
+     *
+     * @return 所有采样都发送成功时返回true
+     */
+    public static boolean forEachSample(Samples samples, int pointerIndex, Sender sender) {
+        int historySize = samples.getHistorySize();
+        for (int s = 0; s <= historySize; s++) {
+            int pos = s < historySize ? s : CURRENT;
+            if (!sendSample(samples, sender, pointerIndex, pos, samples.getEventTime(pos))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean sendSample(Samples samples, Sender sender, int pointerIndex, int pos, long eventTime) {
+        return sender.send(pointerIndex, pos, eventTime,
+                samples.getX(pointerIndex, pos),
+                samples.getY(pointerIndex, pos),
+                samples.getPressure(pointerIndex, pos));
+    }
+
+    private MotionSampleWalker() {
+    }
+}
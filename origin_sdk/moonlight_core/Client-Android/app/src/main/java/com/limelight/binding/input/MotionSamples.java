@@ -0,0 +1,99 @@
+package com.limelight.binding.input;
+
+import android.view.MotionEvent;
+
+/**
+ * MotionEvent采样访问工具
+ * Android会把同一帧内的多个移动采样合并进一个MotionEvent，只读取当前坐标会丢失中间轨迹。
+ * 这里用统一的采样序号访问历史采样和当前采样：0到getHistorySize()-1为历史采样（时间从旧到新），
+ * CURRENT为当前采样，便于同一套发送逻辑按时间顺序逐个转发所有采样。
+ * 遍历顺序由MotionSampleWalker决定，EventSamples把MotionEvent适配给它。
+ */
+public final class MotionSamples {
+    public static final int CURRENT = MotionSampleWalker.CURRENT;
+
+    public static long getEventTime(MotionEvent event, int pos) {
+        return pos == CURRENT ? event.getEventTime() : event.getHistoricalEventTime(pos);
+    }
+
+    public static float getX(MotionEvent event, int pointerIndex, int pos) {
+        return pos == CURRENT ? event.getX(pointerIndex) : event.getHistoricalX(pointerIndex, pos);
+    }
+
+    public static float getY(MotionEvent event, int pointerIndex, int pos) {
+        return pos == CURRENT ? event.getY(pointerIndex) : event.getHistoricalY(pointerIndex, pos);
+    }
+
+    public static float getPressure(MotionEvent event, int pointerIndex, int pos) {
+        return pos == CURRENT ? event.getPressure(pointerIndex) : event.getHistoricalPressure(pointerIndex, pos);
+    }
+
+    public static float getOrientation(MotionEvent event, int pointerIndex, int pos) {
+        return pos == CURRENT ? event.getOrientation(pointerIndex) : event.getHistoricalOrientation(pointerIndex, pos);
+    }
+
+    public static float getTouchMajor(MotionEvent event, int pointerIndex, int pos) {
+        return pos == CURRENT ? event.getTouchMajor(pointerIndex) : event.getHistoricalTouchMajor(pointerIndex, pos);
+    }
+
+    public static float getTouchMinor(MotionEvent event, int pointerIndex, int pos) {
+        return pos == CURRENT ? event.getTouchMinor(pointerIndex) : event.getHistoricalTouchMinor(pointerIndex, pos);
+    }
+
+    public static float getToolMajor(MotionEvent event, int pointerIndex, int pos) {
+        return pos == CURRENT ? event.getToolMajor(pointerIndex) : event.getHistoricalToolMajor(pointerIndex, pos);
+    }
+
+    public static float getToolMinor(MotionEvent event, int pointerIndex, int pos) {
+        return pos == CURRENT ? event.getToolMinor(pointerIndex) : event.getHistoricalToolMinor(pointerIndex, pos);
+    }
+
+    public static float getAxisValue(MotionEvent event, int axis, int pointerIndex, int pos) {
+        return pos == CURRENT ? event.getAxisValue(axis, pointerIndex) : event.getHistoricalAxisValue(axis, pointerIndex, pos);
+    }
+
+    /**
+     * MotionEvent到MotionSampleWalker.Samples的适配，可复用以免每个事件都分配对象
+     */
+    public static final class EventSamples implements MotionSampleWalker.Samples {
+        private MotionEvent event;
+
+        public EventSamples set(MotionEvent event) {
+            this.event = event;
+            return this;
+        }
+
+        @Override
+        public int getHistorySize() {
+            return event.getHistorySize();
+        }
+
+        @Override
+        public int getPointerCount() {
+            return event.getPointerCount();
+        }
+
+        @Override
+        public long getEventTime(int pos) {
+            return MotionSamples.getEventTime(event, pos);
+        }
+
+        @Override
+        public float getX(int pointerIndex, int pos) {
+            return MotionSamples.getX(event, pointerIndex, pos);
+        }
+
+        @Override
+        public float getY(int pointerIndex, int pos) {
+            return MotionSamples.getY(event, pointerIndex, pos);
+        }
+
+        @Override
+        public float getPressure(int pointerIndex, int pos) {
+            return MotionSamples.getPressure(event, pointerIndex, pos);
+        }
+    }
+
+    private MotionSamples() {
+    }
+}
@@ -8,6 +8,7 @@ import com.limelight.Game;
 import com.limelight.R;
 import com.limelight.binding.input.advance_setting.config.PageConfigController;
 import com.limelight.binding.input.advance_setting.element.ElementController;
+import com.limelight.binding.input.advance_setting.sqlite.ElementLayoutRepository;
 import com.limelight.binding.input.advance_setting.sqlite.SuperConfigDatabaseHelper;
 import com.limelight.binding.input.advance_setting.superpage.SuperPagesController;
 
@@ -20,6 +21,7 @@ public class ControllerManager {
     private SuperPagesController superPagesController;
     private PageDeviceController pageDeviceController;
     private SuperConfigDatabaseHelper superConfigDatabaseHelper;
+    private ElementLayoutRepository elementLayoutRepository;
     private ElementController elementController;
     private PageSuperMenuController pageSuperMenuController;
     private KeyboardUIController keyboardUIController;
@@ -72,6 +74,22 @@ public class ControllerManager {
         return superConfigDatabaseHelper;
     }
 
+    /**
+     * 把编辑时延迟写入的修改立即提交到数据库。
+     */
+    public void flushPendingEdits() {
+        if (superConfigDatabaseHelper != null) {
+            superConfigDatabaseHelper.flushPendingWrites();
+        }
+    }
+
+    public ElementLayoutRepository getElementLayoutRepository() {
+        if (elementLayoutRepository == null){
+            elementLayoutRepository = new ElementLayoutRepository(getSuperConfigDatabaseHelper());
+        }
+        return elementLayoutRepository;
+    }
+
     public ElementController getElementController() {
         if (elementController == null){
             FrameLayout layerElement = advanceSettingView.findViewById(R.id.layer_2_element);
@@ -80,6 +98,13 @@ public class ControllerManager {
         return elementController;
     }
 
+    /**
+     * 虚拟手柄发包统计，没有加载过虚拟按键时返回 null。
+     */
+    public String getGamepadEmitSummary() {
+        return elementController != null ? elementController.getGamepadEmitSummary() : null;
+    }
+
     public PageSuperMenuController getPageSuperMenuController() {
         return pageSuperMenuController;
     }
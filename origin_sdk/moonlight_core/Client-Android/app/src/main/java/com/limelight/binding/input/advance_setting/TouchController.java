@@ -6,6 +6,7 @@ import android.view.MotionEvent;
 import android.view.View;
 
 import com.limelight.Game;
+import com.limelight.binding.input.touch.RelativeMouseEngine;
 import com.limelight.binding.input.touch.RelativeTouchContext;
 import com.limelight.binding.input.touch.TouchContext;
 
@@ -14,8 +15,8 @@ public class TouchController {
     final private Game game;
     final private ControllerManager controllerManager;
     final private View touchView;
-    private double xFactor;
-    private double yFactor;
+    // 触控板按钮的相对鼠标移动，缩放系数在布局变化时更新
+    private final RelativeMouseEngine mouseEngine = new RelativeMouseEngine();
 
     // --- 新增：一个可复用的、用于屏蔽所有触摸的监听器 ---
     // 这比每次都创建一个新的匿名内部类效率更高。
@@ -35,6 +36,11 @@ public class TouchController {
         // 将初始状态设置为“激活”
         touchView.setOnTouchListener(game);
 
+        mouseEngine.setAccelerationCurve(game.getPrefConfig().touchMouseAcceleration);
+        mouseEngine.setViewSize(touchView.getWidth(), touchView.getHeight());
+        touchView.addOnLayoutChangeListener((v, left, top, right, bottom, oldLeft, oldTop, oldRight, oldBottom) ->
+                mouseEngine.setViewSize(right - left, bottom - top));
+
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
             touchView.requestUnbufferedDispatch(
                     InputDevice.SOURCE_CLASS_BUTTON |
@@ -61,20 +67,22 @@ public class TouchController {
         game.setEnhancedTouch(enableRelativeTouch);
     }
 
-    public void mouseMove(float deltaX, float deltaY, double sense) {
-        float preDeltaX = deltaX;
-        float preDeltaY = deltaY;
-        xFactor = Game.REFERENCE_HORIZ_RES / (double) touchView.getWidth() * sense;
-        yFactor = Game.REFERENCE_VERT_RES / (double) touchView.getHeight() * sense;
-        deltaX = (int) Math.round((double) Math.abs(deltaX) * xFactor);
-        deltaY = (int) Math.round((double) Math.abs(deltaY) * yFactor);
-        if (preDeltaX < 0) {
-            deltaX = -deltaX;
-        }
-        if (preDeltaY < 0) {
-            deltaY = -deltaY;
+    /**
+     * 发送一个采样点的触摸位移，eventTime 用于计算加速曲线的速度。
+     * 不足 1 的部分累积到下一次移动。
+     */
+    public void mouseMove(float deltaX, float deltaY, double sense, long eventTime) {
+        mouseEngine.setSensitivity(sense);
+        if (mouseEngine.addMotion(deltaX, deltaY, eventTime)) {
+            game.mouseMove(mouseEngine.getDeltaX(), mouseEngine.getDeltaY());
         }
-        game.mouseMove((int) deltaX, (int) deltaY);
+    }
+
+    /**
+     * 新的拖动开始时调用，丢弃上一次拖动剩下的位移和速度。
+     */
+    public void resetMouseMotion() {
+        mouseEngine.reset();
     }
 
     // --- 修改及新增的触摸状态控制方法 ---
@@ -159,7 +159,7 @@ public class PageConfigController {
                             returnPrePage(pageWindow.getLastPage());
                             return;
                         }
-                        controllerManager.getSuperConfigDatabaseHelper().deleteConfig(currentConfigId);
+                        controllerManager.getElementLayoutRepository().deleteConfig(currentConfigId);
                         SharedPreferences.Editor editor = PreferenceManager.getDefaultSharedPreferences(context).edit();
                         editor.putLong(CURRENT_CONFIG_KEY,0L);
                         editor.apply();
@@ -199,6 +199,8 @@ public class PageConfigController {
     public void initConfig(){
         loadAllConfigToSpinner();
         loadCurrentConfig();
+        //当前配置排在前面读取，其余配置随后预读，切换时不再等待数据库
+        controllerManager.getElementLayoutRepository().prefetch(configIds);
     }
 
     private void loadAllConfigToSpinner(){
@@ -0,0 +1,122 @@
+package com.limelight.binding.input.advance_setting.element;
+
+/**
+ * 编译后的按键配置值。
+ *
+ * 元素的按键值（如 "k29"、"g4096"、"k17+k29"）在加载时由 ElementController 解析成
+ * opcode 数组，按下和抬起时只遍历数组，不做字符串处理，也不分配对象。
+ * 组合键按下时按配置顺序发送，抬起时逆序发送；同一次触发里的手柄状态变化合并成一次上报。
+ */
+public final class ActionBinding implements ElementController.SendEventHandler {
+    static final int OP_KEY = 1;
+    static final int OP_MOUSE = 2;
+    static final int OP_GAMEPAD_BUTTON = 3;
+    static final int OP_LEFT_STICK = 4;
+    static final int OP_RIGHT_STICK = 5;
+    static final int OP_LEFT_TRIGGER = 6;
+    static final int OP_RIGHT_TRIGGER = 7;
+    static final int OP_SCROLL = 8;
+    // 组按键、模式切换等，交给编译时创建好的处理器
+    static final int OP_HANDLER = 9;
+
+    private final ElementController controller;
+    private final int[] opcodes;
+    private final int[] args;
+    private final ElementController.SendEventHandler[] handlers;
+
+    ActionBinding(ElementController controller, int[] opcodes, int[] args,
+                  ElementController.SendEventHandler[] handlers) {
+        this.controller = controller;
+        this.opcodes = opcodes;
+        this.args = args;
+        this.handlers = handlers;
+    }
+
+    public int size() {
+        return opcodes.length;
+    }
+
+    @Override
+    public void sendEvent(boolean down) {
+        boolean gamepadChanged = false;
+        if (down) {
+            for (int i = 0; i < opcodes.length; i++) {
+                gamepadChanged |= execute(i, true);
+            }
+        } else {
+            for (int i = opcodes.length - 1; i >= 0; i--) {
+                gamepadChanged |= execute(i, false);
+            }
+        }
+        if (gamepadChanged) {
+            controller.sendGamepadEvent();
+        }
+    }
+
+    @Override
+    public void sendEvent(int analog1, int analog2) {
+        boolean gamepadChanged = false;
+        for (int i = 0; i < opcodes.length; i++) {
+            switch (opcodes[i]) {
+                case OP_LEFT_STICK:
+                    controller.setLeftStick(analog1, analog2);
+                    gamepadChanged = true;
+                    break;
+                case OP_RIGHT_STICK:
+                    controller.setRightStick(analog1, analog2);
+                    gamepadChanged = true;
+                    break;
+                case OP_HANDLER:
+                    handlers[i].sendEvent(analog1, analog2);
+                    break;
+            }
+        }
+        if (gamepadChanged) {
+            controller.sendGamepadEvent();
+        }
+    }
+
+    // 返回手柄状态是否改变
+    private boolean execute(int index, boolean down) {
+        int arg = args[index];
+        switch (opcodes[index]) {
+            case OP_KEY:
+                controller.sendKeyEvent(down, (short) arg);
+                return false;
+            case OP_MOUSE:
+                controller.sendMouseEvent(arg, down);
+                return false;
+            case OP_GAMEPAD_BUTTON:
+                controller.setGamepadButton(arg, down);
+                return true;
+            case OP_LEFT_TRIGGER:
+                controller.setLeftTrigger(down);
+                return true;
+            case OP_RIGHT_TRIGGER:
+                controller.setRightTrigger(down);
+                return true;
+            case OP_SCROLL:
+                if (down) {
+                    controller.startMouseScrollHold(arg);
+                } else {
+                    controller.stopMouseScrollHold(arg);
+                }
+                return false;
+            case OP_HANDLER:
+                handlers[index].sendEvent(down);
+                return false;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * 第一个动作是组按键时返回该组按键，用于轮盘的子按键预览。
+     */
+    GroupButton getLeadingGroupButton() {
+        if (opcodes.length > 0 && handlers[0] instanceof ElementController.GroupButtonAction) {
+            return ((ElementController.GroupButtonAction) handlers[0]).resolve();
+        }
+        return null;
+    }
+}
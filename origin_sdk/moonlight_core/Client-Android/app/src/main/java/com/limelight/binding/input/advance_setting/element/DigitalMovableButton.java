@@ -338,6 +338,7 @@ public class DigitalMovableButton extends Element {
             case MotionEvent.ACTION_DOWN: {
                 lastX = event.getX();
                 lastY = event.getY();
+                touchController.resetMouseMotion();
                 originalTouchX = event.getX();
                 originalTouchY = event.getY();
                 confirmedMove = false;
@@ -346,8 +347,6 @@ public class DigitalMovableButton extends Element {
                 return true;
             }
             case MotionEvent.ACTION_MOVE: {
-                float deltaX = event.getX() - lastX;
-                float deltaY = event.getY() - lastY;
                 if (!confirmedMove && !confirmedDrag) {
                     float moveDistance = (float) Math.hypot(event.getX() - originalTouchX, event.getY() - originalTouchY);
                     if (moveDistance > TAP_MOVEMENT_THRESHOLD) {
@@ -356,7 +355,7 @@ public class DigitalMovableButton extends Element {
                     }
                 }
                 if (confirmedMove || confirmedDrag) {
-                    touchController.mouseMove(deltaX, deltaY, 0.01 * sense);
+                    sendMouseMotion(event);
                 }
                 lastX = event.getX();
                 lastY = event.getY();
@@ -380,6 +379,20 @@ public class DigitalMovableButton extends Element {
         return false;
     }
 
+    // 按时间顺序发送每个采样点的位移，加速曲线使用各自的时间戳
+    private void sendMouseMotion(MotionEvent event) {
+        for (int h = 0; h < event.getHistorySize(); h++) {
+            float x = event.getHistoricalX(h);
+            float y = event.getHistoricalY(h);
+            touchController.mouseMove(x - lastX, y - lastY, 0.01 * sense, event.getHistoricalEventTime(h));
+            lastX = x;
+            lastY = y;
+        }
+        touchController.mouseMove(event.getX() - lastX, event.getY() - lastY, 0.01 * sense, event.getEventTime());
+        lastX = event.getX();
+        lastY = event.getY();
+    }
+
     private boolean handleButtonTouchEvent(MotionEvent event) {
         int action = event.getActionMasked();
         switch (action) {
@@ -387,17 +400,14 @@ public class DigitalMovableButton extends Element {
                 elementController.buttonVibrator();
                 lastX = event.getX();
                 lastY = event.getY();
+                touchController.resetMouseMotion();
                 setPressed(true);
                 onClickCallback();
                 invalidate();
                 return true;
             }
             case MotionEvent.ACTION_MOVE: {
-                float deltaX = event.getX() - lastX;
-                float deltaY = event.getY() - lastY;
-                touchController.mouseMove(deltaX, deltaY, 0.01 * sense);
-                lastX = event.getX();
-                lastY = event.getY();
+                sendMouseMotion(event);
                 return true;
             }
             case MotionEvent.ACTION_CANCEL:
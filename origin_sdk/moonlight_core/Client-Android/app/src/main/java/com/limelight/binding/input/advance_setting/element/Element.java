@@ -4,6 +4,7 @@ import android.content.Context;
 import android.graphics.Canvas;
 import android.graphics.Paint;
 import android.graphics.RectF;
+import android.graphics.RenderNode;
 import android.text.InputFilter;
 import android.text.Spanned;
 import android.view.MotionEvent;
@@ -12,6 +13,7 @@ import android.view.ViewConfiguration;
 import android.widget.FrameLayout;
 
 import com.limelight.binding.input.advance_setting.superpage.SuperPageLayout;
+import com.limelight.nvstream.input.InputLatencyStats;
 
 import java.util.Map;
 
@@ -122,6 +124,11 @@ public abstract class Element extends View {
     protected int editColor = EDIT_COLOR_EDIT;
     private ElementSelectedCallBack elementSelectedCallBack;
 
+    // 合成模式下由 ElementCompositor 维护，为 null 时元素自己绘制
+    ElementCompositor compositor;
+    boolean compositorDirty;
+    RenderNode renderNode;
+
 
     public Element(Map<String, Object> attributesMap, ElementController elementController, Context context) {
         super(context);
@@ -239,10 +246,51 @@ public abstract class Element extends View {
 
     @Override
     protected void onDraw(Canvas canvas) {
+        if (compositor != null) {
+            return;
+        }
         onElementDraw(canvas);
         super.onDraw(canvas);
     }
 
+    @Override
+    public void invalidate() {
+        // View 构造过程中也会调用，此时 compositor 还未设置
+        if (compositor != null) {
+            compositor.markDirty(this);
+            return;
+        }
+        super.invalidate();
+    }
+
+    @Override
+    public void setAlpha(float alpha) {
+        super.setAlpha(alpha);
+        if (compositor != null) {
+            compositor.markMoved();
+        }
+    }
+
+    @Override
+    protected void onLayout(boolean changed, int left, int top, int right, int bottom) {
+        super.onLayout(changed, left, top, right, bottom);
+        if (changed && compositor != null) {
+            compositor.markMoved();
+        }
+    }
+
+    @Override
+    protected void onVisibilityChanged(View changedView, int visibility) {
+        super.onVisibilityChanged(changedView, visibility);
+        if (changedView == this && compositor != null) {
+            compositor.markMoved();
+        }
+        if (changedView == this && getParent() instanceof ElementTouchLayer) {
+            // INVISIBLE 不会触发重新布局，需要单独通知触摸索引
+            ((ElementTouchLayer) getParent()).invalidateTouchIndex();
+        }
+    }
+
     /**
      * 当全局模式（正常、编辑、选择）更改时，由ElementController调用。
      * 子类可以重写此项以更新其状态。
@@ -266,7 +314,13 @@ public abstract class Element extends View {
         switch (elementController.getMode()) {
             case Normal:
                 // Normal 模式逻辑
-                return onElementTouchEvent(event);
+                InputLatencyStats.recordDispatch(InputLatencyStats.SOURCE_ELEMENT,
+                        InputLatencyStats.getEventTimeNanos(event));
+                try {
+                    return onElementTouchEvent(event);
+                } finally {
+                    InputLatencyStats.endDispatch();
+                }
 
             case Edit:
                 // Edit 模式逻辑
@@ -0,0 +1,131 @@
+package com.limelight.binding.input.advance_setting.element;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.RecordingCanvas;
+import android.graphics.RenderNode;
+import android.os.Build;
+import android.view.View;
+
+import java.util.List;
+
+/**
+ * 合成模式下所有 Element 的唯一绘制面。
+ *
+ * Element 仍然作为 View 留在布局里，负责位置、可见性和触摸分发，但自身不再绘制。
+ * Element.invalidate() 只会把该元素标记为脏，并请求本 View 在下一次 vsync 重绘，
+ * 同一帧内多个元素、多次触摸移动的重绘请求会合并成一次。
+ *
+ * Android 10 及以上每个元素缓存一个 RenderNode，只有脏元素会重新录制绘制指令，
+ * 位置和透明度变化直接修改 RenderNode 属性；更低版本每帧在同一个 Canvas 上按层级绘制全部元素。
+ */
+public class ElementCompositor extends View {
+    private final List<Element> elements;
+    private final boolean useRenderNodes;
+
+    public ElementCompositor(Context context, List<Element> elements) {
+        super(context);
+        // 与 ElementController 共用同一个列表，顺序即为层级顺序
+        this.elements = elements;
+        this.useRenderNodes = Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q;
+
+        // 不参与触摸分发，事件会落到下面的 Element 上
+        setClickable(false);
+        setFocusable(false);
+    }
+
+    void attach(Element element) {
+        element.compositor = this;
+        element.compositorDirty = true;
+        element.setWillNotDraw(true);
+        postInvalidateOnAnimation();
+    }
+
+    void detach(Element element) {
+        element.compositor = null;
+        if (useRenderNodes && element.renderNode != null) {
+            element.renderNode.discardDisplayList();
+            element.renderNode = null;
+        }
+        element.setWillNotDraw(false);
+        postInvalidateOnAnimation();
+    }
+
+    void markDirty(Element element) {
+        element.compositorDirty = true;
+        postInvalidateOnAnimation();
+    }
+
+    // 位置、大小、可见性或透明度变化，不需要重新录制内容
+    void markMoved() {
+        postInvalidateOnAnimation();
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        boolean hardware = useRenderNodes && canvas.isHardwareAccelerated();
+        for (int i = 0; i < elements.size(); i++) {
+            Element element = elements.get(i);
+            if (element.compositor != this || element.getVisibility() != VISIBLE) {
+                continue;
+            }
+            int width = element.getWidth();
+            int height = element.getHeight();
+            if (width <= 0 || height <= 0) {
+                continue;
+            }
+
+            if (hardware) {
+                drawRenderNode(canvas, element, width, height);
+            } else {
+                drawDirect(canvas, element, width, height);
+            }
+        }
+    }
+
+    private void drawRenderNode(Canvas canvas, Element element, int width, int height) {
+        RenderNode node = element.renderNode;
+        if (node == null) {
+            node = new RenderNode("Element");
+            element.renderNode = node;
+            element.compositorDirty = true;
+        }
+
+        int left = element.getLeft() + (int) element.getTranslationX();
+        int top = element.getTop() + (int) element.getTranslationY();
+        if (node.getWidth() != width || node.getHeight() != height) {
+            element.compositorDirty = true;
+        }
+        node.setPosition(left, top, left + width, top + height);
+        node.setAlpha(element.getAlpha());
+
+        if (element.compositorDirty || !node.hasDisplayList()) {
+            RecordingCanvas recordingCanvas = node.beginRecording(width, height);
+            try {
+                element.onElementDraw(recordingCanvas);
+            } finally {
+                node.endRecording();
+            }
+            element.compositorDirty = false;
+        }
+
+        canvas.drawRenderNode(node);
+    }
+
+    private void drawDirect(Canvas canvas, Element element, int width, int height) {
+        float left = element.getLeft() + element.getTranslationX();
+        float top = element.getTop() + element.getTranslationY();
+        float alpha = element.getAlpha();
+        int save;
+        if (alpha < 1f) {
+            save = canvas.saveLayerAlpha(left, top, left + width, top + height, (int) (alpha * 255));
+        } else {
+            save = canvas.save();
+        }
+        canvas.translate(left, top);
+        canvas.clipRect(0, 0, width, height);
+        element.onElementDraw(canvas);
+        canvas.restoreToCount(save);
+        element.compositorDirty = false;
+    }
+}
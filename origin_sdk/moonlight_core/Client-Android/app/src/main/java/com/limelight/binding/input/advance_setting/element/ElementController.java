@@ -12,6 +12,7 @@ import android.os.VibrationAttributes;
 import android.os.VibrationEffect;
 import android.os.Vibrator;
 import android.util.DisplayMetrics;
+import android.util.SparseArray;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -29,11 +30,13 @@ import com.limelight.binding.input.ControllerHandler;
 import com.limelight.binding.input.advance_setting.ControllerManager;
 import com.limelight.binding.input.advance_setting.PageDeviceController;
 import com.limelight.binding.input.advance_setting.config.PageConfigController;
+import com.limelight.binding.input.advance_setting.sqlite.ElementRecord;
 import com.limelight.binding.input.advance_setting.superpage.NumberSeekbar;
 import com.limelight.binding.input.advance_setting.superpage.SuperPageLayout;
 import com.limelight.binding.input.advance_setting.superpage.SuperPagesController;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -102,21 +105,27 @@ public class ElementController {
     private final ControllerHandler controllerHandler;
     private final PageDeviceController pageDeviceController;
 
-    private GamepadInputContext gamepadInputContext = new GamepadInputContext();
+    private final GamepadInputContext gamepadInputContext = new GamepadInputContext();
+    private final GamepadStateEmitter gamepadEmitter;
 
 
     private final List<Element> elements = new ArrayList<>();
-    private List<Long> elementIds;
-    private Map<Short, Runnable> keyEventRunnableMap = new HashMap<>();
-    private Map<Integer, Runnable> mouseEventRunnableMap = new HashMap<>();
+    private final Map<String, ActionBinding> bindingCache = new HashMap<>();
+    private final SparseArray<ResendRunnable> keyResendRunnables = new SparseArray<>();
+    private final SparseArray<ResendRunnable> mouseResendRunnables = new SparseArray<>();
+    private final Runnable gamepadResendRunnable = this::reportGamepadState;
     private FrameLayout elementsLayout;
     private Mode mode = Mode.Normal;
     private SuperPageLayout pageEdit;
     private SuperPageLayout lastElementSettingPage;
     private final int bottomViewAmount;
     private EditGridView editGridView;
+    // 单图层合成模式，未开启时为 null
+    private ElementCompositor compositor;
+    private ElementTouchLayer touchLayer;
     private int editGridWidth = 1;
     private long currentConfigId;
+    private int layoutLoadGeneration;
     private boolean gameVibrator = false;
     private boolean buttonVibrator = false;
 
@@ -183,10 +192,23 @@ public class ElementController {
         this.controllerHandler = game.getControllerHandler();
         this.pageDeviceController = controllerManager.getPageDeviceController();
         this.handler = new Handler(Looper.getMainLooper());
+        this.gamepadEmitter = new GamepadStateEmitter(gamepadInputContext, handler,
+                game.getPrefConfig().oscGamepadFlushWindowMs, this::emitGamepadState);
         this.pageEdit = (SuperPageLayout) LayoutInflater.from(context).inflate(R.layout.page_edit, null);
         this.editGridView = new EditGridView(context);
         this.bottomViewAmount = elementsLayout.getChildCount();
         this.deviceVibrator = (Vibrator) context.getSystemService(Context.VIBRATOR_SERVICE);
+        if (game.getPrefConfig().compositeElements) {
+            // 放在所有元素之上；元素总是插入到它前面，所以它一直是最后一个子 View
+            compositor = new ElementCompositor(context, elements);
+            elementsLayout.addView(compositor, new FrameLayout.LayoutParams(
+                    ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.MATCH_PARENT));
+        }
+        if (elementsLayout instanceof ElementTouchLayer) {
+            // 普通模式下由网格索引分发触摸，未命中元素的手指交给串流画面
+            touchLayer = (ElementTouchLayer) elementsLayout;
+            touchLayer.setStreamView(elementsLayout.findViewById(R.id.element_touch_view));
+        }
         initEditPage();
     }
 
@@ -334,15 +356,24 @@ public class ElementController {
     public void loadAllElement(Long configId) {
         currentConfigId = configId;
         removeAllElementsOnScreen();
-        elementIds = controllerManager.getSuperConfigDatabaseHelper().queryAllElementIds(configId);
+        // 布局未缓存时在后台读取，期间又切换了配置的话只应用最后一次请求的结果
+        final int generation = ++layoutLoadGeneration;
+        controllerManager.getElementLayoutRepository().loadLayout(configId, (loadedConfigId, records) -> {
+            if (generation == layoutLoadGeneration) {
+                loadElements(records);
+            }
+        });
+    }
 
+    private void loadElements(List<ElementRecord> records) {
         // 用于在第二阶段链接关系的 GroupButton 列表
         List<GroupButton> groupButtonsToLink = new ArrayList<>();
 
         // --- 阶段一：创建所有 Element 对象 ---
-        // 遍历所有 elementId，不区分类型，统一调用 loadElement 创建对象
-        for (Long elementId : elementIds) {
-            Element newElement = loadElement(elementId);
+        // 记录已按层级排好序，不区分类型，统一调用 loadElement 创建对象
+        // 元素初始化时可能写回数据库并修改缓存中的列表，这里遍历一份拷贝
+        for (ElementRecord record : new ArrayList<>(records)) {
+            Element newElement = loadElement(record);
 
             // 如果创建的是一个 GroupButton，将其添加到待链接列表
             if (newElement instanceof GroupButton) {
@@ -363,35 +394,40 @@ public class ElementController {
         Long elementId = System.currentTimeMillis();
         contentValues.put(Element.COLUMN_LONG_CONFIG_ID, configId);
         contentValues.put(Element.COLUMN_LONG_ELEMENT_ID, elementId);
-        controllerManager.getSuperConfigDatabaseHelper().insertElement(contentValues);
+        ElementRecord record = controllerManager.getElementLayoutRepository().insertElement(contentValues);
 
-        return loadElement(elementId);
+        return loadElement(record);
     }
 
     protected void updateElement(long elementId, ContentValues contentValues) {
-        controllerManager.getSuperConfigDatabaseHelper().updateElement(currentConfigId, elementId, contentValues);
+        controllerManager.getElementLayoutRepository().updateElement(currentConfigId, elementId, contentValues);
     }
 
     protected void deleteElement(Element element) {
-        controllerManager.getSuperConfigDatabaseHelper().deleteElement(currentConfigId, element.elementId);
+        controllerManager.getElementLayoutRepository().deleteElement(currentConfigId, element.elementId);
         if (elements.contains(element)) {
             elementsLayout.removeView(element);
             elements.remove(element);
+            if (compositor != null) {
+                compositor.detach(element);
+            }
         }
     }
 
     private void removeAllElementsOnScreen() {
         for (Element element : elements) {
             elementsLayout.removeView(element);
+            if (compositor != null) {
+                compositor.detach(element);
+            }
         }
         elements.clear();
     }
 
-    private Element loadElement(Long elementId) {
-        Map<String, Object> attributesMap = controllerManager.getSuperConfigDatabaseHelper().queryAllElementAttributes(currentConfigId, elementId);
-        int type = ((Long) attributesMap.get(Element.COLUMN_INT_ELEMENT_TYPE)).intValue();
+    private Element loadElement(ElementRecord record) {
+        Map<String, Object> attributesMap = record.getAttributes();
         Element element = null;
-        switch (type) {
+        switch (record.type) {
             case Element.ELEMENT_TYPE_DIGITAL_COMMON_BUTTON:
                 element = new DigitalCommonButton(attributesMap,
                         this,
@@ -472,13 +508,9 @@ public class ElementController {
                         context);
                 break;
         }
-        int elementWidth = ((Long) attributesMap.get(Element.COLUMN_INT_ELEMENT_WIDTH)).intValue();
-        int elementHeight = ((Long) attributesMap.get(Element.COLUMN_INT_ELEMENT_HEIGHT)).intValue();
-        int elementCentralX = ((Long) attributesMap.get(Element.COLUMN_INT_ELEMENT_CENTRAL_X)).intValue();
-        int elementCentralY = ((Long) attributesMap.get(Element.COLUMN_INT_ELEMENT_CENTRAL_Y)).intValue();
-        FrameLayout.LayoutParams layoutParams = new FrameLayout.LayoutParams(elementWidth, elementHeight);
-        layoutParams.leftMargin = elementCentralX - elementWidth / 2;
-        layoutParams.topMargin = elementCentralY - elementHeight / 2;
+        FrameLayout.LayoutParams layoutParams = new FrameLayout.LayoutParams(record.width, record.height);
+        layoutParams.leftMargin = record.centralX - record.width / 2;
+        layoutParams.topMargin = record.centralY - record.height / 2;
 
         //对element的层级进行排序
         for (int i = 0; i <= elements.size(); i++) {
@@ -495,6 +527,10 @@ public class ElementController {
             }
         }
 
+        if (compositor != null) {
+            compositor.attach(element);
+        }
+
         //限制element的位置范围
         element.setElementHeight(element.getElementHeight());
         element.setElementWidth(element.getElementWidth());
@@ -531,7 +567,10 @@ public class ElementController {
             }
         }
 
-
+        // 列表顺序变了，合成层按新层级重绘
+        if (compositor != null) {
+            compositor.markMoved();
+        }
     }
 
     protected int editGridHandle(int position) {
@@ -583,6 +622,9 @@ public class ElementController {
         }
 
         this.mode = mode;
+        if (touchLayer != null) {
+            touchLayer.setDispatchEnabled(mode == Mode.Normal);
+        }
         switch (mode) {
             case Normal:
                 controllerManager.getTouchController().enableTouch(true);
@@ -691,210 +733,137 @@ public class ElementController {
         }
     }
 
-    // 辅助方法，创建一个什么都不做的安全处理器
-    private SendEventHandler createEmptyHandler() {
-        return new SendEventHandler() {
-            @Override
-            public void sendEvent(boolean down) {
-            }
-
-            @Override
-            public void sendEvent(int analog1, int analog2) {
+    /**
+     * 返回按键配置值对应的处理器，值中可以用 "+" 连接多个按键。
+     * 每个不同的值只编译一次，之后的查找和触发都不再解析字符串。无法识别时返回 null。
+     */
+    public SendEventHandler getSendEventHandler(String value) {
+        ActionBinding binding = bindingCache.get(value);
+        if (binding == null) {
+            binding = compileBinding(value);
+            if (binding == null) {
+                return null;
             }
-        };
+            bindingCache.put(value, binding);
+        }
+        return binding;
     }
 
+    private ActionBinding compileBinding(String value) {
+        if (value == null) {
+            return null;
+        }
 
-    public SendEventHandler getSendEventHandler(String key) {
-        if (key.matches("k\\d+")) {
-
-            int keyCode = Integer.parseInt(key.substring(1));
-            return new SendEventHandler() {
-                @Override
-                public void sendEvent(boolean down) {
-                    sendKeyEvent(down, (short) keyCode);
-                }
-
-                @Override
-                public void sendEvent(int analog1, int analog2) {
-
-                }
-            };
-
-        } else if (key.matches("m\\d+")) {
-            int mouseCode = Integer.parseInt(key.substring(1));
-            return new SendEventHandler() {
-                @Override
-                public void sendEvent(boolean down) {
-                    sendMouseEvent(mouseCode, down);
-                }
-
-                @Override
-                public void sendEvent(int analog1, int analog2) {
-
-                }
-            };
-
-        } else if (key.startsWith("gb")) {
-            // 前缀是 "gb"，说明这一定是一个组按键的ID
-            String idString = key.substring(2); // 从第3个字符开始截取 (跳过 "gb")
-            try {
-                long elementId = Long.parseLong(idString);
-                Element element = findElementById(elementId);
-
-                if (element instanceof GroupButton) {
-                    final GroupButton groupButton = (GroupButton) element;
-                    return new SendEventHandler() {
-                        @Override
-                        public void sendEvent(boolean down) {
-                            if (down) {
-                                // 在UI线程上执行按钮的动作
-                                handler.post(groupButton::triggerAction);
-                            }
-                        }
-
-                        @Override
-                        public void sendEvent(int analog1, int analog2) {
-                            // GroupButton 不处理模拟量事件
-                        }
-                    };
-                } else {
-                    // 找到了ID，但它不是GroupButton，或者在加载期间没找到（返回null）
-                    // 这是一个无效的配置，返回一个安全的空处理器
-                    LimeLog.warning("EventHandler:" + "Invalid GroupButton configuration for key: " + key);
-                    return createEmptyHandler();
-                }
-            } catch (NumberFormatException e) {
-                // ID部分无法解析为long，无效配置
-                LimeLog.warning("EventHandler:" + "Failed to parse GroupButton ID for key: " + key + e);
-                return createEmptyHandler();
-            }
-
-        } else if (key.matches("g\\d+")) {
-            int padCode = Integer.parseInt(key.substring(1));
-            return new SendEventHandler() {
-                @Override
-                public void sendEvent(boolean down) {
-                    if (down) {
-                        gamepadInputContext.inputMap |= padCode;
-                    } else {
-                        gamepadInputContext.inputMap &= ~padCode;
-                    }
-                    sendGamepadEvent();
-                }
-
-                @Override
-                public void sendEvent(int analog1, int analog2) {
-
-                }
-            };
-
-        } else if (key.equals(SPECIAL_KEY_GAMEPAD_LEFT_STICK)) {
-            return new SendEventHandler() {
-                @Override
-                public void sendEvent(boolean down) {
-
-                }
-
-                @Override
-                public void sendEvent(int analog1, int analog2) {
-                    gamepadInputContext.leftStickX = (short) analog1;
-                    gamepadInputContext.leftStickY = (short) analog2;
-                    sendGamepadEvent();
-                }
-            };
-        } else if (key.equals(SPECIAL_KEY_GAMEPAD_RIGHT_STICK)) {
-            return new SendEventHandler() {
-                @Override
-                public void sendEvent(boolean down) {
-
-                }
-
-                @Override
-                public void sendEvent(int analog1, int analog2) {
-                    gamepadInputContext.rightStickX = (short) analog1;
-                    gamepadInputContext.rightStickY = (short) analog2;
-                    sendGamepadEvent();
+        String[] keys = value.split("\\+");
+        int[] opcodes = new int[keys.length];
+        int[] args = new int[keys.length];
+        SendEventHandler[] handlers = new SendEventHandler[keys.length];
+        int count = 0;
+
+        for (String rawKey : keys) {
+            String key = rawKey.trim();
+            if (key.matches("k\\d+")) {
+                opcodes[count] = ActionBinding.OP_KEY;
+                args[count++] = Integer.parseInt(key.substring(1));
+            } else if (key.matches("m\\d+")) {
+                opcodes[count] = ActionBinding.OP_MOUSE;
+                args[count++] = Integer.parseInt(key.substring(1));
+            } else if (key.startsWith("gb")) {
+                // 前缀是 "gb"，说明这一定是一个组按键的ID
+                try {
+                    opcodes[count] = ActionBinding.OP_HANDLER;
+                    handlers[count++] = new GroupButtonAction(Long.parseLong(key.substring(2)));
+                } catch (NumberFormatException e) {
+                    // ID部分无法解析为long，无效配置，忽略这个按键
+                    LimeLog.warning("EventHandler:" + "Failed to parse GroupButton ID for key: " + key + e);
                 }
-            };
-        } else if (key.equals(SPECIAL_KEY_GAMEPAD_LEFT_TRIGGER)) {
-            return new SendEventHandler() {
-                @Override
-                public void sendEvent(boolean down) {
-                    if (down) {
-                        gamepadInputContext.leftTrigger = (byte) 0xFF;
-                    } else {
-                        gamepadInputContext.leftTrigger = (byte) 0;
+            } else if (key.matches("g\\d+")) {
+                opcodes[count] = ActionBinding.OP_GAMEPAD_BUTTON;
+                args[count++] = Integer.parseInt(key.substring(1));
+            } else if (key.equals(SPECIAL_KEY_GAMEPAD_LEFT_STICK)) {
+                opcodes[count++] = ActionBinding.OP_LEFT_STICK;
+            } else if (key.equals(SPECIAL_KEY_GAMEPAD_RIGHT_STICK)) {
+                opcodes[count++] = ActionBinding.OP_RIGHT_STICK;
+            } else if (key.equals(SPECIAL_KEY_GAMEPAD_LEFT_TRIGGER)) {
+                opcodes[count++] = ActionBinding.OP_LEFT_TRIGGER;
+            } else if (key.equals(SPECIAL_KEY_GAMEPAD_RIGHT_TRIGGER)) {
+                opcodes[count++] = ActionBinding.OP_RIGHT_TRIGGER;
+            } else if (key.equals(SPECIAL_KEY_MOUSE_SCROLL_UP)) {
+                opcodes[count] = ActionBinding.OP_SCROLL;
+                args[count++] = 1;
+            } else if (key.equals(SPECIAL_KEY_MOUSE_SCROLL_DOWN)) {
+                opcodes[count] = ActionBinding.OP_SCROLL;
+                args[count++] = -1;
+            } else if (!key.equals(SPECIAL_KEY_NULL)) {
+                SendEventHandler specialHandler = createSpecialHandler(key);
+                if (specialHandler == null) {
+                    if (keys.length == 1) {
+                        return null;
                     }
-                    sendGamepadEvent();
+                    LimeLog.warning("EventHandler:" + "Unknown key in combination: " + value);
+                    continue;
                 }
+                opcodes[count] = ActionBinding.OP_HANDLER;
+                handlers[count++] = specialHandler;
+            }
+        }
 
-                @Override
-                public void sendEvent(int analog1, int analog2) {
-
-                }
-            };
-        } else if (key.equals(SPECIAL_KEY_GAMEPAD_RIGHT_TRIGGER)) {
-            return new SendEventHandler() {
-                @Override
-                public void sendEvent(boolean down) {
-                    if (down) {
-                        gamepadInputContext.rightTrigger = (byte) 0xFF;
-                    } else {
-                        gamepadInputContext.rightTrigger = (byte) 0;
-                    }
-                    sendGamepadEvent();
-                }
+        return new ActionBinding(this,
+                Arrays.copyOf(opcodes, count),
+                Arrays.copyOf(args, count),
+                Arrays.copyOf(handlers, count));
+    }
 
-                @Override
-                public void sendEvent(int analog1, int analog2) {
+    // 组按键可能比引用它的元素晚加载，所以在触发时才查找，找到后缓存
+    class GroupButtonAction implements SendEventHandler {
+        private final long groupButtonId;
+        private GroupButton groupButton;
+        private Runnable triggerAction;
 
-                }
-            };
-        } else if (key.equals(SPECIAL_KEY_MOUSE_SCROLL_UP)) {
-            return new SendEventHandler() {
-                @Override
-                public void sendEvent(boolean down) {
-                    if (down) {
-                        startMouseScrollHold(1);  // 开始向上滚动按住
-                    } else {
-                        stopMouseScrollHold(1);   // 停止向上滚动按住
-                    }
-                }
+        GroupButtonAction(long groupButtonId) {
+            this.groupButtonId = groupButtonId;
+        }
 
-                @Override
-                public void sendEvent(int analog1, int analog2) {
+        GroupButton resolve() {
+            if (groupButton != null && elements.contains(groupButton)) {
+                return groupButton;
+            }
 
+            groupButton = null;
+            for (int i = 0; i < elements.size(); i++) {
+                Element element = elements.get(i);
+                if (element.elementId == groupButtonId && element instanceof GroupButton) {
+                    groupButton = (GroupButton) element;
+                    triggerAction = groupButton::triggerAction;
+                    break;
                 }
-            };
-        } else if (key.equals(SPECIAL_KEY_MOUSE_SCROLL_DOWN)) {
-            return new SendEventHandler() {
-                @Override
-                public void sendEvent(boolean down) {
-                    if (down) {
-                        startMouseScrollHold(-1); // 开始向下滚动按住
-                    } else {
-                        stopMouseScrollHold(-1);  // 停止向下滚动按住
-                    }
-                }
-
-                @Override
-                public void sendEvent(int analog1, int analog2) {
+            }
+            return groupButton;
+        }
 
-                }
-            };
-        } else if (key.equals(SPECIAL_KEY_NULL)) {
-            return new SendEventHandler() {
-                @Override
-                public void sendEvent(boolean down) {
-                }
+        @Override
+        public void sendEvent(boolean down) {
+            if (!down) {
+                return;
+            }
+            if (resolve() == null) {
+                // 找到了ID，但它不是GroupButton，或者已经被删除
+                LimeLog.warning("EventHandler:" + "Invalid GroupButton configuration for id: " + groupButtonId);
+                return;
+            }
+            // 在UI线程上执行按钮的动作
+            handler.post(triggerAction);
+        }
 
-                @Override
-                public void sendEvent(int analog1, int analog2) {
+        @Override
+        public void sendEvent(int analog1, int analog2) {
+            // GroupButton 不处理模拟量事件
+        }
+    }
 
-                }
-            };
-        } else if (key.equals(SPECIAL_KEY_MOUSE_MODE_SWITCH)) {
+    // 模式切换、菜单等低频动作
+    private SendEventHandler createSpecialHandler(String key) {
+        if (key.equals(SPECIAL_KEY_MOUSE_MODE_SWITCH)) {
             return new SendEventHandler() {
                 @Override
                 public void sendEvent(boolean down) {
@@ -1117,19 +1086,15 @@ public class ElementController {
 
     public void sendKeyEvent(boolean buttonDown, short keyCode) {
         game.keyboardEvent(buttonDown, keyCode);
-        //如果map中有对应按键的runnable，则删除该按键的runnable。
-        if (keyEventRunnableMap.containsKey(keyCode)) {
-            handler.removeCallbacks(keyEventRunnableMap.get(keyCode));
+        //同一个按键重新发送的时候，先取消还没执行的补发
+        ResendRunnable runnable = keyResendRunnables.get(keyCode);
+        if (runnable == null) {
+            runnable = new ResendRunnable(false, keyCode);
+            keyResendRunnables.put(keyCode, runnable);
+        } else {
+            handler.removeCallbacks(runnable);
         }
-        Runnable runnable = new Runnable() {
-            @Override
-            public void run() {
-                game.keyboardEvent(buttonDown, keyCode);
-            }
-        };
-        //把这个按键的runnable放到map中，以便这个按键重新发送的时候，重置runnable。
-        keyEventRunnableMap.put(keyCode, runnable);
-
+        runnable.down = buttonDown;
 
         handler.postDelayed(runnable, 50);
         handler.postDelayed(runnable, 75);
@@ -1137,17 +1102,14 @@ public class ElementController {
 
     public void sendMouseEvent(int mouseId, boolean down) {
         game.mouseButtonEvent(mouseId, down);
-        if (mouseEventRunnableMap.containsKey(mouseId)) {
-            handler.removeCallbacks(mouseEventRunnableMap.get(mouseId));
+        ResendRunnable runnable = mouseResendRunnables.get(mouseId);
+        if (runnable == null) {
+            runnable = new ResendRunnable(true, mouseId);
+            mouseResendRunnables.put(mouseId, runnable);
+        } else {
+            handler.removeCallbacks(runnable);
         }
-        Runnable runnable = new Runnable() {
-            @Override
-            public void run() {
-                game.mouseButtonEvent(mouseId, down);
-            }
-        };
-        //把这个按键的runnable放到map中，以便这个按键重新发送的时候，重置runnable。
-        mouseEventRunnableMap.put(mouseId, runnable);
+        runnable.down = down;
 
         handler.postDelayed(runnable, 50);
         handler.postDelayed(runnable, 75);
@@ -1165,7 +1127,51 @@ public class ElementController {
         handler.postDelayed(runnable, 75);
     }
 
+    void setGamepadButton(int buttonFlag, boolean down) {
+        if (down) {
+            gamepadInputContext.inputMap |= buttonFlag;
+        } else {
+            gamepadInputContext.inputMap &= ~buttonFlag;
+        }
+    }
+
+    void setLeftTrigger(boolean down) {
+        gamepadInputContext.leftTrigger = down ? (byte) 0xFF : (byte) 0;
+    }
+
+    void setRightTrigger(boolean down) {
+        gamepadInputContext.rightTrigger = down ? (byte) 0xFF : (byte) 0;
+    }
+
+    void setLeftStick(int x, int y) {
+        gamepadInputContext.leftStickX = (short) x;
+        gamepadInputContext.leftStickY = (short) y;
+    }
+
+    void setRightStick(int x, int y) {
+        gamepadInputContext.rightStickX = (short) x;
+        gamepadInputContext.rightStickY = (short) y;
+    }
+
+    // 状态改变后调用，实际发送由 GamepadStateEmitter 决定何时进行
     public void sendGamepadEvent() {
+        gamepadEmitter.onStateChanged();
+    }
+
+    public String getGamepadEmitSummary() {
+        return gamepadEmitter.getSummary();
+    }
+
+    private void emitGamepadState() {
+        reportGamepadState();
+
+        // 补发的总是最新状态，所以只保留一组
+        handler.removeCallbacks(gamepadResendRunnable);
+        handler.postDelayed(gamepadResendRunnable, 50);
+        handler.postDelayed(gamepadResendRunnable, 75);
+    }
+
+    private void reportGamepadState() {
         controllerHandler.reportOscState(
                 gamepadInputContext.inputMap,
                 gamepadInputContext.leftStickX,
@@ -1175,25 +1181,27 @@ public class ElementController {
                 gamepadInputContext.leftTrigger,
                 gamepadInputContext.rightTrigger
         );
+    }
 
-        Runnable runnable = new Runnable() {
-            @Override
-            public void run() {
-                controllerHandler.reportOscState(
-                        gamepadInputContext.inputMap,
-                        gamepadInputContext.leftStickX,
-                        gamepadInputContext.leftStickY,
-                        gamepadInputContext.rightStickX,
-                        gamepadInputContext.rightStickY,
-                        gamepadInputContext.leftTrigger,
-                        gamepadInputContext.rightTrigger
-                );
-            }
-        };
-        handler.postDelayed(runnable, 50);
-        handler.postDelayed(runnable, 75);
+    // 按键和鼠标键的补发任务，每个键一个，反复使用
+    private class ResendRunnable implements Runnable {
+        private final boolean mouse;
+        private final int code;
+        private boolean down;
 
+        ResendRunnable(boolean mouse, int code) {
+            this.mouse = mouse;
+            this.code = code;
+        }
 
+        @Override
+        public void run() {
+            if (mouse) {
+                game.mouseButtonEvent(code, down);
+            } else {
+                game.keyboardEvent(down, (short) code);
+            }
+        }
     }
 
     public void setButtonVibrator(boolean buttonVibrator) {
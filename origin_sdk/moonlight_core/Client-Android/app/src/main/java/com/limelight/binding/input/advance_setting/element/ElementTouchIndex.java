@@ -0,0 +1,126 @@
+package com.limelight.binding.input.advance_setting.element;
+
+import android.view.View;
+import android.view.ViewGroup;
+
+import java.util.Arrays;
+
+/**
+ * 元素触摸区域的网格索引。
+ *
+ * 把元素层平均划分成 CELL_SIZE 大小的格子，每个格子记录与它相交的可见元素，
+ * 按层级从上到下排列。命中测试只需要检查手指所在格子里的少数几个元素，
+ * 与元素总数无关。布局变化后由 ElementTouchLayer 标记失效，下一次按下时重建。
+ */
+class ElementTouchIndex {
+    private static final int CELL_SIZE = 96;
+    private static final Element[] EMPTY = new Element[0];
+
+    private int columns;
+    private int rows;
+    private Element[][] cells = new Element[0][];
+    private int[] cellCounts = new int[0];
+
+    /**
+     * 按子 View 顺序建立索引，后添加的子 View 在上层，与 FrameLayout 的绘制和命中顺序一致。
+     */
+    void rebuild(ViewGroup layout) {
+        int width = layout.getWidth();
+        int height = layout.getHeight();
+        columns = Math.max(1, (width + CELL_SIZE - 1) / CELL_SIZE);
+        rows = Math.max(1, (height + CELL_SIZE - 1) / CELL_SIZE);
+
+        int cellCount = columns * rows;
+        if (cells.length != cellCount) {
+            cells = new Element[cellCount][];
+            cellCounts = new int[cellCount];
+        }
+        Arrays.fill(cells, EMPTY);
+        Arrays.fill(cellCounts, 0);
+
+        // 从最上层开始放入，格子里的顺序就是命中的优先顺序
+        for (int i = layout.getChildCount() - 1; i >= 0; i--) {
+            View child = layout.getChildAt(i);
+            if (!(child instanceof Element) || child.getVisibility() != View.VISIBLE) {
+                continue;
+            }
+            Element element = (Element) child;
+            float left = element.getLeft() + element.getTranslationX();
+            float top = element.getTop() + element.getTranslationY();
+            float right = left + element.getWidth();
+            float bottom = top + element.getHeight();
+            if (right <= 0 || bottom <= 0 || left >= width || top >= height ||
+                    element.getWidth() <= 0 || element.getHeight() <= 0) {
+                continue;
+            }
+
+            int firstColumn = clamp((int) left / CELL_SIZE, columns);
+            int lastColumn = clamp((int) (right - 1) / CELL_SIZE, columns);
+            int firstRow = clamp((int) top / CELL_SIZE, rows);
+            int lastRow = clamp((int) (bottom - 1) / CELL_SIZE, rows);
+            for (int row = firstRow; row <= lastRow; row++) {
+                for (int column = firstColumn; column <= lastColumn; column++) {
+                    add(row * columns + column, element);
+                }
+            }
+        }
+    }
+
+    private void add(int cell, Element element) {
+        Element[] entries = cells[cell];
+        int count = cellCounts[cell];
+        if (count == entries.length) {
+            entries = Arrays.copyOf(entries, Math.max(4, count * 2));
+            cells[cell] = entries;
+        }
+        entries[count] = element;
+        cellCounts[cell] = count + 1;
+    }
+
+    private static int clamp(int value, int limit) {
+        return Math.max(0, Math.min(value, limit - 1));
+    }
+
+    /**
+     * 返回该点最上层的元素，没有元素时返回 null。坐标相对于元素层。
+     */
+    Element hitTest(float x, float y) {
+        return hitTest(x, y, null);
+    }
+
+    /**
+     * 返回该点位于 above 之下的最上层元素，above 为 null 时从最上层开始。
+     * 上层元素拒绝按下事件后，用它继续查找下层元素。
+     */
+    Element hitTest(float x, float y, Element above) {
+        if (x < 0 || y < 0) {
+            return null;
+        }
+        int column = (int) x / CELL_SIZE;
+        int row = (int) y / CELL_SIZE;
+        if (column >= columns || row >= rows) {
+            return null;
+        }
+
+        int cell = row * columns + column;
+        Element[] entries = cells[cell];
+        int count = cellCounts[cell];
+        int start = 0;
+        if (above != null) {
+            while (start < count && entries[start] != above) {
+                start++;
+            }
+            start++;
+        }
+        for (int i = start; i < count; i++) {
+            Element element = entries[i];
+            float left = element.getLeft() + element.getTranslationX();
+            float top = element.getTop() + element.getTranslationY();
+            if (x >= left && x < left + element.getWidth() &&
+                    y >= top && y < top + element.getHeight()) {
+                return element;
+            }
+        }
+        return null;
+    }
+}
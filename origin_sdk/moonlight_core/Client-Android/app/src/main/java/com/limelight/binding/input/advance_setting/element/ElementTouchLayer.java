@@ -0,0 +1,321 @@
+package com.limelight.binding.input.advance_setting.element;
+
+import android.content.Context;
+import android.os.SystemClock;
+import android.util.AttributeSet;
+import android.view.MotionEvent;
+import android.view.View;
+import android.widget.FrameLayout;
+
+/**
+ * 元素层（layer_2_element）的触摸分发。
+ *
+ * 普通模式下不再使用 FrameLayout 逐个子 View 的命中测试，而是由 ElementTouchIndex 按网格查找：
+ * 每根手指按下时确定归属，落在元素上的交给该元素，其余交给串流画面（element_touch_view）。
+ * 与 FrameLayout 一样，元素的 DOWN 返回 false（例如摇杆圆形以外的区域）时继续交给下层元素，
+ * 都不接收时交给串流画面。手指归属在抬起前不变，摇杆等元素拖出自身范围后仍然收到这根手指（指针捕获）。
+ *
+ * 元素只处理单指事件，每根手指单独生成 DOWN/MOVE/UP 事件；串流画面收到的事件只包含归属于它的手指，
+ * 保留历史采样点。元素已经有一根手指时，落在它上面的第二根手指交给串流画面。
+ * 编辑和选择模式仍使用 FrameLayout 的默认分发。
+ */
+public class ElementTouchLayer extends FrameLayout {
+    // MotionEvent 的指针 ID 小于 32
+    private static final int MAX_POINTER_ID = 32;
+
+    private final ElementTouchIndex touchIndex = new ElementTouchIndex();
+    private boolean indexDirty = true;
+    private boolean dispatchEnabled = true;
+    private View streamView;
+
+    // 每根手指的归属：元素或串流画面
+    private final Element[] pointerOwners = new Element[MAX_POINTER_ID];
+    private int streamPointerBits;
+
+    private MotionEvent.PointerProperties[] pointerProperties = new MotionEvent.PointerProperties[0];
+    private MotionEvent.PointerCoords[] pointerCoords = new MotionEvent.PointerCoords[0];
+    private int[] pointerIndexes = new int[0];
+
+    public ElementTouchLayer(Context context) {
+        super(context);
+    }
+
+    public ElementTouchLayer(Context context, AttributeSet attrs) {
+        super(context, attrs);
+    }
+
+    public ElementTouchLayer(Context context, AttributeSet attrs, int defStyleAttr) {
+        super(context, attrs, defStyleAttr);
+    }
+
+    /**
+     * 设置接收未命中元素的手指的 View。
+     */
+    public void setStreamView(View streamView) {
+        this.streamView = streamView;
+    }
+
+    /**
+     * 只在普通模式下启用，编辑和选择模式需要默认分发。
+     */
+    public void setDispatchEnabled(boolean enabled) {
+        if (dispatchEnabled == enabled) {
+            return;
+        }
+        if (!enabled) {
+            cancelAllPointers();
+        }
+        dispatchEnabled = enabled;
+    }
+
+    /**
+     * 元素的位置、大小或可见性变化后调用。
+     */
+    void invalidateTouchIndex() {
+        indexDirty = true;
+    }
+
+    @Override
+    protected void onLayout(boolean changed, int left, int top, int right, int bottom) {
+        super.onLayout(changed, left, top, right, bottom);
+        indexDirty = true;
+    }
+
+    @Override
+    public void onViewAdded(View child) {
+        super.onViewAdded(child);
+        indexDirty = true;
+    }
+
+    @Override
+    public void onViewRemoved(View child) {
+        super.onViewRemoved(child);
+        indexDirty = true;
+        // 被移除的元素不会再收到事件，它持有的手指之后的事件直接忽略
+        for (int id = 0; id < MAX_POINTER_ID; id++) {
+            if (pointerOwners[id] == child) {
+                pointerOwners[id] = null;
+            }
+        }
+    }
+
+    @Override
+    public boolean dispatchTouchEvent(MotionEvent event) {
+        if (!dispatchEnabled || streamView == null) {
+            return super.dispatchTouchEvent(event);
+        }
+
+        int action = event.getActionMasked();
+        int actionIndex = event.getActionIndex();
+        int actionId = event.getPointerId(actionIndex);
+        if (actionId >= MAX_POINTER_ID) {
+            return true;
+        }
+
+        switch (action) {
+            case MotionEvent.ACTION_DOWN:
+                // 新的手势开始，清掉上一个手势残留的状态
+                resetPointers();
+                // fall through
+            case MotionEvent.ACTION_POINTER_DOWN:
+                assignPointer(event, actionIndex, actionId);
+                break;
+
+            case MotionEvent.ACTION_MOVE:
+                for (int i = 0; i < event.getPointerCount(); i++) {
+                    int id = event.getPointerId(i);
+                    if (id < MAX_POINTER_ID && pointerOwners[id] != null) {
+                        dispatchToElement(event, i, pointerOwners[id], MotionEvent.ACTION_MOVE);
+                    }
+                }
+                if (streamPointerBits != 0) {
+                    dispatchToStream(event, -1);
+                }
+                break;
+
+            case MotionEvent.ACTION_UP:
+            case MotionEvent.ACTION_POINTER_UP:
+                if (pointerOwners[actionId] != null) {
+                    Element owner = pointerOwners[actionId];
+                    pointerOwners[actionId] = null;
+                    dispatchToElement(event, actionIndex, owner, MotionEvent.ACTION_UP);
+                } else if ((streamPointerBits & (1 << actionId)) != 0) {
+                    dispatchToStream(event, actionId);
+                    streamPointerBits &= ~(1 << actionId);
+                }
+                break;
+
+            case MotionEvent.ACTION_CANCEL:
+                for (int i = 0; i < event.getPointerCount(); i++) {
+                    int id = event.getPointerId(i);
+                    if (id < MAX_POINTER_ID && pointerOwners[id] != null) {
+                        dispatchToElement(event, i, pointerOwners[id], MotionEvent.ACTION_CANCEL);
+                    }
+                }
+                if (streamPointerBits != 0) {
+                    dispatchToStream(event, -1);
+                }
+                resetPointers();
+                break;
+        }
+        return true;
+    }
+
+    // 确定按下的手指的归属并发送按下事件
+    private void assignPointer(MotionEvent event, int index, int id) {
+        if (indexDirty) {
+            touchIndex.rebuild(this);
+            indexDirty = false;
+        }
+
+        float x = event.getX(index);
+        float y = event.getY(index);
+        Element element = touchIndex.hitTest(x, y);
+        while (element != null && !isPointerOwner(element)) {
+            if (dispatchToElement(event, index, element, MotionEvent.ACTION_DOWN)) {
+                pointerOwners[id] = element;
+                return;
+            }
+            // 元素不接收这根手指，继续尝试下层元素
+            element = touchIndex.hitTest(x, y, element);
+        }
+
+        // 没有元素接收，或者元素已经在跟踪另一根手指（元素只跟踪一根手指）
+        streamPointerBits |= 1 << id;
+        dispatchToStream(event, id);
+    }
+
+    private boolean isPointerOwner(Element element) {
+        for (Element owner : pointerOwners) {
+            if (owner == element) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void resetPointers() {
+        for (int id = 0; id < MAX_POINTER_ID; id++) {
+            pointerOwners[id] = null;
+        }
+        streamPointerBits = 0;
+    }
+
+    private void cancelAllPointers() {
+        long now = SystemClock.uptimeMillis();
+        for (int id = 0; id < MAX_POINTER_ID; id++) {
+            Element owner = pointerOwners[id];
+            if (owner != null) {
+                MotionEvent cancel = MotionEvent.obtain(now, now, MotionEvent.ACTION_CANCEL, 0, 0, 0);
+                owner.dispatchTouchEvent(cancel);
+                cancel.recycle();
+            }
+        }
+        if (streamPointerBits != 0 && streamView != null) {
+            MotionEvent cancel = MotionEvent.obtain(now, now, MotionEvent.ACTION_CANCEL, 0, 0, 0);
+            streamView.dispatchTouchEvent(cancel);
+            cancel.recycle();
+        }
+        resetPointers();
+    }
+
+    private void ensureCapacity(int count) {
+        if (pointerProperties.length < count) {
+            pointerProperties = new MotionEvent.PointerProperties[count];
+            pointerCoords = new MotionEvent.PointerCoords[count];
+            for (int i = 0; i < count; i++) {
+                pointerProperties[i] = new MotionEvent.PointerProperties();
+                pointerCoords[i] = new MotionEvent.PointerCoords();
+            }
+            pointerIndexes = new int[count];
+        }
+    }
+
+    private boolean dispatchToElement(MotionEvent event, int index, Element element, int action) {
+        ensureCapacity(1);
+        pointerIndexes[0] = index;
+        MotionEvent split = obtainSplitEvent(event, action, 1,
+                -(element.getLeft() + element.getTranslationX()),
+                -(element.getTop() + element.getTranslationY()));
+        boolean handled = element.dispatchTouchEvent(split);
+        split.recycle();
+        return handled;
+    }
+
+    /**
+     * 把归属于串流画面的手指组成一个事件发给它。actionId 为触发 DOWN/UP 的手指，MOVE/CANCEL 时为 -1。
+     */
+    private void dispatchToStream(MotionEvent event, int actionId) {
+        ensureCapacity(event.getPointerCount());
+        int count = 0;
+        int actionIndexInSplit = -1;
+        for (int i = 0; i < event.getPointerCount(); i++) {
+            int id = event.getPointerId(i);
+            if (id < MAX_POINTER_ID && (streamPointerBits & (1 << id)) != 0) {
+                if (id == actionId) {
+                    actionIndexInSplit = count;
+                }
+                pointerIndexes[count++] = i;
+            }
+        }
+        if (count == 0) {
+            return;
+        }
+
+        int action;
+        int masked = event.getActionMasked();
+        if (masked == MotionEvent.ACTION_MOVE || masked == MotionEvent.ACTION_CANCEL) {
+            action = masked;
+        } else {
+            boolean down = masked == MotionEvent.ACTION_DOWN || masked == MotionEvent.ACTION_POINTER_DOWN;
+            if (count == 1) {
+                action = down ? MotionEvent.ACTION_DOWN : MotionEvent.ACTION_UP;
+            } else {
+                action = (down ? MotionEvent.ACTION_POINTER_DOWN : MotionEvent.ACTION_POINTER_UP) |
+                        (actionIndexInSplit << MotionEvent.ACTION_POINTER_INDEX_SHIFT);
+            }
+        }
+
+        MotionEvent split = obtainSplitEvent(event, action, count,
+                -(streamView.getLeft() + streamView.getTranslationX()),
+                -(streamView.getTop() + streamView.getTranslationY()));
+        streamView.dispatchTouchEvent(split);
+        split.recycle();
+    }
+
+    // 用 pointerIndexes 中的前 count 根手指生成新事件，MOVE 事件保留历史采样点
+    private MotionEvent obtainSplitEvent(MotionEvent event, int action, int count, float offsetX, float offsetY) {
+        int historySize = (action & MotionEvent.ACTION_MASK) == MotionEvent.ACTION_MOVE ?
+                event.getHistorySize() : 0;
+
+        for (int j = 0; j < count; j++) {
+            event.getPointerProperties(pointerIndexes[j], pointerProperties[j]);
+            if (historySize > 0) {
+                event.getHistoricalPointerCoords(pointerIndexes[j], 0, pointerCoords[j]);
+            } else {
+                event.getPointerCoords(pointerIndexes[j], pointerCoords[j]);
+            }
+        }
+        MotionEvent split = MotionEvent.obtain(event.getDownTime(),
+                historySize > 0 ? event.getHistoricalEventTime(0) : event.getEventTime(),
+                action, count, pointerProperties, pointerCoords,
+                event.getMetaState(), event.getButtonState(),
+                event.getXPrecision(), event.getYPrecision(),
+                event.getDeviceId(), event.getEdgeFlags(), event.getSource(), event.getFlags());
+
+        for (int h = 1; h <= historySize; h++) {
+            for (int j = 0; j < count; j++) {
+                if (h < historySize) {
+                    event.getHistoricalPointerCoords(pointerIndexes[j], h, pointerCoords[j]);
+                } else {
+                    event.getPointerCoords(pointerIndexes[j], pointerCoords[j]);
+                }
+            }
+            split.addBatch(h < historySize ? event.getHistoricalEventTime(h) : event.getEventTime(),
+                    pointerCoords, event.getMetaState());
+        }
+
+        split.offsetLocation(offsetX, offsetY);
+        return split;
+    }
+}
@@ -0,0 +1,107 @@
+package com.limelight.binding.input.advance_setting.element;
+
+import android.os.Handler;
+import android.view.Choreographer;
+
+import java.util.Locale;
+
+/**
+ * 虚拟按键手柄状态的合并发送。
+ *
+ * 摇杆移动只把状态标记为脏，在下一个输入节拍统一发送一个包：节拍可以对齐 vsync，
+ * 也可以是 1~4ms 的固定窗口。两个摇杆在同一帧里同时拖动只会发一次。
+ * 按键和扳机的边沿变化立即发送，不增加延迟，并把积压的摇杆状态一起带出去。
+ * 只在主线程使用。
+ */
+class GamepadStateEmitter {
+    // 窗口为 0 表示对齐 vsync
+    static final int FLUSH_VSYNC = 0;
+
+    private final ElementController.GamepadInputContext state;
+    private final Runnable sendAction;
+    private final Handler handler;
+    private final int flushWindowMs;
+
+    private final Choreographer.FrameCallback frameCallback = frameTimeNanos -> flushIfDirty();
+    private final Runnable flushRunnable = this::flushIfDirty;
+    private Choreographer choreographer;
+
+    private boolean dirty;
+
+    // 上一次发出去的数字量，用于判断边沿
+    private short sentInputMap;
+    private byte sentLeftTrigger;
+    private byte sentRightTrigger;
+
+    private long packetsSent;
+    private long packetsCoalesced;
+
+    GamepadStateEmitter(ElementController.GamepadInputContext state, Handler handler,
+                        int flushWindowMs, Runnable sendAction) {
+        this.state = state;
+        this.handler = handler;
+        this.flushWindowMs = flushWindowMs;
+        this.sendAction = sendAction;
+    }
+
+    /**
+     * 在 GamepadInputContext 被修改后调用。
+     */
+    void onStateChanged() {
+        if (state.inputMap != sentInputMap ||
+                state.leftTrigger != sentLeftTrigger ||
+                state.rightTrigger != sentRightTrigger) {
+            flush();
+            return;
+        }
+
+        if (dirty) {
+            // 这次变化会和已经在等待的那次一起发出
+            packetsCoalesced++;
+            return;
+        }
+
+        dirty = true;
+        if (flushWindowMs == FLUSH_VSYNC) {
+            if (choreographer == null) {
+                choreographer = Choreographer.getInstance();
+            }
+            choreographer.postFrameCallback(frameCallback);
+        } else {
+            handler.postDelayed(flushRunnable, flushWindowMs);
+        }
+    }
+
+    private void flushIfDirty() {
+        if (dirty) {
+            flush();
+        }
+    }
+
+    private void flush() {
+        cancelPending();
+
+        sentInputMap = state.inputMap;
+        sentLeftTrigger = state.leftTrigger;
+        sentRightTrigger = state.rightTrigger;
+        packetsSent++;
+        sendAction.run();
+    }
+
+    private void cancelPending() {
+        if (!dirty) {
+            return;
+        }
+        dirty = false;
+        if (choreographer != null) {
+            choreographer.removeFrameCallback(frameCallback);
+        }
+        handler.removeCallbacks(flushRunnable);
+    }
+
+    String getSummary() {
+        return String.format(Locale.ROOT, "On-screen gamepad packets: %d sent, %d coalesced (%s)",
+                packetsSent, packetsCoalesced,
+                flushWindowMs == FLUSH_VSYNC ? "vsync" : flushWindowMs + "ms window");
+    }
+}
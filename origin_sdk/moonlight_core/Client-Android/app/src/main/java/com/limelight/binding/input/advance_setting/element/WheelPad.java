@@ -52,6 +52,8 @@ public class WheelPad extends Element {
     private boolean isPopupMode;
     private String centerText;
     private List<String> segmentValues;
+    // 与 segmentValues 一一对应的编译结果，无法识别的值为 null
+    private final List<ElementController.SendEventHandler> segmentHandlers = new ArrayList<>();
     private List<String> segmentNames;
     private int normalColor;
     private int pressedColor;
@@ -225,6 +227,7 @@ public class WheelPad extends Element {
             if (segment.isEmpty()) continue;
             String[] parts = segment.split("\\|", 2);
             segmentValues.add(parts[0]);
+            segmentHandlers.add(controller.getSendEventHandler(parts[0]));
             if (parts.length > 1) {
                 segmentNames.add(parts[1]);
             } else {
@@ -251,20 +254,11 @@ public class WheelPad extends Element {
         return false;
     }
 
-    private List<ElementController.SendEventHandler> getHandlersForValueNow(String value) {
-        List<ElementController.SendEventHandler> handlers = new ArrayList<>();
-        if (value == null || value.isEmpty() || value.equals("null")) {
-            return handlers;
+    private ElementController.SendEventHandler getSegmentHandler(int index) {
+        if (index < 0 || index >= segmentHandlers.size()) {
+            return null;
         }
-
-        String[] keyValues = value.split("\\+");
-        for (String singleKeyValue : keyValues) {
-            ElementController.SendEventHandler handler = elementController.getSendEventHandler(singleKeyValue.trim());
-            if (handler != null) {
-                handlers.add(handler);
-            }
-        }
-        return handlers;
+        return segmentHandlers.get(index);
     }
 
     @Override
@@ -638,20 +632,9 @@ public class WheelPad extends Element {
                         activeIndex = (int) ((angle + sweepAngle / 2) % 360 / sweepAngle);
 
                         // 检查当前分区是否为组按键，如果是，则获取其实例用于预览
-                        if (activeIndex != -1 && activeIndex < segmentValues.size()) {
-                            String value = segmentValues.get(activeIndex);
-                            if (value != null && value.startsWith("gb")) {
-                                try {
-                                    long groupId = Long.parseLong(value.substring(2));
-                                    Element element = elementController.findElementById(groupId);
-                                    if (element instanceof GroupButton) {
-                                        hoveredGroupButton = (GroupButton) element;
-                                    }
-                                } catch (Exception e) {
-                                    // 如果ID解析失败或找不到元素，确保悬停状态被清除
-                                    hoveredGroupButton = null;
-                                }
-                            }
+                        ElementController.SendEventHandler handler = getSegmentHandler(activeIndex);
+                        if (handler instanceof ActionBinding) {
+                            hoveredGroupButton = ((ActionBinding) handler).getLeadingGroupButton();
                         }
                     } else {
                         activeIndex = -1;
@@ -661,19 +644,11 @@ public class WheelPad extends Element {
                 break;
             case MotionEvent.ACTION_UP:
                 if (isWheelActive) {
-                    if (activeIndex != -1 && activeIndex < segmentValues.size()) {
-                        String value = segmentValues.get(activeIndex);
-                        // 即时获取 handlers
-                        List<ElementController.SendEventHandler> handlers = getHandlersForValueNow(value);
-
-                        // 按下
-                        for (ElementController.SendEventHandler handler : handlers) {
-                            handler.sendEvent(true);
-                        }
-                        // 释放
-                        for (int i = handlers.size() - 1; i >= 0; i--) {
-                            handlers.get(i).sendEvent(false);
-                        }
+                    ElementController.SendEventHandler handler = getSegmentHandler(activeIndex);
+                    if (handler != null) {
+                        // 按下后立即释放，组合键的释放顺序由 ActionBinding 保证
+                        handler.sendEvent(true);
+                        handler.sendEvent(false);
                     }
                     isWheelActive = false;
                     activeIndex = -1;
@@ -688,23 +663,15 @@ public class WheelPad extends Element {
     private void updateSendingState() {
         if (activeIndex != lastActiveIndex) {
             // --- 释放上一个 ---
-            if (lastActiveIndex != -1 && lastActiveIndex < segmentValues.size()) {
-                String lastValue = segmentValues.get(lastActiveIndex);
-                // 即时获取 handlers
-                List<ElementController.SendEventHandler> lastHandlers = getHandlersForValueNow(lastValue);
-                for (int i = lastHandlers.size() - 1; i >= 0; i--) {
-                    lastHandlers.get(i).sendEvent(false);
-                }
+            ElementController.SendEventHandler lastHandler = getSegmentHandler(lastActiveIndex);
+            if (lastHandler != null) {
+                lastHandler.sendEvent(false);
             }
 
             // --- 按下新的 ---
-            if (activeIndex != -1 && activeIndex < segmentValues.size()) {
-                String activeValue = segmentValues.get(activeIndex);
-                // 即时获取 handlers
-                List<ElementController.SendEventHandler> activeHandlers = getHandlersForValueNow(activeValue);
-                for (ElementController.SendEventHandler handler : activeHandlers) {
-                    handler.sendEvent(true);
-                }
+            ElementController.SendEventHandler activeHandler = getSegmentHandler(activeIndex);
+            if (activeHandler != null) {
+                activeHandler.sendEvent(true);
             }
             lastActiveIndex = activeIndex;
         }
@@ -1124,10 +1091,12 @@ public class WheelPad extends Element {
         this.segmentCount = count;
         while (segmentValues.size() < count) {
             segmentValues.add("null");
+            segmentHandlers.add(elementController.getSendEventHandler("null"));
             segmentNames.add("");
         }
         while (segmentValues.size() > count) {
             segmentValues.remove(segmentValues.size() - 1);
+            segmentHandlers.remove(segmentHandlers.size() - 1);
             segmentNames.remove(segmentNames.size() - 1);
         }
         invalidate();
@@ -1136,6 +1105,7 @@ public class WheelPad extends Element {
     protected void setSegmentValue(int index, String value) {
         if (index >= 0 && index < segmentValues.size()) {
             segmentValues.set(index, value);
+            segmentHandlers.set(index, elementController.getSendEventHandler(value));
             invalidate();
         }
     }
@@ -0,0 +1,99 @@
+package com.limelight.binding.input.advance_setting.sqlite;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+/**
+ * 导入导出文件中 settings 和 elements 部分的流式读写。
+ *
+ * 格式与原先 Gson 生成的完全相同：每一行是一个 JSON 对象，整数写成不带小数点的数字，
+ * 小数写成带小数点的数字，文本写成字符串，BLOB 写成数字数组，_id 列不导出。
+ * 逐行读写，不再为整个配置构建 ContentValues 数组和 Json 树。
+ */
+final class ConfigJsonCodec {
+
+    private ConfigJsonCodec() {
+    }
+
+    /**
+     * 把游标当前行写成一个 JSON 对象。
+     */
+    static void writeRow(JsonWriter writer, Cursor cursor) throws IOException {
+        writer.beginObject();
+        int columnCount = cursor.getColumnCount();
+        for (int i = 0; i < columnCount; i++) {
+            String columnName = cursor.getColumnName(i);
+            if (columnName.equals("_id")) {
+                continue;
+            }
+            switch (cursor.getType(i)) {
+                case Cursor.FIELD_TYPE_INTEGER:
+                    writer.name(columnName).value(cursor.getLong(i));
+                    break;
+                case Cursor.FIELD_TYPE_FLOAT:
+                    writer.name(columnName).value(cursor.getDouble(i));
+                    break;
+                case Cursor.FIELD_TYPE_STRING:
+                    writer.name(columnName).value(cursor.getString(i));
+                    break;
+                case Cursor.FIELD_TYPE_BLOB:
+                    writer.name(columnName).beginArray();
+                    for (byte b : cursor.getBlob(i)) {
+                        writer.value(b);
+                    }
+                    writer.endArray();
+                    break;
+                case Cursor.FIELD_TYPE_NULL:
+                    break;
+            }
+        }
+        writer.endObject();
+    }
+
+    /**
+     * 读取一个 JSON 对象，无法识别的值会被跳过。
+     */
+    static ContentValues readObject(JsonReader reader) throws IOException {
+        ContentValues contentValues = new ContentValues();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            JsonToken token = reader.peek();
+            switch (token) {
+                case NUMBER:
+                    // 与原先的反序列化规则一致：带小数点的是 Double，否则是 Long
+                    String number = reader.nextString();
+                    if (number.contains(".")) {
+                        contentValues.put(name, Double.parseDouble(number));
+                    } else {
+                        contentValues.put(name, Long.parseLong(number));
+                    }
+                    break;
+                case STRING:
+                    contentValues.put(name, reader.nextString());
+                    break;
+                case BEGIN_ARRAY:
+                    ByteArrayOutputStream blob = new ByteArrayOutputStream();
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        blob.write(reader.nextInt());
+                    }
+                    reader.endArray();
+                    contentValues.put(name, blob.toByteArray());
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
+            }
+        }
+        reader.endObject();
+        return contentValues;
+    }
+}
@@ -0,0 +1,200 @@
+package com.limelight.binding.input.advance_setting.sqlite;
+
+import android.content.ContentValues;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.LruCache;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 按配置缓存的元素布局。
+ *
+ * 一个配置的全部元素在后台线程读出：有二进制快照时直接映射快照，否则用一条查询读取并生成快照。
+ * 按层级排好序后放进 LRU 缓存，之后切换到这个配置不再访问数据库。
+ * 元素的增删改同时提交给数据库（修改走延迟写入队列）并同步修改缓存中的记录，
+ * 缓存始终反映最新的编辑结果。
+ *
+ * 缓存中的列表只在主线程读取和修改；后台线程只负责创建新列表并放入缓存。
+ */
+public class ElementLayoutRepository {
+    public interface LoadCallback {
+        void onLayoutLoaded(long configId, List<ElementRecord> records);
+    }
+
+    // 布局记录很小，缓存按配置个数计算
+    private static final int MAX_CACHED_LAYOUTS = 8;
+
+    private final SuperConfigDatabaseHelper databaseHelper;
+    private final LruCache<Long, List<ElementRecord>> layoutCache = new LruCache<>(MAX_CACHED_LAYOUTS);
+    // 每个配置被修改的次数，后台读取完成时用来判断读到的内容是否已经过期，受 this 保护
+    private final Map<Long, Integer> versions = new HashMap<>();
+    // 所有会话共用一个后台读取线程，守护线程不会阻止进程退出，也不需要随会话关闭
+    private static final ExecutorService loader = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "LayoutLoader");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    public ElementLayoutRepository(SuperConfigDatabaseHelper databaseHelper) {
+        this.databaseHelper = databaseHelper;
+    }
+
+    /**
+     * 读取一个配置的布局。已缓存时直接在当前线程回调，否则在后台读取后回到主线程回调。
+     */
+    public void loadLayout(long configId, LoadCallback callback) {
+        List<ElementRecord> cached = layoutCache.get(configId);
+        if (cached != null) {
+            callback.onLayoutLoaded(configId, cached);
+            return;
+        }
+        loader.execute(() -> {
+            List<ElementRecord> records = loadIntoCache(configId);
+            mainHandler.post(() -> callback.onLayoutLoaded(configId, records));
+        });
+    }
+
+    /**
+     * 在后台把这些配置预先读进缓存，之后的切换不需要等待数据库。
+     */
+    public void prefetch(List<Long> configIds) {
+        for (Long configId : configIds) {
+            if (layoutCache.get(configId) != null) {
+                continue;
+            }
+            loader.execute(() -> {
+                if (layoutCache.get(configId) == null) {
+                    loadIntoCache(configId);
+                }
+            });
+        }
+    }
+
+    private List<ElementRecord> loadIntoCache(long configId) {
+        while (true) {
+            int version;
+            synchronized (this) {
+                version = getVersion(configId);
+            }
+            List<ElementRecord> records = readLayout(configId);
+            synchronized (this) {
+                // 读取期间有写入时重新读取，避免把旧数据放进缓存
+                if (version == getVersion(configId)) {
+                    List<ElementRecord> cached = layoutCache.get(configId);
+                    if (cached != null) {
+                        return cached;
+                    }
+                    layoutCache.put(configId, records);
+                    return records;
+                }
+            }
+        }
+    }
+
+    // 优先使用二进制快照，没有快照时查询数据库并生成快照
+    private List<ElementRecord> readLayout(long configId) {
+        List<ElementRecord> records = databaseHelper.readLayoutSnapshot(configId);
+        if (records == null) {
+            int generation = databaseHelper.getLayoutSnapshotGeneration(configId);
+            records = databaseHelper.queryAllElementRecords(configId);
+            databaseHelper.writeLayoutSnapshot(configId, generation, records);
+        }
+        return records;
+    }
+
+    public ElementRecord insertElement(ContentValues values) {
+        databaseHelper.insertElement(values);
+        long configId = values.getAsLong("config_id");
+        long elementId = values.getAsLong("element_id");
+        // 重新读取这一行，未写入的列使用数据库的默认值
+        ElementRecord record = databaseHelper.queryElementRecord(configId, elementId);
+
+        synchronized (this) {
+            bumpVersion(configId);
+            List<ElementRecord> cached = layoutCache.get(configId);
+            if (cached != null && record != null) {
+                insertSorted(cached, record);
+            }
+        }
+        return record;
+    }
+
+    public void updateElement(long configId, long elementId, ContentValues values) {
+        databaseHelper.updateElement(configId, elementId, values);
+
+        synchronized (this) {
+            bumpVersion(configId);
+            List<ElementRecord> cached = layoutCache.get(configId);
+            if (cached == null) {
+                return;
+            }
+            int index = indexOf(cached, elementId);
+            if (index < 0) {
+                return;
+            }
+            ElementRecord record = cached.get(index);
+            long sortKey = record.getSortKey();
+            record.apply(values);
+            if (record.getSortKey() != sortKey) {
+                cached.remove(index);
+                insertSorted(cached, record);
+            }
+        }
+    }
+
+    public void deleteElement(long configId, long elementId) {
+        databaseHelper.deleteElement(configId, elementId);
+
+        synchronized (this) {
+            bumpVersion(configId);
+            List<ElementRecord> cached = layoutCache.get(configId);
+            if (cached != null) {
+                int index = indexOf(cached, elementId);
+                if (index >= 0) {
+                    cached.remove(index);
+                }
+            }
+        }
+    }
+
+    public void deleteConfig(long configId) {
+        databaseHelper.deleteConfig(configId);
+
+        synchronized (this) {
+            bumpVersion(configId);
+            layoutCache.remove(configId);
+        }
+    }
+
+    private int getVersion(long configId) {
+        Integer version = versions.get(configId);
+        return version != null ? version : 0;
+    }
+
+    private void bumpVersion(long configId) {
+        versions.put(configId, getVersion(configId) + 1);
+    }
+
+    private static int indexOf(List<ElementRecord> records, long elementId) {
+        for (int i = 0; i < records.size(); i++) {
+            if (records.get(i).elementId == elementId) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static void insertSorted(List<ElementRecord> records, ElementRecord record) {
+        int i = 0;
+        while (i < records.size() && records.get(i).getSortKey() <= record.getSortKey()) {
+            i++;
+        }
+        records.add(i, record);
+    }
+}
@@ -0,0 +1,89 @@
+package com.limelight.binding.input.advance_setting.sqlite;
+
+import android.content.ContentValues;
+
+import com.limelight.binding.input.advance_setting.element.Element;
+
+import java.util.Map;
+
+/**
+ * element 表中的一行。
+ *
+ * 布局相关的字段（类型、层级、位置、大小）解析成基本类型，加载和排序时不再拆箱；
+ * 其余字段保留在 attributes 中，直接交给各 Element 的构造函数。
+ * 整数列统一保存为 Long，与 queryAllElementAttributes 的结果一致。
+ */
+public final class ElementRecord {
+    public final long configId;
+    public final long elementId;
+    public int type;
+    public int layer;
+    public int centralX;
+    public int centralY;
+    public int width;
+    public int height;
+
+    private final Map<String, Object> attributes;
+
+    ElementRecord(Map<String, Object> attributes) {
+        this.attributes = attributes;
+        this.configId = (Long) attributes.get(Element.COLUMN_LONG_CONFIG_ID);
+        this.elementId = (Long) attributes.get(Element.COLUMN_LONG_ELEMENT_ID);
+        readLayoutFields();
+    }
+
+    /**
+     * Element 构造函数只读取该 Map，不会保留或修改它。
+     */
+    public Map<String, Object> getAttributes() {
+        return attributes;
+    }
+
+    // 排序键，与 queryAllElementIds 的 ORDER BY 相同
+    public long getSortKey() {
+        return elementId + ((long) layer << 48);
+    }
+
+    /**
+     * 把已经写入数据库的修改同步到缓存中的记录。
+     */
+    void apply(ContentValues values) {
+        for (Map.Entry<String, Object> entry : values.valueSet()) {
+            Object value = normalize(entry.getValue());
+            if (value == null) {
+                attributes.remove(entry.getKey());
+            } else {
+                attributes.put(entry.getKey(), value);
+            }
+        }
+        readLayoutFields();
+    }
+
+    private void readLayoutFields() {
+        type = intValue(Element.COLUMN_INT_ELEMENT_TYPE);
+        layer = intValue(Element.COLUMN_INT_ELEMENT_LAYER);
+        centralX = intValue(Element.COLUMN_INT_ELEMENT_CENTRAL_X);
+        centralY = intValue(Element.COLUMN_INT_ELEMENT_CENTRAL_Y);
+        width = intValue(Element.COLUMN_INT_ELEMENT_WIDTH);
+        height = intValue(Element.COLUMN_INT_ELEMENT_HEIGHT);
+    }
+
+    private int intValue(String column) {
+        Object value = attributes.get(column);
+        return value instanceof Long ? ((Long) value).intValue() : 0;
+    }
+
+    // 按 SQLite 的存储类型转换，保证缓存和重新查询得到的值类型一致
+    private static Object normalize(Object value) {
+        if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return ((Number) value).longValue();
+        }
+        if (value instanceof Float) {
+            return ((Float) value).doubleValue();
+        }
+        if (value instanceof Boolean) {
+            return (Boolean) value ? 1L : 0L;
+        }
+        return value;
+    }
+}
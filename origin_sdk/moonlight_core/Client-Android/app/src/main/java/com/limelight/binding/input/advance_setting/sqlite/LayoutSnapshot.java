@@ -0,0 +1,188 @@
+package com.limelight.binding.input.advance_setting.sqlite;
+
+import com.limelight.LimeLog;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 配置布局的二进制快照。
+ *
+ * 从数据库读出一个配置后写入 files/layout_snapshots/&lt;configId&gt;.bin，下次开始串流时
+ * 直接内存映射这个文件生成 ElementRecord，不需要打开游标逐行读取。
+ * SuperConfigDatabaseHelper 每次修改该配置的元素都会删除快照，所以快照存在即代表与数据库一致。
+ *
+ * 文件格式（大端）：
+ * <pre>
+ * int    MAGIC
+ * short  FORMAT_VERSION
+ * int    数据库版本
+ * long   configId
+ * short  列名个数，随后是各列名（short 长度 + UTF-8）
+ * int    元素个数，每个元素：short 列数，随后每列 short 列名序号 + byte 类型 + 值
+ * </pre>
+ * 任何一项不匹配或文件截断都视为无效，由调用方回退到数据库。
+ */
+final class LayoutSnapshot {
+    private static final int MAGIC = 0x4D4C4C53; // "MLLS"
+    private static final short FORMAT_VERSION = 1;
+
+    private static final byte TYPE_LONG = 1;
+    private static final byte TYPE_DOUBLE = 2;
+    private static final byte TYPE_STRING = 3;
+    private static final byte TYPE_BLOB = 4;
+
+    private LayoutSnapshot() {
+    }
+
+    static List<ElementRecord> read(File file, long configId, int databaseVersion) {
+        if (!file.isFile()) {
+            return null;
+        }
+        try (FileInputStream inputStream = new FileInputStream(file);
+             FileChannel channel = inputStream.getChannel()) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC ||
+                    buffer.getShort() != FORMAT_VERSION ||
+                    buffer.getInt() != databaseVersion ||
+                    buffer.getLong() != configId) {
+                return null;
+            }
+
+            String[] columns = new String[buffer.getShort()];
+            for (int i = 0; i < columns.length; i++) {
+                columns[i] = readString(buffer, buffer.getShort());
+            }
+
+            int count = buffer.getInt();
+            List<ElementRecord> records = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                int fieldCount = buffer.getShort();
+                Map<String, Object> attributes = new HashMap<>(fieldCount * 2);
+                for (int j = 0; j < fieldCount; j++) {
+                    String column = columns[buffer.getShort()];
+                    switch (buffer.get()) {
+                        case TYPE_LONG:
+                            attributes.put(column, buffer.getLong());
+                            break;
+                        case TYPE_DOUBLE:
+                            attributes.put(column, buffer.getDouble());
+                            break;
+                        case TYPE_STRING:
+                            attributes.put(column, readString(buffer, buffer.getInt()));
+                            break;
+                        case TYPE_BLOB:
+                            byte[] blob = new byte[buffer.getInt()];
+                            buffer.get(blob);
+                            attributes.put(column, blob);
+                            break;
+                        default:
+                            return null;
+                    }
+                }
+                records.add(new ElementRecord(attributes));
+            }
+            return records;
+        } catch (IOException | BufferUnderflowException | IndexOutOfBoundsException |
+                 IllegalArgumentException | ClassCastException | NullPointerException e) {
+            // 截断或损坏的快照，回退到数据库
+            LimeLog.warning("Discarding layout snapshot " + file.getName() + ": " + e);
+            return null;
+        }
+    }
+
+    private static String readString(ByteBuffer buffer, int length) {
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    static void write(File file, long configId, int databaseVersion, List<ElementRecord> records) {
+        // 列名表，按出现顺序编号
+        Map<String, Integer> columnIndexes = new LinkedHashMap<>();
+        for (ElementRecord record : records) {
+            for (String column : record.getAttributes().keySet()) {
+                if (!columnIndexes.containsKey(column)) {
+                    columnIndexes.put(column, columnIndexes.size());
+                }
+            }
+        }
+
+        File tempFile = new File(file.getPath() + ".tmp");
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(4096);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(MAGIC);
+            out.writeShort(FORMAT_VERSION);
+            out.writeInt(databaseVersion);
+            out.writeLong(configId);
+
+            out.writeShort(columnIndexes.size());
+            for (String column : columnIndexes.keySet()) {
+                byte[] name = column.getBytes(StandardCharsets.UTF_8);
+                out.writeShort(name.length);
+                out.write(name);
+            }
+
+            out.writeInt(records.size());
+            for (ElementRecord record : records) {
+                Map<String, Object> attributes = record.getAttributes();
+                out.writeShort(attributes.size());
+                for (Map.Entry<String, Object> entry : attributes.entrySet()) {
+                    out.writeShort(columnIndexes.get(entry.getKey()));
+                    Object value = entry.getValue();
+                    if (value instanceof Long) {
+                        out.writeByte(TYPE_LONG);
+                        out.writeLong((Long) value);
+                    } else if (value instanceof Double) {
+                        out.writeByte(TYPE_DOUBLE);
+                        out.writeDouble((Double) value);
+                    } else if (value instanceof String) {
+                        byte[] text = ((String) value).getBytes(StandardCharsets.UTF_8);
+                        out.writeByte(TYPE_STRING);
+                        out.writeInt(text.length);
+                        out.write(text);
+                    } else if (value instanceof byte[]) {
+                        out.writeByte(TYPE_BLOB);
+                        out.writeInt(((byte[]) value).length);
+                        out.write((byte[]) value);
+                    } else {
+                        // 记录中只会出现游标能返回的类型
+                        throw new IOException("Unsupported value for " + entry.getKey());
+                    }
+                }
+            }
+            out.flush();
+
+            File dir = file.getParentFile();
+            if (dir != null && !dir.isDirectory() && !dir.mkdirs()) {
+                throw new IOException("Unable to create " + dir);
+            }
+            try (FileOutputStream fileOut = new FileOutputStream(tempFile)) {
+                bytes.writeTo(fileOut);
+            }
+            // 先写临时文件再改名，读取方不会看到写了一半的快照；
+            // 断电后文件可能为空或截断，读取时会校验并回退到数据库
+            if (!tempFile.renameTo(file)) {
+                throw new IOException("Unable to rename " + tempFile);
+            }
+        } catch (IOException e) {
+            LimeLog.warning("Unable to write layout snapshot for config " + configId + ": " + e);
+            tempFile.delete();
+        }
+    }
+}
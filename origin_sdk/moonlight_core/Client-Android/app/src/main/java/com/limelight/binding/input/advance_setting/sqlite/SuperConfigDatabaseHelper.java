@@ -8,21 +8,21 @@ import android.database.sqlite.SQLiteOpenHelper;
 import android.os.Vibrator;
 
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
-import com.google.gson.JsonDeserializationContext;
-import com.google.gson.JsonDeserializer;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
-import com.google.gson.JsonParseException;
-import com.google.gson.JsonPrimitive;
-import com.google.gson.JsonSerializationContext;
-import com.google.gson.JsonSerializer;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
 import com.limelight.binding.input.advance_setting.config.PageConfigController;
 import com.limelight.binding.input.advance_setting.element.DigitalSwitchButton;
 import com.limelight.binding.input.advance_setting.element.Element;
 import com.limelight.utils.MathUtils;
 
-import java.lang.reflect.Type;
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -77,61 +77,6 @@ public class SuperConfigDatabaseHelper extends SQLiteOpenHelper {
         }
     }
 
-    public class ContentValuesSerializer implements JsonSerializer<ContentValues>, JsonDeserializer<ContentValues> {
-
-        @Override
-        public JsonElement serialize(ContentValues src, Type typeOfSrc, JsonSerializationContext context) {
-            JsonObject jsonObject = new JsonObject();
-            for (Map.Entry<String, Object> entry : src.valueSet()) {
-                Object value = entry.getValue();
-                if (value instanceof Integer) {
-                    jsonObject.addProperty(entry.getKey(), (Integer) value);
-                } else if (value instanceof Long) {
-                    jsonObject.addProperty(entry.getKey(), (Long) value);
-                } else if (value instanceof Double) {
-                    jsonObject.addProperty(entry.getKey(), (Double) value);
-                } else if (value instanceof String) {
-                    jsonObject.addProperty(entry.getKey(), (String) value);
-                } else if (value instanceof byte[]) {
-                    // Serialize Blob as Base64 encoded string
-                    String base64Blob = context.serialize(value).getAsString();
-                    jsonObject.addProperty(entry.getKey(), base64Blob);
-                }
-                // Handle other types as needed
-            }
-            return jsonObject;
-        }
-
-        @Override
-        public ContentValues deserialize(JsonElement json, Type typeOfT, JsonDeserializationContext context) throws JsonParseException {
-            ContentValues contentValues = new ContentValues();
-            JsonObject jsonObject = json.getAsJsonObject();
-            for (Map.Entry<String, JsonElement> entry : jsonObject.entrySet()) {
-                JsonElement jsonElement = entry.getValue();
-                if (jsonElement.isJsonPrimitive()) {
-                    JsonPrimitive jsonPrimitive = jsonElement.getAsJsonPrimitive();
-                    if (jsonPrimitive.isNumber()) {
-                        // Determine if it's a Long or Double based on the value
-                        if (jsonPrimitive.getAsString().contains(".")) {
-                            contentValues.put(entry.getKey(), jsonPrimitive.getAsDouble());
-                        } else {
-                            contentValues.put(entry.getKey(), jsonPrimitive.getAsLong());
-                        }
-                    } else if (jsonPrimitive.isString()) {
-                        contentValues.put(entry.getKey(), jsonPrimitive.getAsString());
-                    }
-                } else if (jsonElement.isJsonArray()) {
-                    // Deserialize Blob from Base64 encoded string
-                    byte[] blob = context.deserialize(jsonElement, byte[].class);
-                    contentValues.put(entry.getKey(), blob);
-                }
-                // Handle other types as needed
-            }
-            return contentValues;
-        }
-    }
-
-
     private static final String DATABASE_NAME = "super_config.db";
     private static final int DATABASE_OLD_VERSION_1 = 1;
     private static final int DATABASE_OLD_VERSION_2 = 2;
@@ -140,13 +85,24 @@ public class SuperConfigDatabaseHelper extends SQLiteOpenHelper {
     private static final int DATABASE_OLD_VERSION_5 = 5;
     private static final int DATABASE_OLD_VERSION_6 = 6;
     private static final int DATABASE_VERSION = 8;
+    private static final String LAYOUT_SNAPSHOT_DIR = "layout_snapshots";
+
     private SQLiteDatabase writableDataBase;
     private SQLiteDatabase readableDataBase;
+    private final File layoutSnapshotDir;
+    private final WriteBehindQueue writeBehindQueue = new WriteBehindQueue(this);
+
+    // 每个配置快照被作废的次数，后台写快照前用来判断读到的数据是否已经过期，受 snapshotLock 保护
+    private final Object snapshotLock = new Object();
+    private final Map<Long, Integer> snapshotGenerations = new HashMap<>();
 
     public SuperConfigDatabaseHelper(Context context) {
         super(context, DATABASE_NAME, null, DATABASE_VERSION);
+        // 后台提交修改时不阻塞主线程的读取
+        setWriteAheadLoggingEnabled(true);
         writableDataBase = getWritableDatabase();
         readableDataBase = getReadableDatabase();
+        layoutSnapshotDir = new File(context.getFilesDir(), LAYOUT_SNAPSHOT_DIR);
     }
 
     @Override
@@ -343,6 +299,7 @@ public class SuperConfigDatabaseHelper extends SQLiteOpenHelper {
 
     public void insertElement(ContentValues values) {
         writableDataBase.insert("element", null, values);
+        invalidateLayoutSnapshot(values.getAsLong(Element.COLUMN_LONG_CONFIG_ID));
     }
 
     public void deleteElement(long configId, long elementId) {
@@ -354,24 +311,55 @@ public class SuperConfigDatabaseHelper extends SQLiteOpenHelper {
 
         // 执行删除操作
         writableDataBase.delete("element", selection, selectionArgs);
+        writeBehindQueue.discardElement(configId, elementId);
+        invalidateLayoutSnapshot(configId);
     }
 
+    /**
+     * 修改先合并在内存中，稍后由后台线程批量写入，见 WriteBehindQueue。
+     */
     public void updateElement(long configId, long elementId, ContentValues values) {
+        writeBehindQueue.updateElement(configId, elementId, values);
+    }
 
-        // 定义 WHERE 子句
-        String selection = "config_id = ? AND element_id = ?";
-        // 定义 WHERE 子句中的参数
-        String[] selectionArgs = {String.valueOf(configId), String.valueOf(elementId)};
+    /**
+     * 立即提交所有延迟写入的修改。Activity 暂停或退出时调用。
+     */
+    public void flushPendingWrites() {
+        if (writeBehindQueue.hasPending()) {
+            writeBehindQueue.flush();
+        }
+    }
 
-        writableDataBase.update(
-                "element",   // 要更新的表
-                values,    // 新值
-                selection, // WHERE 子句
-                selectionArgs // WHERE 子句中的占位符值
-        );
+    // 由 WriteBehindQueue 调用，所有修改在一个事务中提交。失败时抛出异常，由 WriteBehindQueue 放回队列
+    void commitUpdates(Map<Long, Map<Long, ContentValues>> elementUpdates, Map<Long, ContentValues> configUpdates) {
+        writableDataBase.beginTransaction();
+        try {
+            for (Map.Entry<Long, Map<Long, ContentValues>> configEntry : elementUpdates.entrySet()) {
+                String configId = String.valueOf(configEntry.getKey());
+                for (Map.Entry<Long, ContentValues> elementEntry : configEntry.getValue().entrySet()) {
+                    writableDataBase.update("element", elementEntry.getValue(),
+                            "config_id = ? AND element_id = ?",
+                            new String[]{configId, String.valueOf(elementEntry.getKey())});
+                }
+            }
+            for (Map.Entry<Long, ContentValues> configEntry : configUpdates.entrySet()) {
+                writableDataBase.update("config", configEntry.getValue(),
+                        "config_id = ?", new String[]{String.valueOf(configEntry.getKey())});
+            }
+            writableDataBase.setTransactionSuccessful();
+        } finally {
+            writableDataBase.endTransaction();
+        }
+
+        // 只有提交成功才会执行到这里
+        for (Long configId : elementUpdates.keySet()) {
+            invalidateLayoutSnapshot(configId);
+        }
     }
 
     public List<Long> queryAllElementIds(long configId) {
+        flushPendingWrites();
 
         // 定义要查询的列
         String[] projection = {"element_id", "element_layer"};
@@ -408,6 +396,7 @@ public class SuperConfigDatabaseHelper extends SQLiteOpenHelper {
     }
 
     public Object queryElementAttribute(long configId, long elementId, String elementAttribute) {
+        flushPendingWrites();
 
         // 定义要查询的列
         String[] projection = {elementAttribute};
@@ -457,6 +446,7 @@ public class SuperConfigDatabaseHelper extends SQLiteOpenHelper {
     }
 
     public Map<String, Object> queryAllElementAttributes(long configId, long elementId) {
+        flushPendingWrites();
         Map<String, Object> resultMap = new HashMap<>();
         // 定义 WHERE 子句
         String selection = "config_id = ? AND element_id = ?";
@@ -474,33 +464,126 @@ public class SuperConfigDatabaseHelper extends SQLiteOpenHelper {
                 null  // 不排序
         );
         if (cursor.moveToFirst()) {
-            int columnCount = cursor.getColumnCount();
-            for (int i = 0; i < columnCount; i++) {
-                String columnName = cursor.getColumnName(i);
-                int columnType = cursor.getType(i);
-
-                switch (columnType) {
-                    case Cursor.FIELD_TYPE_INTEGER:
-                        resultMap.put(columnName, cursor.getLong(i));
-                        break;
-                    case Cursor.FIELD_TYPE_STRING:
-                        resultMap.put(columnName, cursor.getString(i));
-                        break;
-                    case Cursor.FIELD_TYPE_FLOAT:
-                        resultMap.put(columnName, cursor.getDouble(i));
-                        break;
-                    case Cursor.FIELD_TYPE_BLOB:
-                        resultMap.put(columnName, cursor.getBlob(i));
-                        break;
-                    case Cursor.FIELD_TYPE_NULL:
-                        break;
-                }
-            }
+            readElementRow(cursor, resultMap);
         }
         cursor.close();
         return resultMap;
     }
 
+    /**
+     * 一次查询读出某个配置下的全部元素，顺序与 queryAllElementIds 相同。
+     * 可以在后台线程调用。
+     */
+    public List<ElementRecord> queryAllElementRecords(long configId) {
+        flushPendingWrites();
+        // 定义 WHERE 子句
+        String selection = "config_id = ?";
+        // 定义 WHERE 子句中的参数
+        String[] selectionArgs = {String.valueOf(configId)};
+        // 排序方式，增序
+        String orderBy = "element_id + (element_layer * 281474976710656) ASC";
+
+        Cursor cursor = readableDataBase.query(
+                "element",   // 表名
+                null, // 要查询的列
+                selection,  // WHERE 子句
+                selectionArgs, // WHERE 子句中的参数
+                null, // 不分组
+                null, // 不过滤
+                orderBy  // 增序排序
+        );
+
+        List<ElementRecord> records = new ArrayList<>();
+        if (cursor != null) {
+            while (cursor.moveToNext()) {
+                Map<String, Object> attributes = new HashMap<>();
+                readElementRow(cursor, attributes);
+                records.add(new ElementRecord(attributes));
+            }
+            cursor.close();
+        }
+        return records;
+    }
+
+    public ElementRecord queryElementRecord(long configId, long elementId) {
+        Map<String, Object> attributes = queryAllElementAttributes(configId, elementId);
+        if (attributes.isEmpty()) {
+            return null;
+        }
+        return new ElementRecord(attributes);
+    }
+
+    private static void readElementRow(Cursor cursor, Map<String, Object> resultMap) {
+        int columnCount = cursor.getColumnCount();
+        for (int i = 0; i < columnCount; i++) {
+            String columnName = cursor.getColumnName(i);
+            int columnType = cursor.getType(i);
+
+            switch (columnType) {
+                case Cursor.FIELD_TYPE_INTEGER:
+                    resultMap.put(columnName, cursor.getLong(i));
+                    break;
+                case Cursor.FIELD_TYPE_STRING:
+                    resultMap.put(columnName, cursor.getString(i));
+                    break;
+                case Cursor.FIELD_TYPE_FLOAT:
+                    resultMap.put(columnName, cursor.getDouble(i));
+                    break;
+                case Cursor.FIELD_TYPE_BLOB:
+                    resultMap.put(columnName, cursor.getBlob(i));
+                    break;
+                case Cursor.FIELD_TYPE_NULL:
+                    break;
+            }
+        }
+    }
+
+    private File getLayoutSnapshotFile(long configId) {
+        return new File(layoutSnapshotDir, configId + ".bin");
+    }
+
+    /**
+     * 读取配置的二进制快照，不存在或已失效时返回 null。可以在后台线程调用。
+     */
+    public List<ElementRecord> readLayoutSnapshot(long configId) {
+        flushPendingWrites();
+        return LayoutSnapshot.read(getLayoutSnapshotFile(configId), configId, DATABASE_VERSION);
+    }
+
+    /**
+     * 在读取数据库之前调用，把返回值传给 writeLayoutSnapshot。
+     */
+    public int getLayoutSnapshotGeneration(long configId) {
+        synchronized (snapshotLock) {
+            Integer generation = snapshotGenerations.get(configId);
+            return generation != null ? generation : 0;
+        }
+    }
+
+    /**
+     * 把刚从数据库读出的布局写成快照。读取之后配置又被修改过的话不写，避免留下过期的快照。
+     */
+    public void writeLayoutSnapshot(long configId, int generation, List<ElementRecord> records) {
+        synchronized (snapshotLock) {
+            if (generation == getLayoutSnapshotGeneration(configId)) {
+                LayoutSnapshot.write(getLayoutSnapshotFile(configId), configId, DATABASE_VERSION, records);
+            }
+        }
+    }
+
+    private void invalidateLayoutSnapshot(Long configId) {
+        if (configId == null) {
+            return;
+        }
+        synchronized (snapshotLock) {
+            snapshotGenerations.put(configId, getLayoutSnapshotGeneration(configId) + 1);
+            File snapshot = getLayoutSnapshotFile(configId);
+            if (snapshot.exists()) {
+                snapshot.delete();
+            }
+        }
+    }
+
     public void insertConfig(ContentValues values) {
 
         writableDataBase.insert("config", null, values);
@@ -519,24 +602,13 @@ public class SuperConfigDatabaseHelper extends SQLiteOpenHelper {
 
         //删除element表中所有的config_id的element
         writableDataBase.delete("element", selection, selectionArgs);
+        writeBehindQueue.discardConfig(configId);
+        invalidateLayoutSnapshot(configId);
 
     }
 
     public void updateConfig(long configId, ContentValues values) {
-
-        // SQL WHERE 子句
-        String selection = "config_id = ?";
-        // selectionArgs 数组提供了 WHERE 子句中占位符 ? 的实际值
-        String[] selectionArgs = {String.valueOf(configId)};
-
-        writableDataBase.update(
-                "config",   // 要更新的表
-                values,    // 新值
-                selection, // WHERE 子句
-                selectionArgs // WHERE 子句中的占位符值
-        );
-
-
+        writeBehindQueue.updateConfig(configId, values);
     }
 
     public List<Long> queryAllConfigIds() {
@@ -571,6 +643,7 @@ public class SuperConfigDatabaseHelper extends SQLiteOpenHelper {
     }
 
     public Object queryConfigAttribute(long configId, String configAttribute, Object defaultValue) {
+        flushPendingWrites();
 
         // 定义要查询的列
         String[] projection = {configAttribute};
@@ -621,316 +694,250 @@ public class SuperConfigDatabaseHelper extends SQLiteOpenHelper {
         return o;
     }
 
-    public String exportConfig(Long configId) {
-        List<ContentValues> elementsValueList = new ArrayList<>();
-        ContentValues settingValues = new ContentValues();
-
+    /**
+     * 把配置流式写入导出文件。
+     * settings 和 elements 仍然是嵌套的 JSON 字符串，文件格式和 MD5 校验与旧版本相同，旧版本也能导入。
+     */
+    public void exportConfig(long configId, Writer out) throws IOException {
+        flushPendingWrites();
         // 定义 WHERE 子句
         String selection = "config_id = ?";
-
         // 定义 WHERE 子句中的参数
         String[] selectionArgs = {String.valueOf(configId)};
 
-        Cursor cursor = readableDataBase.query(
-                "element",   // 表名
-                null, // 要查询的列
-                selection,  // WHERE 子句
-                selectionArgs, // WHERE 子句中的参数
-                null, // 不分组
-                null, // 不过滤
-                null  // 不排序
-        );
-
-        // 遍历查询结果
-        if (cursor.moveToFirst()) {
-            do {
-                ContentValues contentValues = new ContentValues();
-
-                // 将当前行的所有数据存入 ContentValues
-                for (int i = 0; i < cursor.getColumnCount(); i++) {
-                    String columnName = cursor.getColumnName(i);
-                    if (columnName.equals("_id")) {
-                        continue;
-                    }
-                    int type = cursor.getType(i);
-
-                    // 根据列的数据类型将其添加到 ContentValues
-                    switch (type) {
-                        case Cursor.FIELD_TYPE_INTEGER:
-                            contentValues.put(columnName, cursor.getLong(i));
-                            break;
-                        case Cursor.FIELD_TYPE_FLOAT:
-                            contentValues.put(columnName, cursor.getDouble(i));
-                            break;
-                        case Cursor.FIELD_TYPE_STRING:
-                            contentValues.put(columnName, cursor.getString(i));
-                            break;
-                        case Cursor.FIELD_TYPE_BLOB:
-                            contentValues.put(columnName, cursor.getBlob(i));
-                            break;
-                        case Cursor.FIELD_TYPE_NULL:
-                            break;
-                    }
-                }
-
-                // 将 ContentValues 对象添加到结果列表中
-                elementsValueList.add(contentValues);
-
-            } while (cursor.moveToNext());
+        StringWriter elementsString = new StringWriter();
+        JsonWriter elementsWriter = new JsonWriter(elementsString);
+        elementsWriter.beginArray();
+        Cursor cursor = readableDataBase.query("element", null, selection, selectionArgs, null, null, null);
+        try {
+            while (cursor.moveToNext()) {
+                ConfigJsonCodec.writeRow(elementsWriter, cursor);
+            }
+        } finally {
+            cursor.close();
         }
+        elementsWriter.endArray();
+        elementsWriter.close();
 
-
-        cursor = readableDataBase.query(
-                "config",   // 表名
-                null, // 要查询的列
-                selection,  // WHERE 子句
-                selectionArgs, // WHERE 子句中的参数
-                null, // 不分组
-                null, // 不过滤
-                null  // 不排序
-        );
-
-        if (cursor.moveToFirst()) {
-            // 将当前行的所有数据存入 ContentValues
-            for (int i = 0; i < cursor.getColumnCount(); i++) {
-                String columnName = cursor.getColumnName(i);
-                if (columnName.equals("_id")) {
-                    continue;
-                }
-                int type = cursor.getType(i);
-
-                // 根据列的数据类型将其添加到 ContentValues
-                switch (type) {
-                    case Cursor.FIELD_TYPE_INTEGER:
-                        settingValues.put(columnName, cursor.getLong(i));
-                        break;
-                    case Cursor.FIELD_TYPE_FLOAT:
-                        settingValues.put(columnName, cursor.getDouble(i));
-                        break;
-                    case Cursor.FIELD_TYPE_STRING:
-                        settingValues.put(columnName, cursor.getString(i));
-                        break;
-                    case Cursor.FIELD_TYPE_BLOB:
-                        settingValues.put(columnName, cursor.getBlob(i));
-                        break;
-                    case Cursor.FIELD_TYPE_NULL:
-                        break;
-                }
+        StringWriter settingsString = new StringWriter();
+        JsonWriter settingsWriter = new JsonWriter(settingsString);
+        cursor = readableDataBase.query("config", null, selection, selectionArgs, null, null, null);
+        try {
+            if (cursor.moveToFirst()) {
+                ConfigJsonCodec.writeRow(settingsWriter, cursor);
+            } else {
+                settingsWriter.beginObject().endObject();
             }
+        } finally {
+            cursor.close();
         }
-
-        // 关闭 Cursor
-        cursor.close();
-
-        GsonBuilder gsonBuilder = new GsonBuilder();
-        gsonBuilder.registerTypeAdapter(ContentValues.class, new ContentValuesSerializer());
-        Gson gson = gsonBuilder.create();
-        ContentValues[] elementsValues = elementsValueList.toArray(new ContentValues[0]);
-
-
-        String settingString = gson.toJson(settingValues);
-        String elementsString = gson.toJson(elementsValues);
-
-
-        return gson.toJson(new ExportFile(DATABASE_VERSION, settingString, elementsString));
-
-
+        settingsWriter.close();
+
+        String settings = settingsString.toString();
+        String elements = elementsString.toString();
+        JsonWriter writer = new JsonWriter(out);
+        writer.beginObject();
+        writer.name("version").value(DATABASE_VERSION);
+        writer.name("settings").value(settings);
+        writer.name("elements").value(elements);
+        writer.name("md5").value(MathUtils.computeMD5(DATABASE_VERSION + settings + elements));
+        writer.endObject();
+        writer.flush();
     }
 
     /**
-     * 从 JSON 字符串导入一个完整的配置，包括设置和所有元素。
+     * 从导出文件导入一个完整的配置，包括设置和所有元素。
      * 此方法会为所有项创建新的ID，并智能地修复元素之间的引用关系（如GroupButton的子元素和WheelPad的组按键）。
      *
-     * @param configString 包含配置信息的JSON字符串。
+     * @param in 导出文件的内容。
      * @return 0表示成功，负数表示不同的错误代码。
      */
-    public int importConfig(String configString) {
-        GsonBuilder gsonBuilder = new GsonBuilder();
-        gsonBuilder.registerTypeAdapter(ContentValues.class, new ContentValuesSerializer());
-        Gson gson = gsonBuilder.create();
-        ExportFile exportFile;
+    public int importConfig(Reader in) {
+        return importConfigFile(in, null);
+    }
+
+    /**
+     * 把导出文件中的元素合并到已有的配置中，设置部分被忽略。
+     */
+    public int mergeConfig(Reader in, Long existConfigId) {
+        return importConfigFile(in, existConfigId);
+    }
 
+    private int importConfigFile(Reader in, Long existConfigId) {
+        ExportFile exportFile;
         try {
-            exportFile = gson.fromJson(configString, ExportFile.class);
-        } catch (Exception e) {
+            exportFile = readExportFile(in);
+        } catch (IOException | RuntimeException e) {
             return -1; // -1: 文件格式错误
         }
+        if (exportFile == null) {
+            return -1;
+        }
 
         // MD5校验 (原始数据校验)
         if (!exportFile.getMd5().equals(MathUtils.computeMD5(exportFile.getVersion() + exportFile.getSettings() + exportFile.getElements()))) {
             return -2; // -2: 文件被篡改或损坏
         }
 
-        // 调用升级逻辑以兼容旧版本配置
-        if (!upgradeExportedConfig(exportFile, gson)) {
+        // 调用升级逻辑以兼容旧版本配置，只有旧版本文件才需要构建 Json 树
+        if (!upgradeExportedConfig(exportFile, new Gson())) {
             return -3; // -3: 版本不匹配且无法升级
         }
 
-        // 从可能已升级的 exportFile 获取最新的数据
-        String settingString = exportFile.getSettings();
-        String elementsString = exportFile.getElements();
-
-        ContentValues settingValues = gson.fromJson(settingString, ContentValues.class);
-        ContentValues[] elements = gson.fromJson(elementsString, ContentValues[].class);
-
-        // --- 预处理，建立从旧ID到内存中ContentValues对象的映射 ---
-        Map<Long, ContentValues> oldIdToObjectMap = new HashMap<>();
-        for (ContentValues element : elements) {
-            if (element.containsKey(Element.COLUMN_LONG_ELEMENT_ID)) {
-                oldIdToObjectMap.put(element.getAsLong(Element.COLUMN_LONG_ELEMENT_ID), element);
+        long configId;
+        // 所有插入在同一个事务中完成，失败时不会留下导入了一半的配置
+        writableDataBase.beginTransaction();
+        try {
+            if (existConfigId == null) {
+                // --- 插入新的配置 setting，并获取新的 configId ---
+                JsonReader settingsReader = new JsonReader(new StringReader(exportFile.getSettings()));
+                settingsReader.setLenient(true);
+                ContentValues settingValues = ConfigJsonCodec.readObject(settingsReader);
+                configId = System.currentTimeMillis();
+                settingValues.put(PageConfigController.COLUMN_LONG_CONFIG_ID, configId);
+                writableDataBase.insert("config", null, settingValues);
+            } else {
+                configId = existConfigId;
             }
-        }
 
-        // --- 插入新的配置 setting，并获取新的 configId ---
-        Long newConfigId = System.currentTimeMillis();
-        settingValues.put(PageConfigController.COLUMN_LONG_CONFIG_ID, newConfigId);
-        insertConfig(settingValues);
-
-        // --- 插入所有元素，并为它们分配新的ID ---
-        // 这个过程会直接修改内存中的 ContentValues 对象，为后续的引用修复做准备。
-        long elementIdCounter = System.currentTimeMillis();
-        for (ContentValues element : elements) {
-            element.put(Element.COLUMN_LONG_ELEMENT_ID, elementIdCounter++);
-            element.put(Element.COLUMN_LONG_CONFIG_ID, newConfigId);
-            insertElement(element);
-        }
-
-        // --- 统一修复所有元素的引用关系 ---
-        // 遍历所有内存中的元素对象，检查它们是否需要修复引用字段。
-        for (ContentValues element : elements) {
-
-            // --- GroupButton 的子元素引用 ---
-            if (element.containsKey(Element.COLUMN_INT_ELEMENT_TYPE) && element.getAsLong(Element.COLUMN_INT_ELEMENT_TYPE) == Element.ELEMENT_TYPE_GROUP_BUTTON) {
-                StringBuilder newValue = new StringBuilder("-1");
-                String[] oldChildIds = element.getAsString(Element.COLUMN_STRING_ELEMENT_VALUE).split(",");
-                for (String oldChildIdStr : oldChildIds) {
-                    if (oldChildIdStr.equals("-1") || oldChildIdStr.isEmpty()) continue;
-                    try {
-                        long oldChildId = Long.parseLong(oldChildIdStr);
-                        ContentValues childObject = oldIdToObjectMap.get(oldChildId);
-                        if (childObject != null) {
-                            // 从子元素对象中获取它刚刚被分配的新ID
-                            newValue.append(",").append(childObject.getAsLong(Element.COLUMN_LONG_ELEMENT_ID));
-                        }
-                    } catch (NumberFormatException e) { /* 忽略格式错误的ID */ }
+            // --- 逐个读取并插入元素，为它们分配新的ID ---
+            // 只保留旧ID到新ID的映射，以及需要修复引用的组按键和轮盘
+            Map<Long, Long> newElementIds = new HashMap<>();
+            List<ContentValues> referencingElements = new ArrayList<>();
+            long elementIdCounter = System.currentTimeMillis();
+
+            JsonReader elementsReader = new JsonReader(new StringReader(exportFile.getElements()));
+            elementsReader.setLenient(true);
+            elementsReader.beginArray();
+            while (elementsReader.hasNext()) {
+                ContentValues element = ConfigJsonCodec.readObject(elementsReader);
+                long newElementId = elementIdCounter++;
+                Long oldElementId = element.getAsLong(Element.COLUMN_LONG_ELEMENT_ID);
+                if (oldElementId != null) {
+                    newElementIds.put(oldElementId, newElementId);
                 }
-                element.put(Element.COLUMN_STRING_ELEMENT_VALUE, newValue.toString());
-                updateElement(element.getAsLong(Element.COLUMN_LONG_CONFIG_ID), element.getAsLong(Element.COLUMN_LONG_ELEMENT_ID), element);
-            }
+                element.put(Element.COLUMN_LONG_ELEMENT_ID, newElementId);
+                element.put(Element.COLUMN_LONG_CONFIG_ID, configId);
+                writableDataBase.insert("element", null, element);
 
-            // --- WheelPad 的组按键引用 ---
-            if (element.containsKey(Element.COLUMN_INT_ELEMENT_TYPE) && element.getAsLong(Element.COLUMN_INT_ELEMENT_TYPE) == Element.ELEMENT_TYPE_WHEEL_PAD) {
-                String oldSegmentValues = element.getAsString(Element.COLUMN_STRING_ELEMENT_VALUE);
-                if (oldSegmentValues == null || oldSegmentValues.isEmpty()) continue;
-
-                String[] segments = oldSegmentValues.split(",");
-                StringBuilder newSegmentValues = new StringBuilder();
-                for (int i = 0; i < segments.length; i++) {
-                    String segment = segments[i];
-                    String valuePart = segment.split("\\|")[0];
-                    String namePart = segment.contains("|") ? segment.substring(segment.indexOf("|")) : "";
-
-                    if (valuePart.startsWith("gb")) {
-                        try {
-                            long oldGroupId = Long.parseLong(valuePart.substring(2));
-                            ContentValues groupObject = oldIdToObjectMap.get(oldGroupId);
-                            if (groupObject != null) {
-                                // 从 GroupButton 对象中获取它刚刚被分配的新ID
-                                newSegmentValues.append("gb").append(groupObject.getAsLong(Element.COLUMN_LONG_ELEMENT_ID)).append(namePart);
-                            } else {
-                                // 如果找不到对应的组按键，保留原始值或设为null
-                                newSegmentValues.append(segment);
-                            }
-                        } catch (NumberFormatException e) {
-                            newSegmentValues.append(segment); // 解析失败则保留原始值
-                        }
-                    } else {
-                        newSegmentValues.append(segment); // 不是组按键引用，直接附加
-                    }
+                Long type = element.getAsLong(Element.COLUMN_INT_ELEMENT_TYPE);
+                if (type != null && (type == Element.ELEMENT_TYPE_GROUP_BUTTON || type == Element.ELEMENT_TYPE_WHEEL_PAD)) {
+                    referencingElements.add(element);
+                }
+            }
+            elementsReader.endArray();
 
-                    if (i < segments.length - 1) {
-                        newSegmentValues.append(",");
-                    }
+            // --- 统一修复引用关系 ---
+            for (ContentValues element : referencingElements) {
+                String oldValue = element.getAsString(Element.COLUMN_STRING_ELEMENT_VALUE);
+                if (oldValue == null || oldValue.isEmpty()) {
+                    continue;
+                }
+                String newValue;
+                if (element.getAsLong(Element.COLUMN_INT_ELEMENT_TYPE) == Element.ELEMENT_TYPE_GROUP_BUTTON) {
+                    newValue = remapGroupButtonChildren(oldValue, newElementIds);
+                } else {
+                    newValue = remapWheelPadSegments(oldValue, newElementIds);
+                }
+                if (!newValue.equals(oldValue)) {
+                    ContentValues values = new ContentValues();
+                    values.put(Element.COLUMN_STRING_ELEMENT_VALUE, newValue);
+                    writableDataBase.update("element", values, "config_id = ? AND element_id = ?",
+                            new String[]{String.valueOf(configId), String.valueOf(element.getAsLong(Element.COLUMN_LONG_ELEMENT_ID))});
                 }
-                element.put(Element.COLUMN_STRING_ELEMENT_VALUE, newSegmentValues.toString());
-                updateElement(element.getAsLong(Element.COLUMN_LONG_CONFIG_ID), element.getAsLong(Element.COLUMN_LONG_ELEMENT_ID), element);
             }
+
+            writableDataBase.setTransactionSuccessful();
+        } catch (IOException | RuntimeException e) {
+            return -1; // -1: 文件格式错误
+        } finally {
+            writableDataBase.endTransaction();
         }
 
+        invalidateLayoutSnapshot(configId);
         return 0; // 成功
     }
 
-    public int mergeConfig(String configString, Long existConfigId) {
-        GsonBuilder gsonBuilder = new GsonBuilder();
-        gsonBuilder.registerTypeAdapter(ContentValues.class, new ContentValuesSerializer());
-        Gson gson = gsonBuilder.create();
-        ExportFile exportFile;
-
-        try {
-            exportFile = gson.fromJson(configString, ExportFile.class);
-        } catch (Exception e) {
-            return -1; // -1: 文件格式错误
-        }
-
-        // MD5校验
-        if (!exportFile.getMd5().equals(MathUtils.computeMD5(exportFile.getVersion() + exportFile.getSettings() + exportFile.getElements()))) {
-            return -2; // -2: 文件被篡改或损坏
+    private ExportFile readExportFile(Reader in) throws IOException {
+        int version = 0;
+        String settings = null;
+        String elements = null;
+        String md5 = null;
+
+        JsonReader reader = new JsonReader(in);
+        reader.setLenient(true);
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "version":
+                    version = reader.nextInt();
+                    break;
+                case "settings":
+                    settings = reader.nextString();
+                    break;
+                case "elements":
+                    elements = reader.nextString();
+                    break;
+                case "md5":
+                    md5 = reader.nextString();
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
+            }
         }
+        reader.endObject();
 
-        // 调用升级逻辑
-        if (!upgradeExportedConfig(exportFile, gson)) {
-            return -3; // -3: 版本不匹配且无法升级
+        if (settings == null || elements == null || md5 == null) {
+            return null;
         }
+        ExportFile exportFile = new ExportFile(version, settings, elements);
+        exportFile.setMd5(md5);
+        return exportFile;
+    }
 
-        // 从升级后的 exportFile 获取最新的数据 (mergeConfig不需要settings)
-        String elementsString = exportFile.getElements();
-
-        ContentValues[] elements = gson.fromJson(elementsString, ContentValues[].class);
-
-        // 将组按键及其子按键存储在MAP中
-        Map<ContentValues, List<ContentValues>> groupButtonMaps = new HashMap<>();
-        for (ContentValues groupButtonElement : elements) {
-            if (groupButtonElement.containsKey(Element.COLUMN_INT_ELEMENT_TYPE) && (long) groupButtonElement.get(Element.COLUMN_INT_ELEMENT_TYPE) == Element.ELEMENT_TYPE_GROUP_BUTTON) {
-                List<ContentValues> childElements = new ArrayList<>();
-
-                String[] childElementStringIds = ((String) groupButtonElement.get(Element.COLUMN_STRING_ELEMENT_VALUE)).split(",");
-                // 按键组的值，子按键们的ID
-                for (String childElementStringId : childElementStringIds) {
-                    long childElementId = Long.parseLong(childElementStringId);
-                    for (ContentValues element : elements) {
-                        if (element.containsKey(Element.COLUMN_LONG_ELEMENT_ID) && (long) element.get(Element.COLUMN_LONG_ELEMENT_ID) == childElementId) {
-                            childElements.add(element);
-                            break;
-                        }
-                    }
+    // GroupButton 的值是 "-1,子按键ID,..."，找不到的子按键被丢弃
+    private static String remapGroupButtonChildren(String oldValue, Map<Long, Long> newElementIds) {
+        StringBuilder newValue = new StringBuilder("-1");
+        for (String oldChildIdStr : oldValue.split(",")) {
+            if (oldChildIdStr.equals("-1") || oldChildIdStr.isEmpty()) continue;
+            try {
+                Long newChildId = newElementIds.get(Long.parseLong(oldChildIdStr));
+                if (newChildId != null) {
+                    newValue.append(",").append(newChildId);
                 }
-                groupButtonMaps.put(groupButtonElement, childElements);
-
-            }
+            } catch (NumberFormatException e) { /* 忽略格式错误的ID */ }
         }
+        return newValue.toString();
+    }
 
-        // 更新所有按键的ID
-        long elementId = System.currentTimeMillis();
-        for (ContentValues contentValues : elements) {
-            contentValues.put(Element.COLUMN_LONG_ELEMENT_ID, elementId++);
-            contentValues.put(Element.COLUMN_LONG_CONFIG_ID, existConfigId);
-            insertElement(contentValues);
-        }
+    // WheelPad 的值是 "值|名称,..."，值为 "gb组按键ID" 时指向组按键
+    private static String remapWheelPadSegments(String oldValue, Map<Long, Long> newElementIds) {
+        String[] segments = oldValue.split(",");
+        StringBuilder newSegmentValues = new StringBuilder();
+        for (int i = 0; i < segments.length; i++) {
+            String segment = segments[i];
+            String valuePart = segment.split("\\|")[0];
+            String namePart = segment.contains("|") ? segment.substring(segment.indexOf("|")) : "";
+
+            Long newGroupId = null;
+            if (valuePart.startsWith("gb")) {
+                try {
+                    newGroupId = newElementIds.get(Long.parseLong(valuePart.substring(2)));
+                } catch (NumberFormatException e) { /* 解析失败则保留原始值 */ }
+            }
+            if (newGroupId != null) {
+                newSegmentValues.append("gb").append(newGroupId).append(namePart);
+            } else {
+                // 不是组按键引用或找不到对应的组按键，保留原始值
+                newSegmentValues.append(segment);
+            }
 
-        // 更新组按键的值
-        for (Map.Entry<ContentValues, List<ContentValues>> groupButtonMap : groupButtonMaps.entrySet()) {
-            String newValue = "-1";
-            for (ContentValues childElement : groupButtonMap.getValue()) {
-                newValue = newValue + "," + childElement.get(Element.COLUMN_LONG_ELEMENT_ID);
+            if (i < segments.length - 1) {
+                newSegmentValues.append(",");
             }
-            ContentValues groupButton = groupButtonMap.getKey();
-            groupButton.put(Element.COLUMN_STRING_ELEMENT_VALUE, newValue);
-            updateElement((Long) groupButton.get(Element.COLUMN_LONG_CONFIG_ID),
-                    (Long) groupButton.get(Element.COLUMN_LONG_ELEMENT_ID),
-                    groupButton);
         }
-
-        return 0;
+        return newSegmentValues.toString();
     }
 
 
@@ -0,0 +1,178 @@
+package com.limelight.binding.input.advance_setting.sqlite;
+
+import android.content.ContentValues;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Process;
+import android.os.SystemClock;
+
+import com.limelight.LimeLog;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * element 表和 config 表更新的延迟写入队列。
+ *
+ * 编辑模式下拖动、缩放和滑动条会连续调用 updateElement / updateConfig，这里只把修改按元素
+ * （或配置）合并到内存里，停止修改 DEBOUNCE_MS 后由后台线程在一个事务中统一提交。
+ * 连续修改时最多延迟 MAX_DELAY_MS 也会提交一次。
+ * SuperConfigDatabaseHelper 的读取方法会先调用 flush()，读到的始终是最新的数据。
+ * 提交失败时这一批修改会合并回队列：后台提交在 RETRY_DELAY_MS 后重试，直接调用 flush() 的一方会收到异常。
+ */
+class WriteBehindQueue {
+    private static final long DEBOUNCE_MS = 300;
+    private static final long MAX_DELAY_MS = 1000;
+    private static final long RETRY_DELAY_MS = 5000;
+
+    private static Handler writerHandler;
+
+    private static synchronized Handler getWriterHandler() {
+        if (writerHandler == null) {
+            HandlerThread thread = new HandlerThread("ConfigWriter", Process.THREAD_PRIORITY_BACKGROUND);
+            thread.start();
+            writerHandler = new Handler(thread.getLooper());
+        }
+        return writerHandler;
+    }
+
+    private final SuperConfigDatabaseHelper databaseHelper;
+    private final Runnable flushRunnable = this::flushFromWriter;
+
+    // 待提交的修改，受 this 保护
+    private Map<Long, Map<Long, ContentValues>> elementUpdates = new HashMap<>();
+    private Map<Long, ContentValues> configUpdates = new HashMap<>();
+    private long firstPendingTimeMs;
+
+    // 保证各批修改按顺序提交
+    private final Object commitLock = new Object();
+
+    WriteBehindQueue(SuperConfigDatabaseHelper databaseHelper) {
+        this.databaseHelper = databaseHelper;
+    }
+
+    synchronized void updateElement(long configId, long elementId, ContentValues values) {
+        Map<Long, ContentValues> configElements = elementUpdates.get(configId);
+        if (configElements == null) {
+            configElements = new HashMap<>();
+            elementUpdates.put(configId, configElements);
+        }
+        ContentValues pending = configElements.get(elementId);
+        if (pending == null) {
+            // 调用方之后可能继续修改传入的对象，这里保存一份拷贝
+            configElements.put(elementId, new ContentValues(values));
+        } else {
+            pending.putAll(values);
+        }
+        scheduleFlush();
+    }
+
+    synchronized void updateConfig(long configId, ContentValues values) {
+        ContentValues pending = configUpdates.get(configId);
+        if (pending == null) {
+            configUpdates.put(configId, new ContentValues(values));
+        } else {
+            pending.putAll(values);
+        }
+        scheduleFlush();
+    }
+
+    /**
+     * 元素被删除后，丢弃它尚未提交的修改。
+     */
+    synchronized void discardElement(long configId, long elementId) {
+        Map<Long, ContentValues> configElements = elementUpdates.get(configId);
+        if (configElements != null) {
+            configElements.remove(elementId);
+        }
+    }
+
+    /**
+     * 配置被删除后，丢弃它尚未提交的修改。
+     */
+    synchronized void discardConfig(long configId) {
+        elementUpdates.remove(configId);
+        configUpdates.remove(configId);
+    }
+
+    synchronized boolean hasPending() {
+        return !elementUpdates.isEmpty() || !configUpdates.isEmpty();
+    }
+
+    // Must be called with the lock held
+    private void scheduleFlush() {
+        long now = SystemClock.uptimeMillis();
+        if (firstPendingTimeMs == 0) {
+            firstPendingTimeMs = now;
+        }
+        long delay = Math.min(DEBOUNCE_MS, firstPendingTimeMs + MAX_DELAY_MS - now);
+
+        Handler handler = getWriterHandler();
+        handler.removeCallbacks(flushRunnable);
+        handler.postDelayed(flushRunnable, Math.max(delay, 0));
+    }
+
+    /**
+     * 立即提交所有待写入的修改，可以在任意线程调用。
+     */
+    void flush() {
+        synchronized (commitLock) {
+            Map<Long, Map<Long, ContentValues>> elements;
+            Map<Long, ContentValues> configs;
+            synchronized (this) {
+                if (elementUpdates.isEmpty() && configUpdates.isEmpty()) {
+                    return;
+                }
+                elements = elementUpdates;
+                configs = configUpdates;
+                elementUpdates = new HashMap<>();
+                configUpdates = new HashMap<>();
+                firstPendingTimeMs = 0;
+            }
+            try {
+                databaseHelper.commitUpdates(elements, configs);
+            } catch (RuntimeException e) {
+                requeue(elements, configs);
+                throw e;
+            }
+        }
+    }
+
+    private void flushFromWriter() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            LimeLog.warning("Failed to commit config edits, retrying: " + e);
+            // 新的修改会重新安排提交，这里只保证没有新修改时也会重试
+            getWriterHandler().postDelayed(flushRunnable, RETRY_DELAY_MS);
+        }
+    }
+
+    // 把提交失败的一批修改放回队列，提交期间产生的新修改优先
+    private synchronized void requeue(Map<Long, Map<Long, ContentValues>> elements, Map<Long, ContentValues> configs) {
+        for (Map.Entry<Long, Map<Long, ContentValues>> configEntry : elements.entrySet()) {
+            Map<Long, ContentValues> newer = elementUpdates.get(configEntry.getKey());
+            if (newer != null) {
+                for (Map.Entry<Long, ContentValues> elementEntry : newer.entrySet()) {
+                    ContentValues older = configEntry.getValue().get(elementEntry.getKey());
+                    if (older != null) {
+                        older.putAll(elementEntry.getValue());
+                    } else {
+                        configEntry.getValue().put(elementEntry.getKey(), elementEntry.getValue());
+                    }
+                }
+            }
+            elementUpdates.put(configEntry.getKey(), configEntry.getValue());
+        }
+        for (Map.Entry<Long, ContentValues> configEntry : configs.entrySet()) {
+            ContentValues newer = configUpdates.get(configEntry.getKey());
+            if (newer != null) {
+                configEntry.getValue().putAll(newer);
+            }
+            configUpdates.put(configEntry.getKey(), configEntry.getValue());
+        }
+        if (firstPendingTimeMs == 0) {
+            firstPendingTimeMs = SystemClock.uptimeMillis();
+        }
+    }
+}
@@ -15,6 +15,11 @@ public abstract class AbstractController {
     protected short capabilities;
     protected byte type;
 
+    // System.nanoTime() of the last completed input read, for latency tracking
+    private volatile long lastInputTimeNanos;
+
+    private final UsbOutputQueue outputQueue;
+
     public int getControllerId() {
         return deviceId;
     }
@@ -48,6 +53,14 @@ public abstract class AbstractController {
         }
     }
 
+    public long getLastInputTimeNanos() {
+        return lastInputTimeNanos;
+    }
+
+    protected void markInputReceived() {
+        lastInputTimeNanos = System.nanoTime();
+    }
+
     protected void reportInput() {
         listener.reportControllerState(deviceId, buttonFlags, leftStickX, leftStickY,
                 rightStickX, rightStickY, leftTrigger, rightTrigger);
@@ -61,11 +74,32 @@ public abstract class AbstractController {
         this.listener = listener;
         this.vendorId = vendorId;
         this.productId = productId;
+        this.outputQueue = new UsbOutputQueue(this, getMinOutputIntervalMs());
     }
 
-    public abstract void rumble(short lowFreqMotor, short highFreqMotor);
+    // Never blocks; the latest state is written by UsbOutputQueue
+    public void rumble(short lowFreqMotor, short highFreqMotor) {
+        outputQueue.setRumble(lowFreqMotor, highFreqMotor);
+    }
 
-    public abstract void rumbleTriggers(short leftTrigger, short rightTrigger);
+    public void rumbleTriggers(short leftTrigger, short rightTrigger) {
+        outputQueue.setTriggerRumble(leftTrigger, rightTrigger);
+    }
+
+    // Sends the motor state to the device. Only called on the output thread (or from
+    // stopOutput()), never concurrently, so implementations can reuse one packet buffer.
+    protected abstract void writeRumble(short lowFreqMotor, short highFreqMotor,
+                                        short leftTriggerMotor, short rightTriggerMotor);
+
+    // Called from the constructor, so implementations must only return a constant
+    protected int getMinOutputIntervalMs() {
+        return 8;
+    }
+
+    // Drops pending output and turns the motors off before the connection is closed
+    protected void stopOutput() {
+        outputQueue.stop();
+    }
 
     protected void notifyDeviceRemoved() {
         listener.deviceRemoved(this);
@@ -5,14 +5,12 @@ import android.hardware.usb.UsbDevice;
 import android.hardware.usb.UsbDeviceConnection;
 import android.hardware.usb.UsbEndpoint;
 import android.hardware.usb.UsbInterface;
-import android.os.SystemClock;
 import android.util.Log;
 
 import com.limelight.nvstream.input.ControllerPacket;
 import com.limelight.nvstream.jni.MoonBridge;
 
 import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -20,7 +18,7 @@ public abstract class AbstractDualSenseController extends AbstractController {
     protected final UsbDevice device;
     protected final UsbDeviceConnection connection;
 
-    private Thread inputThread;
+    private UsbInputReader inputReader;
     private boolean stopped;
 
     protected UsbEndpoint inEndpt, outEndpt;
@@ -44,9 +42,10 @@ public abstract class AbstractDualSenseController extends AbstractController {
         this.supportedButtonFlags = this.buttonFlags;
     }
 
-    private Thread createInputThread() {
-        return new Thread() {
-            public void run() {
+    private UsbInputReader createInputReader() {
+        return new UsbInputReader(connection, inEndpt, "DualSenseController", new UsbInputReader.Callback() {
+            @Override
+            public boolean onReaderStarted() {
                 try {
                     // Delay for a moment before reporting the new gamepad and
                     // accepting new input. This allows time for the old InputDevice
@@ -55,64 +54,29 @@ public abstract class AbstractDualSenseController extends AbstractController {
                     // the controller number used by the original InputDevice.
                     Thread.sleep(1000);
                 } catch (InterruptedException e) {
-                    return;
+                    return false;
                 }
 
                 // Report that we're added _before_ reporting input
                 notifyDeviceAdded();
+                return true;
+            }
 
-                while (!isInterrupted() && !stopped) {
-                    byte[] buffer = new byte[64];
-
-                    int res = -1; // Initialize to error state
-
-                    //
-                    // There's no way that I can tell to determine if a device has failed
-                    // or if the timeout has simply expired. We'll check how long the transfer
-                    // took to fail and assume the device failed if it happened before the timeout
-                    // expired.
-                    //
-
-                    do {
-                        // Check if we should stop before attempting transfer
-                        if (stopped || isInterrupted()) {
-                            res = -1; // Set to error state before break
-                            break;
-                        }
-
-                        // Read the next input state packet
-                        long lastMillis = SystemClock.uptimeMillis();
-                        if (connection == null || inEndpt == null) {
-                            Log.w("DualSenseController", "Connection or endpoint is null");
-                            res = -1; // Set to error state before break
-                            break;
-                        }
-                        res = connection.bulkTransfer(inEndpt, buffer, buffer.length, 3000);
-
-                        // If we get a zero length response, treat it as an error
-                        if (res == 0) {
-                            res = -1;
-                        }
-
-                        if (res == -1 && SystemClock.uptimeMillis() - lastMillis < 1000) {
-                            Log.d("DualSenseController", "Detected device I/O error");
-                            AbstractDualSenseController.this.stop();
-                            break;
-                        }
-                    } while (res == -1 && !isInterrupted() && !stopped);
-
-                    if (res == -1 || stopped || isInterrupted()) {
-                        break;
-                    }
-
-                    if (res > 0 && handleRead(ByteBuffer.wrap(buffer, 0, res).order(ByteOrder.LITTLE_ENDIAN))) {
-                        // Report input if handleRead() returns true
-                        reportInput();
-                        reportMotion();
-                    }
+            @Override
+            public void onInputReport(ByteBuffer report) {
+                markInputReceived();
+                if (handleRead(report)) {
+                    // Report input if handleRead() returns true
+                    reportInput();
+                    reportMotion();
                 }
             }
-        };
+
+            @Override
+            public void onReadError() {
+                AbstractDualSenseController.this.stop();
+            }
+        });
     }
 
     private static UsbInterface findInterface(UsbDevice device) {
@@ -181,8 +145,8 @@ public abstract class AbstractDualSenseController extends AbstractController {
             return false;
         }
         // Start listening for controller input
-        inputThread = createInputThread();
-        inputThread.start();
+        inputReader = createInputReader();
+        inputReader.start();
         return true;
     }
 
@@ -196,20 +160,15 @@ public abstract class AbstractDualSenseController extends AbstractController {
 
         // Cancel any rumble effects (may fail if device is already disconnected)
         try {
-            rumble((short) 0, (short) 0);
+            stopOutput();
         } catch (Exception e) {
             Log.d("DualSenseController", "Failed to cancel rumble during stop", e);
         }
 
-        // Stop the input thread
-        if (inputThread != null) {
-            inputThread.interrupt();
-            try {
-                inputThread.join(1000);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-            }
-            inputThread = null;
+        // Stop the input reader
+        if (inputReader != null) {
+            inputReader.stop();
+            inputReader = null;
         }
 
         // Release all claimed interfaces
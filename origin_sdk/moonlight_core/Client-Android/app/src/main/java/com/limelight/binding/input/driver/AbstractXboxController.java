@@ -5,20 +5,18 @@ import android.hardware.usb.UsbDevice;
 import android.hardware.usb.UsbDeviceConnection;
 import android.hardware.usb.UsbEndpoint;
 import android.hardware.usb.UsbInterface;
-import android.os.SystemClock;
 
 import com.limelight.LimeLog;
 import com.limelight.nvstream.input.ControllerPacket;
 import com.limelight.nvstream.jni.MoonBridge;
 
 import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
 
 public abstract class AbstractXboxController extends AbstractController {
     protected final UsbDevice device;
     protected final UsbDeviceConnection connection;
 
-    private Thread inputThread;
+    private UsbInputReader inputReader;
     private boolean stopped;
 
     protected UsbEndpoint inEndpt, outEndpt;
@@ -37,9 +35,10 @@ public abstract class AbstractXboxController extends AbstractController {
                         ControllerPacket.BACK_FLAG | ControllerPacket.PLAY_FLAG | ControllerPacket.SPECIAL_BUTTON_FLAG;
     }
 
-    private Thread createInputThread() {
-        return new Thread() {
-            public void run() {
+    private UsbInputReader createInputReader() {
+        return new UsbInputReader(connection, inEndpt, "Xbox controller " + getControllerId(), new UsbInputReader.Callback() {
+            @Override
+            public boolean onReaderStarted() {
                 try {
                     // Delay for a moment before reporting the new gamepad and
                     // accepting new input. This allows time for the old InputDevice
@@ -48,52 +47,28 @@ public abstract class AbstractXboxController extends AbstractController {
                     // the controller number used by the original InputDevice.
                     Thread.sleep(1000);
                 } catch (InterruptedException e) {
-                    return;
+                    return false;
                 }
 
                 // Report that we're added _before_ reporting input
                 notifyDeviceAdded();
+                return true;
+            }
 
-                while (!isInterrupted() && !stopped) {
-                    byte[] buffer = new byte[64];
-
-                    int res;
-
-                    //
-                    // There's no way that I can tell to determine if a device has failed
-                    // or if the timeout has simply expired. We'll check how long the transfer
-                    // took to fail and assume the device failed if it happened before the timeout
-                    // expired.
-                    //
-
-                    do {
-                        // Read the next input state packet
-                        long lastMillis = SystemClock.uptimeMillis();
-                        res = connection.bulkTransfer(inEndpt, buffer, buffer.length, 3000);
-
-                        // If we get a zero length response, treat it as an error
-                        if (res == 0) {
-                            res = -1;
-                        }
-
-                        if (res == -1 && SystemClock.uptimeMillis() - lastMillis < 1000) {
-                            LimeLog.warning("Detected device I/O error");
-                            AbstractXboxController.this.stop();
-                            break;
-                        }
-                    } while (res == -1 && !isInterrupted() && !stopped);
-
-                    if (res == -1 || stopped) {
-                        break;
-                    }
-
-                    if (handleRead(ByteBuffer.wrap(buffer, 0, res).order(ByteOrder.LITTLE_ENDIAN))) {
-                        // Report input if handleRead() returns true
-                        reportInput();
-                    }
+            @Override
+            public void onInputReport(ByteBuffer report) {
+                markInputReceived();
+                if (handleRead(report)) {
+                    // Report input if handleRead() returns true
+                    reportInput();
                 }
             }
-        };
+
+            @Override
+            public void onReadError() {
+                AbstractXboxController.this.stop();
+            }
+        });
     }
 
     public boolean start() {
@@ -139,8 +114,8 @@ public abstract class AbstractXboxController extends AbstractController {
         }
 
         // Start listening for controller input
-        inputThread = createInputThread();
-        inputThread.start();
+        inputReader = createInputReader();
+        inputReader.start();
 
         return true;
     }
@@ -153,12 +128,12 @@ public abstract class AbstractXboxController extends AbstractController {
         stopped = true;
 
         // Cancel any rumble effects
-        rumble((short)0, (short)0);
+        stopOutput();
 
-        // Stop the input thread
-        if (inputThread != null) {
-            inputThread.interrupt();
-            inputThread = null;
+        // Stop the input reader
+        if (inputReader != null) {
+            inputReader.stop();
+            inputReader = null;
         }
 
         // Close the USB connection
@@ -188,46 +188,44 @@ public class DualSenseController extends AbstractDualSenseController {
 
     // 参考 https://gist.github.com/stealth-alex/10a8e7cc6027b78fa18a7f48a0d3d1e4
     // https://github.com/flok/pydualsense/blob/master/pydualsense/pydualsense.py
-    @Override
-    public void rumble(short lowFreqMotor, short highFreqMotor) {
-        byte[] reportData = new byte[]{
-                0x02, // Report ID
-                (byte) (0x01 | 0x02), // valid_flag0
-                (byte) 0x00, // valid_flag1
-                (byte) (highFreqMotor >> 8), // right trigger rumble
-                (byte) (lowFreqMotor >> 8), // left trigger rumble
-                0x00, 0x00, 0x00, 0x00,
-                0x00, // mute_button_led (0: mute LED off  | 1: mute LED on)
-                0x10, // power_save_control(mute led on  = 0x00, off = 0x10)
-                0x00, // R2 trigger effect mode
-                0x00, // R2 trigger effect parameter 1
-                0x00, // R2 trigger effect parameter 2
-                0x00, // R2 trigger effect parameter 3
-                0x00, // R2 trigger effect parameter 4
-                0x00, // R2 trigger effect parameter 5
-                0x00, // R2 trigger effect parameter 6
-                0x00, // R2 trigger effect parameter 7
-                0x00, 0x00, 0x00,
-                0x00, // L2 trigger effect mode
-                0x00, // L2 trigger effect parameter 1
-                0x00, // L2 trigger effect parameter 2
-                0x00, // L2 trigger effect parameter 3
-                0x00, // L2 trigger effect parameter 4
-                0x00, // L2 trigger effect parameter 5
-                0x00, // L2 trigger effect parameter 6
-                0x00, // L2 trigger effect parameter 7
-                0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00,
-                0x02, 0x00, 0x02, 0x00,
-                0x00, // player leds
-                (byte) 0x78, (byte) 0x78, (byte) 0xEF // RGB values
-        };
-        sendCommand(reportData);
-    }
+    private final byte[] rumbleReport = new byte[]{
+            0x02, // Report ID
+            (byte) (0x01 | 0x02), // valid_flag0
+            (byte) 0x00, // valid_flag1
+            0x00, // right trigger rumble
+            0x00, // left trigger rumble
+            0x00, 0x00, 0x00, 0x00,
+            0x00, // mute_button_led (0: mute LED off  | 1: mute LED on)
+            0x10, // power_save_control(mute led on  = 0x00, off = 0x10)
+            0x00, // R2 trigger effect mode
+            0x00, // R2 trigger effect parameter 1
+            0x00, // R2 trigger effect parameter 2
+            0x00, // R2 trigger effect parameter 3
+            0x00, // R2 trigger effect parameter 4
+            0x00, // R2 trigger effect parameter 5
+            0x00, // R2 trigger effect parameter 6
+            0x00, // R2 trigger effect parameter 7
+            0x00, 0x00, 0x00,
+            0x00, // L2 trigger effect mode
+            0x00, // L2 trigger effect parameter 1
+            0x00, // L2 trigger effect parameter 2
+            0x00, // L2 trigger effect parameter 3
+            0x00, // L2 trigger effect parameter 4
+            0x00, // L2 trigger effect parameter 5
+            0x00, // L2 trigger effect parameter 6
+            0x00, // L2 trigger effect parameter 7
+            0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00,
+            0x02, 0x00, 0x02, 0x00,
+            0x00, // player leds
+            (byte) 0x78, (byte) 0x78, (byte) 0xEF // RGB values
+    };
 
     @Override
-    public void rumbleTriggers(short leftTrigger, short rightTrigger) {
-        // DS5 supports trigger rumble but implementation is complex
-        // For now, leave it empty
+    protected void writeRumble(short lowFreqMotor, short highFreqMotor, short leftTriggerMotor, short rightTriggerMotor) {
+        // DS5 supports trigger rumble but implementation is complex, so trigger motors are ignored
+        rumbleReport[3] = (byte) (highFreqMotor >> 8);
+        rumbleReport[4] = (byte) (lowFreqMotor >> 8);
+        sendCommand(rumbleReport);
     }
 
     @Override
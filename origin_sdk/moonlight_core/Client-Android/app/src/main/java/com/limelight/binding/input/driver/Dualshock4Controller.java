@@ -199,10 +199,13 @@ public class Dualshock4Controller extends AbstractDualSenseController {
         return true;
     }
 
+    private final byte[] rumbleReport = new byte[32];
+
     @Override
-    public void rumble(short lowFreqMotor, short highFreqMotor) {
+    protected void writeRumble(short lowFreqMotor, short highFreqMotor, short leftTriggerMotor, short rightTriggerMotor) {
+        // DS4 doesn't support trigger rumble
         // https://github.com/Ryochan7/DS4Windows/blob/master/DS4Windows/DS4Library/DS4Device.cs line:1561
-        byte[] report = new byte[32];
+        byte[] report = rumbleReport;
         report[0] = 0x05;
         // Headphone volume L (0x10), Headphone volume R (0x20), Mic volume (0x40), Speaker volume (0x80)
         // enable rumble (0x01), lightbar (0x02), flash (0x04). Default: 0x07
@@ -218,11 +221,6 @@ public class Dualshock4Controller extends AbstractDualSenseController {
         sendCommand(report);
     }
 
-    @Override
-    public void rumbleTriggers(short leftTrigger, short rightTrigger) {
-        // DS4 doesn't support trigger rumble
-    }
-
     @Override
     protected void sendCommand(byte[] data) {
         if (data == null || outEndpt == null || connection == null) {
@@ -5,17 +5,17 @@ import android.hardware.usb.UsbDevice;
 import android.hardware.usb.UsbDeviceConnection;
 import android.hardware.usb.UsbEndpoint;
 import android.hardware.usb.UsbInterface;
-import android.os.SystemClock;
 
 import com.limelight.LimeLog;
 import com.limelight.nvstream.input.ControllerPacket;
 import com.limelight.nvstream.jni.MoonBridge;
 
 import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Enhanced USB Nintendo Switch Pro Controller and Joy-Con driver.
@@ -61,9 +61,11 @@ public class SwitchProController extends AbstractController {
     private final UsbDeviceConnection connection;
     private UsbEndpoint inEndpt;
     private UsbEndpoint outEndpt;
-    private Thread inputThread;
+    private UsbInputReader inputReader;
     private boolean stopped = false;
-    private byte sendPacketCount = 0;
+    // Shared by subcommands (input/handshake thread) and rumble (UsbOutputQueue writer thread)
+    private final AtomicInteger sendPacketCount = new AtomicInteger();
+    private final byte[] rumblePacket = new byte[10];
 
     // IMU data fields
     private float gyroX, gyroY, gyroZ;
@@ -186,10 +188,7 @@ public class SwitchProController extends AbstractController {
         }
         byte[] data = new byte[11 + payload.length];
         data[0] = 0x01;  // Rumble and subcommand
-        data[1] = sendPacketCount++;  // Counter (increments per call)
-        if (sendPacketCount > 0xF) {
-            sendPacketCount = 0;
-        }
+        data[1] = nextPacketCount();  // Counter (increments per call)
 
         data[10] = subcommand;
         System.arraycopy(payload, 0, data, 11, payload.length);
@@ -415,95 +414,87 @@ public class SwitchProController extends AbstractController {
         return 0;
     }
 
-    private Thread createInputThread() {
-        return new Thread(() -> {
-            try {
-                Thread.sleep(1000);
-            } catch (InterruptedException e) {
-                return;
+    private UsbInputReader createInputReader() {
+        return new UsbInputReader(connection, inEndpt, "SwitchPro", new UsbInputReader.Callback() {
+            @Override
+            public boolean onReaderStarted() {
+                // The init sequence reads subcommand replies synchronously, so it runs
+                // before the reader queues any requests of its own
+                return initialize();
             }
 
-            boolean handshakeSuccess = handshake();
-            if (!handshakeSuccess) {
-                LimeLog.warning("SwitchPro: Initial handshake failed!");
-                SwitchProController.this.stop();
-                return;
+            @Override
+            public void onInputReport(ByteBuffer report) {
+                markInputReceived();
+                if (handleRead(report)) {
+                    reportInput();
+                    reportMotion();
+                }
             }
 
-            boolean isJoyCon = isJoyCon();
-            String deviceType = isJoyCon ? "Joy-Con" : "Switch Pro";
-            
-            LimeLog.info(deviceType + ": handshake " + handshakeSuccess);
-            LimeLog.info(deviceType + ": highspeed " + highSpeed());
-            LimeLog.info(deviceType + ": handshake " + handshake());
-            
-            // 加载摇杆校准（Joy-Con 可能只有一个摇杆，但校准流程相同）
-            boolean calibrationLoaded = loadStickCalibration();
-            LimeLog.info(deviceType + ": loadstickcalibration " + calibrationLoaded);
-            
-            // 设置输入报告模式（所有设备都需要）
-            boolean reportModeSet = setInputReportMode((byte)0x30);
-            LimeLog.info(deviceType + ": setinputreportmode " + reportModeSet);
-            
-            // 强制 USB 模式（所有设备都需要）
-            boolean usbForced = forceUSB();
-            LimeLog.info(deviceType + ": forceusb " + usbForced);
-            
-            // 根据设备类型调整特性启用
-            if (!isJoyCon) {
-                // Switch Pro Controller 支持所有特性
-                LimeLog.info(deviceType + ": enablevibration " + enableVibration(true));
-                LimeLog.info(deviceType + ": setplayerled " + setPlayerLED(getControllerId() + 1));
-            } else {
-                // Joy-Con 可能不支持某些特性，尝试启用但不强制要求成功
-                boolean vibrationEnabled = enableVibration(true);
-                LimeLog.info(deviceType + ": enablevibration " + vibrationEnabled + " (may not be supported)");
-                
-                // Joy-Con 可能不支持 LED，尝试但不强制
-                boolean ledSet = setPlayerLED(getControllerId() + 1);
-                LimeLog.info(deviceType + ": setplayerled " + ledSet + " (may not be supported)");
+            @Override
+            public void onReadError() {
+                SwitchProController.this.stop();
             }
-            
-            // IMU 所有设备都支持，启用
-            boolean imuEnabled = enableIMU(true);
-            LimeLog.info(deviceType + ": enableimu " + imuEnabled);
+        });
+    }
 
-            LimeLog.info(deviceType + ": initialized!");
+    private boolean initialize() {
+        try {
+            Thread.sleep(1000);
+        } catch (InterruptedException e) {
+            return false;
+        }
 
-            notifyDeviceAdded();
+        boolean handshakeSuccess = handshake();
+        if (!handshakeSuccess) {
+            LimeLog.warning("SwitchPro: Initial handshake failed!");
+            SwitchProController.this.stop();
+            return false;
+        }
 
-            while (!Thread.currentThread().isInterrupted() && !stopped) {
-                byte[] buffer = new byte[64];
-                int res = -1;
-                do {
-                    if (stopped || Thread.currentThread().isInterrupted()) {
-                        break;
-                    }
-                    long lastMillis = SystemClock.uptimeMillis();
-                    if (inEndpt == null || connection == null) {
-                        break;
-                    }
-                    res = connection.bulkTransfer(inEndpt, buffer, buffer.length, 1000);
-                    if (res == 0) {
-                        res = -1;
-                    }
-                    if (res == -1 && SystemClock.uptimeMillis() - lastMillis < 1000) {
-                        LimeLog.warning("SwitchPro: Detected device I/O error");
-                        SwitchProController.this.stop();
-                        break;
-                    }
-                } while (res == -1 && !Thread.currentThread().isInterrupted() && !stopped);
+        boolean isJoyCon = isJoyCon();
+        String deviceType = isJoyCon ? "Joy-Con" : "Switch Pro";
+        
+        LimeLog.info(deviceType + ": handshake " + handshakeSuccess);
+        LimeLog.info(deviceType + ": highspeed " + highSpeed());
+        LimeLog.info(deviceType + ": handshake " + handshake());
+        
+        // 加载摇杆校准（Joy-Con 可能只有一个摇杆，但校准流程相同）
+        boolean calibrationLoaded = loadStickCalibration();
+        LimeLog.info(deviceType + ": loadstickcalibration " + calibrationLoaded);
+        
+        // 设置输入报告模式（所有设备都需要）
+        boolean reportModeSet = setInputReportMode((byte)0x30);
+        LimeLog.info(deviceType + ": setinputreportmode " + reportModeSet);
+        
+        // 强制 USB 模式（所有设备都需要）
+        boolean usbForced = forceUSB();
+        LimeLog.info(deviceType + ": forceusb " + usbForced);
+        
+        // 根据设备类型调整特性启用
+        if (!isJoyCon) {
+            // Switch Pro Controller 支持所有特性
+            LimeLog.info(deviceType + ": enablevibration " + enableVibration(true));
+            LimeLog.info(deviceType + ": setplayerled " + setPlayerLED(getControllerId() + 1));
+        } else {
+            // Joy-Con 可能不支持某些特性，尝试启用但不强制要求成功
+            boolean vibrationEnabled = enableVibration(true);
+            LimeLog.info(deviceType + ": enablevibration " + vibrationEnabled + " (may not be supported)");
+            
+            // Joy-Con 可能不支持 LED，尝试但不强制
+            boolean ledSet = setPlayerLED(getControllerId() + 1);
+            LimeLog.info(deviceType + ": setplayerled " + ledSet + " (may not be supported)");
+        }
+        
+        // IMU 所有设备都支持，启用
+        boolean imuEnabled = enableIMU(true);
+        LimeLog.info(deviceType + ": enableimu " + imuEnabled);
 
-                if (res == -1 || stopped) {
-                    break;
-                }
+        LimeLog.info(deviceType + ": initialized!");
 
-                if (handleRead(ByteBuffer.wrap(buffer, 0, res).order(ByteOrder.LITTLE_ENDIAN))) {
-                    reportInput();
-                    reportMotion();
-                }
-            }
-        });
+        notifyDeviceAdded();
+        return true;
     }
 
     @Override
@@ -536,9 +527,9 @@ public class SwitchProController extends AbstractController {
             return false;
         }
 
-        // Start initialization thread
-        inputThread = createInputThread();
-        inputThread.start();
+        // Start initialization and then input on the reader thread
+        inputReader = createInputReader();
+        inputReader.start();
 
         return true;
     }
@@ -554,20 +545,15 @@ public class SwitchProController extends AbstractController {
 
         // Cancel any rumble effects
         try {
-            rumble((short) 0, (short) 0);
+            stopOutput();
         } catch (Exception e) {
             LimeLog.warning("SwitchPro: Failed to cancel rumble during stop");
         }
 
-        // Stop the input thread
-        if (inputThread != null) {
-            inputThread.interrupt();
-            try {
-                inputThread.join(1000);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-            }
-            inputThread = null;
+        // Stop the input reader
+        if (inputReader != null) {
+            inputReader.stop();
+            inputReader = null;
         }
 
         // Release all claimed interfaces
@@ -597,16 +583,26 @@ public class SwitchProController extends AbstractController {
     }
 
     @Override
-    public void rumble(short lowFreqMotor, short highFreqMotor) {
+    protected int getMinOutputIntervalMs() {
+        // 手柄自身约 60Hz 处理震动包，发得更快只会排队
+        return 16;
+    }
+
+    private byte nextPacketCount() {
+        // 4-bit counter, wraps after 0xF
+        return (byte) (sendPacketCount.getAndIncrement() & 0xF);
+    }
+
+    @Override
+    protected void writeRumble(short lowFreqMotor, short highFreqMotor, short leftTriggerMotor, short rightTriggerMotor) {
+        // Switch Pro does not support trigger-specific rumble
         if (outEndpt == null || connection == null) {
             return;
         }
-        byte[] data = new byte[10];
+        byte[] data = rumblePacket;
+        Arrays.fill(data, (byte) 0);
         data[0] = 0x10;  // Rumble command
-        data[1] = sendPacketCount++;  // Counter (increments per call)
-        if (sendPacketCount > 0xF) {
-            sendPacketCount = 0;
-        }
+        data[1] = nextPacketCount();  // Counter (increments per call)
 
         if (lowFreqMotor != 0) {
             // 修复运算符优先级：应该是 (lowFreqMotor & 0xFFFF) >> 12
@@ -629,11 +625,6 @@ public class SwitchProController extends AbstractController {
         sendData(data, data.length);
     }
 
-    @Override
-    public void rumbleTriggers(short leftTrigger, short rightTrigger) {
-        // Switch Pro does not support trigger-specific rumble
-    }
-
     private void reportMotion() {
         // Report gyroscope data (in deg/s)
         notifyControllerMotion(MoonBridge.LI_MOTION_TYPE_GYRO, gyroX, gyroY, gyroZ);
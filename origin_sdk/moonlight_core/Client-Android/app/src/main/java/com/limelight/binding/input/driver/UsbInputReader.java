@@ -0,0 +1,224 @@
+package com.limelight.binding.input.driver;
+
+import android.hardware.usb.UsbDeviceConnection;
+import android.hardware.usb.UsbEndpoint;
+import android.hardware.usb.UsbRequest;
+import android.os.Build;
+import android.os.SystemClock;
+
+import com.limelight.LimeLog;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Reads input reports from a controller's IN endpoint for the userspace drivers.
+ *
+ * Several UsbRequests are kept queued at all times so the host controller always has a
+ * buffer ready for the next poll, and each request owns a direct ByteBuffer that is reused
+ * for the lifetime of the reader. Completion is reported by the USB stack, so transfer
+ * errors are detected explicitly instead of being inferred from how long a read took.
+ *
+ * UsbDeviceConnection.requestWait() only waits on a single connection, so each attached
+ * controller gets its own reader thread.
+ */
+public class UsbInputReader {
+    public interface Callback {
+        /**
+         * Called on the reader thread before any read is queued. Drivers can run their
+         * synchronous init sequence here. Returning false stops the reader without reporting
+         * an error.
+         */
+        boolean onReaderStarted();
+
+        /**
+         * Called on the reader thread for each completed report. The buffer is only valid
+         * until this method returns.
+         */
+        void onInputReport(ByteBuffer report);
+
+        /**
+         * Called on the reader thread when the device stopped responding.
+         */
+        void onReadError();
+    }
+
+    private static final int IN_FLIGHT_REQUESTS = 4;
+
+    // Waits are bounded so the thread notices stop() even if the device never sends another
+    // report (Xbox pads only report on change)
+    private static final long STOP_CHECK_INTERVAL_MS = 100;
+    // stop() waits this long for the thread to release its requests before the caller closes
+    // the connection
+    private static final long STOP_JOIN_TIMEOUT_MS = 2 * STOP_CHECK_INTERVAL_MS;
+
+    // Blocking fallback: a bulkTransfer failing sooner than this is a device error, not a timeout
+    private static final int BLOCKING_READ_TIMEOUT_MS = 3000;
+    private static final long BLOCKING_ERROR_THRESHOLD_MS = 1000;
+
+    private final UsbDeviceConnection connection;
+    private final UsbEndpoint endpoint;
+    private final Callback callback;
+    private final String name;
+
+    private Thread thread;
+    private volatile boolean stopped;
+
+    public UsbInputReader(UsbDeviceConnection connection, UsbEndpoint endpoint, String name, Callback callback) {
+        this.connection = connection;
+        this.endpoint = endpoint;
+        this.name = name;
+        this.callback = callback;
+    }
+
+    public void start() {
+        thread = new Thread(this::run, name + " input");
+        thread.setPriority(Thread.MAX_PRIORITY);
+        thread.start();
+    }
+
+    /**
+     * Stops the reader. When called from another thread, this waits briefly for the reader
+     * to cancel and close its requests so the caller can close the connection afterwards.
+     * Safe to call from the reader thread itself (e.g. from onReadError()).
+     */
+    public void stop() {
+        stopped = true;
+
+        Thread t = thread;
+        if (t != null && t != Thread.currentThread()) {
+            t.interrupt();
+            try {
+                t.join(STOP_JOIN_TIMEOUT_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void run() {
+        if (!callback.onReaderStarted() || stopped) {
+            return;
+        }
+
+        int packetSize = Math.max(endpoint.getMaxPacketSize(), 64);
+
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            runQueued(packetSize);
+        }
+        else {
+            runBlocking(packetSize);
+        }
+    }
+
+    private void runQueued(int packetSize) {
+        UsbRequest[] requests = new UsbRequest[IN_FLIGHT_REQUESTS];
+        int queued = 0;
+
+        try {
+            for (int i = 0; i < requests.length; i++) {
+                UsbRequest request = new UsbRequest();
+                if (!request.initialize(connection, endpoint)) {
+                    LimeLog.warning(name + ": Failed to initialize USB request");
+                    reportError();
+                    return;
+                }
+                requests[i] = request;
+
+                ByteBuffer buffer = ByteBuffer.allocateDirect(packetSize).order(ByteOrder.LITTLE_ENDIAN);
+                request.setClientData(buffer);
+                if (!request.queue(buffer)) {
+                    LimeLog.warning(name + ": Failed to queue USB request");
+                    reportError();
+                    return;
+                }
+                queued++;
+            }
+
+            while (!stopped) {
+                UsbRequest completed;
+                try {
+                    completed = connection.requestWait(STOP_CHECK_INTERVAL_MS);
+                } catch (TimeoutException e) {
+                    // Nothing arrived, check whether we were stopped
+                    continue;
+                } catch (RuntimeException e) {
+                    completed = null;
+                }
+
+                if (completed == null) {
+                    // requestWait() only fails if the device is gone or the connection closed
+                    if (!stopped) {
+                        LimeLog.warning(name + ": Detected device I/O error");
+                        reportError();
+                    }
+                    return;
+                }
+
+                ByteBuffer buffer = (ByteBuffer) completed.getClientData();
+
+                // The position is the number of bytes transferred
+                int length = buffer.position();
+                if (length > 0 && !stopped) {
+                    buffer.flip();
+                    callback.onInputReport(buffer);
+                }
+
+                buffer.clear();
+                if (stopped) {
+                    return;
+                }
+                if (!completed.queue(buffer)) {
+                    LimeLog.warning(name + ": Failed to requeue USB request");
+                    reportError();
+                    return;
+                }
+            }
+        } finally {
+            for (int i = 0; i < requests.length; i++) {
+                if (requests[i] != null) {
+                    if (i < queued) {
+                        requests[i].cancel();
+                    }
+                    requests[i].close();
+                }
+            }
+        }
+    }
+
+    // Fallback for platforms where UsbRequest doesn't report the transfer length.
+    // bulkTransfer() reports a timeout and an error the same way, so a failure that came
+    // back well before the timeout expired is treated as a device error.
+    private void runBlocking(int packetSize) {
+        byte[] data = new byte[packetSize];
+        ByteBuffer buffer = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
+
+        while (!stopped) {
+            long startMillis = SystemClock.uptimeMillis();
+            int res = connection.bulkTransfer(endpoint, data, data.length, BLOCKING_READ_TIMEOUT_MS);
+            if (res <= 0) {
+                if (stopped) {
+                    return;
+                }
+                if (SystemClock.uptimeMillis() - startMillis < BLOCKING_ERROR_THRESHOLD_MS) {
+                    LimeLog.warning(name + ": Detected device I/O error");
+                    reportError();
+                    return;
+                }
+                // Timed out with no input, keep waiting
+                continue;
+            }
+
+            buffer.clear();
+            buffer.limit(res);
+            callback.onInputReport(buffer);
+        }
+    }
+
+    private void reportError() {
+        if (!stopped) {
+            callback.onReadError();
+        }
+    }
+}
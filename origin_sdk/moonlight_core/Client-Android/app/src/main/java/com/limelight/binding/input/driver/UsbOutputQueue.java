@@ -0,0 +1,151 @@
+package com.limelight.binding.input.driver;
+
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Process;
+import android.os.SystemClock;
+
+import com.limelight.LimeLog;
+
+/**
+ * Output path for the userspace drivers' rumble.
+ *
+ * Rumble updates arrive on the native connection thread, which must never wait on the USB
+ * stack, so callers only store the latest motor state here. A writer thread shared by all
+ * attached controllers sends it to the device at most once per the driver's minimum output
+ * interval. Updates that arrive while a write is pending replace the pending state instead of
+ * queuing another packet, and a state identical to the last one written is not sent again.
+ */
+class UsbOutputQueue {
+    private static Handler writerHandler;
+
+    private static synchronized Handler getWriterHandler() {
+        if (writerHandler == null) {
+            HandlerThread thread = new HandlerThread("UsbOutput", Process.THREAD_PRIORITY_DISPLAY);
+            thread.start();
+            writerHandler = new Handler(thread.getLooper());
+        }
+        return writerHandler;
+    }
+
+    private final AbstractController controller;
+    private final long minIntervalMs;
+    private final Runnable flushRunnable = this::flush;
+
+    // Latest requested state, guarded by this
+    private short lowFreqMotor, highFreqMotor;
+    private short leftTriggerMotor, rightTriggerMotor;
+    private boolean dirty;
+    private boolean flushScheduled;
+    private volatile boolean stopped;
+
+    // State last sent to the device, guarded by writeLock
+    private final Object writeLock = new Object();
+    private boolean written;
+    private short writtenLowFreqMotor, writtenHighFreqMotor;
+    private short writtenLeftTriggerMotor, writtenRightTriggerMotor;
+    private volatile long lastWriteTimeMs;
+
+    UsbOutputQueue(AbstractController controller, int minIntervalMs) {
+        this.controller = controller;
+        this.minIntervalMs = minIntervalMs;
+    }
+
+    synchronized void setRumble(short lowFreqMotor, short highFreqMotor) {
+        this.lowFreqMotor = lowFreqMotor;
+        this.highFreqMotor = highFreqMotor;
+        scheduleFlush();
+    }
+
+    synchronized void setTriggerRumble(short leftTrigger, short rightTrigger) {
+        this.leftTriggerMotor = leftTrigger;
+        this.rightTriggerMotor = rightTrigger;
+        scheduleFlush();
+    }
+
+    // Must be called with the lock held
+    private void scheduleFlush() {
+        if (stopped) {
+            return;
+        }
+
+        dirty = true;
+        if (!flushScheduled) {
+            flushScheduled = true;
+            long delay = lastWriteTimeMs + minIntervalMs - SystemClock.uptimeMillis();
+            getWriterHandler().postDelayed(flushRunnable, Math.max(delay, 0));
+        }
+    }
+
+    private void flush() {
+        short low, high, left, right;
+
+        synchronized (this) {
+            flushScheduled = false;
+            if (!dirty || stopped) {
+                return;
+            }
+
+            // An update that arrived while the previous write was in progress was scheduled
+            // against the old write time, so check the interval again here
+            long delay = lastWriteTimeMs + minIntervalMs - SystemClock.uptimeMillis();
+            if (delay > 0) {
+                flushScheduled = true;
+                getWriterHandler().postDelayed(flushRunnable, delay);
+                return;
+            }
+
+            dirty = false;
+            low = lowFreqMotor;
+            high = highFreqMotor;
+            left = leftTriggerMotor;
+            right = rightTriggerMotor;
+        }
+
+        synchronized (writeLock) {
+            if (!stopped) {
+                write(low, high, left, right);
+            }
+        }
+    }
+
+    // Must be called with writeLock held
+    private void write(short low, short high, short left, short right) {
+        if (written && low == writtenLowFreqMotor && high == writtenHighFreqMotor &&
+                left == writtenLeftTriggerMotor && right == writtenRightTriggerMotor) {
+            return;
+        }
+
+        written = true;
+        writtenLowFreqMotor = low;
+        writtenHighFreqMotor = high;
+        writtenLeftTriggerMotor = left;
+        writtenRightTriggerMotor = right;
+
+        try {
+            controller.writeRumble(low, high, left, right);
+        } catch (RuntimeException e) {
+            // Don't let one misbehaving device take down the shared writer thread
+            LimeLog.warning("Rumble write failed: " + e);
+        }
+        lastWriteTimeMs = SystemClock.uptimeMillis();
+    }
+
+    /**
+     * Drops any pending update and synchronously turns all motors off. Called by the
+     * drivers' stop() before the connection is closed.
+     */
+    void stop() {
+        synchronized (this) {
+            stopped = true;
+            dirty = false;
+        }
+        getWriterHandler().removeCallbacks(flushRunnable);
+
+        synchronized (writeLock) {
+            // Always send the final state, even if the motors were already off
+            written = false;
+            write((short) 0, (short) 0, (short) 0, (short) 0);
+        }
+    }
+}
@@ -145,21 +145,21 @@ public class Xbox360Controller extends AbstractXboxController {
         return true;
     }
 
+    private final byte[] rumblePacket = {
+            0x00, 0x08, 0x00,
+            0x00, 0x00,
+            0x00, 0x00, 0x00
+    };
+
     @Override
-    public void rumble(short lowFreqMotor, short highFreqMotor) {
-        byte[] data = {
-                0x00, 0x08, 0x00,
-                (byte)(lowFreqMotor >> 8), (byte)(highFreqMotor >> 8),
-                0x00, 0x00, 0x00
-        };
+    protected void writeRumble(short lowFreqMotor, short highFreqMotor, short leftTriggerMotor, short rightTriggerMotor) {
+        // Trigger motors not present on Xbox 360 controllers
+        byte[] data = rumblePacket;
+        data[3] = (byte)(lowFreqMotor >> 8);
+        data[4] = (byte)(highFreqMotor >> 8);
         int res = connection.bulkTransfer(outEndpt, data, data.length, 100);
         if (res != data.length) {
             LimeLog.warning("Rumble transfer failed: "+res);
         }
     }
-
-    @Override
-    public void rumbleTriggers(short leftTrigger, short rightTrigger) {
-        // Trigger motors not present on Xbox 360 controllers
-    }
 }
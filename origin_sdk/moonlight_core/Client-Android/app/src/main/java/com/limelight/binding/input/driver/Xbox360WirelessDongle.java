@@ -137,12 +137,7 @@ public class Xbox360WirelessDongle extends AbstractController {
     }
 
     @Override
-    public void rumble(short lowFreqMotor, short highFreqMotor) {
-        // Unreachable.
-    }
-
-    @Override
-    public void rumbleTriggers(short leftTrigger, short rightTrigger) {
+    protected void writeRumble(short lowFreqMotor, short highFreqMotor, short leftTriggerMotor, short rightTriggerMotor) {
         // Unreachable.
     }
 }
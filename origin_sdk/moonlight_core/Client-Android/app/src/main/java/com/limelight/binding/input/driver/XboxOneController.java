@@ -60,10 +60,6 @@ public class XboxOneController extends AbstractXboxController {
     };
 
     private byte seqNum = 0;
-    private short lowFreqMotor = 0;
-    private short highFreqMotor = 0;
-    private short leftTriggerMotor = 0;
-    private short rightTriggerMotor = 0;
 
     public XboxOneController(UsbDevice device, UsbDeviceConnection connection, int deviceId, UsbDriverListener listener) {
         super(device, connection, deviceId, listener);
@@ -187,36 +183,27 @@ public class XboxOneController extends AbstractXboxController {
         return true;
     }
 
-    private void sendRumblePacket() {
-        byte[] data = {
-                0x09, 0x00, seqNum++, 0x09, 0x00,
-                0x0F,
-                (byte)(leftTriggerMotor >> 9),
-                (byte)(rightTriggerMotor >> 9),
-                (byte)(lowFreqMotor >> 9),
-                (byte)(highFreqMotor >> 9),
-                (byte)0xFF, 0x00, (byte)0xFF
-        };
+    private final byte[] rumblePacket = {
+            0x09, 0x00, 0x00, 0x09, 0x00,
+            0x0F,
+            0x00, 0x00, 0x00, 0x00,
+            (byte)0xFF, 0x00, (byte)0xFF
+    };
+
+    @Override
+    protected void writeRumble(short lowFreqMotor, short highFreqMotor, short leftTriggerMotor, short rightTriggerMotor) {
+        byte[] data = rumblePacket;
+        data[2] = seqNum++;
+        data[6] = (byte)(leftTriggerMotor >> 9);
+        data[7] = (byte)(rightTriggerMotor >> 9);
+        data[8] = (byte)(lowFreqMotor >> 9);
+        data[9] = (byte)(highFreqMotor >> 9);
         int res = connection.bulkTransfer(outEndpt, data, data.length, 100);
         if (res != data.length) {
             LimeLog.warning("Rumble transfer failed: "+res);
         }
     }
 
-    @Override
-    public void rumble(short lowFreqMotor, short highFreqMotor) {
-        this.lowFreqMotor = lowFreqMotor;
-        this.highFreqMotor = highFreqMotor;
-        sendRumblePacket();
-    }
-
-    @Override
-    public void rumbleTriggers(short leftTrigger, short rightTrigger) {
-        this.leftTriggerMotor = leftTrigger;
-        this.rightTriggerMotor = rightTrigger;
-        sendRumblePacket();
-    }
-
     private static class InitPacket {
         final int vendorId;
         final int productId;
@@ -8,6 +8,14 @@ public interface EvdevListener {
     int BUTTON_X2 = 5;
 
     void mouseMove(int deltaX, int deltaY);
+
+    /**
+     * Everything reported between two SYN_REPORTs, delivered at once. Bit (1 << BUTTON_*)
+     * is set in changedButtons for each button that changed and in pressedButtons
+     * for each of those that is now down. Buttons are applied before motion and scrolling.
+     */
+    void mouseReport(int deltaX, int deltaY, int changedButtons, int pressedButtons,
+                     byte vScroll, byte hScroll);
     void mouseButtonEvent(int buttonId, boolean down);
     void mouseVScroll(byte amount);
     void mouseHScroll(byte amount);
@@ -2,10 +2,35 @@ package com.limelight.binding.input.touch;
 
 import android.os.Handler;
 import android.os.Looper;
+import android.os.SystemClock;
+import android.view.Choreographer;
+
+import com.limelight.LimeLog;
 import com.limelight.ui.CursorView;
+import com.limelight.utils.FixedHistogram;
 
+/**
+ * 本地光标：在触摸采样点到达时立即移动 CursorView 上的光标，不等待串流画面。
+ *
+ * 发给主机的始终是实际位置（getCursorAbsolutePosition），主机光标跟随本地位置，
+ * 不需要额外的校正。开启预测后显示位置会沿当前速度前推 PREDICTION_MS，
+ * 抵消一部分合成和显示延迟；手指停下后下一帧回到实际位置。
+ *
+ * 每次移动后在下一帧记录“触摸事件 -> 光标所在帧”的耗时，会话结束时输出。
+ */
 public class LocalCursorRenderer {
 
+    // 预测前推的时间和最大距离
+    private static final float PREDICTION_MS = 8f;
+    private static final float MAX_PREDICTION_PX = 48f;
+    // 超过该时间没有新的采样点，认为手指已停下
+    private static final long MOTION_IDLE_MS = 20;
+    // 相邻采样间隔超过该值时不计算速度
+    private static final long MAX_SAMPLE_INTERVAL_MS = 50;
+
+    // 0.25 ms 一个桶，最多 100 ms
+    private static final FixedHistogram eventToFrameUs = new FixedHistogram(250, 400);
+
     private CursorView cursorView;
     private int viewWidth = 1;
     private int viewHeight = 1;
@@ -14,7 +39,20 @@ public class LocalCursorRenderer {
     private float cursorX = 0;
     private float cursorY = 0;
 
+    // 预测使用的速度（像素/毫秒）
+    private boolean predictionEnabled;
+    private float velocityX;
+    private float velocityY;
+    private long lastEventTime = -1;
+    private boolean predicting;
+
+    // 尚未显示的最早一次移动的事件时间，0 表示没有
+    private long pendingEventTimeNs;
+    private boolean frameCallbackPosted;
+
     private final Handler uiHandler = new Handler(Looper.getMainLooper());
+    private final Runnable applyPositionRunnable = this::applyPosition;
+    private final Choreographer.FrameCallback frameCallback = this::onFrame;
 
     public LocalCursorRenderer(CursorView cursorView, int viewWidth, int viewHeight) {
         this.cursorView = cursorView;
@@ -26,24 +64,100 @@ public class LocalCursorRenderer {
         this.cursorY = this.viewHeight / 2.0f;
 
         // 立即同步初始位置给 View，否则 View 会绘制在屏幕外
-        uiHandler.post(() -> {
-            if (this.cursorView != null) {
-                this.cursorView.updateCursorPosition(cursorX, cursorY);
-            }
-        });
+        uiHandler.post(applyPositionRunnable);
+    }
+
+    public void setPredictionEnabled(boolean enabled) {
+        this.predictionEnabled = enabled;
+        if (!enabled) {
+            velocityX = velocityY = 0;
+        }
     }
 
     public void updateCursorPosition(float deltaX, float deltaY) {
+        updateCursorPosition(deltaX, deltaY, SystemClock.uptimeMillis());
+    }
+
+    /**
+     * 按一个触摸采样点移动光标，eventTime 为采样点的时间（uptimeMillis）。
+     */
+    public void updateCursorPosition(float deltaX, float deltaY, long eventTime) {
         // 更新逻辑坐标
         this.cursorX = Math.max(0, Math.min(cursorX + deltaX, viewWidth - 1));
         this.cursorY = Math.max(0, Math.min(cursorY + deltaY, viewHeight - 1));
 
-        // 在 UI 线程更新 View
-        uiHandler.post(() -> {
-            if (cursorView != null) {
-                cursorView.updateCursorPosition(cursorX, cursorY);
+        if (predictionEnabled) {
+            long interval = eventTime - lastEventTime;
+            if (lastEventTime < 0 || interval > MAX_SAMPLE_INTERVAL_MS) {
+                velocityX = velocityY = 0;
+            } else if (interval > 0) {
+                // 平滑速度，减少单个采样点抖动带来的跳动
+                velocityX = (velocityX + deltaX / interval) * 0.5f;
+                velocityY = (velocityY + deltaY / interval) * 0.5f;
             }
-        });
+        }
+        lastEventTime = eventTime;
+        if (pendingEventTimeNs == 0) {
+            pendingEventTimeNs = eventTime * 1000000L;
+        }
+
+        // 触摸事件本来就在主线程，直接修改平移量，不再经过 Handler
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+            applyPosition();
+        } else {
+            uiHandler.post(applyPositionRunnable);
+        }
+    }
+
+    // Must be called on the main thread
+    private void applyPosition() {
+        if (cursorView == null) {
+            return;
+        }
+
+        float x = cursorX;
+        float y = cursorY;
+        predicting = predictionEnabled && (velocityX != 0 || velocityY != 0);
+        if (predicting) {
+            float offsetX = velocityX * PREDICTION_MS;
+            float offsetY = velocityY * PREDICTION_MS;
+            float distance = (float) Math.hypot(offsetX, offsetY);
+            if (distance > MAX_PREDICTION_PX) {
+                offsetX *= MAX_PREDICTION_PX / distance;
+                offsetY *= MAX_PREDICTION_PX / distance;
+            }
+            x = Math.max(0, Math.min(x + offsetX, viewWidth - 1));
+            y = Math.max(0, Math.min(y + offsetY, viewHeight - 1));
+        }
+        cursorView.updateCursorPosition(x, y);
+
+        if (!frameCallbackPosted && (pendingEventTimeNs != 0 || predicting)) {
+            frameCallbackPosted = true;
+            Choreographer.getInstance().postFrameCallback(frameCallback);
+        }
+    }
+
+    private void onFrame(long frameTimeNanos) {
+        frameCallbackPosted = false;
+        if (cursorView == null) {
+            return;
+        }
+
+        if (pendingEventTimeNs != 0) {
+            eventToFrameUs.record((frameTimeNanos - pendingEventTimeNs) / 1000);
+            pendingEventTimeNs = 0;
+        }
+
+        if (predicting) {
+            // 手指停下后去掉预测的部分，回到实际位置
+            if (frameTimeNanos / 1000000L - lastEventTime > MOTION_IDLE_MS) {
+                velocityX = velocityY = 0;
+                applyPosition();
+            } else {
+                frameCallbackPosted = true;
+                Choreographer.getInstance().postFrameCallback(frameCallback);
+            }
+        }
     }
 
     public void setViewDimensions(int width, int height) {
@@ -59,7 +173,7 @@ public class LocalCursorRenderer {
             if (cursorView != null) {
                 cursorView.show();
                 // 显示时强制更新一次位置，确保立刻可见
-                cursorView.updateCursorPosition(cursorX, cursorY);
+                applyPosition();
             }
         });
     }
@@ -73,10 +187,33 @@ public class LocalCursorRenderer {
     public void destroy() {
         hide();
         cursorView = null;
+        if (frameCallbackPosted) {
+            Choreographer.getInstance().removeFrameCallback(frameCallback);
+            frameCallbackPosted = false;
+        }
     }
 
     // Getter methods required by context
     public float[] getCursorAbsolutePosition() {
         return new float[]{cursorX, cursorY};
     }
-}
\ No newline at end of file
+
+    /**
+     * 输出本次会话本地光标的延迟。streamedLatencyMs 为串流画面在客户端的平均端到端延迟（没有时传 0），
+     * 只作为参考估计一并输出：串流光标本身没有测量，网络往返和主机采集编码也不在其中，不能和本地光标直接比较。
+     */
+    public static void reportStatistics(int streamedLatencyMs) {
+        if (eventToFrameUs.getCount() == 0) {
+            return;
+        }
+        float localP50Ms = eventToFrameUs.getPercentile(50) / 1000f;
+        LimeLog.info(String.format("Local cursor event->frame: P50 %.2fms, P95 %.2fms, P99 %.2fms (%d moves)",
+                localP50Ms, eventToFrameUs.getPercentile(95) / 1000f,
+                eventToFrameUs.getPercentile(99) / 1000f, eventToFrameUs.getCount()));
+        if (streamedLatencyMs > 0) {
+            LimeLog.info(String.format("Client video end-to-end (estimate, streamed cursor not measured): avg %dms",
+                    streamedLatencyMs));
+        }
+        eventToFrameUs.reset();
+    }
+}
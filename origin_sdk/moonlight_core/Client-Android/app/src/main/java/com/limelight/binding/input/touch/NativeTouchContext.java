@@ -68,65 +68,54 @@ public class NativeTouchContext {
     // public static float POINTER_FIXED_X_VELOCITY = 8f;
 
     /**
-     * Object to store, update info & manipulate coordinates for each pointer.
-     * An ArrayList of NativeTouchContext.Pointer instances is created in Game Class for all active pointers.
+     * Judge whether a first contact at this x coord lies in the enhanced touch zone.
+     * Only Supports horizontal split (left and right) for now.
+     */
+    static boolean isInEnhancedTouchZone(float initialX, float screenWidth) {
+        float normalizedX = initialX / screenWidth;
+        return normalizedX * ENHANCED_TOUCH_ON_RIGHT > ENHANCED_TOUCH_ZONE_DIVIDER * ENHANCED_TOUCH_ON_RIGHT;
+    }
+
+    /**
+     * Object to update info & manipulate coordinates for each pointer.
+     * Instances are owned by NativeTouchPointerTable, one per pointerId slot, and reused for every
+     * finger landing with that id. The state itself lives in the table's primitive arrays.
      */
     public static class Pointer{
+        private final NativeTouchPointerTable table;
+
         /**
          * poinerId, not pointerIndex.
          * Use pointerId because it's consistent during the whole pointer lifecycle.
          */
-        private int pointerId;
-
-        /**
-         * Use MotionEvent.PointerCoords from Android SDK to store coordinates.
-         */
-        private MotionEvent.PointerCoords initialCoords = new MotionEvent.PointerCoords(); //First contact coords of a pointer.
-        private MotionEvent.PointerCoords latestCoords = new MotionEvent.PointerCoords(); //Latest coords of a pointer updated from MotionEvent provided by Android System.
-        private MotionEvent.PointerCoords previousCoords = new MotionEvent.PointerCoords(); // previous Coords of a pointer. will be updated in updatePointerCoords().
-        private MotionEvent.PointerCoords latestRelativeCoords = new MotionEvent.PointerCoords(); // Coords to replace native ones from Android MotionEvents, for manipulating touch control.
-        private MotionEvent.PointerCoords previousRelativeCoords = new MotionEvent.PointerCoords(); // Coords to replace native ones from Android MotionEvents, for manipulating touch control.
-
-        /**
-         * DeltaX & DeltaY between to 2 onTouch() callbacks.
-         */
-        private float velocityX;
-        private float velocityY;
-
-
-        /**
-         * Flipped to true when pointer moves out of (2*INTIAL_ZONE_PIXELS)^2 square flat region.
-         */
-        private boolean pointerLeftInitialZone = false;
+        private final int pointerId;
 
-        /**
-         * Constructor for NativeTouchContext.Pointer.
-         * Pointer class instantiated in ACTION_DOWN, ACTION_POINTER_DOWN Condition.
-         */
-        public Pointer(MotionEvent event) {
-            int pointerIndex = event.getActionIndex(); //get the pointerIndex triggers DOWN event.
-            this.pointerId = event.getPointerId(pointerIndex); // get pointerId
-            event.getPointerCoords(pointerIndex, this.initialCoords);// Fill in initial coords.
-            event.getPointerCoords(pointerIndex, this.latestCoords);// Fill in latest coords.
-            //if(POINTER_VELOCITY_FACTOR != 1.0f){
-            this.latestRelativeCoords.x = this.latestCoords.x;
-            this.latestRelativeCoords.y = this.latestCoords.y;
+        Pointer(NativeTouchPointerTable table, int pointerId) {
+            this.table = table;
+            this.pointerId = pointerId;
         }
+
         public int getPointerId(){
             return this.pointerId;
         }
 
         /**
-         * Update native coordinates, relative coordinates & velocity for Pointer instance
+         * Update native coordinates, relative coordinates & velocity for this pointer
          */
         public void updatePointerCoords(MotionEvent event, int pointerIndex){
-            this.previousCoords.x = this.latestCoords.x; // assign x, y coords to this.previousCoords only. Other attributes can be ignored.
-            this.previousCoords.y = this.latestCoords.y;
-            event.getPointerCoords(pointerIndex, this.latestCoords); // update latestCoords from MotionEvent.
+            table.update(this.pointerId, event.getX(pointerIndex), event.getY(pointerIndex), event.getEventTime());
+        }
+
+        void updatePointerCoords(float x, float y){
+            int id = this.pointerId;
+            table.previousX[id] = table.latestX[id];
+            table.previousY[id] = table.latestY[id];
+            table.latestX[id] = x; // update latest coords.
+            table.latestY[id] = y;
 
             if(POINTER_VELOCITY_FACTOR == 1.0f) {
-                this.latestRelativeCoords.x = this.latestCoords.x;
-                this.latestRelativeCoords.y = this.latestCoords.y;
+                table.relativeX[id] = table.latestX[id];
+                table.relativeY[id] = table.latestY[id];
             }
             else this.updateRelativeCoords();
 
@@ -134,115 +123,103 @@ public class NativeTouchContext {
             // if(POINTER_FIXED_X_VELOCITY != 0f)  this.updateRelativeCoordsFixedXVelocity();
 
             if(INTIAL_ZONE_PIXELS > 0f) this.flattenLongPressJitter();
-            // Log.d("INTIAL_ZONE_PIXELS", ""+INTIAL_ZONE_PIXELS);
         }
 
         /**
          * Update relative coordinates with velocity scaled by POINTER_VELOCITY_FACTOR
          */
         private void updateRelativeCoords(){
-            this.velocityX = this.latestCoords.x - this.previousCoords.x;
-            this.velocityY = this.latestCoords.y - this.previousCoords.y;
-            this.previousRelativeCoords.x = this.latestRelativeCoords.x;
-            this.previousRelativeCoords.y = this.latestRelativeCoords.y;
-            this.latestRelativeCoords.x = this.previousRelativeCoords.x + this.velocityX * POINTER_VELOCITY_FACTOR;
-            this.latestRelativeCoords.y = this.previousRelativeCoords.y + this.velocityY * POINTER_VELOCITY_FACTOR;
+            int id = this.pointerId;
+            table.velocityX[id] = table.latestX[id] - table.previousX[id];
+            table.velocityY[id] = table.latestY[id] - table.previousY[id];
+            table.relativeX[id] += table.velocityX[id] * POINTER_VELOCITY_FACTOR;
+            table.relativeY[id] += table.velocityY[id] * POINTER_VELOCITY_FACTOR;
         }
 
         /**
-         * Update relative coordinates with fixed X velocity
-         */
-        /* private void updateRelativeCoordsFixedXVelocity(){
-            this.velocityX = this.latestCoords.x - this.previousCoords.x;
-            this.velocityY = this.latestCoords.y - this.previousCoords.y;
-            this.previousRelativeCoords.x = this.latestRelativeCoords.x;
-            this.previousRelativeCoords.y = this.latestRelativeCoords.y;
-            this.latestRelativeCoords.x = this.previousRelativeCoords.x + Math.signum(this.velocityX) * POINTER_FIXED_X_VELOCITY;
-            this.latestRelativeCoords.y = this.previousRelativeCoords.y + this.velocityY * POINTER_VELOCITY_FACTOR;
-        } */
-
-        /**
-         * Judge whether this pointer leaves (2*INTIAL_ZONE_PIXELS)^2 square flat region
+         * Resets latest coords (both native & relative) to initial coords if pointer doesn't leave flat region.
          */
-        private void checkIfPointerLeaveInitialZone() {
-            if (!this.pointerLeftInitialZone) {
-                if (Math.abs(this.latestCoords.x - this.initialCoords.x) > INTIAL_ZONE_PIXELS || Math.abs(this.latestCoords.y - this.initialCoords.y) > INTIAL_ZONE_PIXELS) {
-                        this.pointerLeftInitialZone = true; //Flips pointerLeftInitialZone to true when pointer moves out of flat region.
+        private void flattenLongPressJitter(){
+            int id = this.pointerId;
+            if (!table.leftInitialZone[id]) {
+                if (Math.abs(table.latestX[id] - table.initialX[id]) > INTIAL_ZONE_PIXELS || Math.abs(table.latestY[id] - table.initialY[id]) > INTIAL_ZONE_PIXELS) {
+                    table.leftInitialZone[id] = true; //Flips leftInitialZone to true when pointer moves out of flat region.
+                }
+                else {
+                    table.latestX[id] = table.initialX[id];
+                    table.latestY[id] = table.initialY[id];
+                    table.relativeX[id] = table.initialX[id];
+                    table.relativeY[id] = table.initialY[id];
                 }
             }
         }
 
         /**
-         * Resets latest coords (both native & relative) to initial coords if pointer doesn't leave flat region.
+         * Coords to send for this pointer: relative ones within the enhanced touch zone, native ones elsewhere.
+         * Allocation free, unlike XYCoordSelector().
          */
-        private void flattenLongPressJitter(){
-            this.checkIfPointerLeaveInitialZone();
-            // Log.d("INTIAL_ZONE_PIXELS", ""+INTIAL_ZONE_PIXELS);
-            if(!this.pointerLeftInitialZone){
-                this.latestCoords.x = this.initialCoords.x;
-                this.latestCoords.y = this.initialCoords.y;
-                this.latestRelativeCoords.x = this.initialCoords.x;
-                this.latestRelativeCoords.y = this.initialCoords.y;
-                // Log.d("pointerLeftInitialZone", ""+pointerLeftInitialZone);
-            }
+        public float getSelectedX(){
+            return table.inEnhancedZone[pointerId] ? table.relativeX[pointerId] : table.latestX[pointerId];
         }
 
-        /**
-         * Judge whether pointer's coords should be manipulated based on its initial coords (first contact location)
-         * Only Supports horizontal split (left and right) for now.
-         */
-        private boolean withinEnhancedTouchZone ()
-        {
-            // float[] normalizedCoords = new float[] {pointerIntialCoords[0]/ScreenUtils.getScreenWidth(), pointerIntialCoords[1]/ScreenUtils.getScreenHeight()};
-            float normalizedX = this.initialCoords.x/ScreenUtils.getScreenWidth();
-            return normalizedX * ENHANCED_TOUCH_ON_RIGHT > ENHANCED_TOUCH_ZONE_DIVIDER * ENHANCED_TOUCH_ON_RIGHT;
+        public float getSelectedY(){
+            return table.inEnhancedZone[pointerId] ? table.relativeY[pointerId] : table.latestY[pointerId];
         }
 
         public float[] XYCoordSelector(){
-                //to judge whether pointer located on enhanced touch zone by its initial coords.
-            if (this.withinEnhancedTouchZone()) return new float[] {this.latestRelativeCoords.x,this.latestRelativeCoords.y};
-            else return new float[] {this.latestCoords.x,this.latestCoords.y};
+            return new float[] {this.getSelectedX(), this.getSelectedY()};
         }
 
         public float getInitialX(){
-            return this.initialCoords.x;
+            return table.initialX[pointerId];
         }
 
         public float getPointerNormalizedInitialX(){
-            return this.initialCoords.x / ScreenUtils.getScreenWidth();
+            return this.getInitialX() / ScreenUtils.getScreenWidth();
         }
 
         public float getInitialY(){
-            return this.initialCoords.y;
+            return table.initialY[pointerId];
         }
 
         public float getPointerNormalizedInitialY(){
-            return this.initialCoords.y / ScreenUtils.getScreenHeight();
+            return this.getInitialY() / ScreenUtils.getScreenHeight();
         }
 
         public float getLatestX(){
-            return this.latestCoords.x;
+            return table.latestX[pointerId];
         }
 
-
         public float getLatestY(){
-            return this.latestCoords.y;
+            return table.latestY[pointerId];
         }
+
         public float getLatestRelativeX(){
-            return this.latestRelativeCoords.x;
+            return table.relativeX[pointerId];
         }
 
         public float getLatestRelativeY(){
-            return this.latestRelativeCoords.y;
+            return table.relativeY[pointerId];
+        }
+
+        public float getVelocityX(){
+            return table.velocityX[pointerId];
         }
 
+        public float getVelocityY(){
+            return table.velocityY[pointerId];
+        }
+
+        public long getLatestEventTime(){
+            return table.latestEventTime[pointerId];
+        }
 
         public float getPointerNormalizedLatestX(){
-            return this.latestCoords.x / ScreenUtils.getScreenWidth();
+            return this.getLatestX() / ScreenUtils.getScreenWidth();
         }
 
         public float getPointerNormalizedLatestY(){
-            return this.latestCoords.y / ScreenUtils.getScreenHeight();
+            return this.getLatestY() / ScreenUtils.getScreenHeight();
         }
 
         public void printPointerInitialCoords(){
@@ -254,8 +231,6 @@ public class NativeTouchContext {
         public void printPointerCoordSnapshot(){
             Log.d("Pointer " + this.pointerId, " InitialCoords:" + "[" + this.getInitialX() + ", " + this.getInitialY() + "]" + " LatestCoords:" + "[" + this.getLatestX() + ", " + this.getLatestY() + "]");
         }
-
-
     }
 
 
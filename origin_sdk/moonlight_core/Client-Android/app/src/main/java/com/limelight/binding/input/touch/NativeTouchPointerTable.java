@@ -0,0 +1,136 @@
+package com.limelight.binding.input.touch;
+
+import android.view.MotionEvent;
+
+/**
+ * Fixed-capacity table of active native touch pointers, indexed by pointerId.
+ *
+ * All per-pointer state (initial, latest and relative coords, velocity, enhanced-touch flags)
+ * lives in primitive arrays allocated once, and each slot owns a reusable
+ * NativeTouchContext.Pointer view, so tracking 10 fingers allocates nothing per event.
+ * Pointer ids reported by MotionEvent are always below MAX_POINTERS.
+ *
+ * The tracking itself works on primitive (pointerId, x, y, eventTime) samples; the MotionEvent
+ * methods are thin adapters over them, so the table can be replayed in JVM tests.
+ */
+public class NativeTouchPointerTable {
+    public static final int MAX_POINTERS = 32;
+
+    final float[] initialX = new float[MAX_POINTERS];
+    final float[] initialY = new float[MAX_POINTERS];
+    final float[] latestX = new float[MAX_POINTERS];
+    final float[] latestY = new float[MAX_POINTERS];
+    final float[] previousX = new float[MAX_POINTERS];
+    final float[] previousY = new float[MAX_POINTERS];
+    final float[] relativeX = new float[MAX_POINTERS];
+    final float[] relativeY = new float[MAX_POINTERS];
+    final float[] velocityX = new float[MAX_POINTERS];
+    final float[] velocityY = new float[MAX_POINTERS];
+    final long[] latestEventTime = new long[MAX_POINTERS];
+
+    /**
+     * Flipped to true when pointer moves out of (2*INTIAL_ZONE_PIXELS)^2 square flat region.
+     */
+    final boolean[] leftInitialZone = new boolean[MAX_POINTERS];
+
+    /**
+     * Whether the first contact landed in the enhanced touch zone, decided once on DOWN.
+     */
+    final boolean[] inEnhancedZone = new boolean[MAX_POINTERS];
+
+    // Bit n set means pointerId n is active
+    private int activeBits;
+
+    private final NativeTouchContext.Pointer[] pointers = new NativeTouchContext.Pointer[MAX_POINTERS];
+
+    public NativeTouchPointerTable() {
+        for (int id = 0; id < MAX_POINTERS; id++) {
+            pointers[id] = new NativeTouchContext.Pointer(this, id);
+        }
+    }
+
+    /**
+     * Start tracking the pointer that triggered ACTION_DOWN, ACTION_POINTER_DOWN or ACTION_HOVER_ENTER.
+     */
+    public NativeTouchContext.Pointer add(MotionEvent event) {
+        int pointerIndex = event.getActionIndex();
+        return add(event.getPointerId(pointerIndex), event.getX(pointerIndex), event.getY(pointerIndex), event.getEventTime());
+    }
+
+    /**
+     * Start tracking a pointer at its first contact. A stale slot with the same pointerId is simply overwritten.
+     * Returns null if the pointerId doesn't fit the table.
+     */
+    public NativeTouchContext.Pointer add(int id, float x, float y, long eventTime) {
+        if (id < 0 || id >= MAX_POINTERS) {
+            return null;
+        }
+
+        initialX[id] = x;
+        initialY[id] = y;
+        latestX[id] = x;
+        latestY[id] = y;
+        previousX[id] = x;
+        previousY[id] = y;
+        relativeX[id] = x;
+        relativeY[id] = y;
+        velocityX[id] = 0f;
+        velocityY[id] = 0f;
+        latestEventTime[id] = eventTime;
+        leftInitialZone[id] = false;
+        inEnhancedZone[id] = NativeTouchContext.isInEnhancedTouchZone(x, getScreenWidth());
+
+        activeBits |= 1 << id;
+        return pointers[id];
+    }
+
+    /**
+     * Returns the tracked pointer for this pointerId, or null if it isn't active.
+     */
+    public NativeTouchContext.Pointer get(int pointerId) {
+        if (pointerId < 0 || pointerId >= MAX_POINTERS || (activeBits & (1 << pointerId)) == 0) {
+            return null;
+        }
+        return pointers[pointerId];
+    }
+
+    /**
+     * Update coords of the pointer at pointerIndex if it's tracked.
+     */
+    public void update(MotionEvent event, int pointerIndex) {
+        update(event.getPointerId(pointerIndex), event.getX(pointerIndex), event.getY(pointerIndex), event.getEventTime());
+    }
+
+    /**
+     * Update coords of this pointerId if it's tracked. Returns the pointer, or null if it isn't active.
+     */
+    public NativeTouchContext.Pointer update(int pointerId, float x, float y, long eventTime) {
+        NativeTouchContext.Pointer pointer = get(pointerId);
+        if (pointer != null) {
+            latestEventTime[pointerId] = eventTime;
+            pointer.updatePointerCoords(x, y);
+        }
+        return pointer;
+    }
+
+    public void remove(int pointerId) {
+        if (pointerId >= 0 && pointerId < MAX_POINTERS) {
+            activeBits &= ~(1 << pointerId);
+        }
+    }
+
+    public void clear() {
+        activeBits = 0;
+    }
+
+    public int getActiveCount() {
+        return Integer.bitCount(activeBits);
+    }
+
+    /**
+     * Screen width used to place a first contact in the enhanced touch zone. Overridden by JVM tests.
+     */
+    float getScreenWidth() {
+        return ScreenUtils.getScreenWidth();
+    }
+}
@@ -0,0 +1,139 @@
+package com.limelight.binding.input.touch;
+
+import com.limelight.Game;
+
+/**
+ * 把触摸位移换算成相对鼠标移动。
+ *
+ * 缩放系数只在视图尺寸或灵敏度变化时重新计算。换算后不足 1 的小数部分保留到下一次移动，
+ * 低灵敏度下缓慢拖动不会再被四舍五入吃掉，也不会因为反复舍入产生漂移。
+ * 可选的加速曲线按每个采样点的时间戳计算移动速度，历史采样点各自使用自己的速度。
+ * 输出的整数位移由调用方交给 NvConnection.sendMouseMove，经 InputBatch 合并后发送。
+ */
+public class RelativeMouseEngine {
+    public static final int ACCEL_NONE = 0;
+    public static final int ACCEL_LINEAR = 1;
+    public static final int ACCEL_QUADRATIC = 2;
+
+    // 低于该速度（触摸像素/毫秒）时不加速，保证精细瞄准
+    private static final float ACCEL_THRESHOLD = 0.25f;
+    private static final float LINEAR_GAIN = 0.6f;
+    private static final float QUADRATIC_GAIN = 0.4f;
+    private static final float MAX_GAIN = 4.0f;
+    // 两个采样间隔超过该值时视为重新开始移动，不计算速度
+    private static final long MAX_SAMPLE_INTERVAL_MS = 100;
+
+    private int viewWidth;
+    private int viewHeight;
+    private double sensitivity = 1;
+    private int accelerationCurve = ACCEL_NONE;
+
+    private float xFactor = 1;
+    private float yFactor = 1;
+
+    private float remainderX;
+    private float remainderY;
+    private long lastSampleTime = -1;
+    private float lastGain = 1;
+
+    private int deltaX;
+    private int deltaY;
+
+    /**
+     * 设置接收触摸的视图尺寸，尺寸不变时直接返回。
+     */
+    public void setViewSize(int width, int height) {
+        if (width == viewWidth && height == viewHeight) {
+            return;
+        }
+        viewWidth = width;
+        viewHeight = height;
+        updateFactors();
+    }
+
+    public void setSensitivity(double sensitivity) {
+        if (sensitivity == this.sensitivity) {
+            return;
+        }
+        this.sensitivity = sensitivity;
+        updateFactors();
+    }
+
+    public void setAccelerationCurve(int accelerationCurve) {
+        this.accelerationCurve = accelerationCurve;
+    }
+
+    private void updateFactors() {
+        if (viewWidth <= 0 || viewHeight <= 0) {
+            xFactor = yFactor = (float) sensitivity;
+            return;
+        }
+        xFactor = (float) (Game.REFERENCE_HORIZ_RES / (double) viewWidth * sensitivity);
+        yFactor = (float) (Game.REFERENCE_VERT_RES / (double) viewHeight * sensitivity);
+    }
+
+    /**
+     * 新手势开始时调用，丢弃上一个手势剩下的小数部分和速度。
+     */
+    public void reset() {
+        remainderX = remainderY = 0;
+        lastSampleTime = -1;
+        lastGain = 1;
+        deltaX = deltaY = 0;
+    }
+
+    /**
+     * 加入一个采样点的触摸位移，结果通过 getDeltaX() / getDeltaY() 读取。
+     *
+     * @return 本次是否产生了非零的鼠标位移
+     */
+    public boolean addMotion(float touchDeltaX, float touchDeltaY, long eventTime) {
+        float gain = getGain(touchDeltaX, touchDeltaY, eventTime);
+
+        float x = touchDeltaX * xFactor * gain + remainderX;
+        float y = touchDeltaY * yFactor * gain + remainderY;
+        // 向零取整，余数与位移同号，正反方向的手感一致
+        deltaX = (int) x;
+        deltaY = (int) y;
+        remainderX = x - deltaX;
+        remainderY = y - deltaY;
+
+        return deltaX != 0 || deltaY != 0;
+    }
+
+    private float getGain(float touchDeltaX, float touchDeltaY, long eventTime) {
+        if (accelerationCurve == ACCEL_NONE) {
+            return 1;
+        }
+
+        long interval = eventTime - lastSampleTime;
+        boolean newMotion = lastSampleTime < 0 || interval > MAX_SAMPLE_INTERVAL_MS;
+        lastSampleTime = eventTime;
+        if (newMotion) {
+            lastGain = 1;
+            return lastGain;
+        }
+        if (interval <= 0) {
+            // 时间戳相同的采样沿用上一次的速度
+            return lastGain;
+        }
+
+        float speed = (float) Math.hypot(touchDeltaX, touchDeltaY) / interval - ACCEL_THRESHOLD;
+        if (speed <= 0) {
+            lastGain = 1;
+        } else if (accelerationCurve == ACCEL_LINEAR) {
+            lastGain = Math.min(MAX_GAIN, 1 + LINEAR_GAIN * speed);
+        } else {
+            lastGain = Math.min(MAX_GAIN, 1 + QUADRATIC_GAIN * speed * speed);
+        }
+        return lastGain;
+    }
+
+    public int getDeltaX() {
+        return deltaX;
+    }
+
+    public int getDeltaY() {
+        return deltaY;
+    }
+}
@@ -5,7 +5,6 @@ import android.os.Looper;
 import android.view.View;
 import android.view.SurfaceHolder;
 
-import com.limelight.Game;
 import com.limelight.nvstream.NvConnection;
 import com.limelight.nvstream.input.MouseButtonPacket;
 import com.limelight.preferences.PreferenceConfiguration;
@@ -22,9 +21,8 @@ public class RelativeTouchContext implements TouchContext {
     private boolean confirmedDrag;
     private boolean confirmedScroll;
     private double distanceMoved;
-    private double xFactor = 0.6;
-    private double yFactor = 0.6;
-    private double sense = 1;
+    // 换算相对鼠标位移，保留不足 1 的小数部分
+    private final RelativeMouseEngine mouseEngine = new RelativeMouseEngine();
     private int pointerCount;
     private int maxPointerCountInGesture;
 
@@ -100,6 +98,7 @@ public class RelativeTouchContext implements TouchContext {
         
         // 从配置中读取双击时间阈值
         this.DOUBLE_TAP_TIME_THRESHOLD = prefConfig.doubleTapTimeThreshold;
+        this.mouseEngine.setAccelerationCurve(prefConfig.touchMouseAcceleration);
         
         this.buttonUpRunnables = new Runnable[] {
                 () -> conn.sendMouseButtonUp(MouseButtonPacket.BUTTON_LEFT),
@@ -119,6 +118,7 @@ public class RelativeTouchContext implements TouchContext {
             localCursorRenderer.destroy();
         }
         localCursorRenderer = new LocalCursorRenderer(cursorOverlay, width, height);
+        localCursorRenderer.setPredictionEnabled(prefConfig.localCursorPrediction);
     }
 
     /**
@@ -180,9 +180,8 @@ public class RelativeTouchContext implements TouchContext {
     @Override
     public boolean touchDownEvent(int eventX, int eventY, long eventTime, boolean isNewFinger)
     {
-        // Get the view dimensions to scale inputs on this touch
-        xFactor = Game.REFERENCE_HORIZ_RES / (double)targetView.getWidth() * sense;
-        yFactor = Game.REFERENCE_VERT_RES / (double)targetView.getHeight() * sense;
+        // 视图尺寸变化时才重新计算缩放系数
+        mouseEngine.setViewSize(targetView.getWidth(), targetView.getHeight());
 
         originalTouchX = lastTouchX = eventX;
         originalTouchY = lastTouchY = eventY;
@@ -195,6 +194,7 @@ public class RelativeTouchContext implements TouchContext {
 
             maxPointerCountInGesture = pointerCount;
             originalTouchTime = eventTime;
+            mouseEngine.reset();
             cancelled = confirmedDrag = confirmedMove = confirmedScroll = isDoubleClickDrag = false;
             distanceMoved = 0;
 
@@ -342,20 +342,21 @@ public class RelativeTouchContext implements TouchContext {
             checkForConfirmedScroll();
 
             if (actionIndex == 0) {
-                int deltaX = eventX - lastTouchX;
-                int deltaY = eventY - lastTouchY;
-                deltaX = (int) Math.round(Math.abs(deltaX) * xFactor * (eventX < lastTouchX ? -1 : 1));
-                deltaY = (int) Math.round(Math.abs(deltaY) * yFactor * (eventY < lastTouchY ? -1 : 1));
+                // 不足 1 的部分留在 mouseEngine 中累积到下一次移动，lastTouch 总是更新
+                boolean moved = mouseEngine.addMotion(eventX - lastTouchX, eventY - lastTouchY, eventTime);
+                int deltaX = mouseEngine.getDeltaX();
+                int deltaY = mouseEngine.getDeltaY();
 
-                if (pointerCount == 2) {
+                // 累积的位移还不足 1 时本次不发送
+                if (moved && pointerCount == 2) {
                     if (confirmedScroll) {
                         conn.sendMouseHighResScroll((short)(deltaY * SCROLL_SPEED_FACTOR));
                     }
-                } else if (confirmedMove || isDoubleClickDrag || confirmedDrag) {
+                } else if (moved && (confirmedMove || isDoubleClickDrag || confirmedDrag)) {
 
                     if (localCursorRenderer != null && this.enableLocalCursorRendering) {
                         // 1. 本地模式：更新本地光标
-                        localCursorRenderer.updateCursorPosition(deltaX, deltaY);
+                        localCursorRenderer.updateCursorPosition(deltaX, deltaY, eventTime);
                         // 2. 获取绝对坐标并发送给服务器 (保持同步)
                         float[] absPos = localCursorRenderer.getCursorAbsolutePosition();
                         conn.sendMousePosition(
@@ -375,21 +376,9 @@ public class RelativeTouchContext implements TouchContext {
                         conn.sendMouseMove((short) deltaX, (short) deltaY);
                     }
                 }
-
-                // If the scaling factor ended up rounding deltas to zero, wait until they are
-                // non-zero to update lastTouch that way devices that report small touch events often
-                // will work correctly
-                if (deltaX != 0) {
-                    lastTouchX = eventX;
-                }
-                if (deltaY != 0) {
-                    lastTouchY = eventY;
-                }
-            }
-            else {
-                lastTouchX = eventX;
-                lastTouchY = eventY;
             }
+            lastTouchX = eventX;
+            lastTouchY = eventY;
         }
 
         return true;
@@ -489,6 +478,6 @@ public class RelativeTouchContext implements TouchContext {
     }
 
     public void adjustMsense(double sense){
-        this.sense = sense;
+        mouseEngine.setSensitivity(sense);
     }
 }
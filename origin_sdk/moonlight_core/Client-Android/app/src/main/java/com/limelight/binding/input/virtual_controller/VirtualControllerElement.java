@@ -15,6 +15,7 @@ import android.view.View;
 import android.widget.FrameLayout;
 
 import com.limelight.R;
+import com.limelight.nvstream.input.InputLatencyStats;
 
 import org.json.JSONException;
 import org.json.JSONObject;
@@ -236,7 +237,13 @@ public abstract class VirtualControllerElement extends View {
         }
 
         if (virtualController.getControllerMode() == VirtualController.ControllerMode.Active) {
-            return onElementTouchEvent(event);
+            InputLatencyStats.recordDispatch(InputLatencyStats.SOURCE_ELEMENT,
+                    InputLatencyStats.getEventTimeNanos(event));
+            try {
+                return onElementTouchEvent(event);
+            } finally {
+                InputLatencyStats.endDispatch();
+            }
         }
 
         switch (event.getActionMasked()) {
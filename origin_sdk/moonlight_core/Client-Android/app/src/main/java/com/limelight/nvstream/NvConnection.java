@@ -36,6 +36,7 @@ import com.limelight.nvstream.http.LimelightCryptoProvider;
 import com.limelight.nvstream.http.NvApp;
 import com.limelight.nvstream.http.NvHTTP;
 import com.limelight.nvstream.http.PairingManager;
+import com.limelight.nvstream.input.InputBatch;
 import com.limelight.nvstream.input.MouseButtonPacket;
 import com.limelight.nvstream.jni.MoonBridge;
 
@@ -50,6 +51,13 @@ public class NvConnection {
     private final Context appContext;
     private ComputerDetails.AddressTuple host;
 
+    // Main thread input is handed to native code in one JNI call per input dispatch
+    private final InputBatch inputBatch = new InputBatch();
+
+    // Touch events are only batched once the host has accepted one, since callers
+    // rely on LI_ERR_UNSUPPORTED to fall back to mouse emulation
+    private volatile boolean hostAcceptsTouch;
+
     public NvConnection(Context appContext, ComputerDetails.AddressTuple host, int httpsPort, String uniqueId, String pairName, StreamConfiguration config, LimelightCryptoProvider cryptoProvider, X509Certificate serverCert)
     {
         this(appContext, host, httpsPort, uniqueId, pairName, config, cryptoProvider, serverCert, null);
@@ -538,35 +546,45 @@ public class NvConnection {
     public void sendMouseMove(final short deltaX, final short deltaY)
     {
         if (!isMonkey) {
-            MoonBridge.sendMouseMove(deltaX, deltaY);
+            if (!inputBatch.putMouseMove(deltaX, deltaY)) {
+                MoonBridge.sendMouseMove(deltaX, deltaY);
+            }
         }
     }
 
     public void sendMousePosition(short x, short y, short referenceWidth, short referenceHeight)
     {
         if (!isMonkey) {
-            MoonBridge.sendMousePosition(x, y, referenceWidth, referenceHeight);
+            if (!inputBatch.putMousePosition(x, y, referenceWidth, referenceHeight)) {
+                MoonBridge.sendMousePosition(x, y, referenceWidth, referenceHeight);
+            }
         }
     }
 
     public void sendMouseMoveAsMousePosition(short deltaX, short deltaY, short referenceWidth, short referenceHeight)
     {
         if (!isMonkey) {
-            MoonBridge.sendMouseMoveAsMousePosition(deltaX, deltaY, referenceWidth, referenceHeight);
+            if (!inputBatch.putMouseMoveAsMousePosition(deltaX, deltaY, referenceWidth, referenceHeight)) {
+                MoonBridge.sendMouseMoveAsMousePosition(deltaX, deltaY, referenceWidth, referenceHeight);
+            }
         }
     }
 
     public void sendMouseButtonDown(final byte mouseButton)
     {
         if (!isMonkey) {
-            MoonBridge.sendMouseButton(MouseButtonPacket.PRESS_EVENT, mouseButton);
+            if (!inputBatch.putMouseButton(MouseButtonPacket.PRESS_EVENT, mouseButton)) {
+                MoonBridge.sendMouseButton(MouseButtonPacket.PRESS_EVENT, mouseButton);
+            }
         }
     }
     
     public void sendMouseButtonUp(final byte mouseButton)
     {
         if (!isMonkey) {
-            MoonBridge.sendMouseButton(MouseButtonPacket.RELEASE_EVENT, mouseButton);
+            if (!inputBatch.putMouseButton(MouseButtonPacket.RELEASE_EVENT, mouseButton)) {
+                MoonBridge.sendMouseButton(MouseButtonPacket.RELEASE_EVENT, mouseButton);
+            }
         }
     }
     
@@ -577,46 +595,61 @@ public class NvConnection {
             final short rightStickX, final short rightStickY)
     {
         if (!isMonkey) {
-            MoonBridge.sendMultiControllerInput(controllerNumber, activeGamepadMask, buttonFlags,
-                    leftTrigger, rightTrigger, leftStickX, leftStickY, rightStickX, rightStickY);
+            if (!inputBatch.putControllerInput(controllerNumber, activeGamepadMask, buttonFlags,
+                    leftTrigger, rightTrigger, leftStickX, leftStickY, rightStickX, rightStickY)) {
+                MoonBridge.sendMultiControllerInput(controllerNumber, activeGamepadMask, buttonFlags,
+                        leftTrigger, rightTrigger, leftStickX, leftStickY, rightStickX, rightStickY);
+            }
         }
     }
 
     public void sendKeyboardInput(final short keyMap, final byte keyDirection, final byte modifier, final byte flags) {
         if (!isMonkey) {
-            MoonBridge.sendKeyboardInput(keyMap, keyDirection, modifier, flags);
+            if (!inputBatch.putKeyboardInput(keyMap, keyDirection, modifier, flags)) {
+                MoonBridge.sendKeyboardInput(keyMap, keyDirection, modifier, flags);
+            }
         }
     }
     
     public void sendMouseScroll(final byte scrollClicks) {
-        if (!isMonkey) {
-            MoonBridge.sendMouseHighResScroll((short)(scrollClicks * 120)); // WHEEL_DELTA
-        }
+        sendMouseHighResScroll((short)(scrollClicks * 120)); // WHEEL_DELTA
     }
 
     public void sendMouseHScroll(final byte scrollClicks) {
-        if (!isMonkey) {
-            MoonBridge.sendMouseHighResHScroll((short)(scrollClicks * 120)); // WHEEL_DELTA
-        }
+        sendMouseHighResHScroll((short)(scrollClicks * 120)); // WHEEL_DELTA
     }
 
     public void sendMouseHighResScroll(final short scrollAmount) {
         if (!isMonkey) {
-            MoonBridge.sendMouseHighResScroll(scrollAmount);
+            if (!inputBatch.putHighResScroll(scrollAmount)) {
+                MoonBridge.sendMouseHighResScroll(scrollAmount);
+            }
         }
     }
 
     public void sendMouseHighResHScroll(final short scrollAmount) {
         if (!isMonkey) {
-            MoonBridge.sendMouseHighResHScroll(scrollAmount);
+            if (!inputBatch.putHighResHScroll(scrollAmount)) {
+                MoonBridge.sendMouseHighResHScroll(scrollAmount);
+            }
         }
     }
 
     public int sendTouchEvent(byte eventType, int pointerId, float x, float y, float pressureOrDistance,
                               float contactAreaMajor, float contactAreaMinor, short rotation) {
         if (!isMonkey) {
-            return MoonBridge.sendTouchEvent(eventType, pointerId, x, y, pressureOrDistance,
+            if (hostAcceptsTouch && inputBatch.putTouchEvent(eventType, pointerId, x, y, pressureOrDistance,
+                    contactAreaMajor, contactAreaMinor, rotation)) {
+                return 0;
+            }
+
+            inputBatch.flush();
+            int ret = MoonBridge.sendTouchEvent(eventType, pointerId, x, y, pressureOrDistance,
                     contactAreaMajor, contactAreaMinor, rotation);
+            if (ret == 0) {
+                hostAcceptsTouch = true;
+            }
+            return ret;
         }
         else {
             return MoonBridge.LI_ERR_UNSUPPORTED;
@@ -627,6 +660,7 @@ public class NvConnection {
                             float pressureOrDistance, float contactAreaMajor, float contactAreaMinor,
                             short rotation, byte tilt) {
         if (!isMonkey) {
+            inputBatch.flush();
             return MoonBridge.sendPenEvent(eventType, toolType, penButtons, x, y, pressureOrDistance,
                     contactAreaMajor, contactAreaMinor, rotation, tilt);
         }
@@ -637,12 +671,14 @@ public class NvConnection {
 
     public int sendControllerArrivalEvent(byte controllerNumber, short activeGamepadMask, byte type,
                                           int supportedButtonFlags, short capabilities) {
+        inputBatch.flush();
         return MoonBridge.sendControllerArrivalEvent(controllerNumber, activeGamepadMask, type, supportedButtonFlags, capabilities);
     }
 
     public int sendControllerTouchEvent(byte controllerNumber, byte eventType, int pointerId,
                                         float x, float y, float pressure) {
         if (!isMonkey) {
+            inputBatch.flush();
             return MoonBridge.sendControllerTouchEvent(controllerNumber, eventType, pointerId, x, y, pressure);
         }
         else {
@@ -653,6 +689,9 @@ public class NvConnection {
     public int sendControllerMotionEvent(byte controllerNumber, byte motionType,
                                          float x, float y, float z) {
         if (!isMonkey) {
+            if (inputBatch.putControllerMotionEvent(controllerNumber, motionType, x, y, z)) {
+                return 0;
+            }
             return MoonBridge.sendControllerMotionEvent(controllerNumber, motionType, x, y, z);
         }
         else {
@@ -661,15 +700,21 @@ public class NvConnection {
     }
 
     public void sendControllerBatteryEvent(byte controllerNumber, byte batteryState, byte batteryPercentage) {
+        inputBatch.flush();
         MoonBridge.sendControllerBatteryEvent(controllerNumber, batteryState, batteryPercentage);
     }
 
     public void sendUtf8Text(final String text) {
         if (!isMonkey) {
+            inputBatch.flush();
             MoonBridge.sendUtf8Text(text);
         }
     }
 
+    public InputBatch getInputBatch() {
+        return inputBatch;
+    }
+
     public static String findExternalAddressForMdns(String stunHostname, int stunPort) {
         return MoonBridge.findExternalAddressIP4(stunHostname, stunPort);
     }
@@ -0,0 +1,384 @@
+package com.limelight.nvstream.input;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Message;
+import android.view.Choreographer;
+
+import com.limelight.nvstream.jni.MoonBridge;
+import com.limelight.utils.FixedHistogram;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Collects input events raised on the main thread into fixed-layout records in a
+ * preallocated direct buffer. All records appended while handling one batch of input
+ * events are handed to the native side with a single MoonBridge.flushInputBatch() call,
+ * which is posted to run right after the current input dispatch returns to the looper.
+ *
+ * Relative mouse motion is coalesced: consecutive moves are summed into one record and
+ * consecutive absolute positions keep only the latest one. Depending on the mouse flush
+ * mode, pure motion may be held for up to 1 ms or until the next vsync before it is sent.
+ * Any other event flushes pending motion first, and button and scroll events are sent
+ * immediately, so ordering with motion is always preserved.
+ *
+ * Events raised on other threads are not batched; the put methods return false and
+ * the caller must send them directly.
+ */
+public class InputBatch {
+    // The record layout must match the reader in simplejni.c:
+    //   0: type, 1-3: byte args, 4-15: six short args, 16: int arg, 20-39: five float args
+    public static final int RECORD_SIZE = 40;
+    private static final int MAX_RECORDS = 256;
+
+    private static final int OFFSET_TYPE = 0;
+    private static final int OFFSET_BYTE = 1;
+    private static final int OFFSET_SHORT = 4;
+    private static final int OFFSET_INT = 16;
+    private static final int OFFSET_FLOAT = 20;
+
+    private static final byte TYPE_MOUSE_MOVE = 1;
+    private static final byte TYPE_MOUSE_POSITION = 2;
+    private static final byte TYPE_MOUSE_MOVE_AS_POSITION = 3;
+    private static final byte TYPE_MOUSE_BUTTON = 4;
+    private static final byte TYPE_KEYBOARD = 5;
+    private static final byte TYPE_CONTROLLER = 6;
+    private static final byte TYPE_TOUCH = 7;
+    private static final byte TYPE_CONTROLLER_MOTION = 8;
+    private static final byte TYPE_HIGH_RES_SCROLL = 9;
+    private static final byte TYPE_HIGH_RES_HSCROLL = 10;
+
+    // Mouse motion is flushed along with the input dispatch that produced it
+    public static final int MOUSE_FLUSH_INPUT_FRAME = 0;
+    // Mouse motion is held for up to 1 ms to merge events from high polling rate mice
+    public static final int MOUSE_FLUSH_1MS = 1;
+    // Mouse motion is held until the next display vsync
+    public static final int MOUSE_FLUSH_VSYNC = 2;
+
+    private static final long MOUSE_FLUSH_DELAY_MS = 1;
+
+    private static final int SCHEDULED_NONE = 0;
+    private static final int SCHEDULED_IMMEDIATE = 1;
+    private static final int SCHEDULED_DELAYED = 2;
+    private static final int SCHEDULED_VSYNC = 3;
+
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(RECORD_SIZE * MAX_RECORDS)
+            .order(ByteOrder.nativeOrder());
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Thread ownerThread = Looper.getMainLooper().getThread();
+    private final Runnable flushRunnable = this::flush;
+    private final Choreographer.FrameCallback frameCallback = frameTimeNanos -> flush();
+    private Choreographer choreographer;
+
+    private volatile int mouseFlushMode = MOUSE_FLUSH_INPUT_FRAME;
+
+    // Only touched on the owner thread
+    private int count;
+    private long firstRecordTimeNs;
+    private int flushScheduled = SCHEDULED_NONE;
+    private long coalescedMotionEvents;
+
+    // Records per native call and time from the first record of a batch until it was handed off
+    private final FixedHistogram batchSizes = new FixedHistogram(1, MAX_RECORDS + 1);
+    private final FixedHistogram flushLatencyUs = new FixedHistogram(50, 400);
+
+    public void setMouseFlushMode(int mode) {
+        this.mouseFlushMode = mode;
+    }
+
+    public boolean isOwnerThread() {
+        return Thread.currentThread() == ownerThread;
+    }
+
+    private int beginRecord(byte type) {
+        if (count == MAX_RECORDS) {
+            flush();
+        }
+
+        if (count == 0) {
+            firstRecordTimeNs = System.nanoTime();
+        }
+        InputLatencyStats.onRecordQueued();
+        scheduleFlush(isMotionType(type) ? mouseFlushMode : MOUSE_FLUSH_INPUT_FRAME);
+
+        int base = count++ * RECORD_SIZE;
+        buffer.put(base + OFFSET_TYPE, type);
+        return base;
+    }
+
+    private static boolean isMotionType(byte type) {
+        return type == TYPE_MOUSE_MOVE || type == TYPE_MOUSE_POSITION || type == TYPE_MOUSE_MOVE_AS_POSITION;
+    }
+
+    private void scheduleFlush(int mode) {
+        if (flushScheduled == SCHEDULED_IMMEDIATE) {
+            return;
+        }
+
+        if (mode == MOUSE_FLUSH_INPUT_FRAME) {
+            // Anything that isn't pure motion pulls a pending deferred flush forward
+            cancelScheduledFlush();
+
+            // Asynchronous so a pending traversal barrier can't hold input back
+            Message msg = Message.obtain(handler, flushRunnable);
+            msg.setAsynchronous(true);
+            handler.sendMessageAtFrontOfQueue(msg);
+            flushScheduled = SCHEDULED_IMMEDIATE;
+        }
+        else if (flushScheduled == SCHEDULED_NONE) {
+            if (mode == MOUSE_FLUSH_VSYNC) {
+                if (choreographer == null) {
+                    choreographer = Choreographer.getInstance();
+                }
+                choreographer.postFrameCallback(frameCallback);
+                flushScheduled = SCHEDULED_VSYNC;
+            }
+            else {
+                Message msg = Message.obtain(handler, flushRunnable);
+                msg.setAsynchronous(true);
+                handler.sendMessageDelayed(msg, MOUSE_FLUSH_DELAY_MS);
+                flushScheduled = SCHEDULED_DELAYED;
+            }
+        }
+    }
+
+    private void cancelScheduledFlush() {
+        switch (flushScheduled) {
+            case SCHEDULED_IMMEDIATE:
+            case SCHEDULED_DELAYED:
+                handler.removeCallbacks(flushRunnable);
+                break;
+            case SCHEDULED_VSYNC:
+                choreographer.removeFrameCallback(frameCallback);
+                break;
+        }
+        flushScheduled = SCHEDULED_NONE;
+    }
+
+    // Returns the offset of the most recent record if it has the given type
+    private int lastRecordOfType(byte type) {
+        if (count == 0) {
+            return -1;
+        }
+        int base = (count - 1) * RECORD_SIZE;
+        return buffer.get(base + OFFSET_TYPE) == type ? base : -1;
+    }
+
+    private short getShort(int base, int index) {
+        return buffer.getShort(base + OFFSET_SHORT + index * 2);
+    }
+
+    // Sums a relative delta into an existing record if the result still fits
+    private boolean mergeDelta(int base, short deltaX, short deltaY) {
+        int x = getShort(base, 0) + deltaX;
+        int y = getShort(base, 1) + deltaY;
+        if (x != (short) x || y != (short) y) {
+            return false;
+        }
+        putShort(base, 0, (short) x);
+        putShort(base, 1, (short) y);
+        coalescedMotionEvents++;
+        return true;
+    }
+
+    private void putByte(int base, int index, byte value) {
+        buffer.put(base + OFFSET_BYTE + index, value);
+    }
+
+    private void putShort(int base, int index, short value) {
+        buffer.putShort(base + OFFSET_SHORT + index * 2, value);
+    }
+
+    private void putFloat(int base, int index, float value) {
+        buffer.putFloat(base + OFFSET_FLOAT + index * 4, value);
+    }
+
+    public boolean putMouseMove(short deltaX, short deltaY) {
+        if (!isOwnerThread()) {
+            return false;
+        }
+        int last = lastRecordOfType(TYPE_MOUSE_MOVE);
+        if (last >= 0 && mergeDelta(last, deltaX, deltaY)) {
+            return true;
+        }
+        int base = beginRecord(TYPE_MOUSE_MOVE);
+        putShort(base, 0, deltaX);
+        putShort(base, 1, deltaY);
+        return true;
+    }
+
+    public boolean putMousePosition(short x, short y, short referenceWidth, short referenceHeight) {
+        return putPositionRecord(TYPE_MOUSE_POSITION, x, y, referenceWidth, referenceHeight);
+    }
+
+    public boolean putMouseMoveAsMousePosition(short deltaX, short deltaY, short referenceWidth, short referenceHeight) {
+        return putPositionRecord(TYPE_MOUSE_MOVE_AS_POSITION, deltaX, deltaY, referenceWidth, referenceHeight);
+    }
+
+    private boolean putPositionRecord(byte type, short x, short y, short referenceWidth, short referenceHeight) {
+        if (!isOwnerThread()) {
+            return false;
+        }
+        int last = lastRecordOfType(type);
+        if (last >= 0 && getShort(last, 2) == referenceWidth && getShort(last, 3) == referenceHeight) {
+            if (type == TYPE_MOUSE_POSITION) {
+                // Only the latest absolute position matters
+                putShort(last, 0, x);
+                putShort(last, 1, y);
+                coalescedMotionEvents++;
+                return true;
+            }
+            else if (mergeDelta(last, x, y)) {
+                return true;
+            }
+        }
+        int base = beginRecord(type);
+        putShort(base, 0, x);
+        putShort(base, 1, y);
+        putShort(base, 2, referenceWidth);
+        putShort(base, 3, referenceHeight);
+        return true;
+    }
+
+    public boolean putMouseButton(byte buttonEvent, byte mouseButton) {
+        if (!isOwnerThread()) {
+            return false;
+        }
+        int base = beginRecord(TYPE_MOUSE_BUTTON);
+        putByte(base, 0, buttonEvent);
+        putByte(base, 1, mouseButton);
+        flush();
+        return true;
+    }
+
+    public boolean putKeyboardInput(short keyMap, byte keyDirection, byte modifier, byte flags) {
+        if (!isOwnerThread()) {
+            return false;
+        }
+        int base = beginRecord(TYPE_KEYBOARD);
+        putShort(base, 0, keyMap);
+        putByte(base, 0, keyDirection);
+        putByte(base, 1, modifier);
+        putByte(base, 2, flags);
+        return true;
+    }
+
+    public boolean putControllerInput(short controllerNumber, short activeGamepadMask, int buttonFlags,
+                                      byte leftTrigger, byte rightTrigger,
+                                      short leftStickX, short leftStickY,
+                                      short rightStickX, short rightStickY) {
+        if (!isOwnerThread()) {
+            return false;
+        }
+        int base = beginRecord(TYPE_CONTROLLER);
+        putShort(base, 0, controllerNumber);
+        putShort(base, 1, activeGamepadMask);
+        putShort(base, 2, leftStickX);
+        putShort(base, 3, leftStickY);
+        putShort(base, 4, rightStickX);
+        putShort(base, 5, rightStickY);
+        buffer.putInt(base + OFFSET_INT, buttonFlags);
+        putByte(base, 0, leftTrigger);
+        putByte(base, 1, rightTrigger);
+        return true;
+    }
+
+    public boolean putTouchEvent(byte eventType, int pointerId, float x, float y, float pressureOrDistance,
+                                 float contactAreaMajor, float contactAreaMinor, short rotation) {
+        if (!isOwnerThread()) {
+            return false;
+        }
+        int base = beginRecord(TYPE_TOUCH);
+        putByte(base, 0, eventType);
+        buffer.putInt(base + OFFSET_INT, pointerId);
+        putFloat(base, 0, x);
+        putFloat(base, 1, y);
+        putFloat(base, 2, pressureOrDistance);
+        putFloat(base, 3, contactAreaMajor);
+        putFloat(base, 4, contactAreaMinor);
+        putShort(base, 0, rotation);
+        return true;
+    }
+
+    public boolean putControllerMotionEvent(byte controllerNumber, byte motionType, float x, float y, float z) {
+        if (!isOwnerThread()) {
+            return false;
+        }
+        int base = beginRecord(TYPE_CONTROLLER_MOTION);
+        putByte(base, 0, controllerNumber);
+        putByte(base, 1, motionType);
+        putFloat(base, 0, x);
+        putFloat(base, 1, y);
+        putFloat(base, 2, z);
+        return true;
+    }
+
+    public boolean putHighResScroll(short scrollAmount) {
+        return putScrollRecord(TYPE_HIGH_RES_SCROLL, scrollAmount);
+    }
+
+    public boolean putHighResHScroll(short scrollAmount) {
+        return putScrollRecord(TYPE_HIGH_RES_HSCROLL, scrollAmount);
+    }
+
+    private boolean putScrollRecord(byte type, short scrollAmount) {
+        if (!isOwnerThread()) {
+            return false;
+        }
+        int base = beginRecord(type);
+        putShort(base, 0, scrollAmount);
+        flush();
+        return true;
+    }
+
+    /**
+     * Hands all pending records to the native side. Called automatically once per
+     * input dispatch, and must be called before any unbatched input is sent from the
+     * owner thread so ordering is preserved. Does nothing on other threads.
+     */
+    public void flush() {
+        if (!isOwnerThread()) {
+            return;
+        }
+
+        cancelScheduledFlush();
+
+        if (count == 0) {
+            return;
+        }
+
+        MoonBridge.flushInputBatch(buffer, count);
+        InputLatencyStats.onBatchSubmitted();
+
+        batchSizes.record(count);
+        flushLatencyUs.record((System.nanoTime() - firstRecordTimeNs) / 1000);
+        count = 0;
+    }
+
+    public long getCoalescedMotionEvents() {
+        return coalescedMotionEvents;
+    }
+
+    public long getBatchCount() {
+        return batchSizes.getCount();
+    }
+
+    public double getAverageBatchSize() {
+        return batchSizes.getMean();
+    }
+
+    public long getMaxBatchSize() {
+        return batchSizes.getMax();
+    }
+
+    public float getFlushLatencyPercentileMs(double percentile) {
+        return flushLatencyUs.getPercentile(percentile) / 1000f;
+    }
+
+    public String getSummary() {
+        return String.format("Input batches: %d, avg size %.1f, max size %d, coalesced motion %d, flush latency P50 %.2fms, P99 %.2fms",
+                getBatchCount(), getAverageBatchSize(), getMaxBatchSize(), getCoalescedMotionEvents(),
+                getFlushLatencyPercentileMs(50), getFlushLatencyPercentileMs(99));
+    }
+}
@@ -0,0 +1,186 @@
+package com.limelight.nvstream.input;
+
+import android.os.Build;
+import android.os.Looper;
+import android.view.InputEvent;
+import android.view.KeyEvent;
+import android.view.MotionEvent;
+
+import com.limelight.LimeLog;
+import com.limelight.utils.FixedHistogram;
+
+/**
+ * Measures how long input spends inside the client, per input source.
+ *
+ * Two stages are tracked, both relative to the event time reported by the OS (or the
+ * USB driver's read completion):
+ *   dispatch: until the event reaches our handler in Game/ControllerHandler. A large value
+ *             here means the main thread was busy when the event arrived.
+ *   submit:   until the event is handed to the native side. For the main thread this is
+ *             sampled once per InputBatch flush using the oldest event of each source in
+ *             the batch; off-thread sources report it directly.
+ *
+ * All record methods are lock-free and allocation-free. The pending-event bookkeeping is
+ * only touched on the main thread, matching InputBatch.
+ */
+public class InputLatencyStats {
+    public static final int SOURCE_TOUCH = 0;
+    public static final int SOURCE_MOUSE = 1;
+    public static final int SOURCE_GAMEPAD = 2;
+    public static final int SOURCE_ELEMENT = 3;
+    public static final int SOURCE_USB = 4;
+    private static final int SOURCE_COUNT = 5;
+
+    private static final String[] SOURCE_NAMES = {"Touch", "Mouse", "Gamepad", "On-screen", "USB"};
+
+    // 0.25 ms buckets up to 100 ms
+    private static final long LATENCY_BUCKET_US = 250;
+    private static final int LATENCY_BUCKETS = 400;
+
+    private static final FixedHistogram[] dispatchLatencyUs = new FixedHistogram[SOURCE_COUNT];
+    private static final FixedHistogram[] submitLatencyUs = new FixedHistogram[SOURCE_COUNT];
+    static {
+        for (int i = 0; i < SOURCE_COUNT; i++) {
+            dispatchLatencyUs[i] = new FixedHistogram(LATENCY_BUCKET_US, LATENCY_BUCKETS);
+            submitLatencyUs[i] = new FixedHistogram(LATENCY_BUCKET_US, LATENCY_BUCKETS);
+        }
+    }
+
+    private static final Thread mainThread = Looper.getMainLooper().getThread();
+
+    // Main thread only: the event currently being dispatched and the oldest event of
+    // each source that has records waiting in the input batch
+    private static int currentSource = -1;
+    private static long currentEventTimeNs;
+    private static final long[] pendingEventTimeNs = new long[SOURCE_COUNT];
+
+    /**
+     * Returns the event time in the System.nanoTime() time base, using the full
+     * precision timestamp where the platform exposes it.
+     */
+    public static long getEventTimeNanos(InputEvent event) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.UPSIDE_DOWN_CAKE) {
+            if (event instanceof MotionEvent) {
+                return ((MotionEvent) event).getEventTimeNanos();
+            }
+            else if (event instanceof KeyEvent) {
+                return ((KeyEvent) event).getEventTimeNanos();
+            }
+        }
+        return event.getEventTime() * 1000000L;
+    }
+
+    /**
+     * Records that an event from the given source has reached its handler.
+     */
+    public static void recordDispatch(int source, long eventTimeNs) {
+        dispatchLatencyUs[source].record((System.nanoTime() - eventTimeNs) / 1000);
+
+        if (Thread.currentThread() == mainThread) {
+            currentSource = source;
+            currentEventTimeNs = eventTimeNs;
+        }
+    }
+
+    /**
+     * Called when the handler that called recordDispatch() returns. Records queued after
+     * that (timers, deferred releases, coalesced ticks) are not attributed to the event.
+     */
+    public static void endDispatch() {
+        if (Thread.currentThread() == mainThread) {
+            currentSource = -1;
+        }
+    }
+
+    /**
+     * Records that an event handled off the main thread was submitted to the native side.
+     */
+    public static void recordSubmit(int source, long eventTimeNs) {
+        submitLatencyUs[source].record((System.nanoTime() - eventTimeNs) / 1000);
+    }
+
+    /**
+     * Called by InputBatch when a record is appended on the main thread. Attributes the
+     * record to the event currently being dispatched.
+     */
+    static void onRecordQueued() {
+        if (currentSource >= 0 && pendingEventTimeNs[currentSource] == 0) {
+            pendingEventTimeNs[currentSource] = currentEventTimeNs;
+        }
+    }
+
+    /**
+     * Called by InputBatch right after a batch has been handed to the native side.
+     */
+    static void onBatchSubmitted() {
+        long now = System.nanoTime();
+        for (int i = 0; i < SOURCE_COUNT; i++) {
+            if (pendingEventTimeNs[i] != 0) {
+                submitLatencyUs[i].record((now - pendingEventTimeNs[i]) / 1000);
+                pendingEventTimeNs[i] = 0;
+            }
+        }
+
+        // Records queued later (timers, deferred releases) don't belong to this event
+        currentSource = -1;
+    }
+
+    private static float percentileMs(FixedHistogram histogram, double percentile) {
+        return histogram.getPercentile(percentile) / 1000f;
+    }
+
+    /**
+     * One line per active source, for the performance overlay
+     */
+    public static String getSummary() {
+        StringBuilder summary = new StringBuilder();
+        for (int i = 0; i < SOURCE_COUNT; i++) {
+            if (dispatchLatencyUs[i].getCount() == 0) {
+                continue;
+            }
+            if (summary.length() > 0) {
+                summary.append('\n');
+            }
+            summary.append(String.format("%s input: dispatch %.1f/%.1fms, submit %.1f/%.1fms",
+                    SOURCE_NAMES[i],
+                    percentileMs(dispatchLatencyUs[i], 50), percentileMs(dispatchLatencyUs[i], 95),
+                    percentileMs(submitLatencyUs[i], 50), percentileMs(submitLatencyUs[i], 95)));
+        }
+        return summary.toString();
+    }
+
+    public static String getSessionReport() {
+        StringBuilder report = new StringBuilder();
+        report.append("=== Input latency report ===");
+        for (int i = 0; i < SOURCE_COUNT; i++) {
+            FixedHistogram dispatch = dispatchLatencyUs[i];
+            FixedHistogram submit = submitLatencyUs[i];
+            if (dispatch.getCount() == 0) {
+                continue;
+            }
+            report.append(String.format("\n%s event->dispatch: P50 %.2fms, P95 %.2fms, P99 %.2fms, max %.2fms (%d events)",
+                    SOURCE_NAMES[i], percentileMs(dispatch, 50), percentileMs(dispatch, 95),
+                    percentileMs(dispatch, 99), dispatch.getMax() / 1000f, dispatch.getCount()));
+            report.append(String.format("\n%s event->submit: P50 %.2fms, P95 %.2fms, P99 %.2fms, max %.2fms (%d samples)",
+                    SOURCE_NAMES[i], percentileMs(submit, 50), percentileMs(submit, 95),
+                    percentileMs(submit, 99), submit.getMax() / 1000f, submit.getCount()));
+        }
+        return report.toString();
+    }
+
+    public static void reportStatistics() {
+        for (String line : getSessionReport().split("\n")) {
+            LimeLog.info(line);
+        }
+    }
+
+    public static void reset() {
+        for (int i = 0; i < SOURCE_COUNT; i++) {
+            dispatchLatencyUs[i].reset();
+            submitLatencyUs[i].reset();
+        }
+    }
+
+    private InputLatencyStats() {
+    }
+}
@@ -4,6 +4,8 @@ import com.limelight.nvstream.NvConnectionListener;
 import com.limelight.nvstream.av.audio.AudioRenderer;
 import com.limelight.nvstream.av.video.VideoDecoderRenderer;
 
+import java.nio.ByteBuffer;
+
 public class MoonBridge {
     /* See documentation in Limelight.h for information about these functions and constants */
 
@@ -390,12 +392,24 @@ public class MoonBridge {
 
     public static native void sendUtf8Text(String text);
 
+    // Sends count fixed-layout input records from a direct ByteBuffer (see InputBatch)
+    public static native int flushInputBatch(ByteBuffer batch, int count);
+
     public static native String getStageName(int stage);
 
     public static native String findExternalAddressIP4(String stunHostName, int stunPort);
 
     public static native int getPendingAudioDuration();
 
+    // Audio packets arriving while more than budgetMs of audio is pending are skipped
+    // in native code before Opus decoding, and the decoder is reset once before the next
+    // played packet. Pass 0 to disable the bound.
+    public static native void setAudioLatencyBudget(int budgetMs);
+
+    // The number of audio packets played is in the top 32 bits, and the number of
+    // packets skipped by the latency budget is in the bottom 32 bits
+    public static native long getAudioQueueStats();
+
     public static native int getPendingVideoFrames();
 
     public static native int testClientConnectivity(String testServerHostName, int referencePort, int testFlags);
@@ -428,5 +442,8 @@ public class MoonBridge {
     
     public static native int sendMicrophoneOpusData(byte[] opusData);
     
+    // Sends the first length bytes of a direct ByteBuffer without copying through a Java array
+    public static native int sendMicrophoneOpusBuffer(ByteBuffer opusData, int length);
+    
     public static native boolean isMicrophoneEncryptionEnabled();
 }
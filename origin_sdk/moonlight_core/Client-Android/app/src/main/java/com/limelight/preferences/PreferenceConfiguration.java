@@ -10,6 +10,8 @@ import android.graphics.Point;
 import android.view.WindowManager;
 import android.view.KeyEvent;
 
+import com.limelight.binding.input.touch.RelativeMouseEngine;
+import com.limelight.nvstream.input.InputBatch;
 import com.limelight.nvstream.jni.MoonBridge;
 
 import java.util.Arrays;
@@ -49,6 +51,7 @@ public class PreferenceConfiguration {
     private static final String ENABLE_DOUBLE_CLICK_DRAG_PREF_STRING = "pref_enable_double_click_drag";
     private static final String DOUBLE_TAP_TIME_THRESHOLD_PREF_STRING = "seekbar_double_tap_time_threshold";
     private static final String ENABLE_LOCAL_CURSOR_RENDERING_PREF_STRING = "pref_enable_local_cursor_rendering";
+    private static final String LOCAL_CURSOR_PREDICTION_PREF_STRING = "checkbox_local_cursor_prediction";
 
     private static final String LEGACY_RES_FPS_PREF_STRING = "list_resolution_fps";
     private static final String LEGACY_ENABLE_51_SURROUND_PREF_STRING = "checkbox_51_surround";
@@ -105,6 +108,10 @@ public class PreferenceConfiguration {
     private static final String SCREEN_COMBINATION_MODE_PREF_STRING = "list_screen_combination_mode";
     private static final String FRAME_PACING_PREF_STRING = "frame_pacing";
     private static final String ABSOLUTE_MOUSE_MODE_PREF_STRING = "checkbox_absolute_mouse_mode";
+    private static final String MOUSE_FLUSH_MODE_PREF_STRING = "list_mouse_flush_mode";
+    private static final String TOUCH_MOUSE_ACCELERATION_PREF_STRING = "list_touch_mouse_acceleration";
+    private static final String COMPOSITE_ELEMENTS_PREF_STRING = "checkbox_composite_elements";
+    private static final String OSC_GAMEPAD_SEND_RATE_PREF_STRING = "list_osc_gamepad_send_rate";
     public static final String ENABLE_NATIVE_MOUSE_POINTER_PREF_STRING = "checkbox_enable_native_mouse_pointer";
     public static final String NATIVE_MOUSE_MODE_PRESET_PREF_STRING = "list_native_mouse_mode_preset";
     // Card visibility preferences
@@ -193,6 +200,10 @@ public class PreferenceConfiguration {
     private static final String DEFAULT_SCREEN_COMBINATION_MODE = "-1";
     private static final String DEFAULT_FRAME_PACING = "latency";
     private static final boolean DEFAULT_ABSOLUTE_MOUSE_MODE = false;
+    private static final String DEFAULT_MOUSE_FLUSH_MODE = "input-frame";
+    private static final String DEFAULT_TOUCH_MOUSE_ACCELERATION = "none";
+    private static final boolean DEFAULT_COMPOSITE_ELEMENTS = false;
+    private static final String DEFAULT_OSC_GAMEPAD_SEND_RATE = "vsync";
     private static final boolean DEFAULT_ENABLE_NATIVE_MOUSE_POINTER = false;
     private static final boolean DEFAULT_ENABLE_AUDIO_FX = false;
     private static final boolean DEFAULT_ENABLE_SPATIALIZER = false;
@@ -228,6 +239,8 @@ public class PreferenceConfiguration {
     
     private static final boolean DEFAULT_ENABLE_LOCAL_CURSOR_RENDERING = true;
     public boolean enableLocalCursorRendering;
+    private static final boolean DEFAULT_LOCAL_CURSOR_PREDICTION = false;
+    public boolean localCursorPrediction;
     public static final int FRAME_PACING_MIN_LATENCY = 0;
     public static final int FRAME_PACING_BALANCED = 1;
     public static final int FRAME_PACING_CAP_FPS = 2;
@@ -329,6 +342,12 @@ public class PreferenceConfiguration {
     public MoonBridge.AudioConfiguration audioConfiguration;
     public int framePacing;
     public boolean absoluteMouseMode;
+    public int mouseFlushMode;
+    // 触控板模式下相对鼠标移动的加速曲线，取值见 RelativeMouseEngine.ACCEL_*
+    public int touchMouseAcceleration;
+    public boolean compositeElements;
+    // 0 表示对齐 vsync，否则为合并窗口毫秒数
+    public int oscGamepadFlushWindowMs;
     public boolean enableNativeMousePointer;
     public boolean enableAudioFx;
     public boolean enableSpatializer;
@@ -619,6 +638,46 @@ public class PreferenceConfiguration {
         }
     }
 
+    private static int getMouseFlushModeValue(SharedPreferences prefs) {
+        String str = prefs.getString(MOUSE_FLUSH_MODE_PREF_STRING, DEFAULT_MOUSE_FLUSH_MODE);
+        if (str.equals("1ms")) {
+            return InputBatch.MOUSE_FLUSH_1MS;
+        }
+        else if (str.equals("vsync")) {
+            return InputBatch.MOUSE_FLUSH_VSYNC;
+        }
+        else {
+            return InputBatch.MOUSE_FLUSH_INPUT_FRAME;
+        }
+    }
+
+    private static int getTouchMouseAccelerationValue(SharedPreferences prefs) {
+        String str = prefs.getString(TOUCH_MOUSE_ACCELERATION_PREF_STRING, DEFAULT_TOUCH_MOUSE_ACCELERATION);
+        if (str.equals("linear")) {
+            return RelativeMouseEngine.ACCEL_LINEAR;
+        }
+        else if (str.equals("quadratic")) {
+            return RelativeMouseEngine.ACCEL_QUADRATIC;
+        }
+        else {
+            return RelativeMouseEngine.ACCEL_NONE;
+        }
+    }
+
+    private static int getOscGamepadFlushWindowValue(SharedPreferences prefs) {
+        String str = prefs.getString(OSC_GAMEPAD_SEND_RATE_PREF_STRING, DEFAULT_OSC_GAMEPAD_SEND_RATE);
+        switch (str) {
+            case "1ms":
+                return 1;
+            case "2ms":
+                return 2;
+            case "4ms":
+                return 4;
+            default:
+                return 0;
+        }
+    }
+
     private static AnalogStickForScrolling getAnalogStickForScrollingValue(Context context) {
         SharedPreferences prefs = PreferenceManager.getDefaultSharedPreferences(context);
 
@@ -776,6 +835,7 @@ public class PreferenceConfiguration {
         config.enableDoubleClickDrag = prefs.getBoolean(ENABLE_DOUBLE_CLICK_DRAG_PREF_STRING, DEFAULT_ENABLE_DOUBLE_CLICK_DRAG);
         config.doubleTapTimeThreshold = prefs.getInt(DOUBLE_TAP_TIME_THRESHOLD_PREF_STRING, DEFAULT_DOUBLE_TAP_TIME_THRESHOLD);
         config.enableLocalCursorRendering = prefs.getBoolean(ENABLE_LOCAL_CURSOR_RENDERING_PREF_STRING, DEFAULT_ENABLE_LOCAL_CURSOR_RENDERING);
+        config.localCursorPrediction = prefs.getBoolean(LOCAL_CURSOR_PREDICTION_PREF_STRING, DEFAULT_LOCAL_CURSOR_PREDICTION);
         config.enableSops = prefs.getBoolean(SOPS_PREF_STRING, DEFAULT_SOPS);
         config.stretchVideo = prefs.getBoolean(STRETCH_PREF_STRING, DEFAULT_STRETCH);
         config.playHostAudio = prefs.getBoolean(HOST_AUDIO_PREF_STRING, DEFAULT_HOST_AUDIO);
@@ -844,6 +904,10 @@ public class PreferenceConfiguration {
         config.lockScreenAfterDisconnect = prefs.getBoolean(LOCK_SCREEN_AFTER_DISCONNECT_PREF_STRING, DEFAULT_LATENCY_TOAST);
         config.swapQuitAndDisconnect = prefs.getBoolean(SWAP_QUIT_AND_DISCONNECT_PERF_STRING, DEFAULT_LATENCY_TOAST);
         config.absoluteMouseMode = prefs.getBoolean(ABSOLUTE_MOUSE_MODE_PREF_STRING, DEFAULT_ABSOLUTE_MOUSE_MODE);
+        config.mouseFlushMode = getMouseFlushModeValue(prefs);
+        config.touchMouseAcceleration = getTouchMouseAccelerationValue(prefs);
+        config.compositeElements = prefs.getBoolean(COMPOSITE_ELEMENTS_PREF_STRING, DEFAULT_COMPOSITE_ELEMENTS);
+        config.oscGamepadFlushWindowMs = getOscGamepadFlushWindowValue(prefs);
         
         // 对于没有触摸屏的设备，默认启用本地鼠标指针
         boolean hasTouchscreen = context.getPackageManager().hasSystemFeature(PackageManager.FEATURE_TOUCHSCREEN);
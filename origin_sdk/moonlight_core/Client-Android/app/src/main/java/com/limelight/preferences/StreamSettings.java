@@ -59,10 +59,14 @@ import com.limelight.utils.UiHelper;
 import com.limelight.utils.UpdateManager;
 
 import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 
 import com.bumptech.glide.Glide;
@@ -1057,7 +1061,8 @@ public class StreamSettings extends Activity {
                 exportPreference.setEntryValues(nameEntryValues);
 
                 exportPreference.setOnPreferenceChangeListener((preference, newValue) -> {
-                    exportConfigString = superConfigDatabaseHelper.exportConfig(Long.parseLong((String) newValue));
+                    // 记下要导出的配置，选好文件后直接流式写入
+                    exportConfigString = (String) newValue;
                     String fileName = configMap.get(newValue);
                     Intent intent = new Intent(Intent.ACTION_CREATE_DOCUMENT);
                     intent.addCategory(Intent.CATEGORY_OPENABLE);
@@ -1194,11 +1199,13 @@ public class StreamSettings extends Activity {
 
                 if (android.os.Build.VERSION.SDK_INT >= android.os.Build.VERSION_CODES.M) {
                     try {
-                        // 将字符串写入文件
+                        // 将配置写入文件
                         OutputStream outputStream = getContext().getContentResolver().openOutputStream(uri);
                         if (outputStream != null) {
-                            outputStream.write(exportConfigString.getBytes());
-                            outputStream.close();
+                            try (Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8))) {
+                                SuperConfigDatabaseHelper superConfigDatabaseHelper = new SuperConfigDatabaseHelper(getContext());
+                                superConfigDatabaseHelper.exportConfig(Long.parseLong(exportConfigString), writer);
+                            }
                             Toast.makeText(getContext(),"导出配置文件成功",Toast.LENGTH_SHORT).show();
                         }
                     } catch (IOException e) {
@@ -1214,14 +1221,8 @@ public class StreamSettings extends Activity {
                 if (android.os.Build.VERSION.SDK_INT >= android.os.Build.VERSION_CODES.M) {
                     try (InputStream inputStream = getContext().getContentResolver().openInputStream(importUri);
                          BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream))) {
-                        StringBuilder stringBuilder = new StringBuilder();
-                        String line;
-                        while ((line = reader.readLine()) != null) {
-                            stringBuilder.append(line).append("\n");
-                        }
-                        String fileContent = stringBuilder.toString();
                         SuperConfigDatabaseHelper superConfigDatabaseHelper = new SuperConfigDatabaseHelper(getContext());
-                        int errorCode = superConfigDatabaseHelper.importConfig(fileContent);
+                        int errorCode = superConfigDatabaseHelper.importConfig(reader);
                         switch (errorCode){
                             case 0:
                                 Toast.makeText(getContext(),"导入配置文件成功",Toast.LENGTH_SHORT).show();
@@ -1260,14 +1261,8 @@ public class StreamSettings extends Activity {
                 if (android.os.Build.VERSION.SDK_INT >= android.os.Build.VERSION_CODES.M) {
                     try (InputStream inputStream = getContext().getContentResolver().openInputStream(importUri);
                          BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream))) {
-                        StringBuilder stringBuilder = new StringBuilder();
-                        String line;
-                        while ((line = reader.readLine()) != null) {
-                            stringBuilder.append(line).append("\n");
-                        }
-                        String fileContent = stringBuilder.toString();
                         SuperConfigDatabaseHelper superConfigDatabaseHelper = new SuperConfigDatabaseHelper(getContext());
-                        int errorCode = superConfigDatabaseHelper.mergeConfig(fileContent,Long.parseLong(exportConfigString));
+                        int errorCode = superConfigDatabaseHelper.mergeConfig(reader,Long.parseLong(exportConfigString));
                         switch (errorCode){
                             case 0:
                                 Toast.makeText(getContext(),"合并配置文件成功",Toast.LENGTH_SHORT).show();
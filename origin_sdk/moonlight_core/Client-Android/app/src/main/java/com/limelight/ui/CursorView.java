@@ -7,10 +7,18 @@ import android.graphics.Paint;
 import android.graphics.drawable.Drawable;
 import android.util.AttributeSet;
 import android.view.View;
+import android.widget.FrameLayout;
 import androidx.core.content.ContextCompat;
 import com.limelight.R;
 
-public class CursorView extends View {
+/**
+ * 本地光标图层。
+ *
+ * 覆盖层本身与串流画面对齐，光标图片画在一个只有图片大小的子 View 上，
+ * 子 View 使用硬件层，移动光标只修改它的平移量：不会重新执行 onDraw，
+ * 也不会触发测量和布局，RenderThread 直接用新的位置合成已有的纹理。
+ */
+public class CursorView extends FrameLayout {
 
     // 网络接收到的光标
     private Bitmap cursorBitmap;
@@ -25,8 +33,11 @@ public class CursorView extends View {
     // 状态
     private float cursorX = -100;
     private float cursorY = -100;
-    private boolean isVisible = false;
-    private Paint paint = new Paint();
+    // 当前显示的光标的热点
+    private float activePivotX;
+    private float activePivotY;
+
+    private CursorSprite sprite;
 
     // 默认光标大小 (像素)
     private static final int DEFAULT_SIZE = 24;
@@ -43,7 +54,6 @@ public class CursorView extends View {
 
     private void init(Context context) {
         setElevation(100f);
-        setWillNotDraw(false);
 
         // === 加载本地 SVG 作为兜底 ===
         Drawable vectorDrawable = ContextCompat.getDrawable(context, R.drawable.arrow);
@@ -58,6 +68,11 @@ public class CursorView extends View {
             defaultPivotX = DEFAULT_SIZE * (6f / 24f);
             defaultPivotY = DEFAULT_SIZE * (3f / 24f);
         }
+
+        sprite = new CursorSprite(context);
+        sprite.setLayerType(View.LAYER_TYPE_HARDWARE, null);
+        addView(sprite, new LayoutParams(LayoutParams.WRAP_CONTENT, LayoutParams.WRAP_CONTENT));
+        applyBitmap();
     }
 
     /**
@@ -67,57 +82,88 @@ public class CursorView extends View {
         this.cursorBitmap = bitmap;
         this.pivotX = hotX;
         this.pivotY = hotY;
-        invalidate();
+        applyBitmap();
     }
 
     /**
      * 重置为默认光标 (断连或初始化时调用)
      */
     public void resetToDefault() {
-        this.cursorBitmap = null; // 清空网络图片，触发 onDraw 里的回退逻辑
-        invalidate();
+        this.cursorBitmap = null; // 清空网络图片，回退到兜底图
+        applyBitmap();
+    }
+
+    // === 核心逻辑：优先用网络图，没有就用兜底图 ===
+    private void applyBitmap() {
+        if (cursorBitmap != null) {
+            sprite.setBitmap(cursorBitmap);
+            activePivotX = pivotX;
+            activePivotY = pivotY;
+        } else {
+            sprite.setBitmap(defaultCursorBitmap);
+            activePivotX = defaultPivotX;
+            activePivotY = defaultPivotY;
+        }
+        updateCursorPosition(cursorX, cursorY);
     }
 
+    /**
+     * 移动光标，只修改子 View 的平移量，可以在每个触摸采样点调用。
+     */
     public void updateCursorPosition(float x, float y) {
         this.cursorX = x;
         this.cursorY = y;
-        invalidate();
+        sprite.setTranslationX(x - activePivotX);
+        sprite.setTranslationY(y - activePivotY);
     }
 
     public void show() {
-        isVisible = true;
         setVisibility(View.VISIBLE);
     }
 
     public void hide() {
-        isVisible = false;
         setVisibility(View.GONE);
     }
 
-    @Override
-    protected void onDraw(Canvas canvas) {
-        super.onDraw(canvas);
-        if (!isVisible) return;
+    /**
+     * 只绘制光标图片的子 View，大小与图片一致。
+     */
+    private static class CursorSprite extends View {
+        private final Paint paint = new Paint();
+        private Bitmap bitmap;
+
+        CursorSprite(Context context) {
+            super(context);
+        }
 
-        Bitmap bmpToDraw;
-        float pX, pY;
+        void setBitmap(Bitmap bitmap) {
+            if (this.bitmap == bitmap) {
+                return;
+            }
+            boolean sizeChanged = this.bitmap == null || bitmap == null ||
+                    this.bitmap.getWidth() != bitmap.getWidth() ||
+                    this.bitmap.getHeight() != bitmap.getHeight();
+            this.bitmap = bitmap;
+            if (sizeChanged) {
+                requestLayout();
+            }
+            invalidate();
+        }
 
-        // === 核心逻辑：优先用网络图，没有就用兜底图 ===
-        if (cursorBitmap != null) {
-            bmpToDraw = cursorBitmap;
-            pX = pivotX;
-            pY = pivotY;
-        } else {
-            // 兜底方案
-            bmpToDraw = defaultCursorBitmap;
-            pX = defaultPivotX;
-            pY = defaultPivotY;
+        @Override
+        protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+            if (bitmap != null) {
+                setMeasuredDimension(bitmap.getWidth(), bitmap.getHeight());
+            } else {
+                setMeasuredDimension(0, 0);
+            }
         }
 
-        if (bmpToDraw != null) {
-            float left = cursorX - pX;
-            float top = cursorY - pY;
-            canvas.drawBitmap(bmpToDraw, left, top, paint);
+        @Override
+        protected void onDraw(Canvas canvas) {
+            if (bitmap != null) {
+                canvas.drawBitmap(bitmap, 0, 0, paint);
+            }
         }
     }
-}
\ No newline at end of file
+}
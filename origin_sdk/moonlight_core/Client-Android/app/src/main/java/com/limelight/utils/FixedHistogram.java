@@ -0,0 +1,89 @@
+package com.limelight.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 固定桶宽直方图
+ * 记录过程无锁且不分配内存，可以在音频、输入等实时线程上调用；
+ * 超出范围的值计入最后一个桶，百分位返回所在桶的上界。
+ */
+public class FixedHistogram {
+    private final long bucketWidth;
+    private final AtomicLongArray buckets;
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * @param bucketWidth 每个桶覆盖的数值宽度
+     * @param bucketCount 桶数量，可记录的精确范围为 [0, bucketWidth * bucketCount)
+     */
+    public FixedHistogram(long bucketWidth, int bucketCount) {
+        if (bucketWidth <= 0 || bucketCount <= 0) {
+            throw new IllegalArgumentException("Invalid histogram dimensions");
+        }
+        this.bucketWidth = bucketWidth;
+        this.buckets = new AtomicLongArray(bucketCount);
+    }
+
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+
+        int index = (int) Math.min(value / bucketWidth, buckets.length() - 1);
+        buckets.incrementAndGet(index);
+        count.incrementAndGet();
+        sum.addAndGet(value);
+
+        long currentMax;
+        do {
+            currentMax = max.get();
+        } while (value > currentMax && !max.compareAndSet(currentMax, value));
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    public double getMean() {
+        long n = count.get();
+        return n > 0 ? (double) sum.get() / n : 0;
+    }
+
+    /**
+     * @param percentile 百分位（0-100）
+     * @return 百分位所在桶的上界，没有样本时返回0
+     */
+    public long getPercentile(double percentile) {
+        long total = count.get();
+        if (total == 0) {
+            return 0;
+        }
+
+        long target = Math.max(1, (long) Math.ceil(total * percentile / 100.0));
+        long cumulative = 0;
+        int lastBucket = buckets.length() - 1;
+        for (int i = 0; i < lastBucket; i++) {
+            cumulative += buckets.get(i);
+            if (cumulative >= target) {
+                return Math.min((i + 1) * bucketWidth, max.get());
+            }
+        }
+        return max.get();
+    }
+
+    public void reset() {
+        for (int i = 0; i < buckets.length(); i++) {
+            buckets.set(i, 0);
+        }
+        count.set(0);
+        sum.set(0);
+        max.set(0);
+    }
+}
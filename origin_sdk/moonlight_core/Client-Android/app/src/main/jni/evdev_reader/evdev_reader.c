@@ -21,6 +21,9 @@
 
 #define EVDEV_MAX_EVENT_SIZE 24
 
+// Maximum number of input_events read from a device with a single read()
+#define EVDEV_BATCH_EVENTS 64
+
 #define REL_X 0x00
 #define REL_Y 0x01
 #define KEY_Q 16
@@ -64,16 +67,24 @@ static int hasKey(int fd, short key) {
     return test_bit(key, keyBitmask);
 }
 
+// Sends every input_event in data as its own length-prefixed packet, all with a single send()
 static void outputEvdevData(char *data, int dataSize) {
-    char packetBuffer[EVDEV_MAX_EVENT_SIZE + sizeof(dataSize)];
-
-    // Copy the full packet into our buffer
-    memcpy(packetBuffer, &dataSize, sizeof(dataSize));
-    memcpy(&packetBuffer[sizeof(dataSize)], data, dataSize);
+    int eventSize = sizeof(struct input_event);
+    char packetBuffer[EVDEV_BATCH_EVENTS * (EVDEV_MAX_EVENT_SIZE + sizeof(eventSize))];
+    int packetOffset = 0;
+    int dataOffset;
+
+    // Copy each event into our buffer behind its length
+    for (dataOffset = 0; dataOffset + eventSize <= dataSize; dataOffset += eventSize) {
+        memcpy(&packetBuffer[packetOffset], &eventSize, sizeof(eventSize));
+        packetOffset += sizeof(eventSize);
+        memcpy(&packetBuffer[packetOffset], &data[dataOffset], eventSize);
+        packetOffset += eventSize;
+    }
 
     // Lock to prevent other threads from sending at the same time
     pthread_mutex_lock(&SocketSendLock);
-    send(sock, packetBuffer, dataSize + sizeof(dataSize), 0);
+    send(sock, packetBuffer, packetOffset, 0);
     pthread_mutex_unlock(&SocketSendLock);
 }
 
@@ -81,7 +92,7 @@ void* pollThreadFunc(void* context) {
     struct DeviceEntry *device = context;
     struct pollfd pollinfo;
     int pollres, ret;
-    char data[EVDEV_MAX_EVENT_SIZE];
+    char data[EVDEV_BATCH_EVENTS * EVDEV_MAX_EVENT_SIZE];
 
     __android_log_print(ANDROID_LOG_INFO, "EvdevReader", "Polling /dev/input/%s", device->devName);
 
@@ -105,8 +116,10 @@ void* pollThreadFunc(void* context) {
         while (pollres == 0);
 
         if (pollres > 0 && (pollinfo.revents & POLLIN)) {
-            // We'll have data available now
-            ret = read(device->fd, data, EVDEV_MAX_EVENT_SIZE);
+            // We'll have data available now. Read everything queued (up to
+            // EVDEV_BATCH_EVENTS whole events) so a high polling rate mouse
+            // costs one read() and one send() per batch instead of per event.
+            ret = read(device->fd, data, EVDEV_BATCH_EVENTS * sizeof(struct input_event));
             if (ret < 0) {
                 __android_log_print(ANDROID_LOG_ERROR, "EvdevReader",
                                     "read() failed: %d", errno);
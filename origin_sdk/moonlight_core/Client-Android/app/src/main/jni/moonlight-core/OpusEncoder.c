@@ -6,6 +6,7 @@
 typedef struct {
     OpusEncoder* encoder;
     int frameSize;
+    int channels;
 } OpusContext;
 
 JNIEXPORT jlong JNICALL
@@ -19,6 +20,7 @@ Java_com_limelight_binding_audio_OpusEncoder_nativeInit(JNIEnv* env, jclass claz
     
     // 计算每帧采样数 (20ms @ 48kHz = 960 samples)
     ctx->frameSize = sampleRate / 50; // 20ms帧
+    ctx->channels = channels;
     
     // 创建Opus编码器
     ctx->encoder = opus_encoder_create(sampleRate, channels, OPUS_APPLICATION_VOIP, &error);
@@ -102,6 +104,56 @@ Java_com_limelight_binding_audio_OpusEncoder_nativeEncode(JNIEnv* env, jclass cl
     return result;
 }
 
+JNIEXPORT jint JNICALL
+Java_com_limelight_binding_audio_OpusEncoder_nativeEncodeInto(JNIEnv* env, jclass clazz,
+                                                            jlong handle, jbyteArray pcmData,
+                                                            jint offset, jint length,
+                                                            jobject outBuffer, jint outCapacity) {
+    OpusContext* ctx = (OpusContext*)handle;
+    if (ctx == NULL || ctx->encoder == NULL) {
+        return -1;
+    }
+    
+    // 必须是一个完整的帧，否则opus_encode会越界读取
+    if (length < ctx->frameSize * ctx->channels * (int)sizeof(opus_int16)) {
+        return -1;
+    }
+    
+    unsigned char* out = (unsigned char*)(*env)->GetDirectBufferAddress(env, outBuffer);
+    if (out == NULL) {
+        return -1;
+    }
+    
+    // 编码期间不调用其他JNI函数，可以直接锁定数组避免复制
+    jbyte* pcm = (*env)->GetPrimitiveArrayCritical(env, pcmData, NULL);
+    if (pcm == NULL) {
+        return -1;
+    }
+    
+    int encodedLength = opus_encode(ctx->encoder, (const opus_int16*)(pcm + offset),
+                                    ctx->frameSize, out, outCapacity);
+    
+    (*env)->ReleasePrimitiveArrayCritical(env, pcmData, pcm, JNI_ABORT);
+    
+    return encodedLength;
+}
+
+JNIEXPORT void JNICALL
+Java_com_limelight_binding_audio_OpusEncoder_nativeSetNetworkParams(JNIEnv* env, jclass clazz,
+                                                                  jlong handle, jint bitrate,
+                                                                  jboolean enableFec, jint packetLossPerc,
+                                                                  jboolean enableDtx) {
+    OpusContext* ctx = (OpusContext*)handle;
+    if (ctx == NULL || ctx->encoder == NULL) {
+        return;
+    }
+    
+    opus_encoder_ctl(ctx->encoder, OPUS_SET_BITRATE(bitrate));
+    opus_encoder_ctl(ctx->encoder, OPUS_SET_INBAND_FEC(enableFec ? 1 : 0));
+    opus_encoder_ctl(ctx->encoder, OPUS_SET_PACKET_LOSS_PERC(packetLossPerc));
+    opus_encoder_ctl(ctx->encoder, OPUS_SET_DTX(enableDtx ? 1 : 0));
+}
+
 JNIEXPORT void JNICALL
 Java_com_limelight_binding_audio_OpusEncoder_nativeDestroy(JNIEnv* env, jclass clazz, jlong handle) {
     OpusContext* ctx = (OpusContext*)handle;
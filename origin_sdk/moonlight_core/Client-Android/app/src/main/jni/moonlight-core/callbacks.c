@@ -41,6 +41,14 @@ static jmethodID BridgeClSetControllerLEDMethod;
 static jbyteArray DecodedFrameBuffer;
 static jshortArray DecodedAudioBuffer;
 
+// Maximum pending audio (in ms) before we skip packets without decoding them.
+// Configured once from Java via setAudioLatencyBudget(). 0 disables the bound.
+static volatile int AudioLatencyBudgetMs = 40;
+static uint32_t AudioPacketsPlayed;
+static uint32_t AudioPacketsSkipped;
+// Set when packets were skipped since the last decode. Only touched on the audio thread.
+static bool AudioDecoderNeedsReset;
+
 void DetachThread(void* context) {
     (*JVM)->DetachCurrentThread(JVM);
 }
@@ -210,6 +218,10 @@ int BridgeArInit(int audioConfiguration, POPUS_MULTISTREAM_CONFIGURATION opusCon
         err = -1;
     }
     if (err == 0) {
+        __atomic_store_n(&AudioPacketsPlayed, 0, __ATOMIC_RELAXED);
+        __atomic_store_n(&AudioPacketsSkipped, 0, __ATOMIC_RELAXED);
+        AudioDecoderNeedsReset = false;
+
         memcpy(&OpusConfig, opusConfig, sizeof(*opusConfig));
         Decoder = opus_multistream_decoder_create(opusConfig->sampleRate,
                                                   opusConfig->channelCount,
@@ -252,7 +264,24 @@ void BridgeArCleanup() {
 }
 
 void BridgeArDecodeAndPlaySample(char* sampleData, int sampleLength) {
-    JNIEnv* env = GetThreadEnv();
+    JNIEnv* env;
+    int latencyBudgetMs = AudioLatencyBudgetMs;
+
+    // Bound latency before paying for the Opus decode and the JNI upcall
+    if (latencyBudgetMs > 0 && LiGetPendingAudioDuration() >= latencyBudgetMs) {
+        __atomic_add_fetch(&AudioPacketsSkipped, 1, __ATOMIC_RELAXED);
+        AudioDecoderNeedsReset = true;
+        return;
+    }
+
+    if (AudioDecoderNeedsReset) {
+        // The decoder never saw the skipped packets. Reset it once so the next packet is
+        // decoded from a clean state instead of being predicted from stale history.
+        opus_multistream_decoder_ctl(Decoder, OPUS_RESET_STATE);
+        AudioDecoderNeedsReset = false;
+    }
+
+    env = GetThreadEnv();
 
     jshort* decodedData = (*env)->GetPrimitiveArrayCritical(env, DecodedAudioBuffer, NULL);
 
@@ -266,6 +295,8 @@ void BridgeArDecodeAndPlaySample(char* sampleData, int sampleLength) {
         // We must release the array elements before making further JNI calls
         (*env)->ReleasePrimitiveArrayCritical(env, DecodedAudioBuffer, decodedData, 0);
 
+        __atomic_add_fetch(&AudioPacketsPlayed, 1, __ATOMIC_RELAXED);
+
         (*env)->CallStaticVoidMethod(env, GlobalBridgeClass, BridgeArPlaySampleMethod, DecodedAudioBuffer);
         if ((*env)->ExceptionCheck(env)) {
             // We will crash here
@@ -451,6 +482,19 @@ hasFastAes() {
     }
 }
 
+JNIEXPORT void JNICALL
+Java_com_limelight_nvstream_jni_MoonBridge_setAudioLatencyBudget(JNIEnv *env, jclass clazz, jint budgetMs) {
+    AudioLatencyBudgetMs = budgetMs;
+}
+
+JNIEXPORT jlong JNICALL
+Java_com_limelight_nvstream_jni_MoonBridge_getAudioQueueStats(JNIEnv *env, jclass clazz) {
+    uint32_t played = __atomic_load_n(&AudioPacketsPlayed, __ATOMIC_RELAXED);
+    uint32_t skipped = __atomic_load_n(&AudioPacketsSkipped, __ATOMIC_RELAXED);
+
+    return ((uint64_t)played << 32U) | skipped;
+}
+
 JNIEXPORT jint JNICALL
 Java_com_limelight_nvstream_jni_MoonBridge_startConnection(JNIEnv *env, jclass clazz,
                                                            jstring address, jstring appVersion, jstring gfeVersion,
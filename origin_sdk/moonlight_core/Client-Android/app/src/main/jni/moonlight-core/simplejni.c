@@ -124,6 +124,117 @@ Java_com_limelight_nvstream_jni_MoonBridge_sendUtf8Text(JNIEnv *env, jclass claz
     (*env)->ReleaseStringUTFChars(env, text, utf8Text);
 }
 
+// Record layout shared with InputBatch.java
+#define INPUT_BATCH_RECORD_SIZE 40
+#define INPUT_BATCH_OFFSET_BYTE 1
+#define INPUT_BATCH_OFFSET_SHORT 4
+#define INPUT_BATCH_OFFSET_INT 16
+#define INPUT_BATCH_OFFSET_FLOAT 20
+
+#define INPUT_BATCH_TYPE_MOUSE_MOVE 1
+#define INPUT_BATCH_TYPE_MOUSE_POSITION 2
+#define INPUT_BATCH_TYPE_MOUSE_MOVE_AS_POSITION 3
+#define INPUT_BATCH_TYPE_MOUSE_BUTTON 4
+#define INPUT_BATCH_TYPE_KEYBOARD 5
+#define INPUT_BATCH_TYPE_CONTROLLER 6
+#define INPUT_BATCH_TYPE_TOUCH 7
+#define INPUT_BATCH_TYPE_CONTROLLER_MOTION 8
+#define INPUT_BATCH_TYPE_HIGH_RES_SCROLL 9
+#define INPUT_BATCH_TYPE_HIGH_RES_HSCROLL 10
+
+static inline int8_t batchByte(const uint8_t* record, int index) {
+    return (int8_t)record[INPUT_BATCH_OFFSET_BYTE + index];
+}
+
+static inline int16_t batchShort(const uint8_t* record, int index) {
+    int16_t value;
+    memcpy(&value, record + INPUT_BATCH_OFFSET_SHORT + index * sizeof(value), sizeof(value));
+    return value;
+}
+
+static inline int32_t batchInt(const uint8_t* record) {
+    int32_t value;
+    memcpy(&value, record + INPUT_BATCH_OFFSET_INT, sizeof(value));
+    return value;
+}
+
+static inline float batchFloat(const uint8_t* record, int index) {
+    float value;
+    memcpy(&value, record + INPUT_BATCH_OFFSET_FLOAT + index * sizeof(value), sizeof(value));
+    return value;
+}
+
+JNIEXPORT jint JNICALL
+Java_com_limelight_nvstream_jni_MoonBridge_flushInputBatch(JNIEnv *env, jclass clazz, jobject batchBuffer, jint count) {
+    const uint8_t* records;
+    int i;
+
+    if (batchBuffer == NULL || count <= 0) {
+        return 0;
+    }
+
+    if ((jlong)count * INPUT_BATCH_RECORD_SIZE > (*env)->GetDirectBufferCapacity(env, batchBuffer)) {
+        return -1;
+    }
+
+    records = (const uint8_t*)(*env)->GetDirectBufferAddress(env, batchBuffer);
+    if (records == NULL) {
+        return -1;
+    }
+
+    for (i = 0; i < count; i++) {
+        const uint8_t* record = records + i * INPUT_BATCH_RECORD_SIZE;
+
+        switch (record[0]) {
+            case INPUT_BATCH_TYPE_MOUSE_MOVE:
+                LiSendMouseMoveEvent(batchShort(record, 0), batchShort(record, 1));
+                break;
+            case INPUT_BATCH_TYPE_MOUSE_POSITION:
+                LiSendMousePositionEvent(batchShort(record, 0), batchShort(record, 1),
+                                         batchShort(record, 2), batchShort(record, 3));
+                break;
+            case INPUT_BATCH_TYPE_MOUSE_MOVE_AS_POSITION:
+                LiSendMouseMoveAsMousePositionEvent(batchShort(record, 0), batchShort(record, 1),
+                                                    batchShort(record, 2), batchShort(record, 3));
+                break;
+            case INPUT_BATCH_TYPE_MOUSE_BUTTON:
+                LiSendMouseButtonEvent(batchByte(record, 0), batchByte(record, 1));
+                break;
+            case INPUT_BATCH_TYPE_KEYBOARD:
+                LiSendKeyboardEvent2(batchShort(record, 0), batchByte(record, 0),
+                                     batchByte(record, 1), batchByte(record, 2));
+                break;
+            case INPUT_BATCH_TYPE_CONTROLLER:
+                LiSendMultiControllerEvent(batchShort(record, 0), batchShort(record, 1), batchInt(record),
+                                           batchByte(record, 0), batchByte(record, 1),
+                                           batchShort(record, 2), batchShort(record, 3),
+                                           batchShort(record, 4), batchShort(record, 5));
+                break;
+            case INPUT_BATCH_TYPE_TOUCH:
+                LiSendTouchEvent(batchByte(record, 0), batchInt(record),
+                                 batchFloat(record, 0), batchFloat(record, 1), batchFloat(record, 2),
+                                 batchFloat(record, 3), batchFloat(record, 4), batchShort(record, 0));
+                break;
+            case INPUT_BATCH_TYPE_CONTROLLER_MOTION:
+                LiSendControllerMotionEvent(batchByte(record, 0), batchByte(record, 1),
+                                            batchFloat(record, 0), batchFloat(record, 1), batchFloat(record, 2));
+                break;
+            case INPUT_BATCH_TYPE_HIGH_RES_SCROLL:
+                LiSendHighResScrollEvent(batchShort(record, 0));
+                break;
+            case INPUT_BATCH_TYPE_HIGH_RES_HSCROLL:
+                LiSendHighResHScrollEvent(batchShort(record, 0));
+                break;
+            default:
+                __android_log_print(ANDROID_LOG_WARN, "moonlight-common-c",
+                                    "Unknown input batch record type: %d", record[0]);
+                break;
+        }
+    }
+
+    return count;
+}
+
 JNIEXPORT void JNICALL
 Java_com_limelight_nvstream_jni_MoonBridge_stopConnection(JNIEnv *env, jclass clazz) {
     LiStopConnection();
@@ -304,6 +415,24 @@ Java_com_limelight_nvstream_jni_MoonBridge_sendMicrophoneOpusData(JNIEnv *env, j
     return result;
 }
 
+JNIEXPORT jint JNICALL
+Java_com_limelight_nvstream_jni_MoonBridge_sendMicrophoneOpusBuffer(JNIEnv *env, jclass clazz, jobject opusBuffer, jint length) {
+    if (opusBuffer == NULL || length <= 0) {
+        return -1;
+    }
+    
+    if (length > (*env)->GetDirectBufferCapacity(env, opusBuffer)) {
+        return -1;
+    }
+    
+    const unsigned char* data = (const unsigned char*)(*env)->GetDirectBufferAddress(env, opusBuffer);
+    if (data == NULL) {
+        return -1;
+    }
+    
+    return sendMicrophoneOpusData(data, (int)length);
+}
+
 JNIEXPORT jboolean JNICALL
 Java_com_limelight_nvstream_jni_MoonBridge_isMicrophoneEncryptionEnabled(JNIEnv *env, jclass clazz) {
     return isMicrophoneEncryptionEnabled() ? JNI_TRUE : JNI_FALSE;
@@ -11,10 +11,10 @@ import com.limelight.binding.input.capture.InputCaptureProvider;
 import java.io.DataOutputStream;
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.OutputStream;
-import java.net.ServerSocket;
-import java.net.Socket;
+import java.net.InetSocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
 
 public class EvdevCaptureProvider extends InputCaptureProvider {
 
@@ -22,11 +22,11 @@ public class EvdevCaptureProvider extends InputCaptureProvider {
     private final String libraryPath;
 
     private boolean shutdown = false;
-    private InputStream evdevIn;
+    private EvdevReader evdevReader;
     private OutputStream evdevOut;
     private Process su;
-    private ServerSocket servSock;
-    private Socket evdevSock;
+    private ServerSocketChannel servSock;
+    private SocketChannel evdevSock;
     private Activity activity;
     private boolean started = false;
 
@@ -36,20 +36,17 @@ public class EvdevCaptureProvider extends InputCaptureProvider {
     private final Thread handlerThread = new Thread() {
         @Override
         public void run() {
-            int deltaX = 0;
-            int deltaY = 0;
-            byte deltaVScroll = 0;
-            byte deltaHScroll = 0;
-
             // Bind a local listening socket for evdevreader to connect to
             try {
-                servSock = new ServerSocket(0, 1);
+                servSock = ServerSocketChannel.open();
+                servSock.socket().bind(new InetSocketAddress(0), 1);
             } catch (IOException e) {
                 e.printStackTrace();
                 return;
             }
 
-            final String evdevReaderCmd = libraryPath+File.separatorChar+"libevdev_reader.so "+servSock.getLocalPort();
+            final int port = servSock.socket().getLocalPort();
+            final String evdevReaderCmd = libraryPath+File.separatorChar+"libevdev_reader.so "+port;
 
             // On Nougat and later, we'll need to pass the command directly to SU.
             // Writing to SU's input stream after it has started doesn't seem to work anymore.
@@ -88,114 +85,145 @@ public class EvdevCaptureProvider extends InputCaptureProvider {
             }
 
             // Wait for evdevreader's connection
-            LimeLog.info("Waiting for EvdevReader connection to port "+servSock.getLocalPort());
+            LimeLog.info("Waiting for EvdevReader connection to port "+port);
             try {
                 evdevSock = servSock.accept();
-                evdevIn = evdevSock.getInputStream();
-                evdevOut = evdevSock.getOutputStream();
+                evdevReader = new EvdevReader(evdevSock);
+                evdevOut = evdevSock.socket().getOutputStream();
             } catch (IOException e) {
                 e.printStackTrace();
                 return;
             }
-            LimeLog.info("EvdevReader connected from port "+evdevSock.getPort());
+            LimeLog.info("EvdevReader connected from port "+evdevSock.socket().getPort());
 
+            // Note: The EvdevReader process already filters input events when grabbing
+            // is not enabled, so we don't need to that here.
             while (!isInterrupted() && !shutdown) {
-                EvdevEvent event;
+                boolean more;
                 try {
-                    event = EvdevReader.read(evdevIn);
+                    more = evdevReader.readBatch(eventHandler);
                 } catch (IOException e) {
-                    event = null;
+                    more = false;
                 }
-                if (event == null) {
+                if (!more) {
                     break;
                 }
+            }
+        }
+    };
 
-                // Note: The EvdevReader process already filters input events when grabbing
-                // is not enabled, so we don't need to that here.
-
-                switch (event.type) {
-                    case EvdevEvent.EV_SYN:
-                        if (deltaX != 0 || deltaY != 0) {
-                            listener.mouseMove(deltaX, deltaY);
-                            deltaX = deltaY = 0;
-                        }
-                        if (deltaVScroll != 0) {
-                            listener.mouseVScroll(deltaVScroll);
-                            deltaVScroll = 0;
-                        }
-                        if (deltaHScroll != 0) {
-                            listener.mouseHScroll(deltaHScroll);
-                            deltaHScroll = 0;
-                        }
-                        break;
-
-                    case EvdevEvent.EV_REL:
-                        switch (event.code) {
-                            case EvdevEvent.REL_X:
-                                deltaX = event.value;
-                                break;
-                            case EvdevEvent.REL_Y:
-                                deltaY = event.value;
-                                break;
-                            case EvdevEvent.REL_HWHEEL:
-                                deltaHScroll = (byte) event.value;
-                                break;
-                            case EvdevEvent.REL_WHEEL:
-                                deltaVScroll = (byte) event.value;
-                                break;
-                        }
-                        break;
-
-                    case EvdevEvent.EV_KEY:
-                        switch (event.code) {
-                            case EvdevEvent.BTN_LEFT:
-                                listener.mouseButtonEvent(EvdevListener.BUTTON_LEFT,
-                                        event.value != 0);
-                                break;
-                            case EvdevEvent.BTN_MIDDLE:
-                                listener.mouseButtonEvent(EvdevListener.BUTTON_MIDDLE,
-                                        event.value != 0);
-                                break;
-                            case EvdevEvent.BTN_RIGHT:
-                                listener.mouseButtonEvent(EvdevListener.BUTTON_RIGHT,
-                                        event.value != 0);
-                                break;
-
-                            case EvdevEvent.BTN_SIDE:
-                                listener.mouseButtonEvent(EvdevListener.BUTTON_X1,
-                                        event.value != 0);
-                                break;
-
-                            case EvdevEvent.BTN_EXTRA:
-                                listener.mouseButtonEvent(EvdevListener.BUTTON_X2,
-                                        event.value != 0);
-                                break;
-
-                            case EvdevEvent.BTN_FORWARD:
-                            case EvdevEvent.BTN_BACK:
-                            case EvdevEvent.BTN_TASK:
-                                // Other unhandled mouse buttons
-                                break;
-
-                            default:
-                                // We got some unrecognized button. This means
-                                // someone is trying to use the other device in this
-                                // "combination" input device. We'll try to handle
-                                // it via keyboard, but we're not going to disconnect
-                                // if we can't
-                                short keyCode = EvdevTranslator.translateEvdevKeyCode(event.code);
-                                if (keyCode != 0) {
-                                    listener.keyboardEvent(event.value != 0, keyCode);
-                                }
-                                break;
-                        }
-                        break;
-
-                    case EvdevEvent.EV_MSC:
-                        break;
-                }
+    // Collapses each SYN_REPORT-delimited group of mouse events into a single
+    // EvdevListener.mouseReport() call. Only touched on the handler thread.
+    private final EvdevReader.EventHandler eventHandler = new EvdevReader.EventHandler() {
+        private int deltaX;
+        private int deltaY;
+        private int deltaVScroll;
+        private int deltaHScroll;
+        // Bit (1 << EvdevListener.BUTTON_*) set for buttons that changed or are down
+        private int changedButtons;
+        private int pressedButtons;
+
+        @Override
+        public void onEvent(short type, short code, int value) {
+            switch (type) {
+                case EvdevEvent.EV_SYN:
+                    flushReport();
+                    break;
+
+                case EvdevEvent.EV_REL:
+                    switch (code) {
+                        case EvdevEvent.REL_X:
+                            deltaX += value;
+                            break;
+                        case EvdevEvent.REL_Y:
+                            deltaY += value;
+                            break;
+                        case EvdevEvent.REL_HWHEEL:
+                            deltaHScroll += value;
+                            break;
+                        case EvdevEvent.REL_WHEEL:
+                            deltaVScroll += value;
+                            break;
+                    }
+                    break;
+
+                case EvdevEvent.EV_KEY:
+                    switch (code) {
+                        case EvdevEvent.BTN_LEFT:
+                            setButton(EvdevListener.BUTTON_LEFT, value != 0);
+                            break;
+                        case EvdevEvent.BTN_MIDDLE:
+                            setButton(EvdevListener.BUTTON_MIDDLE, value != 0);
+                            break;
+                        case EvdevEvent.BTN_RIGHT:
+                            setButton(EvdevListener.BUTTON_RIGHT, value != 0);
+                            break;
+
+                        case EvdevEvent.BTN_SIDE:
+                            setButton(EvdevListener.BUTTON_X1, value != 0);
+                            break;
+
+                        case EvdevEvent.BTN_EXTRA:
+                            setButton(EvdevListener.BUTTON_X2, value != 0);
+                            break;
+
+                        case EvdevEvent.BTN_FORWARD:
+                        case EvdevEvent.BTN_BACK:
+                        case EvdevEvent.BTN_TASK:
+                            // Other unhandled mouse buttons
+                            break;
+
+                        default:
+                            // We got some unrecognized button. This means
+                            // someone is trying to use the other device in this
+                            // "combination" input device. We'll try to handle
+                            // it via keyboard, but we're not going to disconnect
+                            // if we can't
+                            short keyCode = EvdevTranslator.translateEvdevKeyCode(code);
+                            if (keyCode != 0) {
+                                listener.keyboardEvent(value != 0, keyCode);
+                            }
+                            break;
+                    }
+                    break;
+
+                case EvdevEvent.EV_MSC:
+                    break;
             }
         }
+
+        private void setButton(int buttonId, boolean down) {
+            int bit = 1 << buttonId;
+            if ((changedButtons & bit) != 0) {
+                // A second transition of the same button within one group
+                // must not be merged away, so report what we have first
+                flushReport();
+            }
+            changedButtons |= bit;
+            if (down) {
+                pressedButtons |= bit;
+            }
+            else {
+                pressedButtons &= ~bit;
+            }
+        }
+
+        private void flushReport() {
+            if (changedButtons == 0 && deltaX == 0 && deltaY == 0 &&
+                    deltaVScroll == 0 && deltaHScroll == 0) {
+                return;
+            }
+
+            listener.mouseReport(deltaX, deltaY, changedButtons, pressedButtons,
+                    clampScroll(deltaVScroll), clampScroll(deltaHScroll));
+            deltaX = deltaY = 0;
+            deltaVScroll = deltaHScroll = 0;
+            changedButtons = 0;
+        }
+
+        private byte clampScroll(int amount) {
+            return (byte) Math.max(Byte.MIN_VALUE, Math.min(Byte.MAX_VALUE, amount));
+        }
     };
 
     public EvdevCaptureProvider(Activity activity, EvdevListener listener) {
@@ -318,14 +346,6 @@ public class EvdevCaptureProvider extends InputCaptureProvider {
                     }
                 }
 
-                if (evdevIn != null) {
-                    try {
-                        evdevIn.close();
-                    } catch (IOException e) {
-                        e.printStackTrace();
-                    }
-                }
-
                 if (evdevOut != null) {
                     try {
                         evdevOut.close();
@@ -1,58 +1,73 @@
 package com.limelight.binding.input.evdev;
 
 import java.io.IOException;
-import java.io.InputStream;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.channels.ReadableByteChannel;
 
 import com.limelight.LimeLog;
 
+/**
+ * Reads the evdev_reader stream in batches.
+ *
+ * Each read() pulls as many length-prefixed input_event packets as are available into a
+ * reusable direct buffer. Complete packets are decoded in place and handed to the
+ * EventHandler without allocating; a trailing partial packet is kept for the next read.
+ */
 public class EvdevReader {
-    private static void readAll(InputStream in, ByteBuffer bb) throws IOException {
-        byte[] buf = bb.array();
-        int ret;
-        int offset = 0;
-
-        while (offset < buf.length) {
-            ret = in.read(buf, offset, buf.length-offset);
-            if (ret <= 0) {
-                throw new IOException("Read failed: "+ret);
-            }
+    public interface EventHandler {
+        void onEvent(short type, short code, int value);
+    }
 
-            offset += ret;
-        }
+    // Room for several SYN_REPORT groups from a high polling rate mouse
+    private static final int MAX_BATCH_EVENTS = 256;
+    private static final int PACKET_HEADER_SIZE = 4;
+
+    private final ReadableByteChannel channel;
+    // Filled from position to limit by read(), drained by decode() and compacted
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(
+            MAX_BATCH_EVENTS * (PACKET_HEADER_SIZE + EvdevEvent.EVDEV_MAX_EVENT_SIZE))
+            .order(ByteOrder.nativeOrder());
+
+    public EvdevReader(ReadableByteChannel channel) {
+        this.channel = channel;
     }
 
-    // Takes a byte buffer to use to read the output into.
-    // This buffer MUST be in native byte order and at least
-    // EVDEV_MAX_EVENT_SIZE bytes long.
-    public static EvdevEvent read(InputStream input) throws IOException {
-        ByteBuffer bb;
-        int packetLength;
-
-        // Read the packet length
-        bb = ByteBuffer.allocate(4).order(ByteOrder.nativeOrder());
-        readAll(input, bb);
-        packetLength = bb.getInt();
-
-        if (packetLength < EvdevEvent.EVDEV_MIN_EVENT_SIZE) {
-            LimeLog.warning("Short read: "+packetLength);
-            return null;
+    // Reads once from the channel and dispatches every complete event. Returns false
+    // on end of stream or a malformed packet.
+    public boolean readBatch(EventHandler handler) throws IOException {
+        if (channel.read(buffer) < 0) {
+            return false;
         }
 
-        // Read the rest of the packet
-        bb = ByteBuffer.allocate(packetLength).order(ByteOrder.nativeOrder());
-        readAll(input, bb);
-
-        // Throw away the time stamp
-        if (packetLength == EvdevEvent.EVDEV_MAX_EVENT_SIZE) {
-            bb.getLong();
-            bb.getLong();
-        } else {
-            bb.getInt();
-            bb.getInt();
-        }
+        buffer.flip();
+        try {
+            while (buffer.remaining() >= PACKET_HEADER_SIZE) {
+                int start = buffer.position();
+                int packetLength = buffer.getInt(start);
+
+                if (packetLength != EvdevEvent.EVDEV_MIN_EVENT_SIZE &&
+                        packetLength != EvdevEvent.EVDEV_MAX_EVENT_SIZE) {
+                    LimeLog.warning("Bad evdev packet length: "+packetLength);
+                    return false;
+                }
+                if (buffer.remaining() < PACKET_HEADER_SIZE + packetLength) {
+                    // Wait for the rest of this packet
+                    break;
+                }
+
+                // Skip the time stamp (64-bit or 32-bit timeval)
+                int eventOffset = start + PACKET_HEADER_SIZE +
+                        (packetLength == EvdevEvent.EVDEV_MAX_EVENT_SIZE ? 16 : 8);
+                handler.onEvent(buffer.getShort(eventOffset),
+                        buffer.getShort(eventOffset + 2),
+                        buffer.getInt(eventOffset + 4));
 
-        return new EvdevEvent(bb.getShort(), bb.getShort(), bb.getInt());
+                buffer.position(start + PACKET_HEADER_SIZE + packetLength);
+            }
+        } finally {
+            buffer.compact();
+        }
+        return true;
     }
 }
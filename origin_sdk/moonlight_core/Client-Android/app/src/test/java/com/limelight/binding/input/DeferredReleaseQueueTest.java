@@ -0,0 +1,148 @@
+package com.limelight.binding.input;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.limelight.nvstream.input.ControllerPacket;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class DeferredReleaseQueueTest {
+    private static final int A_FLAG = ControllerPacket.A_FLAG;
+    private static final int B_FLAG = ControllerPacket.B_FLAG;
+    private static final int BACK_FLAG = ControllerPacket.BACK_FLAG;
+    private static final int PLAY_FLAG = ControllerPacket.PLAY_FLAG;
+    private static final long MIN_PRESS_MS = 25;
+
+    private DeferredReleaseQueue queue;
+
+    @Before
+    public void setUp() {
+        queue = new DeferredReleaseQueue();
+    }
+
+    @Test
+    public void releaseIsHeldUntilDue() {
+        // A tapped for 5 ms at t=100
+        queue.add(A_FLAG, false, false, 100 + MIN_PRESS_MS);
+
+        assertEquals(125, queue.getNextDueTime());
+        assertFalse(queue.takeDue(124));
+        assertEquals(1, queue.size());
+
+        assertTrue(queue.takeDue(125));
+        assertEquals(A_FLAG, queue.getTakenFlags());
+        assertEquals(0, queue.size());
+        assertEquals(-1, queue.getNextDueTime());
+    }
+
+    @Test
+    public void pressingAnotherButtonKeepsPendingRelease() {
+        // Tap A, then press B inside A's minimum press window
+        queue.add(A_FLAG, false, false, 100 + MIN_PRESS_MS);
+
+        assertFalse(queue.takeButtons(B_FLAG, false, false));
+        assertEquals(0, queue.getTakenFlags());
+        assertEquals(1, queue.size());
+        assertEquals(125, queue.getNextDueTime());
+    }
+
+    @Test
+    public void repressingSameButtonTakesItsReleaseOnly() {
+        queue.add(A_FLAG, false, false, 100 + MIN_PRESS_MS);
+        queue.add(B_FLAG, false, false, 105 + MIN_PRESS_MS);
+
+        assertTrue(queue.takeButtons(A_FLAG, false, false));
+        assertEquals(A_FLAG, queue.getTakenFlags());
+        assertEquals(1, queue.size());
+        assertEquals(130, queue.getNextDueTime());
+    }
+
+    @Test
+    public void repressThroughAliasedKeyTakesRelease() {
+        // KEYCODE_BACK tapped, then re-pressed as KEYCODE_BUTTON_SELECT. Both set BACK_FLAG,
+        // so the pending release must come out before the new press.
+        queue.add(BACK_FLAG, false, false, 100 + MIN_PRESS_MS);
+        queue.add(PLAY_FLAG, false, false, 102 + MIN_PRESS_MS);
+
+        assertTrue(queue.takeButtons(BACK_FLAG, false, false));
+        assertEquals(BACK_FLAG, queue.getTakenFlags());
+
+        // Nothing left that could clear BACK_FLAG while it is held again
+        assertTrue(queue.takeDue(Long.MAX_VALUE));
+        assertEquals(PLAY_FLAG, queue.getTakenFlags());
+    }
+
+    @Test
+    public void rapidTapsOfSameButtonAlternate() {
+        // A tapped three times, each tap 5 ms long and 5 ms apart
+        long downTime = 100;
+        for (int tap = 0; tap < 3; tap++) {
+            // Down: the previous tap's release must come first
+            boolean hadPending = queue.takeButtons(A_FLAG, false, false);
+            assertEquals(tap > 0, hadPending);
+            if (hadPending) {
+                assertEquals(A_FLAG, queue.getTakenFlags());
+            }
+
+            // Up after 5 ms
+            queue.add(A_FLAG, false, false, downTime + MIN_PRESS_MS);
+            assertEquals(1, queue.size());
+            downTime += 10;
+        }
+
+        // The last tap is released on its own due time
+        assertFalse(queue.takeDue(downTime - 10 + MIN_PRESS_MS - 1));
+        assertTrue(queue.takeDue(downTime - 10 + MIN_PRESS_MS));
+        assertEquals(A_FLAG, queue.getTakenFlags());
+    }
+
+    @Test
+    public void releasesAreAppliedOnTheirOwnDueTimes() {
+        // B queued before A but due later, A must not wait for B
+        queue.add(B_FLAG, false, false, 140);
+        queue.add(A_FLAG, false, false, 120);
+
+        assertEquals(120, queue.getNextDueTime());
+        assertTrue(queue.takeDue(120));
+        assertEquals(A_FLAG, queue.getTakenFlags());
+        assertEquals(140, queue.getNextDueTime());
+
+        assertTrue(queue.takeDue(140));
+        assertEquals(B_FLAG, queue.getTakenFlags());
+    }
+
+    @Test
+    public void triggerReleasesAreTracked() {
+        queue.add(0, true, false, 125);
+
+        assertFalse(queue.takeButtons(0, false, true));
+        assertTrue(queue.takeButtons(0, true, false));
+        assertEquals(0, queue.getTakenFlags());
+        assertTrue(queue.isLeftTriggerTaken());
+        assertFalse(queue.isRightTriggerTaken());
+    }
+
+    @Test
+    public void fullQueueTakesEarliestRelease() {
+        for (int i = 0; i < DeferredReleaseQueue.CAPACITY; i++) {
+            assertFalse(queue.add(1 << i, false, false, 200 - i));
+        }
+
+        // The last entry added is the earliest due
+        assertTrue(queue.add(B_FLAG, false, false, 300));
+        assertEquals(1 << (DeferredReleaseQueue.CAPACITY - 1), queue.getTakenFlags());
+        assertEquals(DeferredReleaseQueue.CAPACITY, queue.size());
+    }
+
+    @Test
+    public void clearDropsPendingReleases() {
+        queue.add(A_FLAG, false, false, 125);
+        queue.clear();
+
+        assertEquals(0, queue.size());
+        assertFalse(queue.takeDue(Long.MAX_VALUE));
+    }
+}
@@ -0,0 +1,134 @@
+package com.limelight.binding.input;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class MotionSampleWalkerTest {
+    /**
+     * A batched move event: times[s] and x/y/pressure[pointer][s], the last sample being the current one.
+     */
+    private static class FakeSamples implements MotionSampleWalker.Samples {
+        private final long[] times;
+        private final float[][] xs;
+        private final float[][] ys;
+        private final float[][] pressures;
+
+        FakeSamples(long[] times, float[][] xs, float[][] ys, float[][] pressures) {
+            this.times = times;
+            this.xs = xs;
+            this.ys = ys;
+            this.pressures = pressures;
+        }
+
+        private int index(int pos) {
+            return pos == MotionSampleWalker.CURRENT ? times.length - 1 : pos;
+        }
+
+        @Override
+        public int getHistorySize() {
+            return times.length - 1;
+        }
+
+        @Override
+        public int getPointerCount() {
+            return xs.length;
+        }
+
+        @Override
+        public long getEventTime(int pos) {
+            return times[index(pos)];
+        }
+
+        @Override
+        public float getX(int pointerIndex, int pos) {
+            return xs[pointerIndex][index(pos)];
+        }
+
+        @Override
+        public float getY(int pointerIndex, int pos) {
+            return ys[pointerIndex][index(pos)];
+        }
+
+        @Override
+        public float getPressure(int pointerIndex, int pos) {
+            return pressures[pointerIndex][index(pos)];
+        }
+    }
+
+    private static class RecordingSender implements MotionSampleWalker.Sender {
+        final List<String> sent = new ArrayList<>();
+        int failAt = -1;
+
+        @Override
+        public boolean send(int pointerIndex, int samplePos, long eventTime, float x, float y, float pressure) {
+            sent.add(pointerIndex + "@" + samplePos + " t=" + eventTime + " " + x + "," + y + " p=" + pressure);
+            return sent.size() - 1 != failAt;
+        }
+    }
+
+    private static FakeSamples twoFingersThreeSamples() {
+        return new FakeSamples(
+                new long[]{100, 108, 116},
+                new float[][]{{1, 2, 3}, {10, 20, 30}},
+                new float[][]{{4, 5, 6}, {40, 50, 60}},
+                new float[][]{{0.1f, 0.2f, 0.3f}, {0.4f, 0.5f, 0.6f}});
+    }
+
+    @Test
+    public void samplesAreSentOldestFirstWithCurrentLast() {
+        RecordingSender sender = new RecordingSender();
+        assertTrue(MotionSampleWalker.forEachSample(twoFingersThreeSamples(), sender));
+
+        assertEquals(6, sender.sent.size());
+        assertEquals("0@0 t=100 1.0,4.0 p=0.1", sender.sent.get(0));
+        assertEquals("1@0 t=100 10.0,40.0 p=0.4", sender.sent.get(1));
+        assertEquals("0@1 t=108 2.0,5.0 p=0.2", sender.sent.get(2));
+        assertEquals("1@1 t=108 20.0,50.0 p=0.5", sender.sent.get(3));
+        assertEquals("0@-1 t=116 3.0,6.0 p=0.3", sender.sent.get(4));
+        assertEquals("1@-1 t=116 30.0,60.0 p=0.6", sender.sent.get(5));
+    }
+
+    @Test
+    public void singlePointerSamplesAreSentInTimeOrder() {
+        RecordingSender sender = new RecordingSender();
+        assertTrue(MotionSampleWalker.forEachSample(twoFingersThreeSamples(), 1, sender));
+
+        assertEquals(3, sender.sent.size());
+        assertEquals("1@0 t=100 10.0,40.0 p=0.4", sender.sent.get(0));
+        assertEquals("1@1 t=108 20.0,50.0 p=0.5", sender.sent.get(1));
+        assertEquals("1@-1 t=116 30.0,60.0 p=0.6", sender.sent.get(2));
+    }
+
+    @Test
+    public void eventWithoutHistorySendsOnlyCurrentSample() {
+        FakeSamples samples = new FakeSamples(
+                new long[]{200},
+                new float[][]{{7}},
+                new float[][]{{8}},
+                new float[][]{{1}});
+        RecordingSender sender = new RecordingSender();
+        assertTrue(MotionSampleWalker.forEachSample(samples, sender));
+
+        assertEquals(1, sender.sent.size());
+        assertEquals("0@-1 t=200 7.0,8.0 p=1.0", sender.sent.get(0));
+    }
+
+    @Test
+    public void failedSendStopsTheWalk() {
+        RecordingSender sender = new RecordingSender();
+        sender.failAt = 2;
+        assertFalse(MotionSampleWalker.forEachSample(twoFingersThreeSamples(), sender));
+        assertEquals(3, sender.sent.size());
+
+        sender = new RecordingSender();
+        sender.failAt = 0;
+        assertFalse(MotionSampleWalker.forEachSample(twoFingersThreeSamples(), 0, sender));
+        assertEquals(1, sender.sent.size());
+    }
+}
@@ -0,0 +1,149 @@
+package com.limelight.binding.input.touch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class NativeTouchPointerTableTest {
+    private static final float SCREEN_WIDTH = 2000f;
+    private static final float DELTA = 0.0001f;
+
+    private NativeTouchPointerTable table;
+
+    @Before
+    public void setUp() {
+        NativeTouchContext.INTIAL_ZONE_PIXELS = 0f;
+        NativeTouchContext.POINTER_VELOCITY_FACTOR = 1.0f;
+        NativeTouchContext.ENHANCED_TOUCH_ON_RIGHT = 1;
+        NativeTouchContext.ENHANCED_TOUCH_ZONE_DIVIDER = 0.5f;
+
+        table = new NativeTouchPointerTable() {
+            @Override
+            float getScreenWidth() {
+                return SCREEN_WIDTH;
+            }
+        };
+    }
+
+    @Test
+    public void tenFingersInterleavedDownMoveUp() {
+        long time = 1000;
+
+        // Fingers land one by one, each move touching every finger already down
+        for (int id = 0; id < 10; id++) {
+            assertNotNull(table.add(id, id * 100f, 50f, time));
+            assertEquals(id + 1, table.getActiveCount());
+
+            time += 8;
+            for (int moved = 0; moved <= id; moved++) {
+                assertNotNull(table.update(moved, moved * 100f + 1, 50f + id, time));
+            }
+        }
+
+        for (int id = 0; id < 10; id++) {
+            NativeTouchContext.Pointer pointer = table.get(id);
+            assertEquals(id * 100f + 1, pointer.getLatestX(), DELTA);
+            assertEquals(59f, pointer.getLatestY(), DELTA);
+            assertEquals(id * 100f, pointer.getInitialX(), DELTA);
+            assertEquals(time, pointer.getLatestEventTime());
+        }
+
+        // Odd fingers lift while the even ones keep moving
+        for (int id = 1; id < 10; id += 2) {
+            table.remove(id);
+            time += 8;
+            for (int moved = 0; moved < 10; moved += 2) {
+                assertNotNull(table.update(moved, moved * 100f + 2, 70f, time));
+            }
+        }
+        assertEquals(5, table.getActiveCount());
+
+        // Moves reported for lifted fingers are ignored
+        assertNull(table.update(3, 999f, 999f, time + 1));
+        assertNull(table.get(3));
+
+        NativeTouchContext.Pointer even = table.get(4);
+        assertEquals(402f, even.getLatestX(), DELTA);
+        assertEquals(70f, even.getLatestY(), DELTA);
+        assertEquals(time, even.getLatestEventTime());
+
+        table.clear();
+        assertEquals(0, table.getActiveCount());
+    }
+
+    @Test
+    public void reusedIdStartsFromNewContact() {
+        NativeTouchContext.Pointer first = table.add(2, 100f, 100f, 10);
+        table.update(2, 300f, 400f, 18);
+        table.remove(2);
+
+        // Android hands the same id to the next finger, the slot must not keep the old track
+        NativeTouchContext.Pointer second = table.add(2, 1500f, 20f, 40);
+        assertSame(first, second);
+        assertEquals(1500f, second.getInitialX(), DELTA);
+        assertEquals(1500f, second.getLatestX(), DELTA);
+        assertEquals(20f, second.getLatestY(), DELTA);
+        assertEquals(0f, second.getVelocityX(), DELTA);
+        assertEquals(40, second.getLatestEventTime());
+        assertEquals(1, table.getActiveCount());
+    }
+
+    @Test
+    public void enhancedZoneIsDecidedOnFirstContact() {
+        NativeTouchContext.POINTER_VELOCITY_FACTOR = 2.0f;
+
+        // Right half is the enhanced touch zone
+        NativeTouchContext.Pointer left = table.add(0, 400f, 100f, 0);
+        NativeTouchContext.Pointer right = table.add(1, 1600f, 100f, 0);
+
+        // Moving across the divider doesn't change the decision
+        table.update(0, 1200f, 100f, 8);
+        table.update(1, 1610f, 100f, 8);
+
+        assertEquals(1200f, left.getSelectedX(), DELTA);
+        assertEquals(1620f, right.getSelectedX(), DELTA);
+        assertEquals(10f, right.getVelocityX(), DELTA);
+    }
+
+    @Test
+    public void longPressJitterIsFlattened() {
+        NativeTouchContext.INTIAL_ZONE_PIXELS = 5f;
+
+        NativeTouchContext.Pointer pointer = table.add(0, 100f, 100f, 0);
+        table.update(0, 103f, 97f, 8);
+        assertEquals(100f, pointer.getLatestX(), DELTA);
+        assertEquals(100f, pointer.getLatestY(), DELTA);
+
+        table.update(0, 110f, 100f, 16);
+        assertEquals(110f, pointer.getLatestX(), DELTA);
+
+        // Once out of the flat region, small moves are reported as is
+        table.update(0, 108f, 100f, 24);
+        assertEquals(108f, pointer.getLatestX(), DELTA);
+    }
+
+    @Test
+    public void idsOutsideTheTableAreRejected() {
+        for (int id = 0; id < NativeTouchPointerTable.MAX_POINTERS; id++) {
+            assertNotNull(table.add(id, 10f, 10f, 0));
+        }
+        assertEquals(NativeTouchPointerTable.MAX_POINTERS, table.getActiveCount());
+
+        assertNull(table.add(NativeTouchPointerTable.MAX_POINTERS, 10f, 10f, 0));
+        assertNull(table.add(-1, 10f, 10f, 0));
+        assertNull(table.update(NativeTouchPointerTable.MAX_POINTERS, 20f, 20f, 8));
+        assertNull(table.get(NativeTouchPointerTable.MAX_POINTERS));
+        table.remove(NativeTouchPointerTable.MAX_POINTERS);
+
+        // The overflow didn't disturb the slots in use
+        assertEquals(NativeTouchPointerTable.MAX_POINTERS, table.getActiveCount());
+        NativeTouchContext.Pointer last = table.get(NativeTouchPointerTable.MAX_POINTERS - 1);
+        assertEquals(NativeTouchPointerTable.MAX_POINTERS - 1, last.getPointerId());
+        assertEquals(10f, last.getLatestX(), DELTA);
+        assertNotNull(table.get(0));
+    }
+}